@@ -20,9 +20,12 @@ import reactor.core.alloc.Recyclable;
 import reactor.core.support.Assert;
 import reactor.core.support.UUIDUtils;
 import reactor.fn.Consumer;
+import reactor.fn.Supplier;
 import reactor.fn.tuple.Tuple;
 import reactor.fn.tuple.Tuple2;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
 
@@ -265,7 +268,7 @@ public class Event<T> implements Serializable, Recyclable {
   public void recycle() {
     this.id = null;
     if (null != this.headers) {
-      this.headers.headers.clear();
+      this.headers.clear();
     }
     this.replyTo = null;
     this.key = null;
@@ -310,6 +313,8 @@ public class Event<T> implements Serializable, Recyclable {
     private final Object monitor = UUIDUtils.create();
     private final Map<String, Object> headers;
 
+    private transient List<Supplier<? extends Map<String, Object>>> pending;
+
     private Headers(boolean sealed, Map<String, Object> headers) {
       Map<String, Object> copy = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER);
       copyHeaders(headers, copy);
@@ -352,12 +357,40 @@ public class Event<T> implements Serializable, Recyclable {
         return this;
       } else {
         synchronized (this.monitor) {
+          resolvePending();
           copyHeaders(headers, this.headers);
         }
       }
       return this;
     }
 
+    /**
+     * Sets all of the headers represented by entries in the {@link Map} provided by the given {@link Supplier}, as if
+     * by {@link #setAll(Map)}, but only when these headers are next read or modified. This spares the cost of computing
+     * headers that no one looks at. The {@code Supplier} is called at most once, possibly from another thread.
+     * Suppliers set this way pile up and are all called, in the order they were set, when the headers are first
+     * looked at; a {@code Supplier} equal to one that's already pending isn't added again.
+     *
+     * @param headers
+     *     The supplier of the headers to set.
+     *
+     * @return {@code this}
+     */
+    public Headers setAllLazily(Supplier<? extends Map<String, Object>> headers) {
+      if (null == headers) {
+        return this;
+      }
+      synchronized (this.monitor) {
+        if (null == pending) {
+          pending = new ArrayList<Supplier<? extends Map<String, Object>>>(2);
+        } else if (pending.contains(headers)) {
+          return this;
+        }
+        pending.add(headers);
+      }
+      return this;
+    }
+
     /**
      * Set the header value. If {@code value} is {@code null} the header with the given {@code name} will be removed.
      *
@@ -370,6 +403,7 @@ public class Event<T> implements Serializable, Recyclable {
      */
     public <V> Headers set(String name, V value) {
       synchronized (this.monitor) {
+        resolvePending();
         setHeader(name, value, headers);
       }
       return this;
@@ -396,6 +430,7 @@ public class Event<T> implements Serializable, Recyclable {
      */
     public String getOrigin() {
       synchronized (this.monitor) {
+        resolvePending();
         return (String) headers.get(ORIGIN);
       }
     }
@@ -411,6 +446,7 @@ public class Event<T> implements Serializable, Recyclable {
      */
     public Headers setOrigin(String id) {
       synchronized (this.monitor) {
+        resolvePending();
         setHeader(ORIGIN, id, headers);
       }
       return this;
@@ -427,6 +463,7 @@ public class Event<T> implements Serializable, Recyclable {
     @SuppressWarnings("unchecked")
     public <V> V get(String name) {
       synchronized (monitor) {
+        resolvePending();
         return (V) headers.get(name);
       }
     }
@@ -441,6 +478,7 @@ public class Event<T> implements Serializable, Recyclable {
      */
     public boolean contains(String name) {
       synchronized (monitor) {
+        resolvePending();
         return headers.containsKey(name);
       }
     }
@@ -452,6 +490,7 @@ public class Event<T> implements Serializable, Recyclable {
      */
     public Map<String, Object> asMap() {
       synchronized (monitor) {
+        resolvePending();
         return Collections.unmodifiableMap(headers);
       }
     }
@@ -463,6 +502,7 @@ public class Event<T> implements Serializable, Recyclable {
      */
     public Headers readOnly() {
       synchronized (monitor) {
+        resolvePending();
         return new Headers(true, headers);
       }
     }
@@ -473,6 +513,7 @@ public class Event<T> implements Serializable, Recyclable {
     @Override
     public Iterator<Tuple2<String, Object>> iterator() {
       synchronized (this.monitor) {
+        resolvePending();
         List<Tuple2<String, Object>> headers = new ArrayList<Tuple2<String, Object>>(this.headers.size());
         for (Map.Entry<String, Object> header : this.headers.entrySet()) {
           headers.add(Tuple.of(header.getKey(), header.getValue()));
@@ -483,7 +524,34 @@ public class Event<T> implements Serializable, Recyclable {
 
     @Override
     public String toString() {
-      return headers.toString();
+      synchronized (this.monitor) {
+        resolvePending();
+        return headers.toString();
+      }
+    }
+
+    private void clear() {
+      synchronized (this.monitor) {
+        pending = null;
+        headers.clear();
+      }
+    }
+
+    private void resolvePending() {
+      if (null != pending) {
+        List<Supplier<? extends Map<String, Object>>> suppliers = pending;
+        pending = null;
+        for (Supplier<? extends Map<String, Object>> supplier : suppliers) {
+          copyHeaders(supplier.get(), headers);
+        }
+      }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+      synchronized (this.monitor) {
+        resolvePending();
+        out.defaultWriteObject();
+      }
     }
 
     private void copyHeaders(Map<String, Object> source, Map<String, Object> target) {
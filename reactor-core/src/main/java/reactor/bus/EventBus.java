@@ -26,6 +26,7 @@ import reactor.bus.registry.Registry;
 import reactor.bus.routing.ConsumerFilteringRouter;
 import reactor.bus.routing.Router;
 import reactor.bus.selector.ClassSelector;
+import reactor.bus.selector.HeaderResolver;
 import reactor.bus.selector.Selector;
 import reactor.bus.selector.Selectors;
 import reactor.bus.spec.EventBusSpec;
@@ -43,6 +44,7 @@ import javax.annotation.Nullable;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -299,23 +301,84 @@ public class EventBus implements Observable<Event<?>>, Consumer<Event<?>> {
 		Assert.notNull(selector, "Selector cannot be null.");
 		Assert.notNull(consumer, "Consumer cannot be null.");
 
-		final Class<?> tClass = extractGeneric(consumer);
+		Class<?> tClass = extractGeneric(consumer);
+		HeaderResolver headerResolver = selector.getHeaderResolver();
 
-		Consumer<T> proxyConsumer = new Consumer<T>() {
-				@Override
-				public void accept(T e) {
-					if (null != selector.getHeaderResolver()) {
-						e.getHeaders().setAll(selector.getHeaderResolver().resolve(e.getKey()));
-					}
-					if (tClass == null || e.getData() == null || tClass.isAssignableFrom(e.getData().getClass())) {
-						consumer.accept(e);
-					}
-				}
-			};
+		Consumer<T> proxyConsumer;
+		if (null == tClass && null == headerResolver) {
+			proxyConsumer = consumer;
+		} else {
+			proxyConsumer = new ConsumerProxy<T>(consumer, tClass, headerResolver);
+		}
 
 		return consumerRegistry.register(selector, proxyConsumer);
 	}
 
+	/**
+	 * Applies the type check and header resolution that were worked out when a {@link Consumer} was registered.
+	 */
+	private static final class ConsumerProxy<T extends Event<?>> implements Consumer<T> {
+		private final Consumer<T>    delegate;
+		private final Class<?>       tClass;
+		private final HeaderResolver headerResolver;
+
+		private ConsumerProxy(Consumer<T> delegate, Class<?> tClass, HeaderResolver headerResolver) {
+			this.delegate = delegate;
+			this.tClass = tClass;
+			this.headerResolver = headerResolver;
+		}
+
+		@Override
+		public void accept(T e) {
+			if (null != headerResolver) {
+				e.getHeaders().setAllLazily(new ResolvedHeaders(headerResolver, e.getKey()));
+			}
+			if (null == tClass) {
+				delegate.accept(e);
+				return;
+			}
+			Object data = e.getData();
+			if (null == data || tClass.isInstance(data)) {
+				delegate.accept(e);
+			}
+		}
+	}
+
+	/**
+	 * Defers running a {@link HeaderResolver} until a consumer actually reads the {@link Event.Headers}.
+	 */
+	private static final class ResolvedHeaders implements Supplier<Map<String, Object>> {
+		private final HeaderResolver headerResolver;
+		private final Object         key;
+
+		private ResolvedHeaders(HeaderResolver headerResolver, Object key) {
+			this.headerResolver = headerResolver;
+			this.key = key;
+		}
+
+		@Override
+		public Map<String, Object> get() {
+			return headerResolver.resolve(key);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof ResolvedHeaders)) {
+				return false;
+			}
+			ResolvedHeaders that = (ResolvedHeaders) o;
+			return headerResolver.equals(that.headerResolver) && (null == key ? null == that.key : key.equals(that.key));
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * headerResolver.hashCode() + (null == key ? 0 : key.hashCode());
+		}
+	}
+
 	private Class<?> extractGeneric(Consumer<? extends Event<?>> consumer) {
 		if(consumer.getClass().getGenericInterfaces().length == 0) return null;
 
@@ -332,11 +395,14 @@ public class EventBus implements Observable<Event<?>>, Consumer<Event<?>> {
 				if(pt.getActualTypeArguments().length == 0) return null;
 
 				Type t1 = pt.getActualTypeArguments()[0];
+				Class<?> c = null;
 				if (t1 instanceof ParameterizedType) {
-					return (Class<?>) ((ParameterizedType) t1).getRawType();
+					c = (Class<?>) ((ParameterizedType) t1).getRawType();
 				} else if (t1 instanceof Class) {
-					return (Class<?>) t1;
+					c = (Class<?>) t1;
 				}
+				// every payload is an Object, so there's nothing to check
+				return (Object.class == c ? null : c);
 			}
 		}
 		return null;
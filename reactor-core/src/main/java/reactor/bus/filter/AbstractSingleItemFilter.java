@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2011-2014 Pivotal Software, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package reactor.bus.filter;
+
+import reactor.core.support.Assert;
+
+import java.util.Collections;
+import java.util.List;
+
+abstract class AbstractSingleItemFilter extends AbstractFilter implements SingleItemFilter {
+
+	@Override
+	public final int select(List<?> items, Object key) {
+		Assert.notNull(items, "items must not be null");
+		return doSelect(items, key);
+	}
+
+	@Override
+	protected final <T> List<T> doFilter(List<T> items, Object key) {
+		int index = doSelect(items, key);
+		if (index < 0) {
+			return Collections.emptyList();
+		} else {
+			return Collections.singletonList(items.get(index));
+		}
+	}
+
+	protected abstract int doSelect(List<?> items, Object key);
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2011-2014 Pivotal Software, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package reactor.bus.filter;
+
+import reactor.core.support.Assert;
+
+import java.util.List;
+
+/**
+ * A {@link Filter} implementation that returns a single item. The item is selected by
+ * hashing the {@code key} together with each item and picking the item with the highest
+ * score (rendezvous hashing), so a given key keeps going to the same item for as long as
+ * that item is present. Adding or removing an item only moves the keys that hashed to it.
+ * <p>
+ * Items are told apart by their {@link Object#hashCode() hash codes}, so they should have
+ * stable and reasonably distinct ones, as identity hash codes are.
+ *
+ * @author Jon Brisbin
+ *
+ */
+public final class ConsistentHashFilter extends AbstractSingleItemFilter {
+
+	@Override
+	protected int doSelect(List<?> items, Object key) {
+		Assert.notNull(key, "'key' must not be null");
+		int size = items.size();
+		if (size <= 1) {
+			return size - 1;
+		}
+
+		long keyHash = ((long)key.hashCode()) << 32;
+		int selected = 0;
+		long highest = Long.MIN_VALUE;
+		for (int i = 0; i < size; i++) {
+			Object item = items.get(i);
+			long score = mix(keyHash | (null != item ? item.hashCode() & 0xFFFFFFFFL : 0));
+			if (score > highest) {
+				highest = score;
+				selected = i;
+			}
+		}
+		return selected;
+	}
+
+	// the finalizer of MurmurHash3's 64-bit variant
+	private static long mix(long h) {
+		h ^= (h >>> 33);
+		h *= 0xff51afd7ed558ccdL;
+		h ^= (h >>> 33);
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= (h >>> 33);
+		return h;
+	}
+
+}
@@ -16,7 +16,6 @@
 
 package reactor.bus.filter;
 
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -25,14 +24,10 @@ import java.util.List;
  * @author Stephane Maldini
  *
  */
-public final class FirstFilter extends AbstractFilter {
+public final class FirstFilter extends AbstractSingleItemFilter {
 
 	@Override
-	public <T> List<T> doFilter(List<T> items, Object key) {
-		if (items.isEmpty()) {
-			return items;
-		} else {
-			return Collections.singletonList(items.get(0));
-		}
+	protected int doSelect(List<?> items, Object key) {
+		return (items.isEmpty() ? -1 : 0);
 	}
 }
@@ -16,9 +16,8 @@
 
 package reactor.bus.filter;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A {@link Filter} implementation that returns a single, randomly selected item.
@@ -26,16 +25,15 @@ import java.util.Random;
  * @author Andy Wilkinson
  *
  */
-public final class RandomFilter extends AbstractFilter {
-
-	private final Random random = new Random();
+public final class RandomFilter extends AbstractSingleItemFilter {
 
 	@Override
-	public <T> List<T> doFilter(List<T> items, Object key) {
-		if (items.isEmpty()) {
-			return items;
+	protected int doSelect(List<?> items, Object key) {
+		int size = items.size();
+		if (size <= 1) {
+			return size - 1;
 		} else {
-			return Collections.singletonList(items.get(random.nextInt(items.size())));
+			return ThreadLocalRandom.current().nextInt(size);
 		}
 	}
 }
@@ -18,65 +18,65 @@ package reactor.bus.filter;
 
 import reactor.core.support.Assert;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * A {@link Filter} implementation that returns a single item. The item is selected
  * using a round-robin algorithm based on the number of times the {@code key} has been
  * passed into the filter.
+ * <p>
+ * Usage is counted in a fixed-size table of counters, indexed by the hash of the key, so
+ * the filter never locks and its memory use doesn't grow with the number of distinct keys.
+ * Keys that share a counter share their rotation, which still spreads their items evenly.
  *
  * @author Andy Wilkinson
+ * @author Jon Brisbin
  *
  */
-public final class RoundRobinFilter extends AbstractFilter {
+public final class RoundRobinFilter extends AbstractSingleItemFilter {
 
-	private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+	private static final int DEFAULT_STRIPES = 1024;
+	// counters are spaced a cache line apart so that busy keys don't contend on the same line
+	private static final int PADDING         = 8;
 
-	private final Lock readLock = readWriteLock.readLock();
+	private final AtomicLongArray usageCounts;
+	private final int             mask;
 
-	private final Lock writeLock = readWriteLock.writeLock();
+	/**
+	 * Create a {@code RoundRobinFilter} with the default number of counters.
+	 */
+	public RoundRobinFilter() {
+		this(DEFAULT_STRIPES);
+	}
 
-	private final Map<Object, AtomicLong> usageCounts = new HashMap<Object, AtomicLong>();
+	/**
+	 * Create a {@code RoundRobinFilter} with the given number of counters.
+	 *
+	 * @param stripes The number of usage counters to share between keys. Rounded up to the next power of two.
+	 */
+	public RoundRobinFilter(int stripes) {
+		Assert.isTrue(stripes > 0, "'stripes' must be greater than 0");
+		int size = 1 << (32 - Integer.numberOfLeadingZeros(stripes - 1));
+		this.usageCounts = new AtomicLongArray(size * PADDING);
+		this.mask = size - 1;
+	}
 
 	@Override
-	public <T> List<T> doFilter(List<T> items, Object key) {
+	protected int doSelect(List<?> items, Object key) {
 		Assert.notNull(key, "'key' must not be null");
 		if (items.isEmpty()) {
-			return items;
+			return -1;
 		} else {
-			int index = (int)(getUsageCount(key).getAndIncrement() % (items.size()));
-			return Collections.singletonList(items.get(index));
+			long usage = usageCounts.getAndIncrement(stripe(key) * PADDING);
+			return (int)((usage & Long.MAX_VALUE) % items.size());
 		}
 	}
 
-	private AtomicLong getUsageCount(Object key) {
-		readLock.lock();
-		try {
-			AtomicLong usageCount = this.usageCounts.get(key);
-			if (usageCount == null) {
-				readLock.unlock();
-				writeLock.lock();
-				try {
-					usageCount = this.usageCounts.get(key);
-					if (usageCount == null) {
-						usageCount = new AtomicLong();
-						this.usageCounts.put(key, usageCount);
-					}
-				} finally {
-					writeLock.unlock();
-					readLock.lock();
-				}
-			}
-			return usageCount;
-		} finally {
-			readLock.unlock();
-		}
+	private int stripe(Object key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return h & mask;
 	}
 
 }
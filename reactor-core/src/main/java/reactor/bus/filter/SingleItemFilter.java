@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2011-2014 Pivotal Software, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package reactor.bus.filter;
+
+import java.util.List;
+
+/**
+ * A {@link Filter} that keeps at most one item and can tell which one without building a {@code List}.
+ *
+ * @author Jon Brisbin
+ *
+ */
+public interface SingleItemFilter extends Filter {
+
+	/**
+	 * Selects one of the given {@code items}. The {@code key} may be used by an implementation to
+	 * influence the selection. The result is the item that {@link #filter(List, Object)} would return.
+	 *
+	 * @param items The items to select from. Must not be {@code null}.
+	 * @param key The key
+	 *
+	 * @return The index of the selected item, or {@code -1} if no item is selected.
+	 *
+	 * @throws IllegalArgumentException if {@code items} is null
+	 */
+	int select(List<?> items, Object key);
+
+}
@@ -21,10 +21,12 @@ import com.gs.collections.api.list.MutableList;
 import com.gs.collections.impl.list.mutable.FastList;
 import com.gs.collections.impl.list.mutable.MultiReaderFastList;
 import com.gs.collections.impl.map.mutable.UnifiedMap;
+import reactor.bus.selector.SelectionContext;
 import reactor.bus.selector.Selector;
 import reactor.fn.Consumer;
 import reactor.jarjar.jsr166e.ConcurrentHashMapV8;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -112,13 +114,25 @@ public class CachingRegistry<T> implements Registry<T> {
 
 		// cache not used or cache miss
 		cacheMiss(key);
-		selectedRegs = FastList.newList();
-
-		// find Registrations based on Selector
-		for (Registration<? extends T> reg : this) {
-			if (reg.getSelector().matches(key)) {
-				selectedRegs.add(reg);
+		FastList<Registration<? extends T>> matched = FastList.newList();
+
+		// find Registrations based on Selector, letting Selectors share what they derive from the key
+		SelectionContext ctx = SelectionContext.open(key);
+		try {
+			for (Registration<? extends T> reg : this) {
+				if (!reg.isCancelled() && reg.getSelector().matches(key)) {
+					matched.add(reg);
+				}
 			}
+		} finally {
+			ctx.close();
+		}
+		// hand out a compact, read-only snapshot since it may be shared through the cache
+		if (matched.isEmpty()) {
+			selectedRegs = Collections.emptyList();
+		} else {
+			matched.trimToSize();
+			selectedRegs = Collections.unmodifiableList(matched);
 		}
 		if (useCache && (!selectedRegs.isEmpty() || cacheNotFound)) {
 			allRegs.put(key, selectedRegs);
@@ -20,6 +20,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.bus.Event;
 import reactor.bus.filter.Filter;
+import reactor.bus.filter.PassThroughFilter;
+import reactor.bus.filter.SingleItemFilter;
 import reactor.bus.registry.Registration;
 import reactor.core.support.Assert;
 import reactor.core.support.Exceptions;
@@ -31,14 +33,20 @@ import java.util.List;
 /**
  * An {@link Router} that {@link Filter#filter filters} consumers before routing events to
  * them.
+ * <p>
+ * A {@link PassThroughFilter} or a {@link SingleItemFilter} is applied without building
+ * an intermediate {@code List}, and an event for a single consumer is handed to it
+ * directly.
  *
  * @author Andy Wilkinson
  * @author Stephane Maldini
  */
 public class ConsumerFilteringRouter implements Router {
 
-	private final Logger logger = LoggerFactory.getLogger(getClass());
-	private final Filter               filter;
+	private final Logger           logger = LoggerFactory.getLogger(getClass());
+	private final Filter           filter;
+	private final SingleItemFilter singleItemFilter;
+	private final boolean          passThrough;
 
 	/**
 	 * Creates a new {@code ConsumerFilteringEventRouter} that will use the {@code filter} to filter consumers.
@@ -50,43 +58,31 @@ public class ConsumerFilteringRouter implements Router {
 		Assert.notNull(filter, "filter must not be null");
 
 		this.filter = filter;
+		this.singleItemFilter = (filter instanceof SingleItemFilter ? (SingleItemFilter) filter : null);
+		this.passThrough = (filter instanceof PassThroughFilter);
 	}
 
 	@Override
-	@SuppressWarnings("unchecked")
 	public <E extends Event<?>> void route(Object key, E event,
 	                      List<Registration<? extends Consumer<? extends Event<?>>>> consumers,
 	                      Consumer<E> completionConsumer,
 	                      Consumer<Throwable> errorConsumer) {
-		if (null != consumers && !consumers.isEmpty()) {
-			List<Registration<? extends Consumer<? extends Event<?>>>> regs = filter.filter(consumers, key);
-			int size = regs.size();
-			// old-school for loop is much more efficient than using an iterator
-			for (int i = 0; i < size; i++) {
-				Registration<? extends Consumer<? extends Event<?>>> reg = regs.get(i);
-
-				if (null == reg || reg.isCancelled() || reg.isPaused()) {
-					continue;
+		int size = (null != consumers ? consumers.size() : 0);
+		if (size == 1 && (passThrough || null != singleItemFilter)) {
+			invoke(consumers.get(0), event, errorConsumer);
+		} else if (size > 0) {
+			if (null != singleItemFilter) {
+				int index = singleItemFilter.select(consumers, key);
+				if (index >= 0) {
+					invoke(consumers.get(index), event, errorConsumer);
 				}
-				try {
-					((Consumer<E>)reg.getObject()).accept(event);
-				} catch (CancelConsumerException cancel) {
-					reg.cancel();
-				} catch (Throwable t) {
-					if (null != errorConsumer) {
-						errorConsumer.accept(Exceptions.addValueAsLastCause(t, event));
-					} else {
-						logger.error("Event routing failed for {}: {}", reg.getObject(), t.getMessage(), t);
-						if (RuntimeException.class.isInstance(t)) {
-							throw (RuntimeException) t;
-						} else {
-							throw new IllegalStateException(t);
-						}
-					}
-				} finally {
-					if (reg.isCancelAfterUse()) {
-						reg.cancel();
-					}
+			} else {
+				List<Registration<? extends Consumer<? extends Event<?>>>> regs =
+						(passThrough ? consumers : filter.filter(consumers, key));
+				int filtered = regs.size();
+				// old-school for loop is much more efficient than using an iterator
+				for (int i = 0; i < filtered; i++) {
+					invoke(regs.get(i), event, errorConsumer);
 				}
 			}
 		}
@@ -103,6 +99,35 @@ public class ConsumerFilteringRouter implements Router {
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private <E extends Event<?>> void invoke(Registration<? extends Consumer<? extends Event<?>>> reg,
+	                                         E event,
+	                                         Consumer<Throwable> errorConsumer) {
+		if (null == reg || reg.isCancelled() || reg.isPaused()) {
+			return;
+		}
+		try {
+			((Consumer<E>)reg.getObject()).accept(event);
+		} catch (CancelConsumerException cancel) {
+			reg.cancel();
+		} catch (Throwable t) {
+			if (null != errorConsumer) {
+				errorConsumer.accept(Exceptions.addValueAsLastCause(t, event));
+			} else {
+				logger.error("Event routing failed for {}: {}", reg.getObject(), t.getMessage(), t);
+				if (RuntimeException.class.isInstance(t)) {
+					throw (RuntimeException) t;
+				} else {
+					throw new IllegalStateException(t);
+				}
+			}
+		} finally {
+			if (reg.isCancelAfterUse()) {
+				reg.cancel();
+			}
+		}
+	}
+
 	/**
 	 * Returns the {@code Filter} being used
 	 *
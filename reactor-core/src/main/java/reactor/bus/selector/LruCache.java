@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2011-2014 Pivotal Software, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package reactor.bus.selector;
+
+import reactor.jarjar.jsr166e.ConcurrentHashMapV8;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small, thread-safe cache that holds at most {@code maxSize} entries, evicting the least-recently-used ones when it
+ * grows past that. Used by {@link Selector Selectors} to remember what they derived from keys without growing for
+ * every unique key.
+ * <p>
+ * Reads don't lock: recency is approximated by stamping an entry with the number of insertions made so far when it's
+ * read. Entries read between the same two insertions are equally recent. Eviction is done by one thread at a time and
+ * removes a batch of the oldest entries at once, so that it doesn't have to run on every miss.
+ *
+ * @author Jon Brisbin
+ */
+final class LruCache<K, V> {
+
+	private final ConcurrentHashMapV8<K, Entry<V>> entries  = new ConcurrentHashMapV8<K, Entry<V>>();
+	private final AtomicLong                       clock    = new AtomicLong();
+	private final AtomicBoolean                    evicting = new AtomicBoolean();
+	private final int                              maxSize;
+	private final int                              evictTo;
+
+	LruCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.evictTo = maxSize - maxSize / 8;
+	}
+
+	V get(K key) {
+		Entry<V> e = entries.get(key);
+		if (null == e) {
+			return null;
+		}
+		long now = clock.get();
+		if (e.stamp != now) {
+			e.stamp = now;
+		}
+		return e.value;
+	}
+
+	void put(K key, V value) {
+		entries.put(key, new Entry<V>(value, clock.getAndIncrement()));
+		if (entries.size() > maxSize) {
+			evict();
+		}
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	private void evict() {
+		// a thread that finds another one evicting leaves it to that thread, which checks the size again when it's done
+		while (entries.size() > maxSize && evicting.compareAndSet(false, true)) {
+			try {
+				evictOldest(entries.size() - evictTo);
+			} finally {
+				evicting.set(false);
+			}
+		}
+	}
+
+	private void evictOldest(int count) {
+		long[] stamps = new long[entries.size() + 16];
+		int n = 0;
+		for (Entry<V> e : entries.values()) {
+			if (n == stamps.length) {
+				break;
+			}
+			stamps[n++] = e.stamp;
+		}
+		if (n == 0) {
+			return;
+		}
+		Arrays.sort(stamps, 0, n);
+		long oldest = stamps[Math.max(Math.min(count, n), 1) - 1];
+		for (Map.Entry<K, Entry<V>> e : entries.entrySet()) {
+			if (e.getValue().stamp <= oldest) {
+				entries.remove(e.getKey(), e.getValue());
+			}
+		}
+	}
+
+	private static final class Entry<V> {
+		private final    V    value;
+		private volatile long stamp;
+
+		private Entry(V value, long stamp) {
+			this.value = value;
+			this.stamp = stamp;
+		}
+	}
+
+}
@@ -17,7 +17,10 @@
 package reactor.bus.selector;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -33,18 +36,25 @@ import java.util.regex.Pattern;
  * This would match keys like:
  * <p/>
  * <code>"event1"</code>, <code>"event23"</code>, or <code>"event9"</code>
+ * <p/>
+ * The literal text a pattern starts with is checked before the regex engine runs, so keys that obviously don't match
+ * are rejected cheaply, and {@link Matcher Matchers} are reused per thread. The headers of a matching key contain every
+ * group as {@code group1}, {@code group2}, etc. and every named group under its own name.
  *
  * @author Jon Brisbin
  * @author Andy Wilkinson
  */
 public class RegexSelector extends ObjectSelector<Pattern> {
 
+	private static final String META_CHARS = "\\^$.|?*+()[]{}";
+	private static final String QUANTIFIERS = "?*+{";
+
 	private final HeaderResolver headerResolver = new HeaderResolver() {
 		@Nullable
 		@Override
 		public Map<String, Object> resolve(Object key) {
-			Matcher m = getObject().matcher(key.toString());
-			if(!m.matches()) {
+			Matcher m = (null != key ? match(key.toString()) : null);
+			if(null == m) {
 				return null;
 			}
 			int groups = m.groupCount();
@@ -54,10 +64,24 @@ public class RegexSelector extends ObjectSelector<Pattern> {
 				String value = m.group(i);
 				headers.put(name, value);
 			}
+			for(String name : groupNames) {
+				headers.put(name, m.group(name));
+			}
 			return headers;
 		}
 	};
 
+	private final ThreadLocal<Matcher> matchers = new ThreadLocal<Matcher>() {
+		@Override
+		protected Matcher initialValue() {
+			return getObject().matcher("");
+		}
+	};
+
+	private final String       prefix;
+	private final boolean      literal;
+	private final List<String> groupNames;
+
 	/**
 	 * Create a {@link Selector} when the given regex pattern.
 	 *
@@ -66,6 +90,15 @@ public class RegexSelector extends ObjectSelector<Pattern> {
 	 */
 	public RegexSelector(String pattern) {
 		super(Pattern.compile(pattern));
+
+		int end = literalPrefixLength(pattern);
+		this.literal = (end == pattern.length());
+		if(!literal && end > 0 && QUANTIFIERS.indexOf(pattern.charAt(end)) >= 0) {
+			// the last literal character is optional or repeated
+			end--;
+		}
+		this.prefix = pattern.substring(0, end);
+		this.groupNames = groupNames(pattern);
 	}
 
 	/**
@@ -82,8 +115,13 @@ public class RegexSelector extends ObjectSelector<Pattern> {
 
 	@Override
 	public boolean matches(Object key) {
-		return key instanceof String
-				&& getObject().matcher((String)key).matches();
+		if(!(key instanceof String)) {
+			return false;
+		}
+		if(literal) {
+			return prefix.equals(key);
+		}
+		return null != match((String)key);
 	}
 
 	@Override
@@ -91,4 +129,59 @@ public class RegexSelector extends ObjectSelector<Pattern> {
 		return headerResolver;
 	}
 
+	private Matcher match(String key) {
+		if(!key.startsWith(prefix)) {
+			return null;
+		}
+		Matcher m = matchers.get();
+		m.reset(key);
+		return (m.matches() ? m : null);
+	}
+
+	private static int literalPrefixLength(String pattern) {
+		if(pattern.indexOf('|') >= 0) {
+			// an alternation may start with anything
+			return 0;
+		}
+		int len = pattern.length();
+		for(int i = 0; i < len; i++) {
+			if(META_CHARS.indexOf(pattern.charAt(i)) >= 0) {
+				return i;
+			}
+		}
+		return len;
+	}
+
+	private static List<String> groupNames(String pattern) {
+		List<String> names = null;
+		int idx = 0;
+		while((idx = pattern.indexOf("(?<", idx)) >= 0) {
+			idx += 3;
+			if(escaped(pattern, idx - 3)) {
+				continue;
+			}
+			int end = idx;
+			while(end < pattern.length() && Character.isLetterOrDigit(pattern.charAt(end))) {
+				end++;
+			}
+			if(end > idx && end < pattern.length() && pattern.charAt(end) == '>'
+					&& Character.isLetter(pattern.charAt(idx))) {
+				if(null == names) {
+					names = new ArrayList<String>();
+				}
+				names.add(pattern.substring(idx, end));
+			}
+		}
+		return (null != names ? names : Collections.<String>emptyList());
+	}
+
+	private static boolean escaped(String pattern, int idx) {
+		int backslashes = 0;
+		while(idx > 0 && pattern.charAt(idx - 1) == '\\') {
+			backslashes++;
+			idx--;
+		}
+		return backslashes % 2 == 1;
+	}
+
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2011-2014 Pivotal Software, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package reactor.bus.selector;
+
+/**
+ * Per-thread scratch space that lives for the duration of one selection, that is while a {@link
+ * reactor.bus.registry.Registry} asks each of its {@link Selector Selectors} whether it matches a key. Selectors that
+ * derive something expensive from the key, like a parsed document, can store it here so the next {@code Selector}
+ * doesn't have to derive it again.
+ * <p>
+ * Outside of a selection nothing is cached, so {@link Selector#matches(Object)} still works when it is called directly.
+ *
+ * @author Jon Brisbin
+ */
+public final class SelectionContext {
+
+	private static final ThreadLocal<SelectionContext> CURRENT = new ThreadLocal<SelectionContext>();
+
+	private final Object           key;
+	private final SelectionContext parent;
+
+	private Object[] entries;
+	private int      size;
+
+	private SelectionContext(Object key, SelectionContext parent) {
+		this.key = key;
+		this.parent = parent;
+	}
+
+	/**
+	 * Start a selection for the given key on the current thread. Must be followed by {@link #close()}, on the same
+	 * thread, once the selection is done.
+	 *
+	 * @param key
+	 * 		the key being selected
+	 *
+	 * @return the new context
+	 */
+	public static SelectionContext open(Object key) {
+		SelectionContext ctx = new SelectionContext(key, CURRENT.get());
+		CURRENT.set(ctx);
+		return ctx;
+	}
+
+	/**
+	 * End this selection, discarding everything that was cached.
+	 */
+	public void close() {
+		if (null != parent) {
+			CURRENT.set(parent);
+		} else {
+			CURRENT.remove();
+		}
+	}
+
+	/**
+	 * Get the value that was derived from {@code key} by {@code owner} during the current selection.
+	 *
+	 * @param key
+	 * 		the key being matched
+	 * @param owner
+	 * 		whatever the value was derived with, compared by identity
+	 *
+	 * @return the cached value or {@literal null} if there is none or no selection for {@code key} is in progress
+	 */
+	public static Object get(Object key, Object owner) {
+		SelectionContext ctx = CURRENT.get();
+		if (null == ctx || ctx.key != key) {
+			return null;
+		}
+		for (int i = 0; i < ctx.size; i += 2) {
+			if (ctx.entries[i] == owner) {
+				return ctx.entries[i + 1];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Remember a value derived from {@code key} by {@code owner} until the current selection ends. Does nothing if no
+	 * selection for {@code key} is in progress.
+	 *
+	 * @param key
+	 * 		the key being matched
+	 * @param owner
+	 * 		whatever the value was derived with, compared by identity
+	 * @param value
+	 * 		the derived value
+	 */
+	public static void put(Object key, Object owner, Object value) {
+		SelectionContext ctx = CURRENT.get();
+		if (null == ctx || ctx.key != key) {
+			return;
+		}
+		if (null == ctx.entries) {
+			ctx.entries = new Object[4];
+		} else if (ctx.size == ctx.entries.length) {
+			Object[] newEntries = new Object[ctx.size * 2];
+			System.arraycopy(ctx.entries, 0, newEntries, 0, ctx.size);
+			ctx.entries = newEntries;
+		}
+		ctx.entries[ctx.size++] = owner;
+		ctx.entries[ctx.size++] = value;
+	}
+
+}
@@ -17,15 +17,22 @@
 package reactor.bus.selector;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Represents a URI template. A URI template is a URI-like String that contains variables enclosed by braces
  * (<code>{</code>, <code>}</code>), which can be expanded to produce an actual URI.
+ * <p>
+ * A variable such as {@code {id}} matches any text up to the next {@code /} or {@code .}, while {@code {path}**}
+ * matches any text at all, including slashes. An anonymous {@code **} matches any text and {@code *} matches any text
+ * within a single segment. Everything else is matched literally.
+ * <p>
+ * The template is compiled into a sequence of literal and wildcard parts that is matched against a URI without regular
+ * expressions. Instances are thread-safe, and the variables extracted from recently matched URIs are kept in a
+ * bounded cache.
  *
  * @author Arjen Poutsma
  * @author Juergen Hoeller
@@ -34,24 +41,32 @@ import java.util.regex.Pattern;
  */
 public class UriPathTemplate {
 
-	private static final Pattern FULL_SPLAT_PATTERN     = Pattern.compile("[\\*][\\*]");
-	private static final String  FULL_SPLAT_REPLACEMENT = ".*";
-
-	private static final Pattern NAME_SPLAT_PATTERN     = Pattern.compile("\\{([^/]+?)\\}[\\*][\\*]");
-	// TODO: JDK 6 doesn't support named capture groups
-	//private static final String  NAME_SPLAT_REPLACEMENT = "(?<%NAME%>.*)";
-	private static final String  NAME_SPLAT_REPLACEMENT = "(.*)";
-
-	private static final Pattern NAME_PATTERN     = Pattern.compile("\\{([^/]+?)\\}");
-	// TODO: JDK 6 doesn't support named capture groups
-	//private static final String  NAME_REPLACEMENT = "(?<%NAME%>[^\\/.]*)";
-	private static final String  NAME_REPLACEMENT = "([^\\/.]*)";
+	private static final int DEFAULT_CACHE_SIZE = 1024;
+
+	private static final int LITERAL    = 0;
+	// text up to the next '/' or '.', captured
+	private static final int VARIABLE   = 1;
+	// any text, captured
+	private static final int SPLAT_VAR  = 2;
+	// any text
+	private static final int SPLAT      = 3;
+	// text up to the next '/'
+	private static final int WILDCARD   = 4;
+
+	// the start and end of every variable of the uri being matched; a match runs on one thread without calling out
+	private static final ThreadLocal<int[]> CAPTURES = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[16];
+		}
+	};
 
-	private final List<String>                         pathVariables = new ArrayList<String>();
-	private final HashMap<String, Matcher>             matchers      = new HashMap<String, Matcher>();
-	private final HashMap<String, Map<String, Object>> vars          = new HashMap<String, Map<String, Object>>();
+	private final List<String> pathVariables = new ArrayList<String>();
+	private final int[]        kinds;
+	private final String[]     texts;
+	private final int[]        captureIndexes;
 
-	private final Pattern uriPattern;
+	private final LruCache<String, Map<String, Object>> vars;
 
 	/**
 	 * Creates a new {@code UriPathTemplate} from the given {@code uriPattern}.
@@ -59,35 +74,65 @@ public class UriPathTemplate {
 	 * @param uriPattern The pattern to be used by the template
 	 */
 	public UriPathTemplate(String uriPattern) {
-		String s = "^" + uriPattern;
-
-		Matcher m = NAME_SPLAT_PATTERN.matcher(s);
-		while (m.find()) {
-			for (int i = 1; i <= m.groupCount(); i++) {
-				String name = m.group(i);
-				pathVariables.add(name);
-				s = m.replaceFirst(NAME_SPLAT_REPLACEMENT.replaceAll("%NAME%", name));
-				m.reset(s);
-			}
-		}
+		this(uriPattern, DEFAULT_CACHE_SIZE);
+	}
 
-		m = NAME_PATTERN.matcher(s);
-		while (m.find()) {
-			for (int i = 1; i <= m.groupCount(); i++) {
-				String name = m.group(i);
-				pathVariables.add(name);
-				s = m.replaceFirst(NAME_REPLACEMENT.replaceAll("%NAME%", name));
-				m.reset(s);
+	/**
+	 * Creates a new {@code UriPathTemplate} from the given {@code uriPattern}.
+	 *
+	 * @param uriPattern The pattern to be used by the template
+	 * @param cacheSize  The number of URIs whose path parameters are remembered
+	 */
+	public UriPathTemplate(String uriPattern, int cacheSize) {
+		List<Integer> kinds = new ArrayList<Integer>();
+		List<String> texts = new ArrayList<String>();
+		StringBuilder literal = new StringBuilder();
+
+		int len = uriPattern.length();
+		for (int i = 0; i < len; ) {
+			char c = uriPattern.charAt(i);
+			if (c == '{') {
+				int close = uriPattern.indexOf('}', i + 1);
+				String name = (close > i + 1 ? uriPattern.substring(i + 1, close) : null);
+				if (null != name && name.indexOf('/') < 0) {
+					flushLiteral(literal, kinds, texts);
+					pathVariables.add(name);
+					if (uriPattern.startsWith("**", close + 1)) {
+						kinds.add(SPLAT_VAR);
+						i = close + 3;
+					} else {
+						kinds.add(VARIABLE);
+						i = close + 1;
+					}
+					texts.add(name);
+					continue;
+				}
+			} else if (c == '*') {
+				flushLiteral(literal, kinds, texts);
+				if (uriPattern.startsWith("**", i)) {
+					kinds.add(SPLAT);
+					i += 2;
+				} else {
+					kinds.add(WILDCARD);
+					i++;
+				}
+				texts.add(null);
+				continue;
 			}
+			literal.append(c);
+			i++;
 		}
-
-		m = FULL_SPLAT_PATTERN.matcher(s);
-		while (m.find()) {
-			s = m.replaceAll(FULL_SPLAT_REPLACEMENT);
-			m.reset(s);
+		flushLiteral(literal, kinds, texts);
+
+		this.kinds = new int[kinds.size()];
+		this.texts = texts.toArray(new String[texts.size()]);
+		this.captureIndexes = new int[kinds.size()];
+		int capture = 0;
+		for (int i = 0; i < this.kinds.length; i++) {
+			this.kinds[i] = kinds.get(i);
+			this.captureIndexes[i] = (this.kinds[i] == VARIABLE || this.kinds[i] == SPLAT_VAR ? capture++ : -1);
 		}
-
-		this.uriPattern = Pattern.compile(s + "$");
+		this.vars = new LruCache<String, Map<String, Object>>(cacheSize);
 	}
 
 	/**
@@ -99,7 +144,7 @@ public class UriPathTemplate {
 	 * @return {@code true} if there's a match, {@code false} otherwise
 	 */
 	public boolean matches(String uri) {
-		return matcher(uri).matches();
+		return match(uri, 0, 0, null);
 	}
 
 	/**
@@ -112,36 +157,97 @@ public class UriPathTemplate {
 	 * @return the path parameters from the uri. Never {@code null}.
 	 */
 	public Map<String, Object> match(String uri) {
+		if (pathVariables.isEmpty()) {
+			return Collections.emptyMap();
+		}
 		Map<String, Object> pathParameters = vars.get(uri);
 		if (null != pathParameters) {
 			return pathParameters;
 		}
 
-		pathParameters = new HashMap<String, Object>();
-		Matcher m = matcher(uri);
-		if (m.matches()) {
-			int i = 1;
-			for (String name : pathVariables) {
-				String val = m.group(i++);
-				pathParameters.put(name, val);
-			}
-		}
-		synchronized (vars) {
-			vars.put(uri, pathParameters);
+		pathParameters = capture(uri);
+		if (null == pathParameters) {
+			pathParameters = Collections.emptyMap();
 		}
+		vars.put(uri, pathParameters);
 
 		return pathParameters;
 	}
 
-	private Matcher matcher(String uri) {
-		Matcher m = matchers.get(uri);
-		if (null == m) {
-			m = uriPattern.matcher(uri);
-			synchronized (matchers) {
-				matchers.put(uri, m);
+	/**
+	 * Matches the template against the given {@code uri} once, returning the path parameters extracted from it, or
+	 * {@code null} if it doesn't match. Unlike {@link #match(String)}, the result isn't cached, which suits callers
+	 * such as request routers that see each uri once and need to know both whether it matches and what it captures.
+	 *
+	 * @param uri The uri to match
+	 *
+	 * @return the path parameters from the uri, or {@code null} if there's no match
+	 */
+	public Map<String, Object> capture(String uri) {
+		if (pathVariables.isEmpty()) {
+			return (match(uri, 0, 0, null) ? Collections.<String, Object>emptyMap() : null);
+		}
+		int[] captures = CAPTURES.get();
+		if (captures.length < pathVariables.size() * 2) {
+			captures = new int[pathVariables.size() * 2];
+			CAPTURES.set(captures);
+		}
+		if (!match(uri, 0, 0, captures)) {
+			return null;
+		}
+		Map<String, Object> pathParameters = new HashMap<String, Object>(pathVariables.size() * 2);
+		for (int i = 0; i < pathVariables.size(); i++) {
+			pathParameters.put(pathVariables.get(i), uri.substring(captures[i * 2], captures[i * 2 + 1]));
+		}
+		return Collections.unmodifiableMap(pathParameters);
+	}
+
+	// Wildcards are greedy and give back text only when the rest of the template doesn't match, like a regex would.
+	private boolean match(String uri, int part, int pos, int[] captures) {
+		if (part == kinds.length) {
+			return pos == uri.length();
+		}
+
+		int end;
+		switch (kinds[part]) {
+			case LITERAL:
+				String lit = texts[part];
+				return uri.startsWith(lit, pos) && match(uri, part + 1, pos + lit.length(), captures);
+			case VARIABLE:
+				end = pos;
+				while (end < uri.length() && uri.charAt(end) != '/' && uri.charAt(end) != '.') {
+					end++;
+				}
+				break;
+			case WILDCARD:
+				end = uri.indexOf('/', pos);
+				if (end < 0) {
+					end = uri.length();
+				}
+				break;
+			default:
+				end = uri.length();
+		}
+
+		for (int e = end; e >= pos; e--) {
+			if (match(uri, part + 1, e, captures)) {
+				int capture = captureIndexes[part];
+				if (null != captures && capture >= 0) {
+					captures[capture * 2] = pos;
+					captures[capture * 2 + 1] = e;
+				}
+				return true;
 			}
 		}
-		return m;
+		return false;
+	}
+
+	private static void flushLiteral(StringBuilder literal, List<Integer> kinds, List<String> texts) {
+		if (literal.length() > 0) {
+			kinds.add(LITERAL);
+			texts.add(literal.toString());
+			literal.setLength(0);
+		}
 	}
 
 }
@@ -20,6 +20,7 @@ import javax.annotation.Nullable;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLDecoder;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -60,12 +61,22 @@ import java.util.Map;
  * Wildcards can be used in place of {@code host}, and {@code path}. The former by replacing the host with '*' and the
  * latter by replacing the path with '/*'.
  * </p>
+ * <p>
+ * String keys are parsed at most once per selection, and the parsed URIs and resolved headers of recently seen keys
+ * are kept in bounded caches shared by all {@code UriSelectors}.
+ * </p>
  *
  * @author Jon Brisbin
  */
 public class UriSelector extends ObjectSelector<URI> {
 
-	private static final UriHeaderResolver URI_HEADER_RESOLVER = new UriHeaderResolver();
+	private static final int CACHE_SIZE = 1024;
+
+	private static final UriHeaderResolver                     URI_HEADER_RESOLVER = new UriHeaderResolver();
+	private static final LruCache<String, URI>                 URIS                =
+			new LruCache<String, URI>(CACHE_SIZE);
+	private static final LruCache<Object, Map<String, Object>> HEADERS             =
+			new LruCache<Object, Map<String, Object>>(CACHE_SIZE);
 
 	private final String scheme;
 	private final String host;
@@ -130,12 +141,42 @@ public class UriSelector extends ObjectSelector<URI> {
 		if(key instanceof URI) {
 			return (URI)key;
 		} else if(key instanceof String) {
-			return URI.create(key.toString());
+			URI uri = (URI) SelectionContext.get(key, URI.class);
+			if(null == uri) {
+				uri = URIS.get((String) key);
+				if(null == uri) {
+					uri = URI.create((String) key);
+					URIS.put((String) key, uri);
+				}
+				SelectionContext.put(key, URI.class, uri);
+			}
+			return uri;
 		} else {
 			return null;
 		}
 	}
 
+	private static void parseQuery(String query, Map<String, Object> headers) throws UnsupportedEncodingException {
+		int start = 0;
+		int len = query.length();
+		while(start < len) {
+			int end = query.indexOf('&', start);
+			if(end < 0) {
+				end = len;
+			}
+			if(end > start) {
+				int eq = query.indexOf('=', start);
+				if(eq < 0 || eq > end) {
+					headers.put(URLDecoder.decode(query.substring(start, end), "ISO-8859-1"), "");
+				} else {
+					headers.put(URLDecoder.decode(query.substring(start, eq), "ISO-8859-1"),
+					            URLDecoder.decode(query.substring(eq + 1, end), "ISO-8859-1"));
+				}
+			}
+			start = end + 1;
+		}
+	}
+
 	private static class UriHeaderResolver implements HeaderResolver {
 		@Nullable
 		@Override
@@ -144,13 +185,18 @@ public class UriSelector extends ObjectSelector<URI> {
 				return null;
 			}
 
+			Map<String, Object> headers = HEADERS.get(key);
+			if(null != headers) {
+				return headers;
+			}
+
 			URI uri = objectToURI(key);
 
 			if(uri == null){
 				return null;
 			}
 
-			Map<String, Object> headers = new HashMap<String, Object>();
+			headers = new HashMap<String, Object>();
 
 			headers.put("authority", uri.getAuthority());
 			headers.put("fragment", uri.getFragment());
@@ -158,13 +204,9 @@ public class UriSelector extends ObjectSelector<URI> {
 			headers.put("path", uri.getPath());
 			headers.put("port", String.valueOf(uri.getPort()));
 			headers.put("query", uri.getQuery());
-			if(null != uri.getQuery()) {
+			if(null != uri.getRawQuery()) {
 				try {
-					String query = URLDecoder.decode(uri.getQuery(), "ISO-8859-1");
-					for(String s : query.split("&")) {
-						String[] parts = s.split("=");
-						headers.put(parts[0], parts[1]);
-					}
+					parseQuery(uri.getRawQuery(), headers);
 				} catch(UnsupportedEncodingException e) {
 					throw new IllegalArgumentException(e);
 				}
@@ -172,6 +214,8 @@ public class UriSelector extends ObjectSelector<URI> {
 			headers.put("scheme", uri.getScheme());
 			headers.put("userInfo", uri.getUserInfo());
 
+			headers = Collections.unmodifiableMap(headers);
+			HEADERS.put(key, headers);
 			return headers;
 		}
 	}
@@ -121,6 +121,17 @@ public abstract class EventRoutingComponentSpec<SPEC extends EventRoutingCompone
 		return (SPEC) this;
 	}
 
+	/**
+	 * Configures the component's EventRouter to route events to one consumer selected from the matching consumers by
+	 * consistent hashing of the event's key, so that events with the same key keep going to the same consumer
+	 *
+	 * @return {@code this}
+	 */
+	public final SPEC consistentHashEventRouting() {
+		this.eventRoutingStrategy = EventRoutingStrategy.CONSISTENT_HASH;
+		return (SPEC) this;
+	}
+
 	/**
 	 * Configures the component's error handler for any errors occurring during dispatch (e.g. Exceptions resulting from
 	 * calling a {@code Consumer#accept} method.
@@ -235,6 +246,8 @@ public abstract class EventRoutingComponentSpec<SPEC extends EventRoutingCompone
 			filter = new RandomFilter();
 		} else if (EventRoutingStrategy.FIRST == eventRoutingStrategy) {
 			filter = new FirstFilter();
+		} else if (EventRoutingStrategy.CONSISTENT_HASH == eventRoutingStrategy) {
+			filter = new ConsistentHashFilter();
 		} else {
 			filter = new PassThroughFilter();
 		}
@@ -246,7 +259,7 @@ public abstract class EventRoutingComponentSpec<SPEC extends EventRoutingCompone
 	}
 
 	protected enum EventRoutingStrategy {
-		BROADCAST, RANDOM, ROUND_ROBIN, FIRST
+		BROADCAST, RANDOM, ROUND_ROBIN, FIRST, CONSISTENT_HASH
 	}
 
 }
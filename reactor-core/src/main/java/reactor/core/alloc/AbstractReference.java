@@ -18,6 +18,8 @@ package reactor.core.alloc;
 
 import reactor.fn.timer.TimeUtils;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * An abstract {@link Reference} implementation that does reference counting.
  *
@@ -26,6 +28,9 @@ import reactor.fn.timer.TimeUtils;
  */
 public abstract class AbstractReference<T extends Recyclable> implements Reference<T> {
 
+	private static final AtomicIntegerFieldUpdater<AbstractReference> REF_CNT =
+			AtomicIntegerFieldUpdater.newUpdater(AbstractReference.class, "refCnt");
+
 	private volatile int refCnt = 0;
 
 	private final long inception;
@@ -53,7 +58,7 @@ public abstract class AbstractReference<T extends Recyclable> implements Referen
 
 	@Override
 	public void retain(int incr) {
-		refCnt += incr;
+		REF_CNT.addAndGet(this, incr);
 	}
 
 	@Override
@@ -63,12 +68,29 @@ public abstract class AbstractReference<T extends Recyclable> implements Referen
 
 	@Override
 	public void release(int decr) {
-		refCnt -= Math.min(decr, refCnt);
-		if(refCnt < 1) {
+		int cnt;
+		int next;
+		do {
+			cnt = refCnt;
+			next = cnt - Math.min(decr, cnt);
+		} while (!REF_CNT.compareAndSet(this, cnt, next));
+
+		if (next < 1) {
 			obj.recycle();
+			if (cnt > 0) {
+				onReleased();
+			}
 		}
 	}
 
+	/**
+	 * Invoked exactly once each time the reference count of this {@code Reference} drops to zero, after the
+	 * underlying object has been recycled. Pooling implementations override this to return the reference to their
+	 * free list.
+	 */
+	protected void onReleased() {
+	}
+
 	@Override
 	public T get() {
 		return obj;
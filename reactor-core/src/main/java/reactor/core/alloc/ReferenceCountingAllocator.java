@@ -18,15 +18,25 @@ package reactor.core.alloc;
 
 import reactor.fn.Supplier;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An implementation of {@link Allocator} that uses reference counting to determine when an object
  * should
  * be recycled and placed back into the pool to be reused.
+ * <p>
+ * Free references are kept on a lock-free stack (a Treiber stack whose head carries a stamp to defeat ABA), so both
+ * {@link #allocate()} and the final {@link Reference#release()} are O(1) and never block. When the pool runs dry it
+ * grows by adding a new segment twice the size of the current capacity; existing references are never copied or
+ * moved. Optionally, each thread can keep a small private cache of free references which is consulted before the
+ * shared stack. The caches of threads that have died are drained back onto the shared stack before the pool grows.
  *
  * @author Jon Brisbin
  * @since 1.1
@@ -34,57 +44,61 @@ import java.util.concurrent.locks.ReentrantLock;
 public class ReferenceCountingAllocator<T extends Recyclable> implements Allocator<T> {
 
 	private static final int DEFAULT_INITIAL_SIZE = 2048;
+	private static final int MAX_SEGMENTS         = 32;
+	private static final int EMPTY               = 0;
 
-	private final ReentrantLock           refLock    = new ReentrantLock();
-	private final ReentrantLock           leaseLock  = new ReentrantLock();
-	private final ArrayList<Reference<T>> references = new ArrayList<Reference<T>>();
-	private final Supplier<T> factory;
+	private final Reference<T>[][] segments = newSegments();
+	private final AtomicLong       freeHead = new AtomicLong(EMPTY);
+	private final AtomicBoolean    growing  = new AtomicBoolean(false);
+	private final Supplier<T>      factory;
+	private final int              segmentShift;
+	private final int              threadCacheSize;
 
-	private volatile BitSet leaseMask;
+	private final ThreadLocal<ThreadCache<T>> threadCaches;
+	private final Queue<ThreadCache<T>>       allThreadCaches;
+
+	private volatile int segmentCount = 0;
 
 	public ReferenceCountingAllocator(Supplier<T> factory) {
 		this(DEFAULT_INITIAL_SIZE, factory);
 	}
 
 	public ReferenceCountingAllocator(int initialSize, Supplier<T> factory) {
+		this(initialSize, 0, factory);
+	}
+
+	/**
+	 * Create a {@code ReferenceCountingAllocator}.
+	 *
+	 * @param initialSize
+	 * 		the number of objects to create up-front. Rounded up to the next power of two.
+	 * @param threadCacheSize
+	 * 		the number of free references each thread may keep to itself, or {@literal 0} to always use the shared pool
+	 * @param factory
+	 * 		the {@link Supplier} used to create pooled objects
+	 */
+	public ReferenceCountingAllocator(int initialSize, int threadCacheSize, Supplier<T> factory) {
 		this.factory = factory;
-		this.references.ensureCapacity(initialSize);
-		this.leaseMask = new BitSet(initialSize);
-		expand(initialSize);
+		this.segmentShift = 32 - Integer.numberOfLeadingZeros(Math.max(initialSize, 2) - 1);
+		this.threadCacheSize = threadCacheSize;
+		if (threadCacheSize > 0) {
+			this.threadCaches = new ThreadLocal<ThreadCache<T>>();
+			this.allThreadCaches = new ConcurrentLinkedQueue<ThreadCache<T>>();
+		} else {
+			this.threadCaches = null;
+			this.allThreadCaches = null;
+		}
+		expand(0);
 	}
 
 	@Override
 	public Reference<T> allocate() {
-		Reference<T> ref;
-		int len = refCnt();
-		int next;
-
-		leaseLock.lock();
-		try {
-			next = leaseMask.nextClearBit(0);
-			if (next >= len) {
-				expand(len);
-			}
-			leaseMask.set(next);
-		} finally {
-			leaseLock.unlock();
+		ReferenceCountingAllocatorReference ref = null;
+		if (null != threadCaches) {
+			ref = threadCache().poll();
 		}
-
-		if (next < 0) {
-			throw new RuntimeException("Allocator is exhausted.");
-		}
-
-		ref = references.get(next);
 		if (null == ref) {
-			// this reference has been nulled somehow.
-			// that's not really critical, just replace it.
-			refLock.lock();
-			try {
-				ref = new ReferenceCountingAllocatorReference<T>(factory.get(), next);
-				references.set(next, ref);
-			} finally {
-				refLock.unlock();
-			}
+			ref = pop();
 		}
 		ref.retain();
 
@@ -109,54 +123,197 @@ public class ReferenceCountingAllocator<T extends Recyclable> implements Allocat
 		}
 	}
 
-	private int refCnt() {
-		refLock.lock();
-		try {
-			return references.size();
-		} finally {
-			refLock.unlock();
+	/**
+	 * Get the total number of objects currently managed by this allocator, leased or not.
+	 *
+	 * @return the capacity of the pool
+	 */
+	public int getCapacity() {
+		int segs = segmentCount;
+		return segs == 0 ? 0 : 1 << (segmentShift + segs - 1);
+	}
+
+	private ThreadCache<T> threadCache() {
+		ThreadCache<T> cache = threadCaches.get();
+		if (null == cache) {
+			cache = new ThreadCache<T>(threadCacheSize, Thread.currentThread());
+			threadCaches.set(cache);
+			allThreadCaches.add(cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Put the references cached by threads that are no longer alive back onto the shared stack.
+	 *
+	 * @return {@literal true} if any reference was reclaimed
+	 */
+	private boolean reclaimDeadThreadCaches() {
+		if (null == allThreadCaches) {
+			return false;
+		}
+		boolean reclaimed = false;
+		Iterator<ThreadCache<T>> it = allThreadCaches.iterator();
+		while (it.hasNext()) {
+			ThreadCache<T> cache = it.next();
+			// a terminated thread's writes to its cache are visible once isAlive() has returned false
+			if (cache.isOwnerAlive() || !allThreadCaches.remove(cache)) {
+				continue;
+			}
+			ReferenceCountingAllocatorReference ref;
+			while (null != (ref = cache.poll())) {
+				push(ref, ref);
+				reclaimed = true;
+			}
+		}
+		return reclaimed;
+	}
+
+	@SuppressWarnings("unchecked")
+	private ReferenceCountingAllocatorReference pop() {
+		for (; ; ) {
+			long head = freeHead.get();
+			int idx = (int) head;
+			if (idx == EMPTY) {
+				if (!reclaimDeadThreadCaches()) {
+					expand(segmentCount);
+				}
+				continue;
+			}
+			ReferenceCountingAllocatorReference ref = (ReferenceCountingAllocatorReference) lookup(idx - 1);
+			if (freeHead.compareAndSet(head, stamp(head, ref.next))) {
+				ref.next = EMPTY;
+				return ref;
+			}
+		}
+	}
+
+	private void push(ReferenceCountingAllocatorReference first, ReferenceCountingAllocatorReference last) {
+		int idx = first.index + 1;
+		for (; ; ) {
+			long head = freeHead.get();
+			last.next = (int) head;
+			if (freeHead.compareAndSet(head, stamp(head, idx))) {
+				return;
+			}
+		}
+	}
+
+	private void recycle(ReferenceCountingAllocatorReference ref) {
+		if (null != threadCaches && threadCache().offer(ref)) {
+			return;
 		}
+		push(ref, ref);
 	}
 
-	private void expand(int num) {
-		refLock.lock();
+	private Reference<T> lookup(int index) {
+		int seg;
+		int offset;
+		if (index < (1 << segmentShift)) {
+			seg = 0;
+			offset = index;
+		} else {
+			int highBit = 31 - Integer.numberOfLeadingZeros(index);
+			seg = highBit - segmentShift + 1;
+			offset = index - (1 << highBit);
+		}
+		return segments[seg][offset];
+	}
+
+	@SuppressWarnings("unchecked")
+	private void expand(int seg) {
+		if (!growing.compareAndSet(false, true)) {
+			// another thread is already adding capacity, wait for it to publish
+			Thread.yield();
+			return;
+		}
 		try {
-			int len = references.size();
-			int newLen = len + num;
-			for (int i = len; i <= newLen; i++) {
-				references.add(new ReferenceCountingAllocatorReference<T>(factory.get(), i));
+			if (segmentCount != seg || (int) freeHead.get() != EMPTY) {
+				// someone else expanded the pool while we were trying to
+				return;
 			}
-			BitSet newLeaseMask = new BitSet(newLen);
-			int leases = leaseMask.length();
-			for (int i = 0; i < leases; i++) {
-				newLeaseMask.set(i, leaseMask.get(i));
+			if (seg >= MAX_SEGMENTS || segmentShift + seg > 31) {
+				throw new IllegalStateException("Allocator is exhausted.");
 			}
-			leaseMask = newLeaseMask;
+
+			int base = (seg == 0 ? 0 : 1 << (segmentShift + seg - 1));
+			int len = (seg == 0 ? 1 << segmentShift : base);
+			Reference<T>[] segment = new Reference[len];
+			for (int i = 0; i < len; i++) {
+				ReferenceCountingAllocatorReference ref = new ReferenceCountingAllocatorReference(factory.get(), base + i);
+				if (i > 0) {
+					ref.next = base + i;
+				}
+				segment[i] = ref;
+			}
+			segments[seg] = segment;
+			segmentCount = seg + 1;
+
+			// segment is chained from its last slot down to its first: publish it in one CAS
+			push((ReferenceCountingAllocatorReference) segment[len - 1],
+			     (ReferenceCountingAllocatorReference) segment[0]);
 		} finally {
-			refLock.unlock();
+			growing.set(false);
 		}
 	}
 
-	private class ReferenceCountingAllocatorReference<T extends Recyclable> extends AbstractReference<T> {
-		private final int bit;
+	private static long stamp(long head, int idx) {
+		return (((head >>> 32) + 1) << 32) | (idx & 0xFFFFFFFFL);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends Recyclable> Reference<T>[][] newSegments() {
+		return new Reference[MAX_SEGMENTS][];
+	}
+
+	private static final class ThreadCache<T extends Recyclable> {
+		private final Object[]              refs;
+		private final WeakReference<Thread> owner;
+		private       int                   size;
 
-		private ReferenceCountingAllocatorReference(T obj, int bit) {
+		private ThreadCache(int capacity, Thread owner) {
+			this.refs = new Object[capacity];
+			this.owner = new WeakReference<Thread>(owner);
+		}
+
+		private boolean isOwnerAlive() {
+			Thread thread = owner.get();
+			return null != thread && thread.isAlive();
+		}
+
+		@SuppressWarnings("unchecked")
+		private ReferenceCountingAllocator<T>.ReferenceCountingAllocatorReference poll() {
+			if (size == 0) {
+				return null;
+			}
+			Object ref = refs[--size];
+			refs[size] = null;
+			return (ReferenceCountingAllocator<T>.ReferenceCountingAllocatorReference) ref;
+		}
+
+		private boolean offer(Object ref) {
+			if (size == refs.length) {
+				return false;
+			}
+			refs[size++] = ref;
+			return true;
+		}
+	}
+
+	private class ReferenceCountingAllocatorReference extends AbstractReference<T> {
+		private final int index;
+
+		// 1-based index of the next free reference, only meaningful while this reference sits on the free stack
+		private int next = EMPTY;
+
+		private ReferenceCountingAllocatorReference(T obj, int index) {
 			super(obj);
-			this.bit = bit;
+			this.index = index;
 		}
 
 		@Override
-		public void release(int decr) {
-			leaseLock.lock();
-			try {
-				super.release(decr);
-				if (getReferenceCount() < 1) {
-					// There won't be contention to clear this
-					leaseMask.clear(bit);
-				}
-			} finally {
-				leaseLock.unlock();
-			}
+		protected void onReleased() {
+			recycle(this);
 		}
 	}
 
@@ -1333,36 +1333,59 @@ public class Buffer implements Recyclable,
 
 	private synchronized void ensureCapacity(int atLeast) {
 		if(null == buffer) {
-			buffer = ByteBuffer.allocate(SMALL_BUFFER_SIZE);
+			buffer = allocate(Math.max(atLeast, SMALL_BUFFER_SIZE), false);
 			return;
 		}
 		int pos = buffer.position();
 		int cap = buffer.capacity();
 		if(dynamic && buffer.remaining() < atLeast) {
-			if(buffer.limit() < cap) {
-				// there's remaining capacity that hasn't been used yet
-				if(pos + atLeast > cap) {
-					expand();
-					cap = buffer.capacity();
-				}
-				buffer.limit(Math.min(pos + atLeast, cap));
-			} else {
-				expand();
+			if(pos + atLeast > cap) {
+				expand(pos + atLeast);
+				cap = buffer.capacity();
 			}
+			buffer.limit(Math.min(pos + atLeast, cap));
 		} else if(pos + SMALL_BUFFER_SIZE > MAX_BUFFER_SIZE) {
 			throw new BufferOverflowException();
 		}
 	}
 
-	private void expand() {
+	private void expand(int atLeast) {
+		if(atLeast > MAX_BUFFER_SIZE) {
+			throw new BufferOverflowException();
+		}
 		snapshot();
-		ByteBuffer newBuff = (buffer.isDirect()
-		                      ? ByteBuffer.allocateDirect(buffer.limit() + SMALL_BUFFER_SIZE)
-		                      : ByteBuffer.allocate(buffer.limit() + SMALL_BUFFER_SIZE));
+		int growBy = Math.min(buffer.capacity(), SMALL_BUFFER_SIZE);
+		ByteBuffer newBuff = allocate(Math.max(atLeast, buffer.limit() + growBy), buffer.isDirect());
 		buffer.flip();
 		newBuff.put(buffer);
+		ByteBuffer oldBuff = buffer;
 		buffer = newBuff;
 		reset();
+		free(oldBuff);
+	}
+
+	/**
+	 * Allocate the memory backing this {@literal Buffer} when it is first written to or has to grow. Pooled
+	 * implementations override this to hand out memory from their own size classes.
+	 *
+	 * @param capacity
+	 * 		the minimum capacity required
+	 * @param direct
+	 * 		whether the memory currently backing this buffer is direct
+	 *
+	 * @return a new, empty {@link ByteBuffer} of at least {@code capacity} bytes
+	 */
+	ByteBuffer allocate(int capacity, boolean direct) {
+		return (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	/**
+	 * Give back memory that no longer backs this {@literal Buffer} after it has grown.
+	 *
+	 * @param old
+	 * 		the {@link ByteBuffer} that has just been replaced
+	 */
+	void free(ByteBuffer old) {
 	}
 
 	private String decode() {
@@ -0,0 +1,559 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.buffer;
+
+import reactor.core.support.Assert;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A {@literal CompositeBuffer} presents several {@link ByteBuffer} components as one logical, readable sequence of
+ * bytes without copying them into a single backing array.
+ * <p>
+ * Appending a {@link Buffer} or {@link ByteBuffer} only records a slice of its remaining bytes, so fragments read from
+ * a socket can be accumulated until a whole frame is available. Absolute reads ({@link #get(int)}, {@link
+ * #indexOf(byte)}), relative reads ({@link #read()}, {@link #readInt()}...) and {@link #slice(int, int)} all work
+ * across component boundaries. {@link #write(WritableByteChannel)} uses a gathering write when the channel supports it.
+ * <p>
+ * The components are referenced, not copied: their content must not be modified or recycled while they are part of a
+ * {@literal CompositeBuffer}. Use {@link #discardReadComponents()} to drop the components that have been fully read.
+ *
+ * @author Jon Brisbin
+ */
+@NotThreadSafe
+public class CompositeBuffer implements ReadableByteChannel {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private ByteBuffer[] components;
+	private int[]        offsets;
+	private int          count;
+	private int          length;
+	private int          position;
+	private int          lastComponent;
+
+	/**
+	 * Create an empty {@literal CompositeBuffer}.
+	 */
+	public CompositeBuffer() {
+		this(8);
+	}
+
+	/**
+	 * Create an empty {@literal CompositeBuffer} with room for the given number of components before its internal
+	 * index has to grow.
+	 *
+	 * @param initialComponents
+	 * 		the expected number of components
+	 */
+	public CompositeBuffer(int initialComponents) {
+		this.components = new ByteBuffer[Math.max(initialComponents, 1)];
+		this.offsets = new int[components.length];
+	}
+
+	/**
+	 * Append the remaining bytes of the given {@link Buffer Buffers} as new components. The {@code Buffers} are not
+	 * modified.
+	 *
+	 * @param buffers
+	 * 		the {@link Buffer Buffers} to append
+	 *
+	 * @return {@literal this}
+	 */
+	public CompositeBuffer append(Buffer... buffers) {
+		for (Buffer b : buffers) {
+			if (null != b.byteBuffer()) {
+				append(b.byteBuffer());
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Append the remaining bytes of the given {@link ByteBuffer ByteBuffers} as new components. The {@code
+	 * ByteBuffers} are not modified.
+	 *
+	 * @param buffers
+	 * 		the {@link ByteBuffer ByteBuffers} to append
+	 *
+	 * @return {@literal this}
+	 */
+	public CompositeBuffer append(ByteBuffer... buffers) {
+		for (ByteBuffer bb : buffers) {
+			if (!bb.hasRemaining()) {
+				continue;
+			}
+			if (count == components.length) {
+				components = Arrays.copyOf(components, count * 2);
+				offsets = Arrays.copyOf(offsets, count * 2);
+			}
+			components[count] = bb.slice();
+			offsets[count] = length;
+			length += bb.remaining();
+			count++;
+		}
+		return this;
+	}
+
+	/**
+	 * The current read position, relative to the start of the first component.
+	 *
+	 * @return the read position
+	 */
+	public int position() {
+		return position;
+	}
+
+	/**
+	 * Set the read position.
+	 *
+	 * @param pos
+	 * 		the new position
+	 *
+	 * @return {@literal this}
+	 */
+	public CompositeBuffer position(int pos) {
+		if (pos < 0 || pos > length) {
+			throw new IllegalArgumentException("Position " + pos + " is out of bounds (0.." + length + ")");
+		}
+		this.position = pos;
+		return this;
+	}
+
+	/**
+	 * The total number of bytes held by all components, read or not.
+	 *
+	 * @return the logical limit of this buffer
+	 */
+	public int limit() {
+		return length;
+	}
+
+	/**
+	 * The number of bytes that remain to be read.
+	 *
+	 * @return the number of readable bytes
+	 */
+	public int remaining() {
+		return length - position;
+	}
+
+	/**
+	 * The number of components currently making up this buffer.
+	 *
+	 * @return the number of components
+	 */
+	public int componentCount() {
+		return count;
+	}
+
+	/**
+	 * Skip {@code len} bytes.
+	 *
+	 * @param len
+	 * 		the number of bytes to skip
+	 *
+	 * @return {@literal this}
+	 */
+	public CompositeBuffer skip(int len) {
+		if (len > remaining()) {
+			throw new BufferUnderflowException();
+		}
+		position += len;
+		return this;
+	}
+
+	/**
+	 * Read the byte at the given absolute index without moving the read position.
+	 *
+	 * @param index
+	 * 		the index of the byte
+	 *
+	 * @return the byte at {@code index}
+	 */
+	public byte get(int index) {
+		int c = componentIndex(index);
+		return components[c].get(index - offsets[c]);
+	}
+
+	/**
+	 * Read the next byte.
+	 *
+	 * @return the next byte
+	 */
+	public byte read() {
+		if (position >= length) {
+			throw new BufferUnderflowException();
+		}
+		return get(position++);
+	}
+
+	/**
+	 * Read the next {@code short}, which may span two components.
+	 *
+	 * @return the next {@code short}
+	 */
+	public short readShort() {
+		return (short) readNumber(2);
+	}
+
+	/**
+	 * Read the next {@code int}, which may span several components.
+	 *
+	 * @return the next {@code int}
+	 */
+	public int readInt() {
+		return (int) readNumber(4);
+	}
+
+	/**
+	 * Read the next {@code long}, which may span several components.
+	 *
+	 * @return the next {@code long}
+	 */
+	public long readLong() {
+		return readNumber(8);
+	}
+
+	/**
+	 * Search the readable bytes for the first occurrence of the given {@code byte}.
+	 *
+	 * @param b
+	 * 		the {@code byte} to search for
+	 *
+	 * @return the absolute index of the byte or {@code -1} if not found
+	 */
+	public int indexOf(byte b) {
+		return indexOf(b, position, length);
+	}
+
+	/**
+	 * Search for the first occurrence of the given {@code byte} between {@code start} (inclusive) and {@code end}
+	 * (exclusive).
+	 *
+	 * @param b
+	 * 		the {@code byte} to search for
+	 * @param start
+	 * 		the absolute index to start searching from
+	 * @param end
+	 * 		the absolute index at which to stop searching
+	 *
+	 * @return the absolute index of the byte or {@code -1} if not found
+	 */
+	public int indexOf(byte b, int start, int end) {
+		end = Math.min(end, length);
+		if (start >= end) {
+			return -1;
+		}
+		for (int c = componentIndex(start); c < count && offsets[c] < end; c++) {
+			ByteBuffer component = components[c];
+			int base = offsets[c];
+			int from = Math.max(start - base, 0);
+			int to = Math.min(end - base, component.limit());
+			for (int i = from; i < to; i++) {
+				if (component.get(i) == b) {
+					return base + i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Create a {@literal CompositeBuffer} that shares the given range of this buffer's content. No bytes are copied.
+	 *
+	 * @param index
+	 * 		the absolute index of the first byte
+	 * @param len
+	 * 		the number of bytes
+	 *
+	 * @return a new {@literal CompositeBuffer} over the given range
+	 */
+	public CompositeBuffer slice(int index, int len) {
+		checkRange(index, len);
+		CompositeBuffer slice = new CompositeBuffer(Math.max(count, 1));
+		int end = index + len;
+		for (int c = (len > 0 ? componentIndex(index) : count); c < count && offsets[c] < end; c++) {
+			ByteBuffer component = components[c].duplicate();
+			int base = offsets[c];
+			component.limit(Math.min(end - base, component.limit()));
+			component.position(Math.max(index - base, 0));
+			slice.append(component);
+		}
+		return slice;
+	}
+
+	/**
+	 * Read the next {@code len} bytes as a {@link Buffer}. When the bytes lie within a single component the {@link
+	 * Buffer} shares that component's memory, otherwise they are consolidated into a new {@link Buffer}.
+	 *
+	 * @param len
+	 * 		the number of bytes to read
+	 *
+	 * @return a {@link Buffer} containing the next {@code len} bytes
+	 */
+	public Buffer readBuffer(int len) {
+		checkRange(position, len);
+		Buffer b;
+		int c = (len > 0 ? componentIndex(position) : 0);
+		if (len > 0 && position + len <= offsets[c] + components[c].limit()) {
+			ByteBuffer bb = components[c].duplicate();
+			bb.position(position - offsets[c]);
+			bb.limit(bb.position() + len);
+			b = new Buffer(bb.slice());
+		} else {
+			ByteBuffer bb = ByteBuffer.allocate(len);
+			copyTo(bb, position, len);
+			bb.flip();
+			b = new Buffer(bb);
+		}
+		position += len;
+		return b;
+	}
+
+	/**
+	 * Read all remaining bytes as a {@link Buffer}.
+	 *
+	 * @return a {@link Buffer} containing the remaining bytes
+	 *
+	 * @see #readBuffer(int)
+	 */
+	public Buffer readBuffer() {
+		return readBuffer(remaining());
+	}
+
+	/**
+	 * Copy the remaining bytes into a {@code byte[]} without moving the read position.
+	 *
+	 * @return the remaining bytes
+	 */
+	public byte[] asBytes() {
+		byte[] bytes = new byte[remaining()];
+		copyTo(ByteBuffer.wrap(bytes), position, bytes.length);
+		return bytes;
+	}
+
+	/**
+	 * Decode the remaining bytes as a UTF-8 String without moving the read position.
+	 *
+	 * @return the remaining bytes as a String
+	 */
+	public String asString() {
+		return new String(asBytes(), UTF8);
+	}
+
+	/**
+	 * Write as many of the remaining bytes as the channel accepts, using a single gathering write if the channel is a
+	 * {@link GatheringByteChannel}. The read position is advanced by the number of bytes written.
+	 *
+	 * @param channel
+	 * 		the channel to write to
+	 *
+	 * @return the number of bytes written
+	 *
+	 * @throws IOException
+	 * 		if the channel fails
+	 */
+	public long write(WritableByteChannel channel) throws IOException {
+		if (remaining() == 0) {
+			return 0;
+		}
+		int first = componentIndex(position);
+		components[first].position(position - offsets[first]);
+		long written = 0;
+		try {
+			if (channel instanceof GatheringByteChannel) {
+				written = ((GatheringByteChannel) channel).write(components, first, count - first);
+			} else {
+				for (int c = first; c < count; c++) {
+					ByteBuffer component = components[c];
+					int n = channel.write(component);
+					written += n;
+					if (component.hasRemaining()) {
+						break;
+					}
+				}
+			}
+		} finally {
+			for (int c = first; c < count; c++) {
+				components[c].position(0);
+			}
+		}
+		position += (int) written;
+		return written;
+	}
+
+	/**
+	 * Copy remaining bytes into {@code dst}, as many as it can hold.
+	 *
+	 * @param dst
+	 * 		the buffer to copy to
+	 *
+	 * @return the number of bytes copied or {@code -1} if there was nothing left to read
+	 */
+	@Override
+	public int read(ByteBuffer dst) {
+		if (remaining() == 0) {
+			return -1;
+		}
+		int len = Math.min(dst.remaining(), remaining());
+		copyTo(dst, position, len);
+		position += len;
+		return len;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return true;
+	}
+
+	@Override
+	public void close() {
+		clear();
+	}
+
+	/**
+	 * Drop the components that have been completely read and rebase the read position on the first remaining
+	 * component.
+	 *
+	 * @return {@literal this}
+	 */
+	public CompositeBuffer discardReadComponents() {
+		int drop = 0;
+		while (drop < count && offsets[drop] + components[drop].limit() <= position) {
+			drop++;
+		}
+		if (drop == 0) {
+			return this;
+		}
+		int shift = (drop < count ? offsets[drop] : length);
+		int remainingComponents = count - drop;
+		System.arraycopy(components, drop, components, 0, remainingComponents);
+		Arrays.fill(components, remainingComponents, count, null);
+		for (int c = 0; c < remainingComponents; c++) {
+			offsets[c] = offsets[c + drop] - shift;
+		}
+		count = remainingComponents;
+		length -= shift;
+		position -= shift;
+		lastComponent = 0;
+		return this;
+	}
+
+	/**
+	 * Remove all components.
+	 *
+	 * @return {@literal this}
+	 */
+	public CompositeBuffer clear() {
+		Arrays.fill(components, 0, count, null);
+		count = 0;
+		length = 0;
+		position = 0;
+		lastComponent = 0;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return "CompositeBuffer{" +
+				"components=" + count +
+				", position=" + position +
+				", limit=" + length +
+				'}';
+	}
+
+	private long readNumber(int size) {
+		if (remaining() < size) {
+			throw new BufferUnderflowException();
+		}
+		int c = componentIndex(position);
+		int offset = position - offsets[c];
+		ByteBuffer component = components[c];
+		long value;
+		if (offset + size <= component.limit()) {
+			switch (size) {
+				case 2:
+					value = component.getShort(offset);
+					break;
+				case 4:
+					value = component.getInt(offset);
+					break;
+				default:
+					value = component.getLong(offset);
+			}
+		} else {
+			// spans a component boundary, assemble big-endian
+			value = 0;
+			for (int i = 0; i < size; i++) {
+				value = (value << 8) | (get(position + i) & 0xFF);
+			}
+		}
+		position += size;
+		return value;
+	}
+
+	private void copyTo(ByteBuffer dst, int index, int len) {
+		int end = index + len;
+		for (int c = (len > 0 ? componentIndex(index) : count); c < count && offsets[c] < end; c++) {
+			ByteBuffer component = components[c].duplicate();
+			int base = offsets[c];
+			component.limit(Math.min(end - base, component.limit()));
+			component.position(Math.max(index - base, 0));
+			dst.put(component);
+		}
+	}
+
+	private void checkRange(int index, int len) {
+		Assert.isTrue(len >= 0, "Length cannot be negative.");
+		if (index < 0 || index + len > length) {
+			throw new IndexOutOfBoundsException("Range " + index + ".." + (index + len) + " exceeds limit " + length);
+		}
+	}
+
+	private int componentIndex(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("Index " + index + " exceeds limit " + length);
+		}
+		// sequential access tends to stay within the same component
+		int c = lastComponent;
+		if (c < count && index >= offsets[c] && index - offsets[c] < components[c].limit()) {
+			return c;
+		}
+		int low = 0;
+		int high = count - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (offsets[mid] <= index) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		lastComponent = low;
+		return low;
+	}
+
+}
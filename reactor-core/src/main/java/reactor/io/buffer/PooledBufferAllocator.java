@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.buffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.alloc.AbstractReference;
+import reactor.core.alloc.Allocator;
+import reactor.core.alloc.Recyclable;
+import reactor.core.alloc.Reference;
+import reactor.core.alloc.ReferenceCountingAllocator;
+import reactor.fn.Supplier;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link reactor.core.alloc.Allocator} of {@link Buffer Buffers} whose memory comes from pooled, power-of-two size
+ * classes.
+ * <p>
+ * Each size class carves its chunks out of large slabs (direct by default) and keeps free chunks in a lock-free
+ * {@link ReferenceCountingAllocator} with a per-thread cache, so allocating and releasing a {@code Buffer} never
+ * touches the system allocator once the pool is warm. Requests larger than the biggest size class are served with
+ * unpooled memory. A pooled {@code Buffer} that has to grow takes its new memory from the next suitable size class and
+ * gives the old chunk back.
+ * <p>
+ * When leak detection is enabled (see {@link #LEAK_DETECTION}), every {@link Reference} handed out remembers where it
+ * was allocated, and a {@code Buffer} that becomes unreachable without being released is reported and its memory
+ * reclaimed. Memory is never reclaimed while its {@code Buffer} is still reachable.
+ *
+ * @author Jon Brisbin
+ */
+public class PooledBufferAllocator implements Allocator<Buffer> {
+
+	/**
+	 * Whether allocators created with the default constructor track leaked buffers. Can be configured using the {@code
+	 * reactor.io.buffer.leakDetection} system property. Defaults to {@code false}.
+	 */
+	public static boolean LEAK_DETECTION = Boolean.parseBoolean(
+			System.getProperty("reactor.io.buffer.leakDetection", "false")
+	);
+
+	/**
+	 * The size, in bytes, of the smallest size class.
+	 */
+	public static final int MIN_CHUNK_SIZE = 256;
+
+	private static final int MIN_CHUNK_SHIFT         = 8;
+	private static final int DEFAULT_MAX_CHUNK_SIZE  = 1024 * 1024;
+	private static final int DEFAULT_SLAB_SIZE       = 1024 * 1024;
+	private static final int DEFAULT_THREAD_CACHE    = 32;
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final ReferenceCountingAllocator<Chunk>[] sizeClasses;
+	private final boolean                             direct;
+	private final int                                 threadCacheSize;
+	private final boolean                             leakDetection;
+	private final ReferenceQueue<Object>              leakQueue;
+	private final Set<LeakTracker>                    leakTrackers;
+
+	/**
+	 * Create a {@code PooledBufferAllocator} of direct memory with size classes up to 1MB.
+	 */
+	public PooledBufferAllocator() {
+		this(true, DEFAULT_MAX_CHUNK_SIZE, DEFAULT_THREAD_CACHE, LEAK_DETECTION);
+	}
+
+	/**
+	 * Create a {@code PooledBufferAllocator}.
+	 *
+	 * @param direct
+	 * 		Whether or not to use direct memory.
+	 * @param maxChunkSize
+	 * 		The size of the largest pooled size class. Rounded up to the next power of two.
+	 * @param threadCacheSize
+	 * 		The number of free chunks per size class each thread may keep to itself.
+	 * @param leakDetection
+	 * 		{@literal true} to record allocation sites and report {@code Buffers} that are never released.
+	 */
+	@SuppressWarnings("unchecked")
+	public PooledBufferAllocator(boolean direct, int maxChunkSize, int threadCacheSize, boolean leakDetection) {
+		int maxShift = Math.max(MIN_CHUNK_SHIFT, 32 - Integer.numberOfLeadingZeros(maxChunkSize - 1));
+		this.sizeClasses = new ReferenceCountingAllocator[maxShift - MIN_CHUNK_SHIFT + 1];
+		this.direct = direct;
+		this.threadCacheSize = threadCacheSize;
+		this.leakDetection = leakDetection;
+		if (leakDetection) {
+			this.leakQueue = new ReferenceQueue<Object>();
+			this.leakTrackers = Collections.newSetFromMap(new ConcurrentHashMap<LeakTracker, Boolean>());
+		} else {
+			this.leakQueue = null;
+			this.leakTrackers = null;
+		}
+	}
+
+	/**
+	 * Allocate a {@link Buffer} of at least {@link Buffer#SMALL_BUFFER_SIZE} bytes.
+	 *
+	 * @return a {@link Reference} to a pooled {@link Buffer}
+	 */
+	@Override
+	public Reference<Buffer> allocate() {
+		return allocate(Buffer.SMALL_BUFFER_SIZE);
+	}
+
+	/**
+	 * Allocate a {@link Buffer} that can hold at least {@code size} bytes without growing. The {@code Buffer} is ready
+	 * for writing and goes back to the pool once the returned {@link Reference} is fully released.
+	 *
+	 * @param size
+	 * 		the minimum capacity of the {@code Buffer}
+	 *
+	 * @return a {@link Reference} to a pooled {@link Buffer}
+	 */
+	public Reference<Buffer> allocate(int size) {
+		if (leakDetection) {
+			reportLeaks();
+		}
+		PooledBuffer buffer = new PooledBuffer(this, allocateChunk(size), size);
+		PooledBufferReference ref = new PooledBufferReference(buffer);
+		if (leakDetection) {
+			ref.tracker = new LeakTracker(buffer, leakQueue);
+			leakTrackers.add(ref.tracker);
+		}
+		ref.retain();
+		return ref;
+	}
+
+	@Override
+	public List<Reference<Buffer>> allocateBatch(int size) {
+		List<Reference<Buffer>> refs = new ArrayList<Reference<Buffer>>(size);
+		for (int i = 0; i < size; i++) {
+			refs.add(allocate());
+		}
+		return refs;
+	}
+
+	@Override
+	public void release(List<Reference<Buffer>> batch) {
+		if (null != batch && !batch.isEmpty()) {
+			for (Reference<Buffer> ref : batch) {
+				ref.release();
+			}
+		}
+	}
+
+	/**
+	 * Whether this allocator hands out direct memory.
+	 *
+	 * @return {@literal true} if buffers are backed by direct memory
+	 */
+	public boolean isDirect() {
+		return direct;
+	}
+
+	Reference<Chunk> allocateChunk(int size) {
+		int idx = sizeClass(size);
+		if (idx < 0) {
+			return null;
+		}
+		ReferenceCountingAllocator<Chunk> sizeClass = sizeClasses[idx];
+		if (null == sizeClass) {
+			sizeClass = createSizeClass(idx);
+		}
+		return sizeClass.allocate();
+	}
+
+	ByteBuffer allocateUnpooled(int size) {
+		return (direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size));
+	}
+
+	private int sizeClass(int size) {
+		if (size <= MIN_CHUNK_SIZE) {
+			return 0;
+		}
+		int idx = 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_CHUNK_SHIFT;
+		return (idx < sizeClasses.length ? idx : -1);
+	}
+
+	private ReferenceCountingAllocator<Chunk> createSizeClass(int idx) {
+		synchronized (sizeClasses) {
+			ReferenceCountingAllocator<Chunk> sizeClass = sizeClasses[idx];
+			if (null == sizeClass) {
+				int chunkSize = MIN_CHUNK_SIZE << idx;
+				int slabSize = Math.max(chunkSize, DEFAULT_SLAB_SIZE);
+				sizeClass = new ReferenceCountingAllocator<Chunk>(
+						slabSize / chunkSize,
+						threadCacheSize,
+						new SlabSupplier(chunkSize, slabSize, direct)
+				);
+				sizeClasses[idx] = sizeClass;
+			}
+			return sizeClass;
+		}
+	}
+
+	private void reportLeaks() {
+		LeakTracker tracker;
+		while (null != (tracker = (LeakTracker) leakQueue.poll())) {
+			if (leakTrackers.remove(tracker)) {
+				log.error("A pooled Buffer was garbage-collected without being released. Allocated at:", tracker.allocationSite);
+				// the Buffer is gone, so nothing can read the memory anymore
+				tracker.chunk.free();
+			}
+		}
+	}
+
+	/**
+	 * A fixed-size slice of a slab, recycled through the {@link ReferenceCountingAllocator} of its size class.
+	 */
+	static final class Chunk implements Recyclable {
+		private final ByteBuffer memory;
+
+		private Chunk(ByteBuffer memory) {
+			this.memory = memory;
+		}
+
+		ByteBuffer memory() {
+			return memory;
+		}
+
+		@Override
+		public void recycle() {
+			memory.clear();
+		}
+	}
+
+	private static final class SlabSupplier implements Supplier<Chunk> {
+		private final int        chunkSize;
+		private final int        slabSize;
+		private final boolean    direct;
+		private       ByteBuffer slab;
+
+		private SlabSupplier(int chunkSize, int slabSize, boolean direct) {
+			this.chunkSize = chunkSize;
+			this.slabSize = slabSize;
+			this.direct = direct;
+		}
+
+		@Override
+		public synchronized Chunk get() {
+			if (null == slab || slab.remaining() < chunkSize) {
+				slab = (direct ? ByteBuffer.allocateDirect(slabSize) : ByteBuffer.allocate(slabSize));
+			}
+			int pos = slab.position();
+			slab.limit(pos + chunkSize);
+			ByteBuffer memory = slab.slice();
+			slab.limit(slab.capacity());
+			slab.position(pos + chunkSize);
+			return new Chunk(memory);
+		}
+	}
+
+	/**
+	 * A {@link Buffer} whose memory is borrowed from a {@code PooledBufferAllocator}, including the memory it grows
+	 * into.
+	 */
+	static final class PooledBuffer extends Buffer {
+		private final PooledBufferAllocator allocator;
+		private final ChunkHolder           chunk;
+		private       Reference<Chunk>      expansion;
+
+		private PooledBuffer(PooledBufferAllocator allocator, Reference<Chunk> chunk, int size) {
+			super(null != chunk ? chunk.get().memory() : allocator.allocateUnpooled(size));
+			this.allocator = allocator;
+			this.chunk = new ChunkHolder(chunk);
+		}
+
+		@Override
+		ByteBuffer allocate(int capacity, boolean direct) {
+			expansion = allocator.allocateChunk(capacity);
+			return (null != expansion ? expansion.get().memory() : allocator.allocateUnpooled(capacity));
+		}
+
+		@Override
+		void free(ByteBuffer old) {
+			chunk.replace(expansion);
+			expansion = null;
+		}
+
+		void freeChunk() {
+			chunk.free();
+		}
+	}
+
+	/**
+	 * The chunk a {@link PooledBuffer} currently uses. It's kept apart from the {@code PooledBuffer} so that a {@link
+	 * LeakTracker} can give it back without keeping the {@code PooledBuffer} reachable.
+	 */
+	static final class ChunkHolder {
+		private Reference<Chunk> chunk;
+
+		private ChunkHolder(Reference<Chunk> chunk) {
+			this.chunk = chunk;
+		}
+
+		synchronized void replace(Reference<Chunk> next) {
+			if (null != chunk) {
+				chunk.release();
+			}
+			chunk = next;
+		}
+
+		void free() {
+			replace(null);
+		}
+	}
+
+	private static final class PooledBufferReference extends AbstractReference<Buffer> {
+		private LeakTracker tracker;
+
+		private PooledBufferReference(PooledBuffer buffer) {
+			super(buffer);
+		}
+
+		@Override
+		protected void onReleased() {
+			if (null != tracker) {
+				tracker.release();
+			}
+			((PooledBuffer) get()).freeChunk();
+		}
+	}
+
+	/**
+	 * Tracks the {@link PooledBuffer} itself rather than its {@link Reference}: a caller may keep the {@code Buffer} and
+	 * drop the {@code Reference}, and the memory must not be reclaimed while the {@code Buffer} can still be read.
+	 */
+	private final class LeakTracker extends WeakReference<Object> {
+		private final ChunkHolder chunk;
+		private final Throwable   allocationSite;
+
+		private LeakTracker(PooledBuffer buffer, ReferenceQueue<Object> queue) {
+			super(buffer, queue);
+			this.chunk = buffer.chunk;
+			this.allocationSite = new Throwable("Buffer allocation site");
+		}
+
+		private void release() {
+			leakTrackers.remove(this);
+			clear();
+		}
+	}
+
+}
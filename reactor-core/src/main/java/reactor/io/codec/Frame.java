@@ -19,6 +19,8 @@ package reactor.io.codec;
 import reactor.io.buffer.Buffer;
 
 /**
+ * A length-field-based frame, made of a fixed-length prefix and the data that follows the length field.
+ *
  * @author Jon Brisbin
  */
 public class Frame {
@@ -39,4 +41,18 @@ public class Frame {
 		return data;
 	}
 
+	/**
+	 * Create a {@code Frame} whose prefix and data are copies of this frame's. Frames produced by a zero-copy {@link
+	 * FrameCodec} share memory with the inbound buffer and must be copied if they are kept after they have been handled.
+	 *
+	 * @return a new {@code Frame} that owns its memory
+	 */
+	public Frame copy() {
+		return new Frame(copy(prefix), copy(data));
+	}
+
+	private static Buffer copy(Buffer buffer) {
+		return (null != buffer && null != buffer.byteBuffer() ? buffer.copy() : buffer);
+	}
+
 }
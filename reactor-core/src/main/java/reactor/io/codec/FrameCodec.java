@@ -16,12 +16,28 @@
 
 package reactor.io.codec;
 
+import reactor.core.support.Assert;
 import reactor.fn.Consumer;
 import reactor.fn.Function;
 import reactor.io.buffer.Buffer;
 
+import java.nio.ByteBuffer;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
 /**
- * {@code Codec} for decoding data into length-field-based {@link Frame Frames}.
+ * {@code Codec} for decoding data into length-field-based {@link Frame Frames} and encoding {@link Frame Frames} back
+ * into length-prefixed data.
+ * <p>
+ * A frame on the wire is a fixed-length prefix, followed by a length field, followed by that many bytes of data and,
+ * optionally, a 4-byte trailer holding a checksum of the prefix and the data.
+ * <p>
+ * The prefix and data of a decoded {@link Frame} are copied out of the inbound {@link Buffer}, since the inbound
+ * buffer is usually released or reused as soon as it's been decoded while frames may be handled later, on another
+ * thread. A codec created with {@code zeroCopy} set decodes frames as slices of the inbound buffer instead. That is
+ * only safe when frames are handled synchronously, before the decoder returns, e.g. with a synchronous dispatcher; a
+ * consumer that holds on to such a frame past that point must call {@link Frame#copy()}.
  *
  * @author Jon Brisbin
  */
@@ -31,16 +47,52 @@ public class FrameCodec implements Codec<Buffer, Frame, Frame> {
 		SHORT, INT, LONG
 	}
 
-	private final FrameEncoder encoder = new FrameEncoder();
+	public enum TrailerChecksum {
+		NONE, CRC32, ADLER32
+	}
+
+	private static final int TRAILER_LENGTH = 4;
 
-	private final LengthField lengthField;
-	private final int         prefixLength;
-	private final int         minRequiredLen;
+	private final LengthField     lengthField;
+	private final TrailerChecksum trailerChecksum;
+	private final int             prefixLength;
+	private final int             lengthFieldLength;
+	private final int             trailerLength;
+	private final int             minRequiredLen;
+	private final boolean         zeroCopy;
 
 	public FrameCodec(int prefixLength, LengthField lengthField) {
+		this(prefixLength, lengthField, TrailerChecksum.NONE);
+	}
+
+	public FrameCodec(int prefixLength, LengthField lengthField, TrailerChecksum trailerChecksum) {
+		this(prefixLength, lengthField, trailerChecksum, false);
+	}
+
+	/**
+	 * Create a {@code FrameCodec}.
+	 *
+	 * @param prefixLength
+	 * 		the number of bytes that precede the length field
+	 * @param lengthField
+	 * 		the width of the length field
+	 * @param trailerChecksum
+	 * 		the checksum written after the data and verified when decoding, or {@link TrailerChecksum#NONE}
+	 * @param zeroCopy
+	 * 		{@code true} to decode frames as slices of the inbound buffer rather than copies, which is only valid when
+	 * 		frames are handled synchronously
+	 */
+	public FrameCodec(int prefixLength, LengthField lengthField, TrailerChecksum trailerChecksum, boolean zeroCopy) {
+		Assert.isTrue(prefixLength >= 0, "Prefix length cannot be negative.");
+		Assert.notNull(lengthField, "LengthField cannot be null.");
+		Assert.notNull(trailerChecksum, "TrailerChecksum cannot be null.");
 		this.prefixLength = prefixLength;
 		this.lengthField = lengthField;
-		this.minRequiredLen = lengthFieldLength(lengthField) + prefixLength;
+		this.trailerChecksum = trailerChecksum;
+		this.lengthFieldLength = lengthFieldLength(lengthField);
+		this.trailerLength = (trailerChecksum == TrailerChecksum.NONE ? 0 : TRAILER_LENGTH);
+		this.minRequiredLen = prefixLength + lengthFieldLength + trailerLength;
+		this.zeroCopy = zeroCopy;
 	}
 
 	@Override
@@ -50,45 +102,137 @@ public class FrameCodec implements Codec<Buffer, Frame, Frame> {
 
 	@Override
 	public Function<Frame, Buffer> encoder() {
-		return encoder;
+		return new FrameEncoder();
+	}
+
+	private Checksum createChecksum() {
+		switch (trailerChecksum) {
+			case CRC32:
+				return new CRC32();
+			case ADLER32:
+				return new Adler32();
+			default:
+				return null;
+		}
+	}
+
+	private void writeHeader(ByteBuffer out, Buffer prefix, int len) {
+		if (prefixLength > 0) {
+			Assert.isTrue(null != prefix && prefix.remaining() == prefixLength,
+			              "Frame prefix must be exactly " + prefixLength + " bytes long.");
+			out.put(prefix.byteBuffer().duplicate());
+		}
+		switch (lengthField) {
+			case SHORT:
+				Assert.isTrue(len <= 0xFFFF, "Frame data is too long for a SHORT length field: " + len);
+				out.putShort((short) len);
+				break;
+			case INT:
+				out.putInt(len);
+				break;
+			case LONG:
+				out.putLong(len);
+				break;
+		}
+	}
+
+	private static ByteBuffer slice(ByteBuffer bb, int start, int len) {
+		ByteBuffer dup = bb.duplicate();
+		dup.limit(start + len).position(start);
+		return dup.slice();
+	}
+
+	private static int remaining(Buffer buffer) {
+		return (null != buffer && null != buffer.byteBuffer() ? buffer.remaining() : 0);
+	}
+
+	private static int lengthFieldLength(LengthField lf) {
+		switch (lf) {
+			case SHORT:
+				return 2;
+			case INT:
+				return 4;
+			default:
+				return 8;
+		}
+	}
+
+	/**
+	 * Computes trailer checksums, going through a scratch array when the bytes aren't backed by one.
+	 */
+	private class ChecksumSupport {
+		private final Checksum checksum = createChecksum();
+		private       byte[]   scratch;
+
+		private int checksum(ByteBuffer prefix, ByteBuffer data) {
+			checksum.reset();
+			if (null != prefix) {
+				update(prefix);
+			}
+			if (null != data) {
+				update(data);
+			}
+			return (int) checksum.getValue();
+		}
+
+		private void update(ByteBuffer bb) {
+			int len = bb.remaining();
+			if (len == 0) {
+				return;
+			}
+			if (bb.hasArray()) {
+				checksum.update(bb.array(), bb.arrayOffset() + bb.position(), len);
+				return;
+			}
+			if (null == scratch || scratch.length < len) {
+				scratch = new byte[Math.max(len, 512)];
+			}
+			bb.duplicate().get(scratch, 0, len);
+			checksum.update(scratch, 0, len);
+		}
 	}
 
 	private class FrameDecoder implements Function<Buffer, Frame> {
-		private final Consumer<Frame> next;
+		private final Consumer<Frame>  next;
+		private final ChecksumSupport checksum;
 
 		private FrameDecoder(Consumer<Frame> next) {
 			this.next = next;
+			this.checksum = (trailerLength > 0 ? new ChecksumSupport() : null);
 		}
 
 		@Override
 		public Frame apply(Buffer buffer) {
-			while(buffer.remaining() > minRequiredLen) {
-				int pos = buffer.position();
-				int limit = buffer.limit();
-
-				Buffer.View prefix = readPrefix(buffer);
-				if(null == prefix) {
-					// insufficient data
-					buffer.limit(limit);
-					buffer.position(pos);
-					return null;
+			ByteBuffer bb = buffer.byteBuffer();
+			if (null == bb) {
+				return null;
+			}
+			while (bb.remaining() >= minRequiredLen) {
+				int pos = bb.position();
+				long len = readLen(bb, pos + prefixLength);
+				if (len < 0 || len > Integer.MAX_VALUE - minRequiredLen) {
+					throw new IllegalStateException("Invalid frame length: " + len);
 				}
-
-				Buffer.View data = readData(buffer);
-				if(null == data) {
-					// insufficient data
-					buffer.limit(limit);
-					buffer.position(pos);
+				int frameLen = minRequiredLen + (int) len;
+				if (bb.remaining() < frameLen) {
+					// insufficient data, wait for more
 					return null;
 				}
 
-				Buffer prefixBuff = new Buffer(prefixLength, true).append(prefix.get()).flip();
-				Buffer dataBuff = new Buffer(data.getEnd() - data.getStart(), true).append(data.get()).flip();
-
-				buffer.limit(limit);
+				int dataStart = pos + prefixLength + lengthFieldLength;
+				ByteBuffer prefix = slice(bb, pos, prefixLength);
+				ByteBuffer data = slice(bb, dataStart, (int) len);
+				if (null != checksum) {
+					int expected = bb.getInt(dataStart + (int) len);
+					int actual = checksum.checksum(prefix, data);
+					if (expected != actual) {
+						throw new IllegalStateException("Frame checksum mismatch: expected " + expected + " but was " + actual);
+					}
+				}
+				bb.position(pos + frameLen);
 
-				Frame f = new Frame(prefixBuff, dataBuff);
-				if(null != next) {
+				Frame f = (zeroCopy ? new Frame(new Buffer(prefix), new Buffer(data)) : copy(prefix, data));
+				if (null != next) {
 					next.accept(f);
 				} else {
 					return f;
@@ -97,74 +241,45 @@ public class FrameCodec implements Codec<Buffer, Frame, Frame> {
 			return null;
 		}
 
-		private Buffer.View readPrefix(Buffer buffer) {
-			if(buffer.remaining() < prefixLength) {
-				return null;
-			}
-
-			int pos = buffer.position();
-			Buffer.View prefix = buffer.createView(pos, pos + prefixLength);
-			buffer.position(pos + prefixLength);
-
-			return prefix;
+		private Frame copy(ByteBuffer prefix, ByteBuffer data) {
+			// one allocation holds both the prefix and the data
+			int prefixLen = prefix.remaining();
+			ByteBuffer bb = ByteBuffer.allocate(prefixLen + data.remaining());
+			bb.put(prefix).put(data).flip();
+			return new Frame(new Buffer(slice(bb, 0, prefixLen)), new Buffer(slice(bb, prefixLen, bb.remaining() - prefixLen)));
 		}
 
-		private int readLen(Buffer buffer) {
-			switch(lengthField) {
+		private long readLen(ByteBuffer bb, int index) {
+			switch (lengthField) {
 				case SHORT:
-					if(buffer.remaining() > 2) {
-						return buffer.readShort();
-					}
-					break;
+					return bb.getShort(index) & 0xFFFF;
 				case INT:
-					if(buffer.remaining() > 4) {
-						return buffer.readInt();
-					}
-					break;
-				case LONG:
-					if(buffer.remaining() > 8) {
-						return (int)buffer.readLong();
-					}
-					break;
+					return bb.getInt(index) & 0xFFFFFFFFL;
+				default:
+					return bb.getLong(index);
 			}
-
-			return -1;
-		}
-
-		private Buffer.View readData(Buffer buffer) {
-			int pos = buffer.position();
-			int limit = buffer.limit();
-
-			int len = readLen(buffer);
-			if(len == -1 || buffer.remaining() < len) {
-				buffer.limit(limit);
-				buffer.position(pos);
-				return null;
-			}
-
-			pos = buffer.position();
-			Buffer.View data = buffer.createView(pos, pos + len);
-			buffer.position(pos + len);
-
-			return data;
 		}
 	}
 
 	private class FrameEncoder implements Function<Frame, Buffer> {
+		private final ChecksumSupport checksum = (trailerLength > 0 ? new ChecksumSupport() : null);
+
 		@Override
 		public Buffer apply(Frame frame) {
-			return null;
-		}
-	}
-
-	private static int lengthFieldLength(LengthField lf) {
-		switch(lf) {
-			case SHORT:
-				return 2;
-			case INT:
-				return 4;
-			default:
-				return 8;
+			int len = remaining(frame.getData());
+			ByteBuffer out = ByteBuffer.allocate(minRequiredLen + len);
+			writeHeader(out, frame.getPrefix(), len);
+			if (len > 0) {
+				out.put(frame.getData().byteBuffer().duplicate());
+			}
+			if (null != checksum) {
+				out.putInt(checksum.checksum(
+						prefixLength > 0 ? frame.getPrefix().byteBuffer().duplicate() : null,
+						len > 0 ? frame.getData().byteBuffer().duplicate() : null
+				));
+			}
+			out.flip();
+			return new Buffer(out);
 		}
 	}
 
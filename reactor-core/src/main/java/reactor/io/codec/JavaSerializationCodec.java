@@ -24,12 +24,35 @@ import java.io.*;
 
 /**
  * {@code Codec} to transform Java objects into {@link reactor.io.buffer.Buffer Buffers} and visa-versa.
+ * <p>
+ * When created with a {@link TypeRegistry}, the class descriptors of registered types are replaced on the wire by their
+ * varint id, which is usually much smaller than the descriptor Java serialization would write for every message.
+ * Descriptors of unregistered types are written as usual. Both ends must use the same registrations.
  *
  * @author Jon Brisbin
  */
 public class JavaSerializationCodec<T> implements Codec<Buffer, T, T> {
 
-	private final Encoder encoder = new Encoder();
+	// descriptor tag for types that aren't registered; registered types are written as id + 1
+	private static final int UNREGISTERED_TYPE = 0;
+
+	private final Encoder      encoder = new Encoder();
+	private final TypeRegistry typeRegistry;
+
+	public JavaSerializationCodec() {
+		this(null);
+	}
+
+	/**
+	 * Create a {@code JavaSerializationCodec} that writes the ids of registered types instead of their class
+	 * descriptors.
+	 *
+	 * @param typeRegistry
+	 * 		the ids of the types this codec sends and receives, or {@literal null} to use plain Java serialization
+	 */
+	public JavaSerializationCodec(TypeRegistry typeRegistry) {
+		this.typeRegistry = typeRegistry;
+	}
 
 	@Override
 	public Function<Buffer, T> decoder(Consumer<T> next) {
@@ -55,7 +78,9 @@ public class JavaSerializationCodec<T> implements Codec<Buffer, T, T> {
 				return null;
 			}
 			try {
-				T obj = (T)new ObjectInputStream(new ByteArrayInputStream(buff.asBytes())).readObject();
+				InputStream in = new ByteArrayInputStream(buff.asBytes());
+				ObjectInputStream ois = (null != typeRegistry ? new TypeIdObjectInputStream(in) : new ObjectInputStream(in));
+				T obj = (T)ois.readObject();
 				if(null != next) {
 					next.accept(obj);
 					return null;
@@ -73,7 +98,9 @@ public class JavaSerializationCodec<T> implements Codec<Buffer, T, T> {
 		public Buffer apply(T t) {
 			ByteArrayOutputStream baos = new ByteArrayOutputStream();
 			try {
-				ObjectOutputStream oos = new ObjectOutputStream(baos);
+				ObjectOutputStream oos = (null != typeRegistry
+				                          ? new TypeIdObjectOutputStream(baos)
+				                          : new ObjectOutputStream(baos));
 				oos.writeObject(t);
 				oos.flush();
 				oos.close();
@@ -85,4 +112,65 @@ public class JavaSerializationCodec<T> implements Codec<Buffer, T, T> {
 		}
 	}
 
+	private static void writeVarint(ObjectOutputStream out, int value) throws IOException {
+		while((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarint(ObjectInputStream in) throws IOException {
+		int value = 0;
+		for(int shift = 0; shift < 32; shift += 7) {
+			byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if(b >= 0) {
+				return value;
+			}
+		}
+		throw new StreamCorruptedException("Malformed type id.");
+	}
+
+	private class TypeIdObjectOutputStream extends ObjectOutputStream {
+		private TypeIdObjectOutputStream(OutputStream out) throws IOException {
+			super(out);
+		}
+
+		@Override
+		protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+			Class<?> type = desc.forClass();
+			int id = (null != type ? typeRegistry.getId(type) : -1);
+			if(id < 0) {
+				writeVarint(this, UNREGISTERED_TYPE);
+				super.writeClassDescriptor(desc);
+			} else {
+				writeVarint(this, id + 1);
+			}
+		}
+	}
+
+	private class TypeIdObjectInputStream extends ObjectInputStream {
+		private TypeIdObjectInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+			int tag = readVarint(this);
+			if(tag == UNREGISTERED_TYPE) {
+				return super.readClassDescriptor();
+			}
+			Class<?> type = typeRegistry.getType(tag - 1);
+			if(null == type) {
+				throw new StreamCorruptedException("No type is registered with id " + (tag - 1));
+			}
+			ObjectStreamClass desc = ObjectStreamClass.lookup(type);
+			if(null == desc) {
+				throw new NotSerializableException(type.getName());
+			}
+			return desc;
+		}
+	}
+
 }
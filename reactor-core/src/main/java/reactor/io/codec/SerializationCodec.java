@@ -23,21 +23,41 @@ import reactor.fn.Consumer;
 import reactor.fn.Function;
 import reactor.io.buffer.Buffer;
 
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Abstract base class for {@code Codec Codecs} that perform serialization of objects. Optionally handles writing class
- * names so that an object that is serialized can be properly instantiated with full type information on the other end.
+ * Abstract base class for {@code Codec Codecs} that perform serialization of objects. Writes a type tag in front of
+ * each message so that an object that is serialized can be properly instantiated with full type information on the
+ * other end.
+ * <p>
+ * The type tag is a varint. Types registered with the codec's {@link TypeRegistry} are identified by their id alone;
+ * other types are identified by their class name, which is either sent with every message or, if the registry has
+ * {@link TypeRegistry#streamHeaders(boolean) stream headers} enabled, only the first time the type appears on a
+ * stream.
  *
  * @author Jon Brisbin
  */
 public abstract class SerializationCodec<E, IN, OUT> implements Codec<Buffer, IN, OUT> {
 
-	private final Logger                 log   = LoggerFactory.getLogger(getClass());
-	private final Map<String, Class<IN>> types = new ConcurrentHashMap<String, Class<IN>>();
-	private final E       engine;
-	private final boolean lengthFieldFraming;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	// low bits of a type tag
+	private static final int REGISTERED_TYPE = 0;
+	private static final int TYPE_NAME       = 1;
+	private static final int STREAM_TYPE     = 3;
+
+	private final Logger                 log       = LoggerFactory.getLogger(getClass());
+	private final Map<String, Class<IN>> types     = new ConcurrentHashMap<String, Class<IN>>();
+	private final Map<Class<?>, byte[]>  typeNames = new ConcurrentHashMap<Class<?>, byte[]>();
+	private final E            engine;
+	private final boolean      lengthFieldFraming;
+	private final TypeRegistry typeRegistry;
 
 	/**
 	 * Create a {@code SerializationCodec} using the given engine and specifying whether or not to prepend a length field
@@ -49,8 +69,25 @@ public abstract class SerializationCodec<E, IN, OUT> implements Codec<Buffer, IN
 	 * 		{@code true} to prepend a length field, or {@code false} to skip
 	 */
 	protected SerializationCodec(E engine, boolean lengthFieldFraming) {
+		this(engine, lengthFieldFraming, new TypeRegistry());
+	}
+
+	/**
+	 * Create a {@code SerializationCodec} using the given engine and type registry and specifying whether or not to
+	 * prepend a length field to frame the message.
+	 *
+	 * @param engine
+	 * 		the engine which will perform the serialization
+	 * @param lengthFieldFraming
+	 * 		{@code true} to prepend a length field, or {@code false} to skip
+	 * @param typeRegistry
+	 * 		the ids of the types this codec sends and receives
+	 */
+	protected SerializationCodec(E engine, boolean lengthFieldFraming, TypeRegistry typeRegistry) {
+		Assert.notNull(typeRegistry, "TypeRegistry cannot be null.");
 		this.engine = engine;
 		this.lengthFieldFraming = lengthFieldFraming;
+		this.typeRegistry = typeRegistry;
 	}
 
 	@Override
@@ -75,34 +112,91 @@ public abstract class SerializationCodec<E, IN, OUT> implements Codec<Buffer, IN
 		return engine;
 	}
 
+	protected TypeRegistry getTypeRegistry() {
+		return typeRegistry;
+	}
+
 	protected abstract Function<byte[], IN> deserializer(E engine, Class<IN> type, Consumer<IN> next);
 
 	protected abstract Function<OUT, byte[]> serializer(E engine);
 
-	private String readTypeName(Buffer buffer) {
-		int len = buffer.readInt();
-		Assert.isTrue(buffer.remaining() > len,
-		              "Incomplete buffer. Must contain " + len + " bytes, "
-				              + "but only " + buffer.remaining() + " were found.");
-		byte[] bytes = new byte[len];
-		buffer.read(bytes);
-		return new String(bytes);
+	/**
+	 * Create a {@link Function} that deserializes a message from the remaining bytes of a {@link Buffer}, consuming
+	 * them. The default implementation copies the bytes into an array and hands them to the function created by {@link
+	 * #deserializer(Object, Class, Consumer)}; engines that can read a {@link java.nio.ByteBuffer} directly should
+	 * override it.
+	 *
+	 * @param engine
+	 * 		the serialization engine
+	 * @param type
+	 * 		the type of the messages
+	 * @param next
+	 * 		the {@link Consumer} to pass messages to, if any
+	 *
+	 * @return a new deserializer
+	 */
+	protected Function<Buffer, IN> bufferDeserializer(E engine, Class<IN> type, Consumer<IN> next) {
+		final Function<byte[], IN> fn = deserializer(engine, type, next);
+		return new Function<Buffer, IN>() {
+			@Override
+			public IN apply(Buffer buffer) {
+				byte[] bytes = new byte[buffer.remaining()];
+				buffer.read(bytes);
+				return fn.apply(bytes);
+			}
+		};
 	}
 
-	private Buffer writeTypeName(Class<?> type, byte[] bytes) {
-		String typeName = type.getName();
-		int len = typeName.length();
-		Buffer buffer = new Buffer(4 + len + bytes.length, true);
-		return buffer.append(len)
-		             .append(typeName)
-		             .append(bytes)
-		             .flip();
-
+	/**
+	 * Create a {@link Function} that serializes a message into a {@link Buffer}. The {@code Buffer} only needs to be
+	 * valid until the next invocation of the function on the same thread, since its bytes are copied into the encoded
+	 * message right away. The default implementation wraps the array produced by the function created by {@link
+	 * #serializer(Object)}; engines that can write to a reusable {@link java.nio.ByteBuffer} should override it.
+	 *
+	 * @param engine
+	 * 		the serialization engine
+	 *
+	 * @return a new serializer
+	 */
+	protected Function<OUT, Buffer> bufferSerializer(E engine) {
+		final Function<OUT, byte[]> fn = serializer(engine);
+		return new Function<OUT, Buffer>() {
+			@Override
+			public Buffer apply(OUT o) {
+				return Buffer.wrap(fn.apply(o));
+			}
+		};
 	}
 
+	/**
+	 * Read the type tag of a message that is self-describing, that is one that doesn't refer to a type announced
+	 * earlier in the stream.
+	 *
+	 * @param buffer
+	 * 		the message
+	 *
+	 * @return the type of the message
+	 */
 	public Class<IN> readType(Buffer buffer) {
-		String typeName = readTypeName(buffer);
-		return getType(typeName);
+		int tag = readVarint(buffer);
+		Assert.state((tag & 3) != STREAM_TYPE, "Message refers to a type announced earlier in its stream.");
+		return readType(tag, buffer);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Class<IN> readType(int tag, Buffer buffer) {
+		if((tag & 1) == REGISTERED_TYPE) {
+			Class<?> type = typeRegistry.getType(tag >>> 1);
+			Assert.state(null != type, "No type is registered with id " + (tag >>> 1));
+			return (Class<IN>)type;
+		}
+		int len = readVarint(buffer);
+		Assert.isTrue(buffer.remaining() >= len,
+		              "Incomplete buffer. Must contain " + len + " bytes, "
+				              + "but only " + buffer.remaining() + " were found.");
+		byte[] bytes = new byte[len];
+		buffer.read(bytes);
+		return getType(new String(bytes, UTF8));
 	}
 
 	@SuppressWarnings("unchecked")
@@ -119,14 +213,59 @@ public abstract class SerializationCodec<E, IN, OUT> implements Codec<Buffer, IN
 		return type;
 	}
 
+	private byte[] getTypeName(Class<?> type) {
+		byte[] name = typeNames.get(type);
+		if(null == name) {
+			name = type.getName().getBytes(UTF8);
+			typeNames.put(type, name);
+		}
+		return name;
+	}
+
+	private static int varintLength(int value) {
+		int len = 1;
+		while((value & ~0x7F) != 0) {
+			value >>>= 7;
+			len++;
+		}
+		return len;
+	}
+
+	private static void writeVarint(Buffer buffer, int value) {
+		while((value & ~0x7F) != 0) {
+			buffer.append((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.append((byte)value);
+	}
+
+	private static int readVarint(Buffer buffer) {
+		int value = 0;
+		for(int shift = 0; shift < 32; shift += 7) {
+			byte b = buffer.read();
+			value |= (b & 0x7F) << shift;
+			if(b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalStateException("Malformed type tag.");
+	}
+
 	private class DelegateCodec implements Codec<Buffer, IN, OUT> {
 		@Override
 		public Function<Buffer, IN> decoder(final Consumer<IN> next) {
 			return new Function<Buffer, IN>() {
+				// deserializers by type, and the types this stream has announced by stream id
+				private final Map<Class<IN>, Function<Buffer, IN>> deserializers = new HashMap<Class<IN>, Function<Buffer, IN>>();
+				private final List<Class<IN>>                      streamTypes   = new ArrayList<Class<IN>>();
+
 				@Override
 				public IN apply(Buffer buffer) {
 					try {
-						return deserializer(engine, readType(buffer), next).apply(buffer.asBytes());
+						IN obj = deserializer(readTag(buffer)).apply(buffer);
+						// consume the whole message so a framing decoder moves on to the next one
+						buffer.position(buffer.limit());
+						return obj;
 					} catch(RuntimeException e) {
 						if(log.isErrorEnabled()) {
 							log.error("Could not decode " + buffer, e);
@@ -134,17 +273,47 @@ public abstract class SerializationCodec<E, IN, OUT> implements Codec<Buffer, IN
 						throw e;
 					}
 				}
+
+				private Class<IN> readTag(Buffer buffer) {
+					int tag = readVarint(buffer);
+					if((tag & 3) == STREAM_TYPE) {
+						int streamId = tag >>> 2;
+						Assert.state(streamId < streamTypes.size(), "Unknown stream type id " + streamId);
+						return streamTypes.get(streamId);
+					}
+					Class<IN> type = readType(tag, buffer);
+					if((tag & 3) == TYPE_NAME && typeRegistry.isStreamHeaders()) {
+						int streamId = tag >>> 2;
+						while(streamTypes.size() <= streamId) {
+							streamTypes.add(null);
+						}
+						streamTypes.set(streamId, type);
+					}
+					return type;
+				}
+
+				private Function<Buffer, IN> deserializer(Class<IN> type) {
+					Function<Buffer, IN> fn = deserializers.get(type);
+					if(null == fn) {
+						fn = bufferDeserializer(engine, type, next);
+						deserializers.put(type, fn);
+					}
+					return fn;
+				}
 			};
 		}
 
 		@Override
 		public Function<OUT, Buffer> encoder() {
-			final Function<OUT, byte[]> fn = serializer(engine);
+			final Function<OUT, Buffer> fn = bufferSerializer(engine);
 			return new Function<OUT, Buffer>() {
+				// ids of the unregistered types this stream has announced
+				private final Map<Class<?>, Integer> streamIds = new IdentityHashMap<Class<?>, Integer>();
+
 				@Override
 				public Buffer apply(OUT o) {
 					try {
-						return writeTypeName(o.getClass(), fn.apply(o));
+						return writeType(o.getClass(), fn.apply(o));
 					} catch(RuntimeException e) {
 						if(log.isErrorEnabled()) {
 							log.error("Could not encode " + o, e);
@@ -152,6 +321,40 @@ public abstract class SerializationCodec<E, IN, OUT> implements Codec<Buffer, IN
 						throw e;
 					}
 				}
+
+				private Buffer writeType(Class<?> type, Buffer payload) {
+					int id = typeRegistry.getId(type);
+					if(id >= 0) {
+						int tag = (id << 1) | REGISTERED_TYPE;
+						Buffer buffer = new Buffer(varintLength(tag) + payload.remaining(), true);
+						writeVarint(buffer, tag);
+						return buffer.append(payload).flip();
+					}
+
+					int tag;
+					if(typeRegistry.isStreamHeaders()) {
+						Integer streamId = streamIds.get(type);
+						if(null != streamId) {
+							tag = (streamId << 2) | STREAM_TYPE;
+							Buffer buffer = new Buffer(varintLength(tag) + payload.remaining(), true);
+							writeVarint(buffer, tag);
+							return buffer.append(payload).flip();
+						}
+						streamId = streamIds.size();
+						streamIds.put(type, streamId);
+						tag = (streamId << 2) | TYPE_NAME;
+					} else {
+						tag = TYPE_NAME;
+					}
+					byte[] name = getTypeName(type);
+					Buffer buffer = new Buffer(varintLength(tag) + varintLength(name.length) + name.length + payload.remaining(),
+					                           true);
+					writeVarint(buffer, tag);
+					writeVarint(buffer, name.length);
+					return buffer.append(name)
+					             .append(payload)
+					             .flip();
+				}
 			};
 		}
 	}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2011-2014 Pivotal Software, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package reactor.io.codec;
+
+import reactor.core.support.Assert;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of compact numeric ids for the types a {@link SerializationCodec} or {@link JavaSerializationCodec} sends.
+ * A registered type is identified on the wire by its id, written as a varint, instead of by its class name. Both ends
+ * of a connection must register the same types under the same ids.
+ * <p>
+ * Types that aren't registered are still identified by name. By default the name accompanies every message, which
+ * keeps each message self-describing. With {@link #streamHeaders(boolean) stream headers} enabled the name is sent
+ * only the first time a type appears on a stream, together with an id local to that stream, and later messages carry
+ * only that id. Stream headers require that every encoder and decoder serves a single connection, so they should be
+ * left off for connectionless transports.
+ * <p>
+ * Registration is meant to happen up-front; lookups are lock-free.
+ *
+ * @author Jon Brisbin
+ */
+public class TypeRegistry {
+
+	private final Map<Class<?>, Integer> ids   = new ConcurrentHashMap<Class<?>, Integer>();
+	private volatile Class<?>[] types = new Class<?>[16];
+	private volatile boolean    streamHeaders;
+	private          int        nextId;
+
+	/**
+	 * Register the given type under the next free id, unless it is already registered.
+	 *
+	 * @param type
+	 * 		the type to register
+	 *
+	 * @return {@literal this}
+	 */
+	public synchronized TypeRegistry register(Class<?> type) {
+		if (ids.containsKey(type)) {
+			return this;
+		}
+		while (nextId < types.length && null != types[nextId]) {
+			nextId++;
+		}
+		return register(type, nextId);
+	}
+
+	/**
+	 * Register the given type under the given id.
+	 *
+	 * @param type
+	 * 		the type to register
+	 * @param id
+	 * 		the id, which should be small to keep its varint short
+	 *
+	 * @return {@literal this}
+	 */
+	public synchronized TypeRegistry register(Class<?> type, int id) {
+		Assert.notNull(type, "Type cannot be null.");
+		Assert.isTrue(id >= 0, "Type id cannot be negative.");
+		Integer existing = ids.get(type);
+		Assert.isTrue(null == existing || existing == id,
+		              type.getName() + " is already registered with id " + existing);
+		Class<?>[] newTypes = types;
+		if (id >= newTypes.length) {
+			newTypes = Arrays.copyOf(newTypes, Math.max(id + 1, newTypes.length * 2));
+		}
+		Assert.isTrue(null == newTypes[id] || newTypes[id] == type,
+		              "Type id " + id + " is already registered for " + (null != newTypes[id] ? newTypes[id].getName() : null));
+		if (newTypes == types) {
+			newTypes = newTypes.clone();
+		}
+		newTypes[id] = type;
+		types = newTypes;
+		ids.put(type, id);
+		return this;
+	}
+
+	/**
+	 * Set whether the names of unregistered types are sent once per stream rather than with every message.
+	 *
+	 * @param streamHeaders
+	 * 		{@literal true} to send each unregistered type's name once per stream
+	 *
+	 * @return {@literal this}
+	 */
+	public TypeRegistry streamHeaders(boolean streamHeaders) {
+		this.streamHeaders = streamHeaders;
+		return this;
+	}
+
+	/**
+	 * Whether the names of unregistered types are sent once per stream.
+	 *
+	 * @return {@literal true} if stream headers are enabled
+	 */
+	public boolean isStreamHeaders() {
+		return streamHeaders;
+	}
+
+	/**
+	 * Get the id of the given type.
+	 *
+	 * @param type
+	 * 		the type
+	 *
+	 * @return the type's id or {@literal -1} if it isn't registered
+	 */
+	public int getId(Class<?> type) {
+		Integer id = ids.get(type);
+		return (null != id ? id : -1);
+	}
+
+	/**
+	 * Get the type registered under the given id.
+	 *
+	 * @param id
+	 * 		the id
+	 *
+	 * @return the type or {@literal null} if none is registered under that id
+	 */
+	public Class<?> getType(int id) {
+		Class<?>[] types = this.types;
+		return (id >= 0 && id < types.length ? types[id] : null);
+	}
+
+}
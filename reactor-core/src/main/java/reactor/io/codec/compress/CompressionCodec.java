@@ -21,9 +21,21 @@ import reactor.fn.Function;
 import reactor.io.buffer.Buffer;
 import reactor.io.codec.Codec;
 
-import java.io.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
+ * Base class for codecs that compress the output of a delegate {@link Codec} and decompress input before handing it to
+ * that delegate.
+ * <p>
+ * Implementations work on whole {@link ByteBuffer ByteBuffers} through a {@link Compressor} and an incremental {@link
+ * Decompressor} rather than through stream adapters. A decoder keeps its decompression state between invocations, so
+ * a compressed message may span several {@link Buffer Buffers} and a single {@link Buffer} may carry several messages.
+ * Without a {@link Consumer}, a decoder returns the first message it completes and keeps the bytes after it for the
+ * next invocation, which may be given an empty {@link Buffer}. Like other stateful decoders, the {@link Function}
+ * returned by {@link #decoder(Consumer)} should be used by one connection at a time, and so should the one returned by
+ * {@link #encoder()}.
+ *
  * @author Jon Brisbin
  */
 public abstract class CompressionCodec<IN, OUT> implements Codec<Buffer, IN, OUT> {
@@ -36,55 +48,197 @@ public abstract class CompressionCodec<IN, OUT> implements Codec<Buffer, IN, OUT
 
 	@Override
 	public Function<Buffer, IN> decoder(final Consumer<IN> next) {
-		return new Function<Buffer, IN>() {
-			@Override
-			public IN apply(Buffer buffer) {
-				try {
-					ByteArrayInputStream bin = new ByteArrayInputStream(buffer.asBytes());
-					InputStream zin = createInputStream(bin);
-					Buffer newBuff = new Buffer();
-					while(zin.available() > 0) {
-						newBuff.append((byte)zin.read());
+		return new DecompressingDecoder(next);
+	}
+
+	@Override
+	public Function<OUT, Buffer> encoder() {
+		return new CompressingEncoder();
+	}
+
+	/**
+	 * Create the {@link Compressor} used by one encoder.
+	 *
+	 * @return a new {@link Compressor}
+	 */
+	protected abstract Compressor createCompressor();
+
+	/**
+	 * Create the {@link Decompressor} used by one decoder.
+	 *
+	 * @return a new {@link Decompressor}
+	 */
+	protected abstract Decompressor createDecompressor();
+
+	/**
+	 * Make sure the given buffer, which is being written to, has room for {@code atLeast} more bytes, replacing it with
+	 * a larger buffer of the same kind if it doesn't.
+	 *
+	 * @param out
+	 * 		the buffer being written to
+	 * @param atLeast
+	 * 		the number of bytes about to be written
+	 *
+	 * @return {@code out} or a larger copy of it
+	 */
+	protected static ByteBuffer ensureCapacity(ByteBuffer out, int atLeast) {
+		if (out.remaining() >= atLeast) {
+			return out;
+		}
+		int newCap = Math.max(out.capacity() * 2, out.position() + atLeast);
+		ByteBuffer newOut = (out.isDirect() ? ByteBuffer.allocateDirect(newCap) : ByteBuffer.allocate(newCap));
+		out.flip();
+		newOut.put(out);
+		return newOut;
+	}
+
+	/**
+	 * Compresses a whole message in one call.
+	 */
+	protected interface Compressor {
+		/**
+		 * Compress the remaining bytes of {@code in}.
+		 *
+		 * @param in
+		 * 		the bytes to compress, which are consumed
+		 *
+		 * @return a new {@link ByteBuffer}, ready for reading, containing one compressed message
+		 *
+		 * @throws IOException
+		 * 		if the bytes can't be compressed
+		 */
+		ByteBuffer compress(ByteBuffer in) throws IOException;
+	}
+
+	/**
+	 * Incrementally decompresses messages that may arrive in several pieces.
+	 */
+	protected interface Decompressor {
+		/**
+		 * Decompress as much of {@code in} as possible into {@code out}, stopping at the end of a message. Bytes that
+		 * are left in {@code in} while the message is not {@link #isComplete() complete} couldn't be used yet and will
+		 * be presented again, followed by more data.
+		 *
+		 * @param in
+		 * 		the compressed bytes
+		 * @param out
+		 * 		the uncompressed output of the current message
+		 *
+		 * @return the output buffer, which may have been replaced by a larger one
+		 *
+		 * @throws IOException
+		 * 		if the input is corrupt
+		 */
+		ByteBuffer decompress(ByteBuffer in, ByteBuffer out) throws IOException;
+
+		/**
+		 * Whether the last call to {@link #decompress(ByteBuffer, ByteBuffer)} completed a message.
+		 *
+		 * @return {@literal true} if a whole message has been decompressed
+		 */
+		boolean isComplete();
+
+		/**
+		 * Allocate the output buffer for a message that starts in the given input, sized from what the input reveals
+		 * about the uncompressed length.
+		 *
+		 * @param in
+		 * 		the compressed bytes
+		 *
+		 * @return an empty buffer to decompress into
+		 */
+		ByteBuffer allocateOutput(ByteBuffer in);
+
+		/**
+		 * Prepare to decompress the next message.
+		 */
+		void reset();
+	}
+
+	private class DecompressingDecoder implements Function<Buffer, IN> {
+		private final Consumer<IN>         next;
+		private final Function<Buffer, IN> decoder;
+		private final Decompressor         decompressor;
+
+		private ByteBuffer pending;
+		private ByteBuffer out;
+
+		private DecompressingDecoder(Consumer<IN> next) {
+			this.next = next;
+			this.decoder = delegate.decoder(null);
+			this.decompressor = createDecompressor();
+		}
+
+		@Override
+		public IN apply(Buffer buffer) {
+			ByteBuffer in = buffer.byteBuffer();
+			if (null == in) {
+				if (null == pending) {
+					return null;
+				}
+				in = ByteBuffer.allocate(0);
+			}
+			if (null != pending) {
+				pending = ensureCapacity(pending, in.remaining());
+				pending.put(in);
+				pending.flip();
+				in = pending;
+				pending = null;
+			}
+
+			try {
+				while (in.hasRemaining()) {
+					if (null == out) {
+						out = decompressor.allocateOutput(in);
+					}
+					out = decompressor.decompress(in, out);
+					if (!decompressor.isComplete()) {
+						break;
 					}
-					zin.close();
-					IN in = delegate.decoder(null).apply(newBuff.flip());
-					if(null != next) {
-						next.accept(in);
-						return null;
+					out.flip();
+					IN decoded = decoder.apply(new Buffer(out));
+					out = null;
+					decompressor.reset();
+					if (null != next) {
+						next.accept(decoded);
 					} else {
-						return in;
+						keepPending(in);
+						return decoded;
 					}
-				} catch(IOException e) {
-					throw new IllegalStateException(e.getMessage(), e);
 				}
+			} catch (IOException e) {
+				throw new IllegalStateException(e.getMessage(), e);
 			}
-		};
-	}
 
-	@Override
-	public Function<OUT, Buffer> encoder() {
-		return new Function<OUT, Buffer>() {
-			@Override
-			public Buffer apply(OUT out) {
-				Buffer buff = delegate.encoder().apply(out);
-				try {
-					ByteArrayOutputStream bout = new ByteArrayOutputStream();
-					OutputStream zout = createOutputStream(bout);
-					zout.write(buff.asBytes());
-					zout.flush();
-					bout.flush();
-					zout.close();
-					return Buffer.wrap(bout.toByteArray());
-				} catch(IOException e) {
-					throw new IllegalStateException(e.getMessage(), e);
-				}
+			// keep the bytes the decompressor couldn't use yet
+			keepPending(in);
+			return null;
+		}
+
+		private void keepPending(ByteBuffer in) {
+			if (in.hasRemaining()) {
+				pending = ByteBuffer.allocate(Math.max(in.remaining() * 2, 64));
+				pending.put(in);
 			}
-		};
+		}
 	}
 
-	protected abstract InputStream createInputStream(InputStream parent) throws IOException;
+	private class CompressingEncoder implements Function<OUT, Buffer> {
+		private final Function<OUT, Buffer> encoder    = delegate.encoder();
+		private final Compressor            compressor = createCompressor();
 
-	protected abstract OutputStream createOutputStream(OutputStream parent) throws IOException;
+		@Override
+		public Buffer apply(OUT out) {
+			Buffer buff = encoder.apply(out);
+			ByteBuffer in = (null != buff && null != buff.byteBuffer()
+			                 ? buff.byteBuffer().duplicate()
+			                 : ByteBuffer.allocate(0));
+			try {
+				return new Buffer(compressor.compress(in));
+			} catch (IOException e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+		}
+	}
 
 }
-
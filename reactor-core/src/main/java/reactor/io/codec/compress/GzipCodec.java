@@ -20,28 +20,236 @@ import reactor.io.buffer.Buffer;
 import reactor.io.codec.Codec;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
+ * A {@link CompressionCodec} that produces and consumes GZIP members, compatible with {@link
+ * java.util.zip.GZIPOutputStream} and {@link java.util.zip.GZIPInputStream}. Each encoded message is one member;
+ * decoding drives a reusable {@link Inflater} directly over the input bytes and verifies the CRC32 and length in each
+ * member's trailer.
+ *
  * @author Jon Brisbin
  */
 public class GzipCodec<IN, OUT> extends CompressionCodec<IN, OUT> {
 
+	private static final byte[] HEADER = {
+			(byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+	};
+
+	private static final int HEADER_LEN  = 10;
+	private static final int TRAILER_LEN = 8;
+	private static final int FHCRC       = 2;
+	private static final int FEXTRA      = 4;
+	private static final int FNAME       = 8;
+	private static final int FCOMMENT    = 16;
+
 	public GzipCodec(Codec<Buffer, IN, OUT> delegate) {
 		super(delegate);
 	}
 
 	@Override
-	protected InputStream createInputStream(InputStream parent) throws IOException {
-		return new GZIPInputStream(parent);
+	protected Compressor createCompressor() {
+		return new GzipCompressor();
 	}
 
 	@Override
-	protected OutputStream createOutputStream(OutputStream parent) throws IOException {
-		return new GZIPOutputStream(parent);
+	protected Decompressor createDecompressor() {
+		return new GzipDecompressor();
+	}
+
+	private static final class GzipCompressor implements Compressor {
+		// a Deflater holds native memory that is only freed by end(), and encoders have no end of their own, so each
+		// thread reuses one for every message it compresses
+		private static final ThreadLocal<Deflater> DEFLATERS = new ThreadLocal<Deflater>() {
+			@Override
+			protected Deflater initialValue() {
+				return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			}
+		};
+
+		private final CRC32    crc      = new CRC32();
+		private       byte[]   scratch  = new byte[0];
+
+		@Override
+		public ByteBuffer compress(ByteBuffer in) throws IOException {
+			int len = in.remaining();
+			byte[] bytes;
+			int off;
+			if (in.hasArray()) {
+				bytes = in.array();
+				off = in.arrayOffset() + in.position();
+			} else {
+				if (scratch.length < len) {
+					scratch = new byte[len];
+				}
+				in.duplicate().get(scratch, 0, len);
+				bytes = scratch;
+				off = 0;
+			}
+			in.position(in.limit());
+
+			Deflater deflater = DEFLATERS.get();
+			deflater.reset();
+			crc.reset();
+			crc.update(bytes, off, len);
+			deflater.setInput(bytes, off, len);
+			deflater.finish();
+
+			// deflate rarely expands input by more than a few bytes per 16K block
+			ByteBuffer out = ByteBuffer.allocate(HEADER_LEN + len + (len >> 12) + 64);
+			out.put(HEADER);
+			while (!deflater.finished()) {
+				if (out.remaining() < 64) {
+					out = ensureCapacity(out, Math.max(len >> 2, 1024));
+				}
+				int n = deflater.deflate(out.array(), out.arrayOffset() + out.position(), out.remaining());
+				out.position(out.position() + n);
+			}
+			out = ensureCapacity(out, TRAILER_LEN);
+			out.putInt(Integer.reverseBytes((int) crc.getValue()));
+			out.putInt(Integer.reverseBytes(len));
+			out.flip();
+			return out;
+		}
+	}
+
+	private static final class GzipDecompressor implements Decompressor {
+		private static final int STATE_HEADER  = 0;
+		private static final int STATE_DATA    = 1;
+		private static final int STATE_TRAILER = 2;
+
+		private final Inflater inflater = new Inflater(true);
+		private final CRC32    crc      = new CRC32();
+		private       byte[]   scratch  = new byte[0];
+		private       int      state    = STATE_HEADER;
+		private       boolean  complete = false;
+
+		@Override
+		public ByteBuffer allocateOutput(ByteBuffer in) {
+			return ByteBuffer.allocate(Math.max(in.remaining() * 4, 256));
+		}
+
+		@Override
+		public ByteBuffer decompress(ByteBuffer in, ByteBuffer out) throws IOException {
+			if (state == STATE_HEADER) {
+				if (!readHeader(in)) {
+					return out;
+				}
+				state = STATE_DATA;
+			}
+			if (state == STATE_DATA) {
+				out = inflate(in, out);
+				if (!inflater.finished()) {
+					return out;
+				}
+				state = STATE_TRAILER;
+			}
+			if (in.remaining() < TRAILER_LEN) {
+				return out;
+			}
+			int expectedCrc = Integer.reverseBytes(in.getInt());
+			int expectedLen = Integer.reverseBytes(in.getInt());
+			if (expectedCrc != (int) crc.getValue() || expectedLen != (int) inflater.getBytesWritten()) {
+				throw new IOException("Corrupt GZIP trailer");
+			}
+			complete = true;
+			return out;
+		}
+
+		@Override
+		public boolean isComplete() {
+			return complete;
+		}
+
+		@Override
+		public void reset() {
+			inflater.reset();
+			crc.reset();
+			state = STATE_HEADER;
+			complete = false;
+		}
+
+		private ByteBuffer inflate(ByteBuffer in, ByteBuffer out) throws IOException {
+			int len = in.remaining();
+			byte[] bytes;
+			int off;
+			if (in.hasArray()) {
+				bytes = in.array();
+				off = in.arrayOffset() + in.position();
+			} else {
+				if (scratch.length < len) {
+					scratch = new byte[len];
+				}
+				in.duplicate().get(scratch, 0, len);
+				bytes = scratch;
+				off = 0;
+			}
+
+			inflater.setInput(bytes, off, len);
+			try {
+				while (!inflater.finished() && !inflater.needsInput()) {
+					if (inflater.needsDictionary()) {
+						throw new IOException("GZIP member requires a preset dictionary");
+					}
+					if (!out.hasRemaining()) {
+						out = ensureCapacity(out, out.capacity());
+					}
+					int pos = out.position();
+					int n = inflater.inflate(out.array(), out.arrayOffset() + pos, out.remaining());
+					crc.update(out.array(), out.arrayOffset() + pos, n);
+					out.position(pos + n);
+				}
+			} catch (DataFormatException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+			in.position(in.position() + len - inflater.getRemaining());
+			return out;
+		}
+
+		private boolean readHeader(ByteBuffer in) throws IOException {
+			int start = in.position();
+			if (in.remaining() < HEADER_LEN) {
+				return false;
+			}
+			if (in.get(start) != HEADER[0] || in.get(start + 1) != HEADER[1] || in.get(start + 2) != Deflater.DEFLATED) {
+				throw new IOException("Not in GZIP format");
+			}
+			int flags = in.get(start + 3) & 0xFF;
+			int end = start + HEADER_LEN;
+			if ((flags & FEXTRA) != 0) {
+				if (in.limit() < end + 2) {
+					return false;
+				}
+				end += 2 + ((in.get(end) & 0xFF) | ((in.get(end + 1) & 0xFF) << 8));
+			}
+			if ((flags & FNAME) != 0 && (end = skipZeroTerminated(in, end)) < 0) {
+				return false;
+			}
+			if ((flags & FCOMMENT) != 0 && (end = skipZeroTerminated(in, end)) < 0) {
+				return false;
+			}
+			if ((flags & FHCRC) != 0) {
+				end += 2;
+			}
+			if (in.limit() < end) {
+				return false;
+			}
+			in.position(end);
+			return true;
+		}
+
+		private static int skipZeroTerminated(ByteBuffer in, int from) {
+			for (int i = from; i < in.limit(); i++) {
+				if (in.get(i) == 0) {
+					return i + 1;
+				}
+			}
+			return -1;
+		}
 	}
 
 }
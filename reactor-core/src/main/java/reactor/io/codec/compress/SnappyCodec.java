@@ -16,32 +16,189 @@
 
 package reactor.io.codec.compress;
 
-import org.xerial.snappy.SnappyInputStream;
-import org.xerial.snappy.SnappyOutputStream;
+import org.xerial.snappy.Snappy;
 import reactor.io.buffer.Buffer;
 import reactor.io.codec.Codec;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
+ * A {@link CompressionCodec} that uses Snappy, writing the same block format as {@link
+ * org.xerial.snappy.SnappyOutputStream}: a header followed by length-prefixed blocks of at most 32K of uncompressed
+ * data. Blocks are compressed and uncompressed with single calls into Snappy, directly between {@link ByteBuffer
+ * ByteBuffers} when both are direct.
+ * <p>
+ * Every block of a message but the last carries exactly 32K of data, so the decoder ends a message at the first block
+ * that carries less, wherever the input {@link Buffer Buffers} are split. A message whose length is a multiple of 32K,
+ * including an empty one, is ended by the encoder with an extra empty block, which stream readers skip; without one,
+ * as in the output of older versions or of a plain stream, such a message ends where the next message's header
+ * begins.
+ *
  * @author Jon Brisbin
  */
 public class SnappyCodec<IN, OUT> extends CompressionCodec<IN, OUT> {
 
+	private static final byte[] MAGIC_HEADER = org.xerial.snappy.SnappyCodec.MAGIC_HEADER;
+	private static final int    HEADER_LEN   = org.xerial.snappy.SnappyCodec.headerSize();
+	private static final int    BLOCK_SIZE   = 32 * 1024;
+	// the compressed form of an empty block, which is the varint 0
+	private static final byte   EMPTY_BLOCK  = 0;
+
 	public SnappyCodec(Codec<Buffer, IN, OUT> delegate) {
 		super(delegate);
 	}
 
 	@Override
-	protected InputStream createInputStream(InputStream parent) throws IOException {
-		return new SnappyInputStream(parent);
+	protected Compressor createCompressor() {
+		return new SnappyCompressor();
 	}
 
 	@Override
-	protected OutputStream createOutputStream(OutputStream parent) throws IOException {
-		return new SnappyOutputStream(parent);
+	protected Decompressor createDecompressor() {
+		return new SnappyDecompressor();
+	}
+
+	private static ByteBuffer allocate(int size, boolean direct) {
+		return (direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size));
+	}
+
+	private static final class SnappyCompressor implements Compressor {
+		@Override
+		public ByteBuffer compress(ByteBuffer in) throws IOException {
+			int len = in.remaining();
+			int blocks = (len + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			boolean direct = in.isDirect();
+
+			// a full last block doesn't tell the decoder that the message has ended, an empty one after it does
+			boolean emptyLast = (len % BLOCK_SIZE == 0);
+
+			ByteBuffer out = allocate(HEADER_LEN + blocks * (4 + Snappy.maxCompressedLength(BLOCK_SIZE))
+			                          + (emptyLast ? 5 : 0), direct);
+			out.put(MAGIC_HEADER)
+			   .putInt(org.xerial.snappy.SnappyCodec.DEFAULT_VERSION)
+			   .putInt(org.xerial.snappy.SnappyCodec.MINIMUM_COMPATIBLE_VERSION);
+
+			while (in.hasRemaining()) {
+				int n = Math.min(in.remaining(), BLOCK_SIZE);
+				int lenPos = out.position();
+				int compressed;
+				if (direct) {
+					ByteBuffer src = in.duplicate();
+					src.limit(src.position() + n);
+					ByteBuffer dst = out.duplicate();
+					dst.position(lenPos + 4);
+					compressed = Snappy.compress(src, dst);
+				} else {
+					compressed = Snappy.compress(in.array(), in.arrayOffset() + in.position(), n,
+					                             out.array(), out.arrayOffset() + lenPos + 4);
+				}
+				out.putInt(lenPos, compressed);
+				out.position(lenPos + 4 + compressed);
+				in.position(in.position() + n);
+			}
+			if (emptyLast) {
+				out.putInt(1).put(EMPTY_BLOCK);
+			}
+			out.flip();
+			return out;
+		}
+	}
+
+	private static final class SnappyDecompressor implements Decompressor {
+		private boolean headerRead = false;
+		private boolean complete   = false;
+		private byte[]  scratch    = new byte[0];
+
+		@Override
+		public ByteBuffer allocateOutput(ByteBuffer in) {
+			return allocate(Math.max(in.remaining() * 2, 256), in.isDirect());
+		}
+
+		@Override
+		public ByteBuffer decompress(ByteBuffer in, ByteBuffer out) throws IOException {
+			if (!headerRead) {
+				if (in.remaining() < HEADER_LEN) {
+					return out;
+				}
+				for (int i = 0; i < MAGIC_HEADER.length; i++) {
+					if (in.get(in.position() + i) != MAGIC_HEADER[i]) {
+						throw new IOException("Not in Snappy format");
+					}
+				}
+				in.position(in.position() + HEADER_LEN);
+				headerRead = true;
+			}
+
+			for (; ; ) {
+				// a block length is never negative, so a leading magic byte means the next message has started
+				if (in.hasRemaining() && in.get(in.position()) == MAGIC_HEADER[0]) {
+					complete = true;
+					return out;
+				}
+				if (in.remaining() < 4) {
+					return out;
+				}
+				int compressed = in.getInt(in.position());
+				if (in.remaining() < 4 + compressed) {
+					return out;
+				}
+				in.position(in.position() + 4);
+				int start = out.position();
+				out = uncompress(in, compressed, out);
+				in.position(in.position() + compressed);
+				// only the last block of a message carries less than a full block of data
+				if (out.position() - start < BLOCK_SIZE) {
+					complete = true;
+					return out;
+				}
+			}
+		}
+
+		@Override
+		public boolean isComplete() {
+			return complete;
+		}
+
+		@Override
+		public void reset() {
+			headerRead = false;
+			complete = false;
+		}
+
+		private ByteBuffer uncompress(ByteBuffer in, int len, ByteBuffer out) throws IOException {
+			if (in.isDirect() && out.isDirect()) {
+				ByteBuffer src = in.duplicate();
+				src.limit(src.position() + len);
+				out = ensureCapacity(out, Snappy.uncompressedLength(src));
+				out.position(out.position() + Snappy.uncompress(src, out.duplicate()));
+				return out;
+			}
+
+			byte[] bytes;
+			int off;
+			if (in.hasArray()) {
+				bytes = in.array();
+				off = in.arrayOffset() + in.position();
+			} else {
+				if (scratch.length < len) {
+					scratch = new byte[len];
+				}
+				in.duplicate().get(scratch, 0, len);
+				bytes = scratch;
+				off = 0;
+			}
+			int uncompressed = Snappy.uncompressedLength(bytes, off, len);
+			out = ensureCapacity(out, uncompressed);
+			if (out.hasArray()) {
+				Snappy.uncompress(bytes, off, len, out.array(), out.arrayOffset() + out.position());
+				out.position(out.position() + uncompressed);
+			} else {
+				out.put(Snappy.uncompress(Arrays.copyOfRange(bytes, off, off + len)));
+			}
+			return out;
+		}
 	}
 
 }
@@ -20,6 +20,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import reactor.core.support.Assert;
 import reactor.fn.Consumer;
 import reactor.fn.Function;
@@ -27,9 +29,18 @@ import reactor.io.buffer.Buffer;
 import reactor.io.codec.Codec;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * A codec for decoding JSON into Java objects and encoding Java objects into JSON.
+ * <p>
+ * The decoder is incremental: it accepts {@link Buffer Buffers} holding arbitrary pieces of a stream of JSON values,
+ * such as newline-delimited or simply concatenated documents, and emits each value as soon as it is complete. A value
+ * that arrives in a single {@code Buffer} is parsed in place; only a value split across {@code Buffers} is
+ * accumulated. A top-level value that is not an object, array or string is only complete once it is followed by
+ * whitespace or another value, or, for a decoder without a {@link Consumer}, by the end of the {@code Buffer}. Like
+ * other stateful decoders, the {@link Function} returned by {@link #decoder(Consumer)} should be used by one connection
+ * at a time.
  *
  * @param <IN>
  * 		The type to decode JSON into
@@ -42,6 +53,8 @@ public class JsonCodec<IN, OUT> implements Codec<Buffer, IN, OUT> {
 
 	private final Class<IN>    inputType;
 	private final ObjectMapper mapper;
+	private final ObjectReader reader;
+	private final ObjectWriter writer;
 
 	/**
 	 * Creates a new {@code JsonCodec} that will create instances of {@code inputType}  when
@@ -73,6 +86,8 @@ public class JsonCodec<IN, OUT> implements Codec<Buffer, IN, OUT> {
 		if(null != customModule) {
 			this.mapper.registerModule(customModule);
 		}
+		this.reader = mapper.reader(this.inputType);
+		this.writer = mapper.writer();
 	}
 
 	@Override
@@ -87,30 +102,112 @@ public class JsonCodec<IN, OUT> implements Codec<Buffer, IN, OUT> {
 
 	private class JsonDecoder implements Function<Buffer, IN> {
 		private final Consumer<IN> next;
+		private final JsonScanner  scanner = new JsonScanner();
+
+		// bytes of a value that started in an earlier Buffer
+		private byte[] pending = new byte[0];
+		private int    pendingLen;
+		// scratch space for values that arrive in a Buffer without an accessible array
+		private byte[] scratch;
 
 		private JsonDecoder(Consumer<IN> next) {
 			this.next = next;
 		}
 
-		@SuppressWarnings("unchecked")
 		@Override
 		public IN apply(Buffer buffer) {
-			IN in;
+			ByteBuffer bb = buffer.byteBuffer();
+			if(null == bb) {
+				return null;
+			}
 			try {
-				if(JsonNode.class.isAssignableFrom(inputType)) {
-					in = (IN)mapper.readTree(buffer.inputStream());
-				} else {
-					in = mapper.readValue(buffer.inputStream(), inputType);
-				}
-				if(null != next) {
-					next.accept(in);
-					return null;
-				} else {
-					return in;
+				while(bb.hasRemaining()) {
+					int pos = bb.position();
+					int limit = bb.limit();
+					int start = (pendingLen > 0 ? pos : -1);
+					int end = -1;
+					for(int i = pos; i < limit; i++) {
+						int r = scanner.scan(bb.get(i));
+						if(r == JsonScanner.VALUE_START) {
+							start = i;
+						} else if(r == JsonScanner.VALUE_END) {
+							end = i + 1;
+							break;
+						} else if(r == JsonScanner.VALUE_END_BEFORE) {
+							end = i;
+							break;
+						}
+					}
+
+					if(end < 0 && null == next && scanner.isInLiteral()) {
+						// a caller without a Consumer may hand over one value per Buffer, with nothing after a number or
+						// a true, false or null to end it
+						scanner.endLiteral();
+						end = limit;
+					}
+					if(end < 0) {
+						// no complete value, keep what has been seen of the current one
+						if(start >= 0) {
+							appendPending(bb, start, limit);
+						}
+						bb.position(limit);
+						return null;
+					}
+
+					IN in = parse(bb, start, end);
+					bb.position(end);
+					if(null != next) {
+						next.accept(in);
+					} else {
+						return in;
+					}
 				}
 			} catch(IOException e) {
+				reset();
 				throw new IllegalStateException(e);
+			} catch(RuntimeException e) {
+				reset();
+				throw e;
+			}
+			return null;
+		}
+
+		private IN parse(ByteBuffer bb, int start, int end) throws IOException {
+			if(pendingLen > 0) {
+				appendPending(bb, start, end);
+				int len = pendingLen;
+				pendingLen = 0;
+				return reader.readValue(pending, 0, len);
+			}
+			if(bb.hasArray()) {
+				return reader.readValue(bb.array(), bb.arrayOffset() + start, end - start);
 			}
+			int len = end - start;
+			if(null == scratch || scratch.length < len) {
+				scratch = new byte[Math.max(len, 512)];
+			}
+			ByteBuffer dup = bb.duplicate();
+			dup.limit(end).position(start);
+			dup.get(scratch, 0, len);
+			return reader.readValue(scratch, 0, len);
+		}
+
+		private void appendPending(ByteBuffer bb, int start, int end) {
+			int len = end - start;
+			if(pending.length - pendingLen < len) {
+				byte[] newPending = new byte[Math.max(pending.length * 2, pendingLen + len)];
+				System.arraycopy(pending, 0, newPending, 0, pendingLen);
+				pending = newPending;
+			}
+			ByteBuffer dup = bb.duplicate();
+			dup.limit(end).position(start);
+			dup.get(pending, pendingLen, len);
+			pendingLen += len;
+		}
+
+		private void reset() {
+			scanner.reset();
+			pendingLen = 0;
 		}
 	}
 
@@ -118,11 +215,92 @@ public class JsonCodec<IN, OUT> implements Codec<Buffer, IN, OUT> {
 		@Override
 		public Buffer apply(OUT out) {
 			try {
-				return Buffer.wrap(mapper.writeValueAsBytes(out));
+				return Buffer.wrap(writer.writeValueAsBytes(out));
 			} catch(JsonProcessingException e) {
 				throw new IllegalStateException(e);
 			}
 		}
 	}
 
+	/**
+	 * Finds the boundaries of top-level JSON values one byte at a time, without building tokens. Keeps its state
+	 * between invocations so values may span any number of {@code Buffers}.
+	 */
+	static final class JsonScanner {
+		static final int NONE             = 0;
+		static final int VALUE_START      = 1;
+		// the value ends with the byte just scanned
+		static final int VALUE_END        = 2;
+		// the value ended with the previous byte; the byte just scanned belongs to what follows
+		static final int VALUE_END_BEFORE = 3;
+
+		private int     depth;
+		private boolean inString;
+		private boolean escaped;
+		private boolean inLiteral;
+
+		int scan(byte b) {
+			if(inString) {
+				if(escaped) {
+					escaped = false;
+				} else if(b == '\\') {
+					escaped = true;
+				} else if(b == '"') {
+					inString = false;
+					if(depth == 0) {
+						return VALUE_END;
+					}
+				}
+				return NONE;
+			}
+			if(inLiteral) {
+				if(isWhitespace(b) || b == '{' || b == '[' || b == '"' || b == ',') {
+					inLiteral = false;
+					return VALUE_END_BEFORE;
+				}
+				return NONE;
+			}
+			switch(b) {
+				case '{':
+				case '[':
+					return (depth++ == 0 ? VALUE_START : NONE);
+				case '}':
+				case ']':
+					if(depth == 0) {
+						throw new IllegalStateException("Unbalanced '" + (char)b + "' in JSON input");
+					}
+					return (--depth == 0 ? VALUE_END : NONE);
+				case '"':
+					inString = true;
+					return (depth == 0 ? VALUE_START : NONE);
+				default:
+					if(depth > 0 || isWhitespace(b) || b == ',') {
+						// separators between top-level values are skipped
+						return NONE;
+					}
+					inLiteral = true;
+					return VALUE_START;
+			}
+		}
+
+		boolean isInLiteral() {
+			return inLiteral;
+		}
+
+		void endLiteral() {
+			inLiteral = false;
+		}
+
+		void reset() {
+			depth = 0;
+			inString = false;
+			escaped = false;
+			inLiteral = false;
+		}
+
+		private static boolean isWhitespace(byte b) {
+			return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+		}
+	}
+
 }
@@ -17,34 +17,107 @@
 package reactor.io.codec.kryo;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.UnsafeInput;
 import com.esotericsoftware.kryo.io.UnsafeMemoryInput;
 import com.esotericsoftware.kryo.io.UnsafeMemoryOutput;
+import reactor.core.support.Assert;
 import reactor.fn.Consumer;
 import reactor.fn.Function;
+import reactor.fn.Supplier;
 import reactor.io.buffer.Buffer;
 import reactor.io.codec.SerializationCodec;
+import reactor.io.codec.TypeRegistry;
+
+import java.nio.ByteBuffer;
 
 /**
+ * A {@link SerializationCodec} that uses <a href="https://github.com/EsotericSoftware/kryo">Kryo</a>.
+ * <p>
+ * {@link Kryo} instances aren't thread-safe. A codec created with a {@link Supplier} gives each thread its own {@code
+ * Kryo}, so encoders and decoders can run on any number of threads without contention; the supplier is also the place
+ * to pre-register classes. A codec created with a single {@code Kryo} instance synchronizes on it instead. Either way
+ * each thread reuses its own Kryo output buffer, and input is read straight from the inbound {@link ByteBuffer}.
+ *
  * @author Jon Brisbin
  */
 public class KryoCodec<IN, OUT> extends SerializationCodec<Kryo, IN, OUT> {
 
+	private static final Supplier<Kryo> DEFAULT_KRYO_FACTORY = new Supplier<Kryo>() {
+		@Override
+		public Kryo get() {
+			return new Kryo();
+		}
+	};
+
+	private final ThreadLocal<KryoContext> contexts;
+
 	public KryoCodec() {
-		super(new Kryo(), true);
+		this(DEFAULT_KRYO_FACTORY, true);
 	}
 
 	public KryoCodec(Kryo engine, boolean lengthFieldFraming) {
-		super(engine, lengthFieldFraming);
+		this(engine, lengthFieldFraming, new TypeRegistry());
+	}
+
+	public KryoCodec(Kryo engine, boolean lengthFieldFraming, TypeRegistry typeRegistry) {
+		super(engine, lengthFieldFraming, typeRegistry);
+		Assert.notNull(engine, "Kryo cannot be null.");
+		this.contexts = new KryoContexts(null, engine);
+	}
+
+	public KryoCodec(Supplier<Kryo> kryoFactory, boolean lengthFieldFraming) {
+		this(kryoFactory, lengthFieldFraming, new TypeRegistry());
+	}
+
+	/**
+	 * Create a {@code KryoCodec} that gives each thread its own {@link Kryo}.
+	 *
+	 * @param kryoFactory
+	 * 		creates and configures the {@code Kryo} instances
+	 * @param lengthFieldFraming
+	 * 		{@code true} to prepend a length field, or {@code false} to skip
+	 * @param typeRegistry
+	 * 		the ids of the types this codec sends and receives
+	 */
+	public KryoCodec(Supplier<Kryo> kryoFactory, boolean lengthFieldFraming, TypeRegistry typeRegistry) {
+		super(null, lengthFieldFraming, typeRegistry);
+		Assert.notNull(kryoFactory, "Kryo factory cannot be null.");
+		this.contexts = new KryoContexts(kryoFactory, null);
 	}
 
 	@Override
-	protected Function<byte[], IN> deserializer(final Kryo engine,
-	                                            final Class<IN> type,
-	                                            final Consumer<IN> next) {
+	protected Function<byte[], IN> deserializer(Kryo engine,
+	                                            Class<IN> type,
+	                                            Consumer<IN> next) {
+		final Function<Buffer, IN> fn = bufferDeserializer(engine, type, next);
 		return new Function<byte[], IN>() {
 			@Override
 			public IN apply(byte[] bytes) {
-				IN obj = engine.readObject(new UnsafeMemoryInput(bytes), type);
+				return fn.apply(Buffer.wrap(bytes));
+			}
+		};
+	}
+
+	@Override
+	protected Function<OUT, byte[]> serializer(Kryo engine) {
+		final Function<OUT, Buffer> fn = bufferSerializer(engine);
+		return new Function<OUT, byte[]>() {
+			@Override
+			public byte[] apply(OUT o) {
+				return fn.apply(o).asBytes();
+			}
+		};
+	}
+
+	@Override
+	protected Function<Buffer, IN> bufferDeserializer(Kryo engine,
+	                                                  final Class<IN> type,
+	                                                  final Consumer<IN> next) {
+		return new Function<Buffer, IN>() {
+			@Override
+			public IN apply(Buffer buffer) {
+				IN obj = contexts.get().read(buffer.byteBuffer(), type);
+				buffer.position(buffer.limit());
 				if(null != next) {
 					next.accept(obj);
 					return null;
@@ -56,16 +129,71 @@ public class KryoCodec<IN, OUT> extends SerializationCodec<Kryo, IN, OUT> {
 	}
 
 	@Override
-	protected Function<OUT, byte[]> serializer(final Kryo engine) {
-		return new Function<OUT, byte[]>() {
+	protected Function<OUT, Buffer> bufferSerializer(Kryo engine) {
+		return new Function<OUT, Buffer>() {
 			@Override
-			public byte[] apply(OUT o) {
-				UnsafeMemoryOutput out = new UnsafeMemoryOutput(Buffer.SMALL_BUFFER_SIZE, Buffer.MAX_BUFFER_SIZE);
-				engine.writeObject(out, o);
-				out.flush();
-				return out.toBytes();
+			public Buffer apply(OUT o) {
+				return new Buffer(contexts.get().write(o));
 			}
 		};
 	}
 
+	private static final class KryoContexts extends ThreadLocal<KryoContext> {
+		private final Supplier<Kryo> kryoFactory;
+		private final Kryo           sharedKryo;
+
+		private KryoContexts(Supplier<Kryo> kryoFactory, Kryo sharedKryo) {
+			this.kryoFactory = kryoFactory;
+			this.sharedKryo = sharedKryo;
+		}
+
+		@Override
+		protected KryoContext initialValue() {
+			return new KryoContext(null != sharedKryo ? sharedKryo : kryoFactory.get());
+		}
+	}
+
+	/**
+	 * A thread's {@link Kryo} along with the input and output it reuses. The Unsafe streams are used because that is
+	 * the format this codec has always written; they are compatible with each other whether memory or array-based.
+	 */
+	private static final class KryoContext {
+		private final Kryo               kryo;
+		private final UnsafeMemoryOutput output      = new UnsafeMemoryOutput(Buffer.SMALL_BUFFER_SIZE,
+		                                                                      Buffer.MAX_BUFFER_SIZE);
+		private final UnsafeMemoryInput  directInput = new UnsafeMemoryInput();
+		private final UnsafeInput        heapInput   = new UnsafeInput();
+
+		private KryoContext(Kryo kryo) {
+			this.kryo = kryo;
+		}
+
+		private <T> T read(ByteBuffer in, Class<T> type) {
+			synchronized(kryo) {
+				if(in.isDirect()) {
+					directInput.setBuffer(in.slice());
+					return kryo.readObject(directInput, type);
+				} else if(in.hasArray()) {
+					heapInput.setBuffer(in.array(), in.arrayOffset() + in.position(), in.remaining());
+					return kryo.readObject(heapInput, type);
+				} else {
+					byte[] bytes = new byte[in.remaining()];
+					in.duplicate().get(bytes);
+					heapInput.setBuffer(bytes);
+					return kryo.readObject(heapInput, type);
+				}
+			}
+		}
+
+		private ByteBuffer write(Object obj) {
+			synchronized(kryo) {
+				output.clear();
+				kryo.writeObject(output, obj);
+			}
+			ByteBuffer bytes = output.getByteBuffer().duplicate();
+			bytes.limit(output.position()).position(0);
+			return bytes;
+		}
+	}
+
 }
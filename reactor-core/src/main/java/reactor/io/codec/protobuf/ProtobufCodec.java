@@ -21,6 +21,7 @@ import reactor.core.support.Assert;
 import reactor.fn.Consumer;
 import reactor.fn.Function;
 import reactor.io.codec.SerializationCodec;
+import reactor.io.codec.TypeRegistry;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -35,7 +36,11 @@ public class ProtobufCodec<IN, OUT> extends SerializationCodec<Map<Class<?>, Mes
 	}
 
 	public ProtobufCodec(boolean lengthFieldFraming) {
-		super(new ConcurrentHashMap<Class<?>, Message>(), lengthFieldFraming);
+		this(lengthFieldFraming, new TypeRegistry());
+	}
+
+	public ProtobufCodec(boolean lengthFieldFraming, TypeRegistry typeRegistry) {
+		super(new ConcurrentHashMap<Class<?>, Message>(), lengthFieldFraming, typeRegistry);
 	}
 
 	@Override
@@ -16,7 +16,10 @@
 
 package reactor.io.routing;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -26,11 +29,13 @@ import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.Filter;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
 import com.jayway.jsonpath.internal.Utils;
 import com.jayway.jsonpath.spi.JsonProvider;
 import com.jayway.jsonpath.spi.MappingProvider;
 import com.jayway.jsonpath.spi.Mode;
 import reactor.bus.selector.ObjectSelector;
+import reactor.bus.selector.SelectionContext;
 import reactor.bus.selector.Selector;
 import reactor.io.buffer.Buffer;
 
@@ -38,9 +43,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
+ * A {@link Selector} that matches keys for which a JsonPath expression yields a non-empty result. Keys may be JSON
+ * text, as a {@code String}, {@code byte[]} or {@link Buffer}, a Jackson {@link JsonNode}, or any object Jackson can
+ * convert.
+ * <p>
+ * Paths of the common shapes {@code $.a.b} and {@code $.a.b[?(@.c == value)]} are evaluated on JSON text with a
+ * streaming token scan that stops as soon as the outcome is known. A filter value compared with JSON of another
+ * type, such as {@code 7} with {@code "7"}, leaves the outcome to JsonPath. Other paths, and those outcomes, are
+ * evaluated by JsonPath on a parsed document, which is shared with other {@code JsonPathSelectors} using the same
+ * {@link ObjectMapper} for the duration of one selection. A key that lacks the path doesn't match.
+ *
  * @author Jon Brisbin
  */
 public class JsonPathSelector extends ObjectSelector<JsonPath> {
@@ -50,11 +69,13 @@ public class JsonPathSelector extends ObjectSelector<JsonPath> {
 
 	private final ObjectMapper  mapper;
 	private final Configuration jsonPathConfig;
+	private final StreamingPath streamingPath;
 
 	public JsonPathSelector(ObjectMapper mapper, String jsonPath, Filter... filters) {
 		super(JsonPath.compile(jsonPath, filters));
 		this.mapper = mapper;
 		this.jsonPathConfig = Configuration.builder().jsonProvider(new Jackson2JsonProvider(mapper)).build();
+		this.streamingPath = (null == filters || filters.length == 0 ? StreamingPath.compile(jsonPath) : null);
 	}
 
 	public JsonPathSelector(String jsonPath, Filter... filters) {
@@ -75,7 +96,31 @@ public class JsonPathSelector extends ObjectSelector<JsonPath> {
 			return false;
 		}
 
-		Object result = read(key);
+		if(null != streamingPath) {
+			JsonParser parser = createParser(key);
+			if(null != parser) {
+				try {
+					Boolean matched = streamingPath.matches(parser);
+					if(null != matched) {
+						return matched;
+					}
+				} catch(IOException e) {
+					throw new InvalidJsonException(e.getMessage(), e);
+				} finally {
+					try {
+						parser.close();
+					} catch(IOException ignored) {
+					}
+				}
+			}
+		}
+
+		Object result;
+		try {
+			result = read(key);
+		} catch(PathNotFoundException e) {
+			return false;
+		}
 		if(null == result) {
 			return false;
 		}
@@ -91,18 +136,248 @@ public class JsonPathSelector extends ObjectSelector<JsonPath> {
 		}
 	}
 
+	private JsonParser createParser(Object key) {
+		JsonFactory factory = mapper.getFactory();
+		try {
+			Class<?> type = key.getClass();
+			if(type == String.class) {
+				return factory.createParser((String)key);
+			} else if(type == byte[].class) {
+				return factory.createParser((byte[])key);
+			} else if(type == Buffer.class) {
+				ByteBuffer bb = ((Buffer)key).byteBuffer();
+				if(null == bb) {
+					return null;
+				}
+				if(bb.hasArray()) {
+					return factory.createParser(bb.array(), bb.arrayOffset() + bb.position(), bb.remaining());
+				}
+				return factory.createParser(((Buffer)key).asBytes());
+			}
+		} catch(IOException e) {
+			throw new InvalidJsonException(e.getMessage(), e);
+		}
+		return null;
+	}
+
 	private Object read(Object key) {
-		Class<?> type = key.getClass();
-		if(type == String.class) {
-			return getObject().read((String)key, jsonPathConfig);
-		} else if(type == byte[].class) {
-			return getObject().read(Buffer.wrap((byte[])key).asString(), jsonPathConfig);
-		} else if(type == Buffer.class) {
-			return getObject().read(((Buffer)key).asString(), jsonPathConfig);
-		} else if(JsonNode.class.isAssignableFrom(type)) {
+		if(key instanceof JsonNode) {
 			return getObject().read(key, jsonPathConfig);
-		} else {
-			return getObject().read(mapper.convertValue(key, Object.class), jsonPathConfig);
+		}
+		Object doc = SelectionContext.get(key, mapper);
+		if(null == doc) {
+			doc = parse(key);
+			SelectionContext.put(key, mapper, doc);
+		}
+		return getObject().read(doc, jsonPathConfig);
+	}
+
+	private Object parse(Object key) {
+		Class<?> type = key.getClass();
+		try {
+			if(type == String.class) {
+				return mapper.readValue((String)key, Object.class);
+			} else if(type == byte[].class) {
+				return mapper.readValue((byte[])key, Object.class);
+			} else if(type == Buffer.class) {
+				return mapper.readValue(((Buffer)key).asBytes(), Object.class);
+			} else {
+				return mapper.convertValue(key, Object.class);
+			}
+		} catch(IOException e) {
+			throw new InvalidJsonException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * A path of the shape {@code $.a.b} or {@code $.a.b[?(@.c.d == value)]}, evaluated on a stream of JSON tokens.
+	 */
+	static final class StreamingPath {
+		private static final String  FIELDS  = "((?:\\.[A-Za-z_$][\\w$-]*|\\['[^'\\]]+'\\])*)";
+		private static final Pattern PATH    = Pattern.compile(
+				"^\\$" + FIELDS + "(?:\\[\\?\\(@" + FIELDS + "\\s*==\\s*('[^']*'|\"[^\"]*\"|[^\\s()&|=<>!'\"]+)\\s*\\)\\])?$"
+		);
+		private static final Pattern SEGMENT = Pattern.compile("\\.([^.\\[]+)|\\['([^']+)'\\]");
+
+		// outcomes of comparing an element with the filter value, where MIXED is a miss that compared different types
+		private static final int MISS  = 0;
+		private static final int MATCH = 1;
+		private static final int MIXED = 2;
+
+		private final String[]   path;
+		private final String[]   filterPath;
+		private final String     literal;
+		private final boolean    quoted;
+		private final BigDecimal number;
+
+		private StreamingPath(String[] path, String[] filterPath, String literal, boolean quoted) {
+			this.path = path;
+			this.filterPath = filterPath;
+			this.literal = literal;
+			this.quoted = quoted;
+			this.number = (quoted ? null : toNumber(literal));
+		}
+
+		/**
+		 * Compile the given JsonPath expression if it has one of the supported shapes.
+		 *
+		 * @param jsonPath
+		 * 		the expression
+		 *
+		 * @return the compiled path or {@literal null} if the expression is not supported
+		 */
+		static StreamingPath compile(String jsonPath) {
+			Matcher m = PATH.matcher(jsonPath.trim());
+			if(!m.matches()) {
+				return null;
+			}
+			String[] path = segments(m.group(1));
+			if(null == m.group(3)) {
+				return (path.length > 0 ? new StreamingPath(path, null, null, false) : null);
+			}
+			String[] filterPath = segments(m.group(2));
+			if(filterPath.length == 0) {
+				return null;
+			}
+			String literal = m.group(3);
+			boolean quoted = (literal.charAt(0) == '\'' || literal.charAt(0) == '"');
+			if(quoted) {
+				literal = literal.substring(1, literal.length() - 1);
+			}
+			return new StreamingPath(path, filterPath, literal, quoted);
+		}
+
+		/**
+		 * Evaluate the path on the given tokens.
+		 *
+		 * @param parser
+		 * 		the parser positioned before the document
+		 *
+		 * @return whether the path matched, or {@literal null} if the filter value was compared with JSON of another type
+		 * and nothing matched
+		 */
+		Boolean matches(JsonParser parser) throws IOException {
+			JsonToken token = parser.nextToken();
+			for(String field : path) {
+				if(token != JsonToken.START_OBJECT || !seekField(parser, field)) {
+					return false;
+				}
+				token = parser.nextToken();
+			}
+			if(null == filterPath) {
+				return isNonEmpty(parser, token);
+			}
+
+			if(token != JsonToken.START_ARRAY) {
+				return false;
+			}
+			boolean mixed = false;
+			while(null != (token = parser.nextToken()) && token != JsonToken.END_ARRAY) {
+				if(token == JsonToken.START_OBJECT) {
+					int outcome = elementMatches(parser, 0);
+					if(outcome == MATCH) {
+						return true;
+					}
+					mixed |= (outcome == MIXED);
+				} else {
+					parser.skipChildren();
+				}
+			}
+			return (mixed ? null : Boolean.FALSE);
+		}
+
+		// the parser is on the START_OBJECT of an array element, or of an object nested in it; on a miss the whole
+		// object is consumed
+		private int elementMatches(JsonParser parser, int idx) throws IOException {
+			int outcome = MISS;
+			JsonToken token;
+			while(null != (token = parser.nextToken()) && token != JsonToken.END_OBJECT) {
+				boolean wanted = filterPath[idx].equals(parser.getCurrentName());
+				token = parser.nextToken();
+				if(wanted) {
+					if(idx == filterPath.length - 1) {
+						if(token.isScalarValue()) {
+							int compared = compare(parser, token);
+							if(compared == MATCH) {
+								return MATCH;
+							}
+							outcome = Math.max(outcome, compared);
+						}
+					} else if(token == JsonToken.START_OBJECT) {
+						int nested = elementMatches(parser, idx + 1);
+						if(nested == MATCH) {
+							return MATCH;
+						}
+						outcome = Math.max(outcome, nested);
+						continue;
+					}
+				}
+				parser.skipChildren();
+			}
+			return outcome;
+		}
+
+		private int compare(JsonParser parser, JsonToken token) throws IOException {
+			boolean sameType;
+			if(quoted) {
+				sameType = (token == JsonToken.VALUE_STRING);
+			} else if(null != number) {
+				sameType = token.isNumeric();
+			} else {
+				// an unquoted value that isn't a number can only be one of true, false or null
+				sameType = (token != JsonToken.VALUE_STRING && !token.isNumeric());
+			}
+			if(!sameType) {
+				return MIXED;
+			}
+			if(null != number) {
+				return (number.compareTo(parser.getDecimalValue()) == 0 ? MATCH : MISS);
+			}
+			return (literal.equals(parser.getText()) ? MATCH : MISS);
+		}
+
+		private static boolean seekField(JsonParser parser, String field) throws IOException {
+			JsonToken token;
+			while(null != (token = parser.nextToken()) && token != JsonToken.END_OBJECT) {
+				if(field.equals(parser.getCurrentName())) {
+					return true;
+				}
+				parser.nextToken();
+				parser.skipChildren();
+			}
+			return false;
+		}
+
+		private static boolean isNonEmpty(JsonParser parser, JsonToken token) throws IOException {
+			if(null == token || token == JsonToken.VALUE_NULL) {
+				return false;
+			} else if(token == JsonToken.START_ARRAY) {
+				return parser.nextToken() != JsonToken.END_ARRAY;
+			} else if(token == JsonToken.START_OBJECT) {
+				return parser.nextToken() != JsonToken.END_OBJECT;
+			} else {
+				return true;
+			}
+		}
+
+		private static String[] segments(String fields) {
+			List<String> segments = new ArrayList<String>();
+			Matcher m = SEGMENT.matcher(fields);
+			while(m.find()) {
+				segments.add(null != m.group(1) ? m.group(1) : m.group(2));
+			}
+			return segments.toArray(new String[segments.size()]);
+		}
+
+		private static BigDecimal toNumber(String literal) {
+			if(null == literal) {
+				return null;
+			}
+			try {
+				return new BigDecimal(literal);
+			} catch(NumberFormatException e) {
+				return null;
+			}
 		}
 	}
 
@@ -122,6 +122,16 @@ class EventBusSpec extends Specification {
 		}
 	}
 
+	@CompileStatic
+	class ObjectConsumer implements Consumer<Event<Object>>{
+		final AtomicInteger value = new AtomicInteger()
+
+		@Override
+		void accept(Event<Object> event) {
+			value.incrementAndGet()
+		}
+	}
+
 	def "A Reactor fail fast if consumer of incorrect type"() {
 
 		given:
@@ -139,6 +149,25 @@ class EventBusSpec extends Specification {
 			c.value.get() == 0
 	}
 
+	def "A Reactor registers consumers that need no checks as they are"() {
+
+		given:
+			"a plain Reactor and a consumer of any type of event on \$('test')"
+			def reactor = EventBus.create()
+			def c = new ObjectConsumer()
+			def reg = reactor.on($("test"), c)
+
+		when:
+			"Reactor is notified with different types of payload"
+			reactor.notify("test", Event.wrap(new Foo()))
+			reactor.notify("test", Event.wrap(new Bar()))
+
+		then:
+			"the consumer itself was registered and received every event"
+			reg.object.is(c)
+			c.value.get() == 2
+	}
+
 	def "A Registration is pausable and cancellable"() {
 
 		given:
@@ -1,5 +1,6 @@
 package reactor.bus
 
+import reactor.fn.Supplier
 import spock.lang.Specification
 
 class HeadersSpec extends Specification {
@@ -144,4 +145,23 @@ class HeadersSpec extends Specification {
 		!headers.contains('b')
 	}
 
+	def 'Lazily set headers are resolved together when first read'() {
+		given: 'Headers with two lazily set batches'
+		Event.Headers headers = new Event.Headers()
+		int calls = 0
+		headers.setAllLazily({ calls++; ['a': 'alpha', 'b': 'bravo'] } as Supplier)
+		headers.setAllLazily({ calls++; ['b': 'beta'] } as Supplier)
+
+		expect: 'Neither batch has been resolved'
+		calls == 0
+
+		when: 'A header is read'
+		def b = headers.get('b')
+
+		then: 'Both batches were resolved once, in order'
+		calls == 2
+		b == 'beta'
+		headers.get('a') == 'alpha'
+		calls == 2
+	}
 }
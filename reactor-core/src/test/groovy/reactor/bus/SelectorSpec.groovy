@@ -16,9 +16,13 @@
 
 package reactor.bus
 
+import reactor.bus.selector.HeaderResolver
 import reactor.bus.selector.MatchAllSelector
+import reactor.bus.selector.ObjectSelector
+import reactor.bus.selector.RegexSelector
 import reactor.bus.selector.SetMembershipSelector
 import reactor.bus.selector.UriSelector
+import reactor.fn.Consumer
 import reactor.fn.Functions
 import spock.lang.Ignore
 import spock.lang.Specification
@@ -91,6 +95,58 @@ class SelectorSpec extends Specification {
 
 	}
 
+	def "Regex selectors extract groups only when headers are read"() {
+
+		given:
+			"an EventBus with a consumer on a regex selector with named groups"
+			def r = EventBus.config().synchronousDispatcher().get()
+			def regex = new RegexSelector("orders\\.(?<region>[a-z]+)\\.([0-9]+)")
+			def resolved = 0
+			def sel = new ObjectSelector<Object>(regex) {
+				boolean matches(Object key) { regex.matches(key) }
+
+				HeaderResolver getHeaderResolver() {
+					{ key -> resolved++; regex.headerResolver.resolve(key) } as HeaderResolver
+				}
+			}
+			def headers = []
+			r.on(sel, { Event ev -> if (ev.data == 'read') headers << ev.headers.asMap() } as Consumer)
+
+		when:
+			"an event whose headers are not read is notified"
+			r.notify("orders.emea.42", Event.wrap("ignore"))
+
+		then:
+			"nothing was resolved"
+			resolved == 0
+
+		when:
+			"an event whose headers are read is notified"
+			r.notify("orders.emea.42", Event.wrap("read"))
+
+		then:
+			"the groups are available by number and by name"
+			resolved == 1
+			headers[0].group1 == 'emea'
+			headers[0].group2 == '42'
+			headers[0].region == 'emea'
+	}
+
+	def "Regex selectors reject keys without the literal prefix"() {
+
+		expect:
+			R(regex).matches(key) == matches
+
+		where:
+			regex            | key          | matches
+			"topic/[a-z]+"   | "topic/abc"  | true
+			"topic/[a-z]+"   | "other/abc"  | false
+			"topics?/[a-z]+" | "topic/abc"  | true
+			"a|b"            | "b"          | true
+			"exact"          | "exact"      | true
+			"exact"          | "exactly"    | false
+	}
+
 	def "Selectors can be matched on URI path"() {
 
 		given:
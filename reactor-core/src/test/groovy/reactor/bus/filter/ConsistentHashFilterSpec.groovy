@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.bus.filter
+
+import spock.lang.Specification
+
+class ConsistentHashFilterSpec extends Specification {
+
+	def "When items are filtered with the same key the same item is returned"() {
+		given: "A consistent hash filter and a list of items"
+		def filter = new ConsistentHashFilter()
+		def items = (1..10).collect { new Object() }
+
+		when: "items are filtered several times with the same key"
+		def selections = (1..5).collect { filter.filter(items, "key") }
+
+		then: "a single item is returned every time and it is always the same one"
+		selections.every { it.size() == 1 }
+		selections.collect { it[0] }.unique().size() == 1
+	}
+
+	def "When an item is removed only the keys routed to it move"() {
+		given: "A consistent hash filter, a list of items and many keys"
+		def filter = new ConsistentHashFilter()
+		def items = (1..10).collect { new Object() }
+		def keys = (1..1000).collect { "key-$it".toString() }
+		def before = keys.collectEntries { [it, filter.filter(items, it)[0]] }
+
+		when: "an item is removed"
+		def removed = items.remove(3)
+		def after = keys.collectEntries { [it, filter.filter(items, it)[0]] }
+
+		then: "keys that were not routed to it keep their item"
+		keys.findAll { before[it] != removed }.every { before[it].is(after[it]) }
+
+		and: "keys are spread over the items"
+		before.values().toSet().size() == 10
+	}
+
+	def "When a null key is provided an IllegalArgumentException is thrown"() {
+		given: "A consistent hash filter"
+		def filter = new ConsistentHashFilter()
+
+		when: "a null key is provided"
+		filter.filter(['a', 'b'], null)
+
+		then: "an IllegalArgumentException was thrown"
+		thrown(IllegalArgumentException)
+	}
+
+	def "When an empty list of items are filtered, an empty list is returned"() {
+		given: "A consistent hash filter"
+		def filter = new ConsistentHashFilter()
+
+		when: "an empty list of items is filtered"
+		def filteredItems = filter.filter([], "key")
+
+		then: "an empty list is returned"
+		filteredItems.empty
+	}
+}
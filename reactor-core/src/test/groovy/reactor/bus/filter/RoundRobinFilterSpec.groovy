@@ -63,6 +63,19 @@ class RoundRobinFilterSpec extends Specification {
 		then: "the first item is returned"
 	}
 
+	def "When many keys are filtered their items are still selected evenly"() {
+		given: "A round robin filter with few counters and a list of three items"
+		def filter = new RoundRobinFilter(4)
+		def items = ['a', 'b', 'c']
+
+		when: "items are filtered with many different keys"
+		def counts = [a: 0, b: 0, c: 0]
+		(1..3000).each { counts[filter.filter(items, "key-$it".toString())[0]]++ }
+
+		then: "each item is returned about the same number of times"
+		counts.values().every { Math.abs(it - 1000) <= 4 }
+	}
+
 	def "When null items are filtered an IllegalStateException is thrown"() {
 		given: "A round robin filter"
 		def filter = new RoundRobinFilter()
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.bus.selector
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author Jon Brisbin
+ */
+class UriPathTemplateSpec extends Specification {
+
+	def "Templates match paths like the equivalent regular expressions"() {
+		expect:
+			new UriPathTemplate(template).matches(path) == matches
+
+		where:
+			template                | path                        | matches
+			"/path/to/resource"     | "/path/to/resource"         | true
+			"/path/to/resource"     | "/path/to/resources"        | false
+			"/path/{id}"            | "/path/123"                 | true
+			"/path/{id}"            | "/path/123/more"            | false
+			"/path/{id}.json"       | "/path/123.json"            | true
+			"/path/{id}.json"       | "/path/123xjson"            | false
+			"/path/**/{resource}"   | "/path/to/some/resourceId"  | true
+			"/**/selector"          | "/test/selector"            | true
+			"/**/selector"          | "/test/selectors"           | false
+			"/files/{path}**"       | "/files/a/b/c.txt"          | true
+			"/*/selector"           | "/test/selector"            | true
+			"/*/selector"           | "/test/more/selector"       | false
+			"/a+b/(c)"              | "/a+b/(c)"                  | true
+			"/a+b/(c)"              | "/aab/c"                    | false
+	}
+
+	def "Variables are extracted from matching paths"() {
+		given:
+			"a template with several kinds of variable"
+			def tmpl = new UriPathTemplate("/{version}/files/{path}**/{name}.{ext}")
+
+		when:
+			"a path is matched"
+			def vars = tmpl.match("/v1/files/a/b/report.pdf")
+
+		then:
+			"each variable is extracted"
+			vars == [version: 'v1', path: 'a/b', name: 'report', ext: 'pdf']
+			tmpl.match("/v1/files/a/b/report.final.pdf").isEmpty()
+			tmpl.match("/v1/other/x.y").isEmpty()
+	}
+
+	def "Capturing tells a match without variables from no match"() {
+		given:
+			"a template with a variable and one without"
+			def tmpl = new UriPathTemplate("/users/{id}")
+			def plain = new UriPathTemplate("/users")
+
+		expect:
+			"matching paths yield their variables and other paths yield null"
+			tmpl.capture("/users/42") == [id: '42']
+			tmpl.capture("/orders/42") == null
+			plain.capture("/users") == [:]
+			plain.capture("/users/42") == null
+	}
+
+	def "Capturing shares the empty map and handles many variables"() {
+		given:
+			"a template without variables and one with more variables than the first capture array holds"
+			def plain = new UriPathTemplate("/users")
+			def names = (1..10).collect { "v$it" }
+			def tmpl = new UriPathTemplate("/" + names.collect { "{$it}" }.join("/"))
+
+		expect:
+			"a match without variables allocates no map and every variable is captured"
+			plain.capture("/users").is(plain.capture("/users"))
+			tmpl.capture("/" + (1..10).join("/")) == names.collectEntries { [(it): it.substring(1)] }
+			tmpl.capture("/1/2") == null
+	}
+
+	def "Variables are assigned to their own names"() {
+		given:
+			"a template that mixes plain and splat variables"
+			def tmpl = new UriPathTemplate("/{first}/{rest}**")
+
+		when:
+			"a path is matched"
+			def vars = tmpl.match("/one/two/three")
+
+		then:
+			"each name gets its own value"
+			vars == [first: 'one', rest: 'two/three']
+	}
+
+	def "Templates can be matched concurrently"() {
+		given:
+			"a template shared by several threads"
+			def tmpl = new UriPathTemplate("/users/{user}/orders/{order}", 16)
+			def threads = 8
+			def latch = new CountDownLatch(threads)
+			def failures = new AtomicInteger()
+
+		when:
+			"each thread matches many different paths"
+			(1..threads).each { t ->
+				Thread.start {
+					try {
+						(1..2000).each { i ->
+							def vars = tmpl.match("/users/u$t/orders/$i")
+							if (vars.user != "u$t" || vars.order != "$i") {
+								failures.incrementAndGet()
+							}
+						}
+					} finally {
+						latch.countDown()
+					}
+				}
+			}
+			latch.await()
+
+		then:
+			"every match extracted the right variables"
+			failures.get() == 0
+	}
+
+	def "Caches are bounded"() {
+		given:
+			"a small cache"
+			def cache = new LruCache<String, String>(2)
+
+		when:
+			"more entries than it can hold are added"
+			cache.put("a", "1")
+			cache.put("b", "2")
+			cache.get("a")
+			cache.put("c", "3")
+
+		then:
+			"the least recently used entry is evicted"
+			cache.size() == 2
+			cache.get("a") == "1"
+			cache.get("b") == null
+			cache.get("c") == "3"
+	}
+
+	def "Caches stay bounded when used concurrently"() {
+		given:
+			"a cache shared by several threads"
+			def cache = new LruCache<String, String>(64)
+			def threads = 8
+			def latch = new CountDownLatch(threads)
+
+		when:
+			"each thread adds and reads many more entries than it can hold"
+			threads.times { t ->
+				Thread.start {
+					try {
+						1000.times { i ->
+							cache.put("$t-$i" as String, "$i" as String)
+							cache.get("$t-${i / 2 as int}" as String)
+						}
+					} finally {
+						latch.countDown()
+					}
+				}
+			}
+			latch.await()
+
+		then:
+			"the cache holds no more than its maximum size"
+			cache.size() <= 64
+			cache.size() > 0
+	}
+
+	def "UriSelector resolves query parameters without values"() {
+		given:
+			"a UriSelector"
+			def sel = new UriSelector("tcp://*:3000/topic")
+
+		when:
+			"a URI with several kinds of parameter is resolved"
+			def key = "tcp://user@localhost:3000/topic?a=1&flag&b=x%20y"
+			def headers = sel.headerResolver.resolve(key)
+
+		then:
+			"every parameter is present"
+			sel.matches(key)
+			headers.a == '1'
+			headers.flag == ''
+			headers.b == 'x y'
+			headers.path == '/topic'
+	}
+
+}
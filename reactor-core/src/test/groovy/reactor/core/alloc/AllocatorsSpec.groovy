@@ -62,6 +62,77 @@ class AllocatorsSpec extends Specification {
 
 	}
 
+	def "a ReferenceCountingAllocator never leases the same object twice under contention"() {
+
+		given: "a small pool with per-thread caches and a thread pool"
+			def threadPool = Executors.newFixedThreadPool(4)
+			def pool = new ReferenceCountingAllocator(2, 8, {
+				new Recyclable() {
+					@Override
+					void recycle() {
+					}
+				}
+			} as Supplier<Object>)
+			def leased = Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap())
+			def duplicates = new java.util.concurrent.atomic.AtomicInteger()
+			def latch = new CountDownLatch(4)
+
+		when: "objects are allocated and released concurrently"
+			(1..4).each {
+				threadPool.submit({
+					try {
+						10000.times {
+							def ref = pool.allocate()
+							if (!leased.add(ref.get())) {
+								duplicates.incrementAndGet()
+							}
+							leased.remove(ref.get())
+							ref.release()
+						}
+					} finally {
+						latch.countDown()
+					}
+				} as Runnable)
+			}
+			def finished = latch.await(30, TimeUnit.SECONDS)
+
+		then: "every thread finished in time and no object was handed out while already leased"
+			finished
+			duplicates.get() == 0
+
+		and: "the pool only grew as much as needed"
+			pool.capacity <= 64
+
+		cleanup:
+			threadPool.shutdownNow()
+
+	}
+
+	def "a ReferenceCountingAllocator reclaims the references cached by threads that have died"() {
+
+		given: "a small pool with per-thread caches"
+			def pool = new ReferenceCountingAllocator(2, 8, {
+				new Recyclable() {
+					@Override
+					void recycle() {
+					}
+				}
+			} as Supplier<Object>)
+
+		when: "a short-lived thread leases every object and releases them into its own cache"
+			def thread = Thread.start {
+				def refs = (1..2).collect { pool.allocate() }
+				refs*.release()
+			}
+			thread.join()
+			def refs = (1..2).collect { pool.allocate() }
+
+		then: "the objects cached by the dead thread were reused instead of growing the pool"
+			pool.capacity == 2
+			refs.unique(false).size() == 2
+
+	}
+
 	def "Allocators can be provided by Type"() {
 
 		given: "a generic type"
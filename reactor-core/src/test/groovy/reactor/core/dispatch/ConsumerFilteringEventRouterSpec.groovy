@@ -21,7 +21,10 @@
 package reactor.core.dispatch
 
 import reactor.bus.Event
+import reactor.bus.filter.Filter
 import reactor.bus.filter.PassThroughFilter
+import reactor.bus.filter.RoundRobinFilter
+import reactor.bus.filter.SingleItemFilter
 import reactor.bus.registry.Registration
 import reactor.bus.routing.ConsumerFilteringRouter
 import reactor.bus.selector.Selector
@@ -150,4 +153,65 @@ class ConsumerFilteringEventRouterSpec extends Specification {
 			1 * completionConsumer.accept(event)
 	}
 
+	def "A single item filter routes to the selected consumer"() {
+		def filter = new RoundRobinFilter()
+		def consumers = (1..3).collect { Mock(Consumer) }
+		def event = new Event("data")
+
+		given: "A consumer filtering event router with a round-robin filter"
+			def eventRouter = new ConsumerFilteringRouter(filter)
+			def registrations = consumers.collect { c ->
+				Registration registration = Mock(Registration)
+				registration.getObject() >> c
+				registration
+			}
+
+		when: "events are routed to three consumers"
+			3.times { eventRouter.route("key", event, registrations, null, null) }
+
+		then: "each consumer is called once"
+			consumers.each { 1 * it.accept(event) }
+	}
+
+	def "A single consumer is invoked directly"() {
+		def filter = Mock(SingleItemFilter)
+		def consumer = Mock(Consumer)
+		def event = new Event("data")
+
+		given: "A consumer filtering event router with a single item filter"
+			def eventRouter = new ConsumerFilteringRouter(filter)
+			Registration registration = Mock(Registration)
+			registration.getObject() >> consumer
+
+		when: "an event is routed to a single consumer"
+			eventRouter.route("key", event, [registration], null, null)
+
+		then: "the consumer is called without consulting the filter"
+			1 * consumer.accept(event)
+			0 * filter.select(_, _)
+			0 * filter.filter(_, _)
+	}
+
+	def "Other filters are still applied to the list of consumers"() {
+		def filter = Mock(Filter)
+		def consumers = (1..2).collect { Mock(Consumer) }
+		def event = new Event("data")
+
+		given: "A consumer filtering event router with a custom filter"
+			def eventRouter = new ConsumerFilteringRouter(filter)
+			def registrations = consumers.collect { c ->
+				Registration registration = Mock(Registration)
+				registration.getObject() >> c
+				registration
+			}
+
+		when: "an event is routed"
+			eventRouter.route("key", event, registrations, null, null)
+
+		then: "only the consumers kept by the filter are called"
+			1 * filter.filter(registrations, "key") >> [registrations[1]]
+			0 * consumers[0].accept(_)
+			1 * consumers[1].accept(event)
+	}
+
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.io.buffer
+
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.channels.Channels
+
+/**
+ * @author Jon Brisbin
+ */
+class CompositeBufferSpec extends Specification {
+
+	def "A CompositeBuffer reads across component boundaries"() {
+		given: "a frame split over several fragments"
+			def frame = ByteBuffer.allocate(12).putInt(8).put("Hello Wo".bytes)
+			frame.flip()
+			def buff = new CompositeBuffer()
+			buff.append(Buffer.wrap(Arrays.copyOfRange(frame.array(), 0, 3)))
+			buff.append(Buffer.wrap(Arrays.copyOfRange(frame.array(), 3, 7)))
+			buff.append(Buffer.wrap(Arrays.copyOfRange(frame.array(), 7, 12)))
+
+		when: "the length prefix and the payload are read"
+			def len = buff.readInt()
+			def payload = buff.readBuffer(len)
+
+		then: "the values were reassembled"
+			buff.componentCount() == 3
+			len == 8
+			payload.asString() == "Hello Wo"
+			buff.remaining() == 0
+	}
+
+	def "A CompositeBuffer finds bytes and slices across components"() {
+		given: "newline-delimited fragments"
+			def buff = new CompositeBuffer().append(Buffer.wrap("Hello "), Buffer.wrap("World!\nBye"), Buffer.wrap("\n"))
+
+		when: "the delimiters are searched for"
+			def first = buff.indexOf((byte) '\n')
+			def second = buff.indexOf((byte) '\n', first + 1, buff.limit())
+
+		then: "absolute indices are returned"
+			first == 12
+			second == 16
+			buff.get(6) == (byte) 'W'
+
+		and: "slices span components without copying"
+			buff.slice(0, first).asString() == "Hello World!"
+			buff.slice(first + 1, second - first - 1).asString() == "Bye"
+	}
+
+	def "A Buffer read from a single component shares its memory"() {
+		given: "a CompositeBuffer over one component"
+			def source = Buffer.wrap("Hello World!")
+			def buff = new CompositeBuffer().append(source)
+
+		when: "part of it is read as a Buffer"
+			def b = buff.skip(6).readBuffer(5)
+			source.byteBuffer().put(6, (byte) 'w')
+
+		then: "the Buffer is a view of the original memory"
+			b.asString() == "world"
+	}
+
+	def "Read components can be discarded"() {
+		given: "a partially read CompositeBuffer"
+			def buff = new CompositeBuffer().append(Buffer.wrap("abc"), Buffer.wrap("def"), Buffer.wrap("ghi"))
+			buff.skip(4)
+
+		when: "read components are discarded"
+			buff.discardReadComponents()
+
+		then: "only unread components remain"
+			buff.componentCount() == 2
+			buff.position() == 1
+			buff.asString() == "efghi"
+	}
+
+	def "A CompositeBuffer writes all components to a channel"() {
+		given: "a CompositeBuffer and a channel"
+			def buff = new CompositeBuffer().append(Buffer.wrap("Hello "), Buffer.wrap("World!"))
+			def out = new ByteArrayOutputStream()
+			buff.skip(2)
+
+		when: "it is written"
+			def written = buff.write(Channels.newChannel(out))
+
+		then: "the remaining bytes were written"
+			written == 10
+			new String(out.toByteArray()) == "llo World!"
+			buff.remaining() == 0
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.io.buffer
+
+import spock.lang.Specification
+
+/**
+ * @author Jon Brisbin
+ */
+class PooledBufferAllocatorSpec extends Specification {
+
+	def "Buffers are allocated from power-of-two size classes"() {
+		given: "a pooled allocator"
+			def allocator = new PooledBufferAllocator(true, 64 * 1024, 4, false)
+
+		when: "Buffers of various sizes are allocated"
+			def small = allocator.allocate(100)
+			def medium = allocator.allocate(3000)
+			def large = allocator.allocate(100 * 1024)
+
+		then: "their capacity is rounded up to the size class"
+			small.get().capacity() == 256
+			medium.get().capacity() == 4096
+			small.get().byteBuffer().isDirect()
+
+		and: "requests beyond the largest size class are served unpooled"
+			large.get().capacity() == 100 * 1024
+	}
+
+	def "Released Buffers give their memory back to the pool"() {
+		given: "a pooled allocator"
+			def allocator = new PooledBufferAllocator(false, 64 * 1024, 4, false)
+
+		when: "a Buffer is written to and released"
+			def ref = allocator.allocate(1024)
+			def memory = ref.get().byteBuffer()
+			ref.get().append("Hello World!")
+			ref.release()
+
+		and: "another Buffer of the same size class is allocated"
+			def next = allocator.allocate(1000)
+
+		then: "the same memory is reused and reset"
+			next.get().byteBuffer().is(memory)
+			next.get().position() == 0
+			next.get().remaining() == 1024
+	}
+
+	def "A pooled Buffer grows into a larger size class"() {
+		given: "a small pooled Buffer"
+			def allocator = new PooledBufferAllocator(true, 64 * 1024, 4, false)
+			def buff = allocator.allocate(256).get()
+			def memory = buff.byteBuffer()
+
+		when: "more data is appended than it can hold"
+			buff.append("Hello ")
+			buff.append(new byte[1000])
+			buff.append("World!")
+			buff.flip()
+
+		then: "the Buffer moved to a larger chunk and kept its content"
+			buff.capacity() == 1024
+			buff.remaining() == 1012
+			buff.asString().startsWith("Hello ")
+
+		and: "the original chunk went back to the pool"
+			allocator.allocate(200).get().byteBuffer().is(memory)
+	}
+
+	def "A Buffer kept after its Reference is dropped keeps its memory"() {
+		given: "an allocator that detects leaks and a Buffer whose Reference isn't kept"
+			def allocator = new PooledBufferAllocator(false, 64 * 1024, 4, true)
+			def kept = allocator.allocate(256).get()
+			kept.append("AAAA").flip()
+
+		when: "the Reference is collected and other Buffers are allocated and written to"
+			def others = []
+			5.times {
+				System.gc()
+				Thread.sleep(50)
+				def other = allocator.allocate(256).get()
+				other.append("BBBB").flip()
+				others << other
+			}
+
+		then: "the kept Buffer still owns its memory"
+			kept.asString() == "AAAA"
+			others.every { !it.byteBuffer().array().is(kept.byteBuffer().array()) || it.byteBuffer().arrayOffset() != kept.byteBuffer().arrayOffset() }
+	}
+
+	def "The memory of a leaked Buffer is given back to the pool"() {
+		given: "an allocator that detects leaks and the memory of a Buffer that is never released"
+			def allocator = new PooledBufferAllocator(true, 64 * 1024, 4, true)
+			def memory = allocator.allocate(256).get().byteBuffer()
+
+		when: "the Buffer is collected and Buffers of the same size class are allocated"
+			def reused = false
+			def refs = []
+			for (int i = 0; i < 20 && !reused; i++) {
+				System.gc()
+				Thread.sleep(50)
+				def ref = allocator.allocate(256)
+				refs << ref
+				reused = ref.get().byteBuffer().is(memory)
+			}
+
+		then: "its memory was reused"
+			reused
+	}
+
+}
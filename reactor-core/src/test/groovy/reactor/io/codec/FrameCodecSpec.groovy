@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.codec
+
+import reactor.fn.Consumer
+import reactor.io.buffer.Buffer
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+import static reactor.io.codec.FrameCodec.LengthField.*
+import static reactor.io.codec.FrameCodec.TrailerChecksum.*
+
+/**
+ * @author Jon Brisbin
+ */
+class FrameCodecSpec extends Specification {
+
+	def "FrameCodec round-trips frames with every length field"() {
+		given: "a codec"
+		def codec = new FrameCodec(2, lengthField)
+		def frames = []
+
+		when: "a frame is encoded and decoded"
+		def encoded = codec.encoder().apply(new Frame(Buffer.wrap("ab"), Buffer.wrap("Hello World!")))
+		codec.decoder({ Frame f -> frames << f } as Consumer<Frame>).apply(encoded)
+
+		then: "the frame was read back"
+		encoded.remaining() == 0
+		frames.size() == 1
+		frames[0].prefix.asString() == "ab"
+		frames[0].data.asString() == "Hello World!"
+
+		where:
+		lengthField << [SHORT, INT, LONG]
+	}
+
+	def "FrameCodec decodes copies of the inbound buffer by default"() {
+		given: "a buffer holding a frame"
+		def codec = new FrameCodec(1, SHORT)
+		def bb = ByteBuffer.allocate(8)
+		bb.put((byte) 'x').putShort((short) 5).put("Hello".bytes).flip()
+		def frames = []
+
+		when: "the buffer is decoded and then overwritten"
+		codec.decoder({ Frame f -> frames << f } as Consumer<Frame>).apply(new Buffer(bb))
+		bb.put(0, (byte) 'y').put(3, (byte) 'J')
+
+		then: "the frame doesn't see the change"
+		bb.remaining() == 0
+		frames[0].prefix.asString() == "x"
+		frames[0].data.asString() == "Hello"
+	}
+
+	def "A zero-copy FrameCodec decodes slices of the inbound buffer"() {
+		given: "a buffer holding two frames"
+		def codec = new FrameCodec(0, SHORT, NONE, true)
+		def bb = ByteBuffer.allocate(14)
+		bb.putShort((short) 5).put("Hello".bytes).putShort((short) 5).put("World".bytes).flip()
+		def frames = []
+
+		when: "the buffer is decoded"
+		codec.decoder({ Frame f -> frames << f } as Consumer<Frame>).apply(new Buffer(bb))
+
+		then: "both frames share memory with the inbound buffer"
+		frames*.data*.asString() == ["Hello", "World"]
+		bb.remaining() == 0
+
+		when: "the inbound buffer is overwritten"
+		def copy = frames[0].copy()
+		bb.put(2, (byte) 'J')
+
+		then: "the slice sees the change but the copy doesn't"
+		frames[0].data.asString() == "Jello"
+		copy.data.asString() == "Hello"
+	}
+
+	def "FrameCodec waits for a whole frame"() {
+		given: "an encoded frame split in two"
+		def codec = new FrameCodec(1, INT)
+		def bytes = codec.encoder().apply(new Frame(Buffer.wrap("x"), Buffer.wrap("Hello World!"))).asBytes()
+		def decoder = codec.decoder(null)
+
+		when: "the first part is decoded"
+		def first = Buffer.wrap(Arrays.copyOfRange(bytes, 0, 7))
+		def frame = decoder.apply(first)
+
+		then: "nothing was decoded and nothing was consumed"
+		frame == null
+		first.position() == 0
+
+		when: "the whole frame is decoded"
+		frame = decoder.apply(Buffer.wrap(bytes))
+
+		then: "the frame was decoded"
+		frame.prefix.asString() == "x"
+		frame.data.asString() == "Hello World!"
+	}
+
+	def "FrameCodec verifies trailer checksums"() {
+		given: "a codec with a trailer checksum"
+		def codec = new FrameCodec(2, SHORT, checksum)
+		def frames = []
+		def decoder = codec.decoder({ Frame f -> frames << f } as Consumer<Frame>)
+
+		when: "a frame is encoded and decoded"
+		def bytes = codec.encoder().apply(new Frame(Buffer.wrap("ab"), Buffer.wrap("Hello World!"))).asBytes()
+		decoder.apply(Buffer.wrap(bytes))
+
+		then: "the frame was decoded"
+		bytes.length == 2 + 2 + 12 + 4
+		frames[0].data.asString() == "Hello World!"
+
+		when: "a corrupted frame is decoded"
+		bytes[6] = (byte) 'J'
+		decoder.apply(Buffer.wrap(bytes))
+
+		then: "the checksum doesn't match"
+		thrown(IllegalStateException)
+
+		where:
+		checksum << [CRC32, ADLER32]
+	}
+
+}
@@ -123,4 +123,26 @@ class StandardCodecsSpec extends Specification {
 		data.asString() == "Hello World!"
 	}
 
+	def "JavaSerializationCodec writes registered types as ids"() {
+		given: "codecs with and without a type registry"
+		def plain = new JavaSerializationCodec<Date>()
+		def compact = new JavaSerializationCodec<Date>(new TypeRegistry().register(Date))
+		def date = new Date(1000)
+
+		when: "an object is encoded"
+		def plainBuff = plain.encoder().apply(date)
+		def compactBuff = compact.encoder().apply(date)
+
+		then: "the registered type's descriptor was left out"
+		compactBuff.remaining() < plainBuff.remaining()
+
+		when: "the object is decoded"
+		def plainDate = plain.decoder(null).apply(plainBuff)
+		def compactDate = compact.decoder(null).apply(compactBuff)
+
+		then: "both objects were decoded"
+		plainDate == date
+		compactDate == date
+	}
+
 }
@@ -1,7 +1,13 @@
 package reactor.io.codec.compress
 
+import org.xerial.snappy.SnappyInputStream
+import org.xerial.snappy.SnappyOutputStream
 import reactor.io.buffer.Buffer
 import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+import java.util.zip.GZIPInputStream
 
 import static reactor.io.codec.StandardCodecs.PASS_THROUGH_CODEC
 
@@ -49,4 +55,185 @@ class CompressionCodecsSpec extends Specification {
 
 	}
 
+	@Unroll
+	def "#name output can be read by the stream implementation"() {
+
+		given: "a large payload"
+			def payload = largePayload()
+
+		when: "it is encoded"
+			def buffer = codec.encoder().apply(Buffer.wrap(payload))
+			def decoded = stream.call(new ByteArrayInputStream(buffer.asBytes())).bytes
+
+		then: "the stream implementation decodes it"
+			decoded == payload
+
+		where:
+			name     | codec                                                   | stream
+			"GZIP"   | new GzipCodec<Buffer, Buffer>(PASS_THROUGH_CODEC)   | { new GZIPInputStream(it) }
+			"Snappy" | new SnappyCodec<Buffer, Buffer>(PASS_THROUGH_CODEC) | { new SnappyInputStream(it) }
+
+	}
+
+	@Unroll
+	def "#name decoding handles messages split over several Buffers"() {
+
+		given: "two compressed messages in one byte sequence"
+			def payload = largePayload()
+			def encoder = codec.encoder()
+			def out = new ByteArrayOutputStream()
+			out.write(encoder.apply(Buffer.wrap(payload)).asBytes())
+			out.write(encoder.apply(Buffer.wrap("Hello World!")).asBytes())
+			def bytes = out.toByteArray()
+			def decoded = []
+			def decoder = codec.decoder({ decoded << it.asBytes() } as reactor.fn.Consumer<Buffer>)
+
+		when: "the bytes are fed in arbitrary, direct fragments"
+			int pos = 0
+			int chunk = 1000
+			while (pos < bytes.length) {
+				int len = Math.min(chunk, bytes.length - pos)
+				def bb = ByteBuffer.allocateDirect(len).put(bytes, pos, len)
+				bb.flip()
+				decoder.apply(new Buffer(bb))
+				pos += len
+				chunk = chunk * 3
+			}
+
+		then: "both messages were decoded"
+			decoded.size() == 2
+			decoded[0] == payload
+			new String(decoded[1] as byte[]) == "Hello World!"
+
+		where:
+			name     | codec
+			"GZIP"   | new GzipCodec<Buffer, Buffer>(PASS_THROUGH_CODEC)
+			"Snappy" | new SnappyCodec<Buffer, Buffer>(PASS_THROUGH_CODEC)
+
+	}
+
+	@Unroll
+	def "#name decoding handles several messages in one Buffer"() {
+
+		given: "two compressed messages in one Buffer"
+			def encoder = codec.encoder()
+			def buffer = new Buffer().append(encoder.apply(Buffer.wrap("Hello")), encoder.apply(Buffer.wrap("World!"))).flip()
+			def decoded = []
+
+		when: "the Buffer is decoded"
+			codec.decoder({ decoded << it.asString() } as reactor.fn.Consumer<Buffer>).apply(buffer)
+
+		then: "both messages were decoded"
+			decoded == ["Hello", "World!"]
+
+		where:
+			name     | codec
+			"GZIP"   | new GzipCodec<Buffer, Buffer>(PASS_THROUGH_CODEC)
+			"Snappy" | new SnappyCodec<Buffer, Buffer>(PASS_THROUGH_CODEC)
+
+	}
+
+	@Unroll
+	def "#name decoding without a Consumer returns one message at a time"() {
+
+		given: "three compressed messages in one Buffer"
+			def encoder = codec.encoder()
+			def buffer = new Buffer().append(encoder.apply(Buffer.wrap("Hello")),
+			                                 encoder.apply(Buffer.wrap("World!")),
+			                                 encoder.apply(Buffer.wrap("Again"))).flip()
+			def decoder = codec.decoder(null)
+
+		when: "the Buffer is decoded, then presented again until nothing is left"
+			def decoded = [decoder.apply(buffer)?.asString()]
+			def more
+			while (null != (more = decoder.apply(buffer))) {
+				decoded << more.asString()
+			}
+
+		then: "every message was returned in order"
+			decoded == ["Hello", "World!", "Again"]
+
+		where:
+			name     | codec
+			"GZIP"   | new GzipCodec<Buffer, Buffer>(PASS_THROUGH_CODEC)
+			"Snappy" | new SnappyCodec<Buffer, Buffer>(PASS_THROUGH_CODEC)
+
+	}
+
+	def "Snappy decoding doesn't end a message with the Buffer that carries its first blocks"() {
+
+		given: "a message of several blocks"
+			def payload = new byte[100000]
+			new Random(42).nextBytes(payload)
+			def bytes = snappy.encoder().apply(Buffer.wrap(payload)).asBytes()
+			def decoded = []
+			def decoder = snappy.decoder({ decoded << it.asBytes() } as reactor.fn.Consumer<Buffer>)
+
+		when: "it is fed split at the end of its first block"
+			def firstBlockEnd = 16 + 4 + ByteBuffer.wrap(bytes, 16, 4).getInt()
+			decoder.apply(Buffer.wrap(Arrays.copyOfRange(bytes, 0, firstBlockEnd)))
+
+		then: "nothing was decoded yet"
+			decoded.empty
+
+		when: "the rest is fed"
+			decoder.apply(Buffer.wrap(Arrays.copyOfRange(bytes, firstBlockEnd, bytes.length)))
+
+		then: "the whole message was decoded"
+			decoded.size() == 1
+			decoded[0] == payload
+
+	}
+
+	def "Snappy decoding reads messages written by a plain SnappyOutputStream"() {
+
+		given: "two messages written by the stream implementation"
+			def payload = largePayload()
+			def out = new ByteArrayOutputStream()
+			[payload, "Hello World!".bytes].each { bytes ->
+				def stream = new SnappyOutputStream(out)
+				stream.write(bytes)
+				stream.close()
+			}
+			def decoded = []
+
+		when: "they are decoded"
+			snappy.decoder({ decoded << it.asBytes() } as reactor.fn.Consumer<Buffer>).apply(Buffer.wrap(out.toByteArray()))
+
+		then: "both messages were decoded"
+			decoded.size() == 2
+			decoded[0] == payload
+			new String(decoded[1] as byte[]) == "Hello World!"
+
+	}
+
+	def "Snappy decoding ends messages whose length is a multiple of the block size"() {
+
+		given: "an empty message and one of exactly two blocks"
+			def payload = new byte[2 * 32 * 1024]
+			new Random(42).nextBytes(payload)
+			def encoder = snappy.encoder()
+			def decoded = []
+			def decoder = snappy.decoder({ decoded << it.asBytes() } as reactor.fn.Consumer<Buffer>)
+
+		when: "each is decoded on its own"
+			decoder.apply(encoder.apply(Buffer.wrap(new byte[0])))
+			decoder.apply(encoder.apply(Buffer.wrap(payload)))
+
+		then: "both messages were decoded"
+			decoded.size() == 2
+			decoded[0].length == 0
+			decoded[1] == payload
+
+	}
+
+	static byte[] largePayload() {
+		def sb = new StringBuilder()
+		long id = 0
+		while (sb.length() < 1024 * 1024) {
+			sb.append("{\"id\":").append((id++ * 7919) % 104729).append(",\"name\":\"reactor\"}\n")
+		}
+		sb.toString().bytes
+	}
+
 }
@@ -25,7 +25,7 @@ class JacksonJsonCodecSpec extends Specification {
 			buffer = codec.encoder().apply(new Person(name: "John Doe"))
 
 		then: "the object was serialized"
-			buffer.remaining() == 76
+			buffer.remaining() == 74
 
 		when: "an object is deserialized"
 			Person p = codec.decoder(null).apply(buffer)
@@ -7,6 +7,8 @@ import reactor.fn.Function
 import reactor.io.buffer.Buffer
 import spock.lang.Specification
 
+import java.nio.ByteBuffer
+
 class JsonCodecSpec extends Specification {
 
 	def "JSON can be decoded into a Map"() {
@@ -37,4 +39,67 @@ class JsonCodecSpec extends Specification {
 		decoded.get('a').textValue() == 'alpha'
 	}
 
+	def "Newline-delimited and concatenated JSON values are decoded as they complete"() {
+		given: 'A JSON codec'
+		JsonCodec<JsonNode, Object> codec = new JsonCodec<JsonNode, Object>(JsonNode);
+		def decoded = []
+		def decoder = codec.decoder({ decoded << it } as Consumer<JsonNode>)
+		def json = '{"a": "al}pha"}\n{"b": [1, {"c": "\\"}"}]}{"d": 2}\n"str" 42\n[3]'
+
+		when: 'The JSON is fed one byte at a time'
+		json.bytes.each { byte b ->
+			decoder.apply(Buffer.wrap([b] as byte[]))
+		}
+
+		then: 'Each value was decoded once it was complete'
+		decoded.size() == 6
+		decoded[0].get('a').textValue() == 'al}pha'
+		decoded[1].get('b').get(1).get('c').textValue() == '"}'
+		decoded[2].get('d').intValue() == 2
+		decoded[3].textValue() == 'str'
+		decoded[4].intValue() == 42
+		decoded[5].get(0).intValue() == 3
+
+		when: 'The JSON is fed in one direct Buffer'
+		decoded.clear()
+		def direct = ByteBuffer.allocateDirect(json.bytes.length)
+		direct.put(json.bytes).flip()
+		decoder.apply(new Buffer(direct))
+
+		then: 'Every value was decoded'
+		decoded.size() == 6
+		decoded[1].get('b').get(1).get('c').textValue() == '"}'
+		decoded[5].get(0).intValue() == 3
+	}
+
+	def "Without a consumer, the decoder returns one value per invocation"() {
+		given: 'A JSON codec and a Buffer holding two documents'
+		JsonCodec<Map, Object> codec = new JsonCodec<Map, Object>(Map);
+		def decoder = codec.decoder(null)
+		def buffer = Buffer.wrap('{"a": 1} {"a": 2}')
+
+		when: 'The Buffer is decoded twice'
+		def first = decoder.apply(buffer)
+		def second = decoder.apply(buffer)
+
+		then: 'Both documents were decoded'
+		first.a == 1
+		second.a == 2
+		buffer.remaining() == 0
+	}
+
+	def "Without a consumer, a number at the end of a Buffer is decoded"() {
+		given: 'A JSON codec for numbers'
+		JsonCodec<Integer, Object> codec = new JsonCodec<Integer, Object>(Integer);
+		def decoder = codec.decoder(null)
+
+		when: 'Buffers holding one number each are decoded'
+		def first = decoder.apply(Buffer.wrap('123'))
+		def second = decoder.apply(Buffer.wrap('456'))
+
+		then: 'Both numbers were decoded'
+		first == 123
+		second == 456
+	}
+
 }
@@ -1,9 +1,17 @@
 package reactor.io.codec.kryo
 
 import com.esotericsoftware.kryo.Kryo
+import reactor.fn.Consumer
+import reactor.fn.Supplier
 import reactor.io.buffer.Buffer
+import reactor.io.codec.TypeRegistry
 import spock.lang.Specification
 
+import java.nio.ByteBuffer
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
 /**
  * @author Jon Brisbin
  */
@@ -27,7 +35,7 @@ class KryoCodecSpec extends Specification {
 			buffer = codec.encoder().apply(obj)
 
 		then: "all objects were serialized"
-			buffer.remaining() == 75
+			buffer.remaining() == 73
 
 		when: "an object is deserialized"
 			RichObject newObj = codec.decoder(null).apply(buffer)
@@ -39,6 +47,115 @@ class KryoCodecSpec extends Specification {
 
 	}
 
+	def "registered types are identified by their id"() {
+
+		given: "a Kryo codec with a type registry"
+			def codec = new KryoCodec<RichObject, RichObject>(kryo, true, new TypeRegistry().register(RichObject))
+			RichObject obj = new RichObject("first", 0.5f, 100l)
+
+		when: "an object is serialized"
+			def buffer = codec.encoder().apply(obj)
+
+		then: "the class name was replaced by a one-byte id"
+			buffer.remaining() == 4 + 1 + 21
+
+		when: "the object is deserialized"
+			RichObject newObj = codec.decoder(null).apply(buffer)
+
+		then: "the object was deserialized"
+			newObj.name == "first"
+			newObj.total == 100l
+
+	}
+
+	def "type names are sent once per stream when stream headers are enabled"() {
+
+		given: "a Kryo codec with stream headers"
+			def codec = new KryoCodec<RichObject, RichObject>(kryo, true, new TypeRegistry().streamHeaders(true))
+			def encoder = codec.encoder()
+			def objs = []
+			def decoder = codec.decoder({ objs << it } as Consumer<RichObject>)
+
+		when: "several objects are serialized"
+			def first = encoder.apply(new RichObject("first", 0.5f, 100l))
+			def second = encoder.apply(new RichObject("second", 0.5f, 200l))
+			def third = encoder.apply(new RichObject("third", 0.5f, 300l))
+
+		then: "only the first one carries the type name"
+			first.remaining() == 73
+			second.remaining() == 4 + 1 + 22
+			third.remaining() == 4 + 1 + 21
+
+		when: "the stream is deserialized"
+			def stream = new Buffer().append(first, second, third).flip()
+			decoder.apply(stream)
+
+		then: "all objects were deserialized"
+			objs*.name == ["first", "second", "third"]
+			objs*.total == [100l, 200l, 300l]
+
+	}
+
+	def "messages can be read from heap and direct buffers"() {
+
+		given: "an encoded object"
+			def codec = new KryoCodec<RichObject, RichObject>(kryo, false)
+			def bytes = codec.encoder().apply(new RichObject("first", 0.5f, 100l)).asBytes()
+			def direct = ByteBuffer.allocateDirect(bytes.length + 3)
+			direct.put([1, 2, 3] as byte[]).put(bytes).flip().position(3)
+
+		when: "the object is deserialized from a heap buffer and from an offset direct buffer"
+			RichObject fromHeap = codec.decoder(null).apply(Buffer.wrap(bytes))
+			def directBuffer = new Buffer(direct)
+			RichObject fromDirect = codec.decoder(null).apply(directBuffer)
+
+		then: "both objects were deserialized and the buffers were consumed"
+			fromHeap.name == "first"
+			fromDirect.name == "first"
+			fromDirect.total == 100l
+			directBuffer.remaining() == 0
+
+	}
+
+	def "a pooled codec can be used from many threads at once"() {
+
+		given: "a codec with a Kryo per thread"
+			def codec = new KryoCodec<RichObject, RichObject>({
+				def k = new Kryo()
+				k.register(RichObject)
+				k
+			} as Supplier<Kryo>, true)
+			def threads = 8
+			def msgs = 2000
+			def errors = new AtomicInteger()
+			def latch = new CountDownLatch(threads)
+
+		when: "objects are round-tripped concurrently"
+			threads.times { t ->
+				Thread.start {
+					try {
+						def encoder = codec.encoder()
+						def decoder = codec.decoder(null)
+						msgs.times { i ->
+							RichObject obj = decoder.apply(encoder.apply(new RichObject("t$t-$i", 0.5f, i as Long)))
+							if (obj.name != "t$t-$i" || obj.total != i) {
+								errors.incrementAndGet()
+							}
+						}
+					} catch (Throwable e) {
+						errors.incrementAndGet()
+					} finally {
+						latch.countDown()
+					}
+				}
+			}
+
+		then: "every object came back intact"
+			latch.await(30, TimeUnit.SECONDS)
+			errors.get() == 0
+
+	}
+
 	static class RichObject {
 		String name
 		Float percent
@@ -1,6 +1,7 @@
 package reactor.io.codec.protobuf
 
 import reactor.io.buffer.Buffer
+import reactor.io.codec.TypeRegistry
 import spock.lang.Specification
 
 /**
@@ -28,7 +29,7 @@ class ProtobufCodecSpec extends Specification {
 			buffer = codec.encoder().apply(obj)
 
 		then: "the object ws serialized"
-			buffer.remaining() == 70
+			buffer.remaining() == 68
 
 		when: "an object is deserialized"
 			TestObjects.RichObject newObj = codec.decoder(null).apply(buffer)
@@ -40,4 +41,26 @@ class ProtobufCodecSpec extends Specification {
 
 	}
 
+	def "registered types are identified by their id"() {
+
+		given: "a ProtobufCodec with a type registry"
+			def codec = new ProtobufCodec<TestObjects.RichObject, TestObjects.RichObject>(
+					true,
+					new TypeRegistry().register(TestObjects.RichObject, 7)
+			)
+
+		when: "an object is serialized"
+			def buffer = codec.encoder().apply(obj)
+
+		then: "the class name was replaced by a one-byte id"
+			buffer.remaining() == 4 + 1 + obj.serializedSize
+
+		when: "the object is deserialized"
+			TestObjects.RichObject newObj = codec.decoder(null).apply(buffer)
+
+		then: "the object was deserialized"
+			newObj == obj
+
+	}
+
 }
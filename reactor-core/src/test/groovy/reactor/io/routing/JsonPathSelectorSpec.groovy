@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.routing
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import reactor.bus.registry.CachingRegistry
+import reactor.io.buffer.Buffer
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+/**
+ * @author Jon Brisbin
+ */
+class JsonPathSelectorSpec extends Specification {
+
+	static final String JSON = '{"id": "x", "data": [{"x": 1}, {"run": 5, "tags": {"env": "prod"}}, {"run": "7"}], "empty": []}'
+
+	def "Streamed and parsed evaluation agree"() {
+		given: "a selector and the same document as several kinds of key"
+		def selector = new JsonPathSelector(path)
+		def direct = ByteBuffer.allocateDirect(JSON.bytes.length)
+		direct.put(JSON.bytes).flip()
+		def keys = [
+				JSON,
+				JSON.bytes,
+				Buffer.wrap(JSON),
+				new Buffer(direct),
+				new ObjectMapper().readValue(JSON, Map),
+				new ObjectMapper().readTree(JSON)
+		]
+
+		expect: "every kind of key gives the same answer"
+		keys.collect { selector.matches(it) } == [matches] * keys.size()
+
+		where:
+		path                                  | matches
+		'$.id'                                | true
+		'$.missing'                           | false
+		'$.empty'                             | false
+		"\$['data']"                          | true
+		'$.data[?(@.run == 5)]'               | true
+		'$.data[?(@.run == 7)]'               | true
+		"\$.data[?(@.run == '7')]"            | true
+		'$.data[?(@.run == 6)]'               | false
+		"\$.data[?(@.tags.env == 'prod')]"    | true
+		"\$.data[?(@.tags.env == 'dev')]"     | false
+		'$.data[1].run'                       | true
+	}
+
+	def "Streamed evaluation leaves comparisons of different types to JsonPath"() {
+		given: "a selector comparing a number with a string"
+		def path = JsonPathSelector.StreamingPath.compile('$.data[?(@.run == 7)]')
+		def parser = new ObjectMapper().factory.createParser(JSON)
+
+		expect: "the streamed outcome is left open"
+		path.matches(parser) == null
+	}
+
+	def "Streamed evaluation compares numbers by value"() {
+		expect: "a number matches numbers of the same value"
+		new JsonPathSelector('$.data[?(@.x == 1.0)]').matches(JSON)
+	}
+
+	def "Streamed evaluation doesn't consume a Buffer key"() {
+		given: "a Buffer key"
+		def buffer = Buffer.wrap(JSON)
+
+		when: "it is matched"
+		def matched = new JsonPathSelector('$.data[?(@.run == 5)]').matches(buffer)
+
+		then: "it matched and is still readable"
+		matched
+		buffer.remaining() == JSON.length()
+	}
+
+	def "A key is parsed once per selection"() {
+		given: "selectors that can't be streamed, sharing a mapper that counts documents it parses"
+		def parses = 0
+		def mapper = new ObjectMapper() {
+			@Override
+			def <T> T readValue(String content, Class<T> valueType) {
+				parses++
+				super.readValue(content, valueType)
+			}
+		}
+		def registry = new CachingRegistry<String>(false, false, null)
+		(0..9).each { i ->
+			registry.register(new JsonPathSelector(mapper, "\$.data[$i]"), "sel$i")
+		}
+
+		when: "a key is selected"
+		def selected = registry.select(JSON)
+
+		then: "every selector was asked but the key was parsed only once"
+		selected*.object == ['sel0', 'sel1', 'sel2']
+		parses == 1
+
+		when: "a selector is used outside of a selection"
+		parses = 0
+		new JsonPathSelector(mapper, '$.data[0]').matches(JSON)
+		new JsonPathSelector(mapper, '$.data[0]').matches(JSON)
+
+		then: "the key is parsed every time"
+		parses == 2
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.codec.compress;
+
+import org.junit.Test;
+import reactor.AbstractPerformanceTest;
+import reactor.fn.Function;
+import reactor.io.buffer.Buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static reactor.io.codec.StandardCodecs.PASS_THROUGH_CODEC;
+
+/**
+ * Compares decoding 1MB payloads with the buffer-level codecs against the previous stream-based implementation.
+ *
+ * @author Jon Brisbin
+ */
+public class CompressionCodecThroughputTests extends AbstractPerformanceTest {
+
+	private static final byte[] PAYLOAD = payload();
+
+	@Override
+	protected long getTimeout() {
+		return 2000;
+	}
+
+	@Test
+	public void gzipCodecThroughput() {
+		GzipCodec<Buffer, Buffer> codec = new GzipCodec<Buffer, Buffer>(PASS_THROUGH_CODEC);
+		byte[] compressed = codec.encoder().apply(Buffer.wrap(PAYLOAD)).asBytes();
+		Function<Buffer, Buffer> decoder = codec.decoder(null);
+
+		startThroughputTest("GzipCodec decode");
+		while (withinTimeout()) {
+			Buffer b = decoder.apply(Buffer.wrap(compressed));
+			counter.add(b.remaining());
+		}
+		stopThroughputTest("GzipCodec decode (bytes)");
+	}
+
+	@Test
+	public void gzipStreamThroughput() throws IOException {
+		byte[] compressed = new GzipCodec<Buffer, Buffer>(PASS_THROUGH_CODEC).encoder()
+		                                                                     .apply(Buffer.wrap(PAYLOAD))
+		                                                                     .asBytes();
+		assertEquals(PAYLOAD.length, decodeWithStream(compressed).remaining());
+
+		startThroughputTest("GZIPInputStream decode");
+		while (withinTimeout()) {
+			counter.add(decodeWithStream(compressed).remaining());
+		}
+		stopThroughputTest("GZIPInputStream decode (bytes)");
+	}
+
+	@Test
+	public void snappyCodecThroughput() {
+		SnappyCodec<Buffer, Buffer> codec = new SnappyCodec<Buffer, Buffer>(PASS_THROUGH_CODEC);
+		byte[] compressed = codec.encoder().apply(Buffer.wrap(PAYLOAD)).asBytes();
+		Function<Buffer, Buffer> decoder = codec.decoder(null);
+
+		startThroughputTest("SnappyCodec decode");
+		while (withinTimeout()) {
+			Buffer b = decoder.apply(Buffer.wrap(compressed));
+			counter.add(b.remaining());
+		}
+		stopThroughputTest("SnappyCodec decode (bytes)");
+	}
+
+	// the decoding loop CompressionCodec used before it worked on whole buffers
+	private static Buffer decodeWithStream(byte[] compressed) throws IOException {
+		InputStream zin = new GZIPInputStream(new ByteArrayInputStream(compressed));
+		Buffer newBuff = new Buffer();
+		int b;
+		while ((b = zin.read()) != -1) {
+			newBuff.append((byte) b);
+		}
+		zin.close();
+		return newBuff.flip();
+	}
+
+	private static byte[] payload() {
+		StringBuilder sb = new StringBuilder();
+		long id = 0;
+		while (sb.length() < 1024 * 1024) {
+			sb.append("{\"id\":").append((id++ * 7919) % 104729).append(",\"name\":\"reactor\"}\n");
+		}
+		return sb.toString().getBytes();
+	}
+
+}
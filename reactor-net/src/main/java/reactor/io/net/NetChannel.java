@@ -23,6 +23,7 @@ import reactor.rx.Promise;
 import reactor.rx.Stream;
 
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
 
 /**
  * {@code NetChannel} is a virtual connection that often matches with a Socket or a Channel (e.g. Netty).
@@ -67,6 +68,21 @@ public interface NetChannel<IN, OUT> extends Publisher<IN> {
 	 */
 	Promise<Void> send(OUT data);
 
+	/**
+	 * Send a region of a file to the peer as is, without passing it through the codec. Where it can, the operating
+	 * system copies the file to the connection directly, otherwise the file is read through memory mappings.
+	 *
+	 * @param file
+	 * 		the file to send
+	 * @param position
+	 * 		the position in the file of the first byte to send
+	 * @param count
+	 * 		the number of bytes to send
+	 *
+	 * @return a {@link reactor.rx.Promise} indicating when the send operation has completed
+	 */
+	Promise<Void> sendFile(Path file, long position, long count);
+
 	/**
 	 * Send data to the peer.
 	 *
@@ -0,0 +1,490 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.Environment;
+import reactor.bus.registry.Registration;
+import reactor.core.Dispatcher;
+import reactor.core.support.Assert;
+import reactor.fn.Consumer;
+import reactor.fn.Predicate;
+import reactor.fn.timer.TimeUtils;
+import reactor.fn.tuple.Tuple2;
+import reactor.rx.Promise;
+import reactor.rx.Promises;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pool of persistent connections opened by a {@link NetClient}, so that request/response exchanges don't pay for a
+ * connection setup each time.
+ * <p>
+ * {@link #acquire()} hands out an idle connection if there is one and opens a new connection if fewer than {@code
+ * maxConnections} are open. Otherwise the request waits, in arrival order, for a connection to be {@link
+ * #release(NetChannelStream) released}. At most {@code maxPending} requests may wait; beyond that, acquiring fails
+ * immediately so that callers feel the pressure instead of queueing without bound. Idle connections are checked with
+ * the health check before they are handed out and closed by the environment's {@link reactor.fn.timer.Timer} once
+ * they have been idle for too long. When a connection can't be opened, the {@link Reconnect} strategy decides whether
+ * and when to try again; if it gives up, the waiting requests fail.
+ * <p>
+ * A connection is only ever used by one holder at a time: the pool remembers which connections are checked out and
+ * ignores a {@link #release(NetChannelStream) release} or {@link #invalidate(NetChannelStream) invalidation} of a
+ * connection that isn't, such as a second release of the same connection. Subscriptions made to its {@link NetChannel#in() input}
+ * outlive the holder: exchanges are best done with {@link NetChannelStream#sendAndReceive(Object)}.
+ *
+ * @param <IN>  The type that will be received by the pooled connections
+ * @param <OUT> The type that will be sent by the pooled connections
+ * @author Jon Brisbin
+ */
+public class NetChannelPool<IN, OUT> {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final NetClient<IN, OUT, ?>                        client;
+	private final Environment                                  env;
+	private final Dispatcher                                   dispatcher;
+	private final int                                          maxConnections;
+	private final int                                          maxPending;
+	private final long                                         idleTimeout;
+	private final Predicate<? super NetChannelStream<IN, OUT>> healthCheck;
+	private final Reconnect                                    reconnect;
+
+	private final ArrayDeque<Idle<IN, OUT>>                      idle       = new ArrayDeque<Idle<IN, OUT>>();
+	private final ArrayDeque<Promise<NetChannelStream<IN, OUT>>> pending    =
+			new ArrayDeque<Promise<NetChannelStream<IN, OUT>>>();
+	private final Set<NetChannelStream<IN, OUT>>                 live       = newIdentitySet();
+	private final Set<NetChannelStream<IN, OUT>>                 checkedOut = newIdentitySet();
+	private final Set<NetChannelStream<IN, OUT>>                 closed     = newIdentitySet();
+
+	private final Registration<? extends Consumer<Long>> evictions;
+
+	private int     opening;
+	private int     failedAttempts;
+	private boolean retryScheduled;
+	private boolean shutdown;
+
+	/**
+	 * Create a {@code NetChannelPool}.
+	 *
+	 * @param client
+	 * 		the client that opens connections
+	 * @param dispatcher
+	 * 		the {@link Dispatcher} used to complete acquisitions
+	 * @param maxConnections
+	 * 		the maximum number of connections open at the same time
+	 * @param maxPending
+	 * 		the maximum number of acquisitions waiting for a connection
+	 * @param idleTimeout
+	 * 		how long, in milliseconds, a connection may stay idle before it is closed, or {@literal 0} to keep idle
+	 * 		connections open
+	 * @param healthCheck
+	 * 		tells whether an idle connection can still be used, or {@literal null} to only discard closed connections
+	 * @param reconnect
+	 * 		decides whether and when to retry after a connection couldn't be opened, or {@literal null} to fail the
+	 * 		waiting acquisitions straight away
+	 */
+	public NetChannelPool(@Nonnull NetClient<IN, OUT, ?> client,
+	                      @Nonnull Environment env,
+	                      @Nonnull Dispatcher dispatcher,
+	                      int maxConnections,
+	                      int maxPending,
+	                      long idleTimeout,
+	                      @Nullable Predicate<? super NetChannelStream<IN, OUT>> healthCheck,
+	                      @Nullable Reconnect reconnect) {
+		Assert.notNull(client, "NetClient cannot be null");
+		Assert.isTrue(maxConnections > 0, "maxConnections must be greater than 0");
+		Assert.isTrue(maxPending >= 0, "maxPending cannot be negative");
+		this.client = client;
+		this.env = env;
+		this.dispatcher = dispatcher;
+		this.maxConnections = maxConnections;
+		this.maxPending = maxPending;
+		this.idleTimeout = idleTimeout;
+		this.healthCheck = healthCheck;
+		this.reconnect = reconnect;
+
+		if (idleTimeout > 0) {
+			this.evictions = env.getTimer().schedule(new Consumer<Long>() {
+				@Override
+				public void accept(Long now) {
+					evictIdle(now);
+				}
+			}, Math.max(idleTimeout / 2, env.getTimer().getResolution()), TimeUnit.MILLISECONDS);
+		} else {
+			this.evictions = null;
+		}
+	}
+
+	/**
+	 * Acquire a connection, which must be given back with {@link #release(NetChannelStream)} or {@link
+	 * #invalidate(NetChannelStream)} once it isn't needed anymore.
+	 *
+	 * @return a {@link Promise} fulfilled with a connection, or failed if the pool is shut down, too many acquisitions
+	 * are already waiting, or no connection could be opened
+	 */
+	public Promise<NetChannelStream<IN, OUT>> acquire() {
+		Promise<NetChannelStream<IN, OUT>> promise = Promises.ready(env, dispatcher);
+		for (; ; ) {
+			Idle<IN, OUT> i = null;
+			boolean open = false;
+			Throwable rejection = null;
+			synchronized (this) {
+				if (shutdown) {
+					rejection = new IllegalStateException("NetChannelPool has been shut down");
+				} else if (null == (i = idle.poll())) {
+					pending.add(promise);
+					open = reserveConnection();
+					if (!open && pending.size() - opening > maxPending) {
+						pending.removeLast();
+						rejection = new IllegalStateException("Too many acquisitions are waiting for a connection");
+					}
+				} else {
+					checkedOut.add(i.channel);
+				}
+			}
+
+			if (null != rejection) {
+				promise.onError(rejection);
+			} else if (null == i) {
+				if (open) {
+					openConnection();
+				}
+			} else if (null != healthCheck && !healthCheck.test(i.channel)) {
+				if (log.isDebugEnabled()) {
+					log.debug("Discarding unhealthy connection {}", i.channel);
+				}
+				invalidate(i.channel);
+				continue;
+			} else {
+				promise.onNext(i.channel);
+			}
+			return promise;
+		}
+	}
+
+	/**
+	 * Give a connection back to the pool so that it can be reused. A connection that isn't checked out, because it has
+	 * already been released or invalidated, is ignored.
+	 *
+	 * @param ch
+	 * 		a connection obtained from {@link #acquire()}
+	 */
+	public void release(@Nonnull NetChannelStream<IN, OUT> ch) {
+		Promise<NetChannelStream<IN, OUT>> next;
+		synchronized (this) {
+			if (!checkedOut.contains(ch)) {
+				log.warn("Ignoring the release of connection {}, which isn't checked out", ch);
+				return;
+			}
+			boolean wasClosed = closed.remove(ch);
+			if (shutdown || wasClosed) {
+				checkedOut.remove(ch);
+				next = null;
+			} else if (null == (next = pending.poll())) {
+				checkedOut.remove(ch);
+				idle.push(new Idle<IN, OUT>(ch, TimeUtils.approxCurrentTimeMillis()));
+				return;
+			}
+		}
+		if (null != next) {
+			// still checked out, by its next holder
+			next.onNext(ch);
+		} else {
+			discard(ch);
+		}
+	}
+
+	/**
+	 * Give back a connection that must not be reused, for instance after a protocol error. The connection is closed. A
+	 * connection that isn't checked out, because it has already been released or invalidated, is ignored.
+	 *
+	 * @param ch
+	 * 		a connection obtained from {@link #acquire()}
+	 */
+	public void invalidate(@Nonnull NetChannelStream<IN, OUT> ch) {
+		synchronized (this) {
+			if (!checkedOut.remove(ch)) {
+				log.warn("Ignoring the invalidation of connection {}, which isn't checked out", ch);
+				return;
+			}
+		}
+		discard(ch);
+	}
+
+	/**
+	 * Close a connection that is no longer checked out and make room for a new one.
+	 */
+	private void discard(NetChannelStream<IN, OUT> ch) {
+		boolean open;
+		synchronized (this) {
+			closed.remove(ch);
+			if (!live.remove(ch)) {
+				return;
+			}
+			open = !shutdown && reserveConnection();
+		}
+		ch.close();
+		if (open) {
+			openConnection();
+		}
+	}
+
+	/**
+	 * Close every idle connection and fail the waiting acquisitions. Connections that are in use are closed when they
+	 * are released.
+	 */
+	public void shutdown() {
+		List<Idle<IN, OUT>> idleConnections;
+		List<Promise<NetChannelStream<IN, OUT>>> waiting;
+		synchronized (this) {
+			if (shutdown) {
+				return;
+			}
+			shutdown = true;
+			idleConnections = new ArrayList<Idle<IN, OUT>>(idle);
+			idle.clear();
+			waiting = new ArrayList<Promise<NetChannelStream<IN, OUT>>>(pending);
+			pending.clear();
+		}
+		if (null != evictions) {
+			evictions.cancel();
+		}
+		for (Idle<IN, OUT> i : idleConnections) {
+			discard(i.channel);
+		}
+		Throwable t = new IllegalStateException("NetChannelPool has been shut down");
+		for (Promise<NetChannelStream<IN, OUT>> p : waiting) {
+			p.onError(t);
+		}
+	}
+
+	/**
+	 * Get the number of connections currently open, whether idle or in use.
+	 *
+	 * @return the number of open connections
+	 */
+	public synchronized int getConnections() {
+		return live.size();
+	}
+
+	/**
+	 * Get the number of idle connections.
+	 *
+	 * @return the number of idle connections
+	 */
+	public synchronized int getIdle() {
+		return idle.size();
+	}
+
+	/**
+	 * Get the number of acquisitions waiting for a connection.
+	 *
+	 * @return the number of waiting acquisitions
+	 */
+	public synchronized int getPending() {
+		return pending.size();
+	}
+
+	// must hold the lock
+	private boolean reserveConnection() {
+		if (retryScheduled || live.size() + opening >= maxConnections || opening >= pending.size()) {
+			return false;
+		}
+		opening++;
+		return true;
+	}
+
+	private void openConnection() {
+		Promise<NetChannelStream<IN, OUT>> connection = client.open();
+		connection.onSuccess(new Consumer<NetChannelStream<IN, OUT>>() {
+			@Override
+			public void accept(NetChannelStream<IN, OUT> ch) {
+				onOpened(ch);
+			}
+		});
+		connection.onError(new Consumer<Throwable>() {
+			@Override
+			public void accept(Throwable t) {
+				onFailed(t);
+			}
+		});
+	}
+
+	private void onOpened(final NetChannelStream<IN, OUT> ch) {
+		ch.on().close(new Consumer<Void>() {
+			@Override
+			public void accept(Void v) {
+				onClosed(ch);
+			}
+		});
+
+		Promise<NetChannelStream<IN, OUT>> next = null;
+		boolean open = false;
+		boolean late;
+		synchronized (this) {
+			opening--;
+			failedAttempts = 0;
+			// opened after a shutdown, when nothing would ever hand it out or close it
+			late = shutdown;
+			if (!late) {
+				live.add(ch);
+				next = pending.poll();
+				if (null == next) {
+					idle.push(new Idle<IN, OUT>(ch, TimeUtils.approxCurrentTimeMillis()));
+				} else {
+					checkedOut.add(ch);
+				}
+				// more acquisitions may have queued up while the endpoint was unreachable
+				open = reserveConnection();
+			}
+		}
+		if (late) {
+			ch.close();
+			return;
+		}
+		if (null != next) {
+			next.onNext(ch);
+		}
+		if (open) {
+			openConnection();
+		}
+	}
+
+	private void onClosed(NetChannelStream<IN, OUT> ch) {
+		boolean open;
+		synchronized (this) {
+			if (!live.contains(ch)) {
+				return;
+			}
+			boolean wasIdle = false;
+			for (Iterator<Idle<IN, OUT>> it = idle.iterator(); it.hasNext(); ) {
+				if (it.next().channel == ch) {
+					it.remove();
+					wasIdle = true;
+					break;
+				}
+			}
+			if (!wasIdle) {
+				// in use: forget it when it is given back
+				closed.add(ch);
+				return;
+			}
+			live.remove(ch);
+			open = !shutdown && reserveConnection();
+		}
+		if (open) {
+			openConnection();
+		}
+	}
+
+	private void onFailed(Throwable cause) {
+		Tuple2<InetSocketAddress, Long> next = null;
+		List<Promise<NetChannelStream<IN, OUT>>> failed = null;
+		synchronized (this) {
+			opening--;
+			failedAttempts++;
+			if (null != reconnect) {
+				next = reconnect.reconnect(null, failedAttempts);
+			}
+			if (null == next) {
+				failedAttempts = 0;
+				// nothing else is going to serve the waiting acquisitions
+				if (opening == 0 && live.isEmpty()) {
+					failed = new ArrayList<Promise<NetChannelStream<IN, OUT>>>(pending);
+					pending.clear();
+				}
+			} else {
+				retryScheduled = true;
+			}
+		}
+
+		if (null != failed) {
+			log.error("Failed to open a pooled connection", cause);
+			for (Promise<NetChannelStream<IN, OUT>> p : failed) {
+				p.onError(cause);
+			}
+			return;
+		}
+		if (null != next) {
+			if (log.isInfoEnabled()) {
+				log.info("Failed to open a pooled connection. Retrying in {}ms.", next.getT2());
+			}
+			env.getTimer().submit(new Consumer<Long>() {
+				@Override
+				public void accept(Long now) {
+					retry();
+				}
+			}, Math.max(next.getT2(), env.getTimer().getResolution()), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void retry() {
+		boolean open;
+		synchronized (this) {
+			retryScheduled = false;
+			open = !shutdown && !pending.isEmpty() && reserveConnection();
+		}
+		if (open) {
+			openConnection();
+		}
+	}
+
+	private void evictIdle(long now) {
+		List<NetChannelStream<IN, OUT>> evicted = null;
+		synchronized (this) {
+			// the least recently used connections are at the tail
+			Idle<IN, OUT> i;
+			while (null != (i = idle.peekLast()) && now - i.since >= idleTimeout) {
+				idle.pollLast();
+				live.remove(i.channel);
+				if (null == evicted) {
+					evicted = new ArrayList<NetChannelStream<IN, OUT>>();
+				}
+				evicted.add(i.channel);
+			}
+		}
+		if (null != evicted) {
+			if (log.isDebugEnabled()) {
+				log.debug("Closing {} idle connections", evicted.size());
+			}
+			for (NetChannelStream<IN, OUT> ch : evicted) {
+				ch.close();
+			}
+		}
+	}
+
+	private static <IN, OUT> Set<NetChannelStream<IN, OUT>> newIdentitySet() {
+		return Collections.newSetFromMap(new IdentityHashMap<NetChannelStream<IN, OUT>, Boolean>());
+	}
+
+	private static final class Idle<IN, OUT> {
+		private final NetChannelStream<IN, OUT> channel;
+		private final long                      since;
+
+		private Idle(NetChannelStream<IN, OUT> channel, long since) {
+			this.channel = channel;
+			this.since = since;
+		}
+	}
+
+}
@@ -23,7 +23,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.Environment;
 import reactor.core.Dispatcher;
+import reactor.core.dispatch.SynchronousDispatcher;
 import reactor.core.support.Assert;
+import reactor.core.support.IoUtils;
+import reactor.fn.Consumer;
 import reactor.fn.Function;
 import reactor.fn.batch.BatchConsumer;
 import reactor.io.buffer.Buffer;
@@ -36,21 +39,49 @@ import reactor.rx.broadcast.Broadcaster;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * An abstract {@link NetChannel} implementation that handles the basic interaction and behave as a {@link
  * reactor.rx.Stream}.
+ * <p>
+ * Both directions are backpressured. What subscribers {@link Subscription#request(long) request} from the content
+ * stream is tracked, and once it is used up the connection stops reading until more is requested. Publishers given to
+ * {@link #echoFrom(Publisher)} are asked for a bounded number of items at a time, and no more while the connection
+ * isn't {@link #isWritable() writable}. Once every subscriber of the content stream has cancelled, the connection
+ * reads freely again.
  *
  * @author Jon Brisbin
  * @author Stephane Maldini
  */
 public abstract class NetChannelStream<IN, OUT> extends Stream<IN> implements NetChannel<IN, OUT> {
 
+	/**
+	 * The number of items a publisher given to {@link #echoFrom(Publisher)} may have in flight.
+	 */
+	public static final int ECHO_WINDOW = 128;
+
+	/**
+	 * The size of the memory mappings a file is read through when it can't be copied to the connection directly.
+	 */
+	public static final int FILE_CHUNK_SIZE = 1024 * 1024;
+
 	protected final Logger log = LoggerFactory.getLogger(getClass());
 
 	protected final Action<IN, IN> contentStream;
 
+	private final ReadSubscription      readSubscription = new ReadSubscription();
+	private final Queue<EchoSubscriber> writeWaiters     = new ConcurrentLinkedQueue<EchoSubscriber>();
+	private final WriteConsumer         writeConsumer    = new WriteConsumer(null);
+
 	private final Environment env;
 	private final Dispatcher  ioDispatcher;
 	private final Dispatcher  eventsDispatcher;
@@ -68,9 +99,10 @@ public abstract class NetChannelStream<IN, OUT> extends Stream<IN> implements Ne
 		this.ioDispatcher = ioDispatcher;
 		this.eventsDispatcher = eventsDispatcher;
 		this.contentStream =  Broadcaster.create(env, eventsDispatcher);
+		this.contentStream.onSubscribe(readSubscription);
 
 		if (null != codec) {
-			this.decoder = codec.decoder(contentStream);
+			this.decoder = codec.decoder(readSubscription);
 			this.encoder = codec.encoder();
 		} else {
 			this.decoder = null;
@@ -100,6 +132,30 @@ public abstract class NetChannelStream<IN, OUT> extends Stream<IN> implements Ne
 		return d;
 	}
 
+	@Override
+	public Promise<Void> sendFile(final Path file, final long position, final long count) {
+		Assert.notNull(file, "File cannot be null.");
+		Assert.isTrue(position >= 0 && count >= 0, "Position and count cannot be negative.");
+		final Promise<Void> d = Promises.ready(env, eventsDispatcher);
+		ioDispatcher.dispatch(null, new Consumer<Void>() {
+			@Override
+			public void accept(Void v) {
+				FileChannel fc = null;
+				try {
+					fc = FileChannel.open(file, StandardOpenOption.READ);
+					if (position + count > fc.size()) {
+						throw new IllegalArgumentException("The region to send ends after the end of " + file + ".");
+					}
+					writeFile(fc, position, count, d);
+				} catch (Throwable t) {
+					IoUtils.closeQuietly(fc);
+					d.onError(t);
+				}
+			}
+		}, null);
+		return d;
+	}
+
 	@Override
 	public NetChannelStream<IN, OUT> echo(OUT data) {
 		send(data, null);
@@ -108,27 +164,7 @@ public abstract class NetChannelStream<IN, OUT> extends Stream<IN> implements Ne
 
 	@Override
 	public NetChannelStream<IN, OUT> echoFrom(Publisher<? extends OUT> dataStream) {
-		dataStream.subscribe(new Subscriber<OUT>() {
-			@Override
-			public void onComplete() {
-				//IGNORE
-			}
-
-			@Override
-			public void onError(Throwable t) {
-				contentStream.onError(t);
-			}
-
-			@Override
-			public void onNext(OUT out) {
-				send(out, null);
-			}
-
-			@Override
-			public void onSubscribe(Subscription s) {
-				s.request(Long.MAX_VALUE);
-			}
-		});
+		dataStream.subscribe(new EchoSubscriber());
 		return this;
 	}
 
@@ -146,7 +182,7 @@ public abstract class NetChannelStream<IN, OUT> extends Stream<IN> implements Ne
 	 * @param onComplete The callback to invoke when the write is complete.
 	 */
 	protected void send(OUT data, final Promise<Void> onComplete) {
-		ioDispatcher.dispatch(data, new WriteConsumer(onComplete), null);
+		ioDispatcher.dispatch(data, (null != onComplete ? new WriteConsumer(onComplete) : writeConsumer), null);
 	}
 
 	@Override
@@ -166,14 +202,48 @@ public abstract class NetChannelStream<IN, OUT> extends Stream<IN> implements Ne
 		if (null != decoder && null != data.byteBuffer()) {
 			decoder.apply(data);
 		} else {
-			contentStream.onNext((IN)data);
+			readSubscription.accept((IN) data);
 		}
 
 		return data.remaining() > 0;
 	}
 
 	public void notifyRead(IN obj) {
-		contentStream.onNext(obj);
+		readSubscription.accept(obj);
+	}
+
+	/**
+	 * Resume the publishers given to {@link #echoFrom(Publisher)} that were held back because this connection wasn't
+	 * writable. Subclasses call this when the connection becomes writable again.
+	 */
+	public void notifyWritable() {
+		EchoSubscriber waiter;
+		while (null != (waiter = writeWaiters.poll())) {
+			waiter.resume();
+		}
+	}
+
+	/**
+	 * Whether data written now would be sent without piling up in memory. Subclasses backed by a transport with
+	 * bounded outbound buffers override this, and then call {@link #notifyWritable()} when it changes back to {@literal
+	 * true}.
+	 *
+	 * @return {@literal true} if more data can be written
+	 */
+	public boolean isWritable() {
+		return true;
+	}
+
+	/**
+	 * Stop reading from the connection because subscribers don't want any more data. Does nothing by default.
+	 */
+	protected void pauseReads() {
+	}
+
+	/**
+	 * Start reading from the connection again because subscribers want more data. Does nothing by default.
+	 */
+	protected void resumeReads() {
 	}
 
 	public void notifyError(Throwable throwable) {
@@ -212,6 +282,28 @@ public abstract class NetChannelStream<IN, OUT> extends Stream<IN> implements Ne
 	 */
 	protected abstract void write(Object data, Promise<Void> onComplete, boolean flush);
 
+	/**
+	 * Write a region of a file to the connection, and close the file once it's been written. By default the region is
+	 * memory-mapped {@link #FILE_CHUNK_SIZE} bytes at a time and each mapping is written as a {@link ByteBuffer}, the
+	 * next one only once the previous one has been written, so that a large file doesn't pile up in memory. Subclasses
+	 * override this when they can have the operating system copy the file instead.
+	 *
+	 * @param file       The file, open for reading.
+	 * @param position   The position in the file of the first byte to write.
+	 * @param count      The number of bytes to write.
+	 * @param onComplete The callback to invoke when the write is complete.
+	 * @throws IOException if the file can't be mapped
+	 */
+	protected void writeFile(FileChannel file, long position, long count, Promise<Void> onComplete)
+			throws IOException {
+		if (count == 0) {
+			file.close();
+			onComplete.onComplete();
+			return;
+		}
+		new FileChunks(file, position, position + count, onComplete).writeNext();
+	}
+
 	/**
 	 * Subclasses must implement this method to perform IO flushes.
 	 */
@@ -235,6 +327,201 @@ public abstract class NetChannelStream<IN, OUT> extends Stream<IN> implements Ne
 		return encoder;
 	}
 
+	/**
+	 * The subscription of the content stream to this connection. It counts what the subscribers requested and pauses
+	 * reads once they've received all of it.
+	 */
+	private final class ReadSubscription implements Subscription, Consumer<IN> {
+		private static final long UNTRACKED = -1L;
+
+		volatile long demand = UNTRACKED;
+
+		@Override
+		public void request(long n) {
+			long d, next;
+			do {
+				d = demand;
+				next = (d == UNTRACKED ? n : d + n);
+				if (next < 0) {
+					next = Long.MAX_VALUE;
+				}
+			} while (!DEMAND.compareAndSet(this, d, next));
+			if (d <= 0) {
+				resumeReads();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			demand = UNTRACKED;
+			resumeReads();
+		}
+
+		@Override
+		public void accept(IN in) {
+			long d, next;
+			do {
+				d = demand;
+				if (d == UNTRACKED || d == Long.MAX_VALUE) {
+					break;
+				}
+				next = (d > 0 ? d - 1 : 0);
+				if (DEMAND.compareAndSet(this, d, next)) {
+					if (next == 0) {
+						pauseReads();
+						// a request may have raced with the pause
+						if (demand > 0) {
+							resumeReads();
+						}
+					}
+					break;
+				}
+			} while (true);
+			contentStream.onNext(in);
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicLongFieldUpdater<NetChannelStream.ReadSubscription> DEMAND =
+			AtomicLongFieldUpdater.newUpdater(NetChannelStream.ReadSubscription.class, "demand");
+
+	/**
+	 * Writes what a publisher given to {@link #echoFrom(Publisher)} emits. It starts by requesting {@link #ECHO_WINDOW}
+	 * items and requests one more each time a write completes, so no more than that many items are ever waiting to be
+	 * written. While the connection isn't writable, completed writes are owed rather than requested.
+	 */
+	private final class EchoSubscriber implements Subscriber<OUT> {
+		// one completion callback and one writer for all the items, so that echoing doesn't allocate per item
+		private final WriteConsumer writer = new WriteConsumer(new EchoWritten(this));
+
+		private volatile Subscription subscription;
+
+		volatile int owed    = 0;
+		volatile int waiting = 0;
+
+		@Override
+		public void onSubscribe(Subscription s) {
+			this.subscription = s;
+			s.request(ECHO_WINDOW);
+		}
+
+		@Override
+		public void onNext(OUT out) {
+			ioDispatcher.dispatch(out, writer, null);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			contentStream.onError(t);
+		}
+
+		@Override
+		public void onComplete() {
+			//IGNORE
+		}
+
+		private void written() {
+			if (isWritable()) {
+				subscription.request(1);
+				return;
+			}
+			OWED.incrementAndGet(this);
+			if (WAITING.compareAndSet(this, 0, 1)) {
+				writeWaiters.add(this);
+			}
+			// the connection may have become writable before this was queued
+			if (isWritable()) {
+				notifyWritable();
+			}
+		}
+
+		private void resume() {
+			waiting = 0;
+			int n = OWED.getAndSet(this, 0);
+			if (n > 0) {
+				subscription.request(n);
+			}
+		}
+	}
+
+	/**
+	 * Tells an {@link EchoSubscriber} each time one of its items has been written, or failed to be. It is shared by all
+	 * the items of the subscriber, so it never completes itself and only passes the signals on.
+	 */
+	private final class EchoWritten extends Promise<Void> {
+		private final EchoSubscriber echo;
+
+		private EchoWritten(EchoSubscriber echo) {
+			super(SynchronousDispatcher.INSTANCE, env);
+			this.echo = echo;
+		}
+
+		@Override
+		public void onComplete() {
+			echo.written();
+		}
+
+		@Override
+		public void onError(Throwable cause) {
+			echo.written();
+		}
+	}
+
+	/**
+	 * Writes a region of a file one mapping at a time, mapping and writing the next chunk when the previous write
+	 * completes.
+	 */
+	private final class FileChunks extends Promise<Void> {
+		private final FileChannel   file;
+		private final long          end;
+		private final Promise<Void> onComplete;
+		private       long          pos;
+
+		private FileChunks(FileChannel file, long position, long end, Promise<Void> onComplete) {
+			super(SynchronousDispatcher.INSTANCE, env);
+			this.file = file;
+			this.pos = position;
+			this.end = end;
+			this.onComplete = onComplete;
+		}
+
+		private void writeNext() throws IOException {
+			long len = Math.min(FILE_CHUNK_SIZE, end - pos);
+			// mappings stay valid once the file is closed
+			ByteBuffer chunk = file.map(FileChannel.MapMode.READ_ONLY, pos, len);
+			pos += len;
+			write(chunk, this, true);
+		}
+
+		@Override
+		public void onComplete() {
+			if (pos >= end) {
+				IoUtils.closeQuietly(file);
+				onComplete.onComplete();
+				return;
+			}
+			try {
+				writeNext();
+			} catch (Throwable t) {
+				onError(t);
+			}
+		}
+
+		@Override
+		public void onError(Throwable cause) {
+			IoUtils.closeQuietly(file);
+			onComplete.onError(cause);
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<NetChannelStream.EchoSubscriber> OWED =
+			AtomicIntegerFieldUpdater.newUpdater(NetChannelStream.EchoSubscriber.class, "owed");
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<NetChannelStream.EchoSubscriber> WAITING =
+			AtomicIntegerFieldUpdater.newUpdater(NetChannelStream.EchoSubscriber.class, "waiting");
+
 	private final class WriteConsumer implements BatchConsumer<OUT> {
 		private final Promise<Void> onComplete;
 		private volatile boolean autoflush = true;
@@ -261,6 +548,8 @@ public abstract class NetChannelStream<IN, OUT> extends Stream<IN> implements Ne
 					Buffer bytes = encoder.apply(data);
 					if (bytes.remaining() > 0) {
 						write(bytes, onComplete, autoflush);
+					} else if (null != onComplete) {
+						onComplete.onComplete();
 					}
 				} else {
 					if (Buffer.class.isInstance(data)) {
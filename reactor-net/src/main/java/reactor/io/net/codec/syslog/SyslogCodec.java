@@ -21,12 +21,17 @@ import reactor.fn.Function;
 import reactor.io.buffer.Buffer;
 import reactor.io.codec.Codec;
 
+import java.nio.ByteBuffer;
 import java.util.Calendar;
-import java.util.Date;
+import java.util.TimeZone;
 
 /**
  * A coded for consuming syslog messages. This codec produces no output, i.e.  its encoding
  * function returns {@code null}.
+ * <p>
+ * Messages are one per line, in either the RFC 3164 or the RFC 5424 format. They are parsed from the bytes of the
+ * buffer, and their fields are only turned into {@code String}s when they're asked for. A line that isn't complete is
+ * left in the buffer, to be decoded once the rest of it has arrived.
  *
  * @author Jon Brisbin
  */
@@ -38,6 +43,12 @@ public class SyslogCodec implements Codec<Buffer, SyslogMessage, Void> {
 	private static final int MAXIMUM_PRI      = (MAXIMUM_FACILITY * 8) + MAXIMUM_SEVERITY;
 	private static final int DEFAULT_PRI      = 13;
 
+	private static final int RFC3164_TIMESTAMP_LENGTH = 15;
+
+	private static final long MILLIS_PER_DAY    = 24 * 60 * 60 * 1000L;
+	private static final int  MILLIS_PER_HOUR   = 60 * 60 * 1000;
+	private static final int  MILLIS_PER_MINUTE = 60 * 1000;
+
 	private static final Function<Void, Buffer> ENDCODER = new Function<Void, Buffer>() {
 		@Override
 		public Buffer apply(Void v) {
@@ -56,10 +67,15 @@ public class SyslogCodec implements Codec<Buffer, SyslogMessage, Void> {
 	}
 
 	private class SyslogMessageDecoder implements Function<Buffer, SyslogMessage> {
-		private final Calendar cal  = Calendar.getInstance();
-		private final int      year = cal.get(Calendar.YEAR);
+		// RFC 3164 timestamps have no year and are in local time, so the year is taken from the clock
+		private final TimeZone zone = TimeZone.getDefault();
 		private final Consumer<SyslogMessage> next;
-		private       Buffer.View             remainder;
+		private       int      year;
+		private       long     nextYearMillis = Long.MIN_VALUE;
+
+		// messages come in bursts stamped with the same second, so the last RFC 3164 timestamp is kept
+		private final byte[] lastTimestamp = new byte[RFC3164_TIMESTAMP_LENGTH];
+		private       long   lastTimestampMillis = SyslogMessage.NO_TIMESTAMP;
 
 		private SyslogMessageDecoder(Consumer<SyslogMessage> next) {
 			this.next = next;
@@ -67,188 +83,359 @@ public class SyslogCodec implements Codec<Buffer, SyslogMessage, Void> {
 
 		@Override
 		public SyslogMessage apply(Buffer buffer) {
-			return parse(buffer);
-		}
-
-		private SyslogMessage parse(Buffer buffer) {
-			String line = null;
-			if (null != remainder) {
-				line = remainder.get().asString();
+			ByteBuffer bytes = buffer.byteBuffer();
+			if (null == bytes) {
+				return null;
 			}
 
-			int start = 0;
-			for (Buffer.View view : buffer.split('\n', false)) {
-				Buffer b = view.get();
-				if (b.last() != '\n') {
-					remainder = view;
-					return null;
+			int limit = bytes.limit();
+			for (int i = bytes.position(); i < limit; i++) {
+				if (bytes.get(i) != '\n') {
+					continue;
 				}
-				String s = b.asString();
-				if (null != line) {
-					line += s;
-				} else {
-					line = s;
+
+				int end = i;
+				if (end > bytes.position() && bytes.get(end - 1) == '\r') {
+					end--;
 				}
-				if (line.isEmpty()) {
+				SyslogMessage msg = null;
+				if (end > bytes.position()) {
+					byte[] line = new byte[end - bytes.position()];
+					bytes.get(line);
+					msg = parse(line);
+				}
+				bytes.position(i + 1);
+
+				if (null == msg) {
 					continue;
 				}
+				if (null != next) {
+					next.accept(msg);
+				} else {
+					return msg;
+				}
+			}
+
+			return null;
+		}
 
-				int priority = DEFAULT_PRI;
-				int facility = priority / 8;
-				int severity = priority % 8;
-
-				int priStart = line.indexOf('<', start);
-				int priEnd = line.indexOf('>', start + 1);
-				if (priStart == 0) {
-					int pri = Buffer.parseInt(b, 1, priEnd);
-					if (pri >= MINIMUM_PRI && pri <= MAXIMUM_PRI) {
-						priority = pri;
-						facility = priority / 8;
-						severity = priority % 8;
-					}
-					start = 4;
+		private SyslogMessage parse(byte[] line) {
+			int priority = DEFAULT_PRI;
+			int start = 0;
+
+			if (line[0] == '<') {
+				int pri = 0;
+				int i = 1;
+				while (i < line.length && i <= 4 && isDigit(line[i])) {
+					pri = pri * 10 + (line[i++] - '0');
+				}
+				if (i > 1 && i < line.length && line[i] == '>' && pri >= MINIMUM_PRI && pri <= MAXIMUM_PRI) {
+					priority = pri;
+					start = i + 1;
 				}
+			}
 
-				Date tstamp = parseRfc3414Date(b, start, start + 15);
-				String host = null;
-				if (null != tstamp) {
-					start += 16;
-					int end = line.indexOf(' ', start);
-					host = line.substring(start, end);
-					if (null != host) {
-						start += host.length() + 1;
-					}
+			int version = 0;
+			int i = start;
+			while (i < line.length && i - start < 3 && isDigit(line[i])) {
+				version = version * 10 + (line[i++] - '0');
+			}
+			if (i > start && version > 0 && i < line.length && line[i] == ' ') {
+				// a RFC 3164 message such as "<13>2 failed logins" starts the same way, so look for the timestamp too
+				int tstampStart = i + 1;
+				int tstampEnd = indexOf(line, ' ', tstampStart);
+				long tstamp = parseRfc5424Timestamp(line, tstampStart, tstampEnd);
+				if (SyslogMessage.NO_TIMESTAMP != tstamp || (tstampEnd - tstampStart == 1 && line[tstampStart] == '-')) {
+					return parseRfc5424(line, priority, version, tstamp, tstampEnd);
 				}
+			}
+			return parseRfc3164(line, priority, start);
+		}
 
-				String msg = line.substring(start);
+		/*
+		 * [TIMESTAMP SP HOSTNAME SP] MSG, with a timestamp such as "Oct 11 22:14:15"
+		 */
+		private SyslogMessage parseRfc3164(byte[] line, int priority, int start) {
+			long tstamp = parseRfc3164Timestamp(line, start);
+			SyslogMessage msg = new SyslogMessage(line, priority, 0, tstamp);
+			if (SyslogMessage.NO_TIMESTAMP == tstamp) {
+				msg.messageStart = start;
+				return msg;
+			}
 
-				SyslogMessage syslogMsg = new SyslogMessage(line,
-																										priority,
-																										facility,
-																										severity,
-																										tstamp,
-																										host,
-																										msg);
-				if (null != next) {
-					next.accept(syslogMsg);
-				} else {
-					return syslogMsg;
-				}
+			int i = start + RFC3164_TIMESTAMP_LENGTH + 1;
+			int hostEnd = indexOf(line, ' ', i);
+			msg.hostStart = i;
+			msg.hostEnd = hostEnd;
+			msg.messageStart = (hostEnd < line.length ? hostEnd + 1 : hostEnd);
+			return msg;
+		}
 
-				line = null;
-				start = 0;
+		/*
+		 * VERSION SP TIMESTAMP SP HOSTNAME SP APP-NAME SP PROCID SP MSGID SP STRUCTURED-DATA [SP MSG], where every
+		 * field but the message may be a "-" standing for no value.
+		 */
+		private SyslogMessage parseRfc5424(byte[] line, int priority, int version, long tstamp, int tstampEnd) {
+			SyslogMessage msg = new SyslogMessage(line, priority, version, tstamp);
+
+			int i = next(line, tstampEnd);
+			int end = indexOf(line, ' ', i);
+			if (!isNil(line, i, end)) {
+				msg.hostStart = i;
+				msg.hostEnd = end;
 			}
 
-			return null;
+			i = next(line, end);
+			end = indexOf(line, ' ', i);
+			if (!isNil(line, i, end)) {
+				msg.appNameStart = i;
+				msg.appNameEnd = end;
+			}
+
+			i = next(line, end);
+			end = indexOf(line, ' ', i);
+			if (!isNil(line, i, end)) {
+				msg.procIdStart = i;
+				msg.procIdEnd = end;
+			}
+
+			i = next(line, end);
+			end = indexOf(line, ' ', i);
+			if (!isNil(line, i, end)) {
+				msg.msgIdStart = i;
+				msg.msgIdEnd = end;
+			}
+
+			i = next(line, end);
+			end = endOfStructuredData(line, i);
+			if (end > i && !isNil(line, i, end)) {
+				msg.structuredDataStart = i;
+				msg.structuredDataEnd = end;
+			}
+
+			i = next(line, end);
+			// a UTF-8 message may start with a byte order mark
+			if (i + 2 < line.length && line[i] == (byte) 0xEF && line[i + 1] == (byte) 0xBB && line[i + 2] == (byte) 0xBF) {
+				i += 3;
+			}
+			msg.messageStart = i;
+			return msg;
 		}
 
-		private Date parseRfc3414Date(Buffer b, int start, int end) {
-			b.snapshot();
-
-			b.byteBuffer().limit(end);
-			b.byteBuffer().position(start);
-
-			int month = -1;
-			int day = -1;
-			int hr = -1;
-			int min = -1;
-			int sec = -1;
-
-			switch (b.read()) {
-				case 'A': // Apr, Aug
-					switch (b.read()) {
-						case 'p':
-							month = Calendar.APRIL;
-							b.read();
-							break;
-						default:
-							month = Calendar.AUGUST;
-							b.read();
-					}
-					break;
-				case 'D': // Dec
-					month = Calendar.DECEMBER;
-					b.read();
-					b.read();
-					break;
-				case 'F': // Feb
-					month = Calendar.FEBRUARY;
-					b.read();
-					b.read();
-					break;
-				case 'J': // Jan, Jun, Jul
-					switch (b.read()) {
-						case 'a':
-							month = Calendar.JANUARY;
-							b.read();
-							break;
-						default:
-							switch (b.read()) {
-								case 'n':
-									month = Calendar.JUNE;
-									break;
-								default:
-									month = Calendar.JULY;
-							}
-					}
-					break;
-				case 'M': // Mar, May
-					b.read();
-					switch (b.read()) {
-						case 'r':
-							month = Calendar.MARCH;
-							break;
-						default:
-							month = Calendar.MAY;
-					}
-					break;
-				case 'N': // Nov
-					month = Calendar.NOVEMBER;
-					b.read();
-					b.read();
-					break;
-				case 'O': // Oct
-					month = Calendar.OCTOBER;
-					b.read();
-					b.read();
-					break;
-				case 'S': // Sep
-					month = Calendar.SEPTEMBER;
-					b.read();
-					b.read();
-					break;
-				default:
-					return null;
-			}
-
-			while (b.read() == ' ') {
-			}
-
-			int dayStart = b.position() - 1;
-			while (b.read() != ' ') {
-			}
-			int dayEnd = b.position() - 1;
-			day = Buffer.parseInt(b, dayStart, dayEnd);
-
-			while (b.read() == ' ') {
-			}
-
-			int timeStart = b.position() - 1;
-			hr = Buffer.parseInt(b, timeStart, timeStart + 2);
-			min = Buffer.parseInt(b, timeStart + 3, timeStart + 5);
-			sec = Buffer.parseInt(b, timeStart + 6, timeStart + 8);
-
-			try {
-				if (month < 0 || day < 0 || hr < 0 || min < 0 || sec < 0) {
-					return null;
-				} else {
-					cal.set(year, month, day, hr, min, sec);
-					return cal.getTime();
+		private long parseRfc3164Timestamp(byte[] line, int start) {
+			int end = start + RFC3164_TIMESTAMP_LENGTH;
+			if (end >= line.length || line[end] != ' ') {
+				return SyslogMessage.NO_TIMESTAMP;
+			}
+			long now = System.currentTimeMillis();
+			if (now >= nextYearMillis) {
+				startYear(now);
+			}
+			if (SyslogMessage.NO_TIMESTAMP != lastTimestampMillis && regionEquals(line, start, lastTimestamp)) {
+				return lastTimestampMillis;
+			}
+
+			int month = parseMonth(line, start);
+			// single-digit days are padded with a space
+			int day = (line[start + 4] != ' ' ? parseTwoDigits(line, start + 4)
+					: isDigit(line[start + 5]) ? digit(line[start + 5]) : -1);
+			int hr = parseTwoDigits(line, start + 7);
+			int min = parseTwoDigits(line, start + 10);
+			int sec = parseTwoDigits(line, start + 13);
+			if (month < 1 || line[start + 3] != ' ' || line[start + 6] != ' '
+					|| line[start + 9] != ':' || line[start + 12] != ':'
+					|| day < 1 || day > 31 || hr < 0 || hr > 23 || min < 0 || min > 59 || sec < 0 || sec > 60) {
+				return SyslogMessage.NO_TIMESTAMP;
+			}
+
+			long millis = localMillis(year, month, day, hr, min, sec);
+			if (millis - now > MILLIS_PER_DAY) {
+				// a timestamp well ahead of the clock was stamped in the year before, such as one from December 31st
+				// that is only read in January. It may be this year's once the clock catches up, so it isn't cached.
+				return localMillis(year - 1, month, day, hr, min, sec);
+			}
+
+			System.arraycopy(line, start, lastTimestamp, 0, RFC3164_TIMESTAMP_LENGTH);
+			lastTimestampMillis = millis;
+			return millis;
+		}
+
+		private long localMillis(int year, int month, int day, int hr, int min, int sec) {
+			long local = daysSinceEpoch(year, month, day) * MILLIS_PER_DAY
+					+ hr * MILLIS_PER_HOUR + min * MILLIS_PER_MINUTE + sec * 1000L;
+			return local - zone.getOffset(local - zone.getOffset(local));
+		}
+
+		/*
+		 * Take the year from the clock, and forget the cached timestamp, which was for the year before.
+		 */
+		private void startYear(long now) {
+			Calendar cal = Calendar.getInstance(zone);
+			cal.setTimeInMillis(now);
+			year = cal.get(Calendar.YEAR);
+			cal.clear();
+			cal.set(year + 1, Calendar.JANUARY, 1);
+			nextYearMillis = cal.getTimeInMillis();
+			lastTimestampMillis = SyslogMessage.NO_TIMESTAMP;
+		}
+	}
+
+	/*
+	 * A timestamp such as "2003-10-11T22:14:15.003Z" or "2003-08-24T05:14:15.000003-07:00"
+	 */
+	private static long parseRfc5424Timestamp(byte[] line, int start, int end) {
+		if (end - start < 20 || line[start + 4] != '-' || line[start + 7] != '-' || line[start + 10] != 'T'
+				|| line[start + 13] != ':' || line[start + 16] != ':') {
+			return SyslogMessage.NO_TIMESTAMP;
+		}
+		int year = parseTwoDigits(line, start) * 100 + parseTwoDigits(line, start + 2);
+		int month = parseTwoDigits(line, start + 5);
+		int day = parseTwoDigits(line, start + 8);
+		int hr = parseTwoDigits(line, start + 11);
+		int min = parseTwoDigits(line, start + 14);
+		int sec = parseTwoDigits(line, start + 17);
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+				|| hr < 0 || hr > 23 || min < 0 || min > 59 || sec < 0 || sec > 60) {
+			return SyslogMessage.NO_TIMESTAMP;
+		}
+
+		int i = start + 19;
+		int millis = 0;
+		if (line[i] == '.') {
+			int scale = 100;
+			while (++i < end && isDigit(line[i])) {
+				millis += digit(line[i]) * scale;
+				scale /= 10;
+			}
+		}
+		if (i >= end) {
+			return SyslogMessage.NO_TIMESTAMP;
+		}
+
+		int offset;
+		if (line[i] == 'Z' && i + 1 == end) {
+			offset = 0;
+		} else if ((line[i] == '+' || line[i] == '-') && i + 6 == end && line[i + 3] == ':') {
+			int offsetHr = parseTwoDigits(line, i + 1);
+			int offsetMin = parseTwoDigits(line, i + 4);
+			if (offsetHr < 0 || offsetMin < 0) {
+				return SyslogMessage.NO_TIMESTAMP;
+			}
+			offset = (offsetHr * MILLIS_PER_HOUR + offsetMin * MILLIS_PER_MINUTE) * (line[i] == '-' ? -1 : 1);
+		} else {
+			return SyslogMessage.NO_TIMESTAMP;
+		}
+
+		return daysSinceEpoch(year, month, day) * MILLIS_PER_DAY
+				+ hr * MILLIS_PER_HOUR + min * MILLIS_PER_MINUTE + sec * 1000L + millis - offset;
+	}
+
+	/*
+	 * The month of a three-letter name, from 1 to 12, or -1.
+	 */
+	private static int parseMonth(byte[] line, int i) {
+		byte b1 = line[i + 1];
+		byte b2 = line[i + 2];
+		switch (line[i]) {
+			case 'J':
+				return (b1 == 'a' && b2 == 'n' ? 1 : b1 == 'u' && b2 == 'n' ? 6 : b1 == 'u' && b2 == 'l' ? 7 : -1);
+			case 'F':
+				return (b1 == 'e' && b2 == 'b' ? 2 : -1);
+			case 'M':
+				return (b1 == 'a' && b2 == 'r' ? 3 : b1 == 'a' && b2 == 'y' ? 5 : -1);
+			case 'A':
+				return (b1 == 'p' && b2 == 'r' ? 4 : b1 == 'u' && b2 == 'g' ? 8 : -1);
+			case 'S':
+				return (b1 == 'e' && b2 == 'p' ? 9 : -1);
+			case 'O':
+				return (b1 == 'c' && b2 == 't' ? 10 : -1);
+			case 'N':
+				return (b1 == 'o' && b2 == 'v' ? 11 : -1);
+			case 'D':
+				return (b1 == 'e' && b2 == 'c' ? 12 : -1);
+			default:
+				return -1;
+		}
+	}
+
+	/*
+	 * Days from 1970-01-01 to the given date of the proleptic Gregorian calendar, after Howard Hinnant's
+	 * days_from_civil.
+	 */
+	private static long daysSinceEpoch(int year, int month, int day) {
+		int y = (month <= 2 ? year - 1 : year);
+		int era = (y >= 0 ? y : y - 399) / 400;
+		int yearOfEra = y - era * 400;
+		int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
+	/*
+	 * The end of the structured data starting at the given index: a "-", or "[...]" elements whose quoted values may
+	 * hold escaped characters.
+	 */
+	private static int endOfStructuredData(byte[] line, int i) {
+		if (i >= line.length || line[i] != '[') {
+			return indexOf(line, ' ', i);
+		}
+		boolean quoted = false;
+		while (i < line.length) {
+			byte b = line[i++];
+			if (quoted) {
+				if (b == '\\') {
+					i++;
+				} else if (b == '"') {
+					quoted = false;
 				}
-			} finally {
-				b.reset();
+			} else if (b == '"') {
+				quoted = true;
+			} else if (b == ']' && (i >= line.length || line[i] != '[')) {
+				return i;
+			}
+		}
+		return line.length;
+	}
+
+	private static int parseTwoDigits(byte[] line, int i) {
+		if (!isDigit(line[i]) || !isDigit(line[i + 1])) {
+			return -1;
+		}
+		return digit(line[i]) * 10 + digit(line[i + 1]);
+	}
+
+	private static boolean regionEquals(byte[] line, int start, byte[] region) {
+		for (int i = 0; i < region.length; i++) {
+			if (line[start + i] != region[i]) {
+				return false;
 			}
 		}
+		return true;
+	}
+
+	private static int indexOf(byte[] line, char c, int start) {
+		for (int i = start; i < line.length; i++) {
+			if (line[i] == c) {
+				return i;
+			}
+		}
+		return line.length;
+	}
+
+	private static int next(byte[] line, int end) {
+		return (end < line.length ? end + 1 : end);
+	}
+
+	private static boolean isNil(byte[] line, int start, int end) {
+		return start >= end || (end - start == 1 && line[start] == '-');
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	private static int digit(byte b) {
+		return b - '0';
 	}
 
 }
@@ -16,22 +16,49 @@
 
 package reactor.io.net.codec.syslog;
 
+import java.nio.charset.Charset;
 import java.util.Date;
 
 /**
- * An object representation of a syslog message
+ * An object representation of a syslog message. A message decoded by {@link SyslogCodec} keeps the bytes of its line
+ * and only turns a field into a {@code String} or a {@code Date} the first time it's asked for.
  *
  * @author Jon Brisbin
  */
 public class SyslogMessage {
 
-	private final String raw;
+	static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final byte[] line;
 	private final int    priority;
 	private final int    facility;
 	private final int    severity;
-	private final Date   timestamp;
-	private final String host;
-	private final String message;
+	private final int    version;
+	private final long   timestampMillis;
+
+	// bounds of the fields within the line, a negative start meaning the field is absent
+	int hostStart           = -1;
+	int hostEnd             = -1;
+	int appNameStart        = -1;
+	int appNameEnd          = -1;
+	int procIdStart         = -1;
+	int procIdEnd           = -1;
+	int msgIdStart          = -1;
+	int msgIdEnd            = -1;
+	int structuredDataStart = -1;
+	int structuredDataEnd   = -1;
+	int messageStart        = -1;
+
+	private String raw;
+	private Date   timestamp;
+	private String host;
+	private String appName;
+	private String procId;
+	private String msgId;
+	private String structuredData;
+	private String message;
 
 	/**
 	 * Creates a new syslog message.
@@ -51,15 +78,30 @@ public class SyslogMessage {
 											 Date timestamp,
 											 String host,
 											 String message) {
+		this.line = null;
 		this.raw = raw;
 		this.priority = priority;
 		this.facility = facility;
 		this.severity = severity;
+		this.version = 0;
 		this.timestamp = timestamp;
+		this.timestampMillis = (null != timestamp ? timestamp.getTime() : NO_TIMESTAMP);
 		this.host = host;
 		this.message = message;
 	}
 
+	/**
+	 * Creates a message over the bytes of a line, whose fields are filled in by the codec.
+	 */
+	SyslogMessage(byte[] line, int priority, int version, long timestampMillis) {
+		this.line = line;
+		this.priority = priority;
+		this.facility = priority / 8;
+		this.severity = priority % 8;
+		this.version = version;
+		this.timestampMillis = timestampMillis;
+	}
+
 	/**
 	 * Returns the priority assigned to the message
 	 *
@@ -87,12 +129,24 @@ public class SyslogMessage {
 		return severity;
 	}
 
+	/**
+	 * Returns the version of the RFC 5424 format the message uses, or {@code 0} for a RFC 3164 message
+	 *
+	 * @return The message's version
+	 */
+	public int getVersion() {
+		return version;
+	}
+
 	/**
 	 * Returns the timestamp for the message
 	 *
-	 * @return The message's timestamp
+	 * @return The message's timestamp, or {@code null} if it has none
 	 */
 	public Date getTimestamp() {
+		if (null == timestamp && NO_TIMESTAMP != timestampMillis) {
+			timestamp = new Date(timestampMillis);
+		}
 		return timestamp;
 	}
 
@@ -102,21 +156,85 @@ public class SyslogMessage {
 	 * @return The message's host
 	 */
 	public String getHost() {
+		if (null == host) {
+			host = field(hostStart, hostEnd);
+		}
 		return host;
 	}
 
+	/**
+	 * Returns the application that sent a RFC 5424 message
+	 *
+	 * @return The message's application name, or {@code null} if it has none
+	 */
+	public String getAppName() {
+		if (null == appName) {
+			appName = field(appNameStart, appNameEnd);
+		}
+		return appName;
+	}
+
+	/**
+	 * Returns the id of the process that sent a RFC 5424 message
+	 *
+	 * @return The message's process id, or {@code null} if it has none
+	 */
+	public String getProcId() {
+		if (null == procId) {
+			procId = field(procIdStart, procIdEnd);
+		}
+		return procId;
+	}
+
+	/**
+	 * Returns the type of a RFC 5424 message
+	 *
+	 * @return The message's id, or {@code null} if it has none
+	 */
+	public String getMsgId() {
+		if (null == msgId) {
+			msgId = field(msgIdStart, msgIdEnd);
+		}
+		return msgId;
+	}
+
+	/**
+	 * Returns the structured data elements of a RFC 5424 message, as they were sent
+	 *
+	 * @return The message's structured data, or {@code null} if it has none
+	 */
+	public String getStructuredData() {
+		if (null == structuredData) {
+			structuredData = field(structuredDataStart, structuredDataEnd);
+		}
+		return structuredData;
+	}
+
 	/**
 	 * Returns the actual message
 	 *
 	 * @return The text-based message
 	 */
 	public String getMessage() {
+		if (null == message) {
+			message = field(messageStart, (null != line ? line.length : -1));
+		}
 		return message;
 	}
 
 	@Override
 	public String toString() {
+		if (null == raw && null != line) {
+			raw = new String(line, UTF8);
+		}
 		return raw;
 	}
 
+	private String field(int start, int end) {
+		if (null == line || start < 0) {
+			return null;
+		}
+		return new String(line, start, end - start, UTF8);
+	}
+
 }
@@ -16,6 +16,7 @@
 
 package reactor.io.net.config;
 
+import reactor.core.support.Assert;
 import reactor.io.buffer.Buffer;
 
 /**
@@ -28,12 +29,15 @@ import reactor.io.buffer.Buffer;
 @SuppressWarnings("unchecked")
 public abstract class CommonSocketOptions<SO extends CommonSocketOptions<? super SO>> {
 
-	private int     timeout    = 30000;
-	private boolean keepAlive  = true;
-	private int     linger     = 30000;
-	private boolean tcpNoDelay = true;
-	private int     rcvbuf     = Buffer.SMALL_BUFFER_SIZE;
-	private int     sndbuf     = Buffer.SMALL_BUFFER_SIZE;
+	private int     timeout                  = 30000;
+	private boolean keepAlive                = true;
+	private int     linger                   = 30000;
+	private boolean tcpNoDelay               = true;
+	private int     rcvbuf                   = Buffer.SMALL_BUFFER_SIZE;
+	private int     sndbuf                   = Buffer.SMALL_BUFFER_SIZE;
+	private boolean epoll                    = false;
+	private int     writeBufferHighWaterMark = 64 * 1024;
+	private int     writeBufferLowWaterMark  = 32 * 1024;
 
 	/**
 	 * Gets the {@code SO_TIMEOUT} value
@@ -162,4 +166,74 @@ public abstract class CommonSocketOptions<SO extends CommonSocketOptions<? super
 		return (SO) this;
 	}
 
+	/**
+	 * Returns a boolean indicating whether or not the native epoll transport should be used where it's available
+	 *
+	 * @return {@code true} if epoll should be used, {@code false} if the default transport should be used
+	 */
+	public boolean epoll() {
+		return epoll;
+	}
+
+	/**
+	 * Enables or disables the native epoll transport. It's only used on Linux when the native library can be loaded,
+	 * otherwise the default NIO transport is used. Can also be enabled for every server or client using the {@code
+	 * reactor.tcp.epoll} and {@code reactor.udp.epoll} environment properties.
+	 *
+	 * @param epoll {@code true} to use epoll where it's available, {@code false} to always use the default transport
+	 *
+	 * @return {@code this}
+	 */
+	public SO epoll(boolean epoll) {
+		this.epoll = epoll;
+		return (SO) this;
+	}
+
+	/**
+	 * Gets the number of bytes that may be waiting to be written before the connection stops being writable
+	 *
+	 * @return The configured high water mark
+	 */
+	public int writeBufferHighWaterMark() {
+		return writeBufferHighWaterMark;
+	}
+
+	/**
+	 * Sets the number of bytes that may be waiting to be written before the connection stops being writable. Publishers
+	 * writing to the connection are then held back until it drains below the low water mark.
+	 *
+	 * @param writeBufferHighWaterMark The high water mark, in bytes
+	 *
+	 * @return {@code this}
+	 */
+	public SO writeBufferHighWaterMark(int writeBufferHighWaterMark) {
+		Assert.isTrue(writeBufferHighWaterMark >= writeBufferLowWaterMark,
+				"The high water mark cannot be lower than the low water mark.");
+		this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+		return (SO) this;
+	}
+
+	/**
+	 * Gets the number of bytes below which a connection that stopped being writable becomes writable again
+	 *
+	 * @return The configured low water mark
+	 */
+	public int writeBufferLowWaterMark() {
+		return writeBufferLowWaterMark;
+	}
+
+	/**
+	 * Sets the number of bytes below which a connection that stopped being writable becomes writable again
+	 *
+	 * @param writeBufferLowWaterMark The low water mark, in bytes
+	 *
+	 * @return {@code this}
+	 */
+	public SO writeBufferLowWaterMark(int writeBufferLowWaterMark) {
+		Assert.isTrue(writeBufferLowWaterMark <= writeBufferHighWaterMark,
+				"The low water mark cannot be higher than the high water mark.");
+		this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+		return (SO) this;
+	}
+
 }
@@ -25,6 +25,7 @@ public class ServerSocketOptions extends CommonSocketOptions<ServerSocketOptions
 
 	private int     backlog   = 1000;
 	private boolean reuseAddr = true;
+	private boolean reusePort = false;
 
 	/**
 	 * Returns the configured pending connection backlog for the socket.
@@ -67,4 +68,26 @@ public class ServerSocketOptions extends CommonSocketOptions<ServerSocketOptions
 		this.reuseAddr = reuseAddr;
 		return this;
 	}
+
+	/**
+	 * Returns a boolean indicating whether or not {@code SO_REUSEPORT} is enabled
+	 *
+	 * @return {@code true} if {@code SO_REUSEPORT} is enabled, {@code false} if it is not
+	 */
+	public boolean reusePort() {
+		return reusePort;
+	}
+
+	/**
+	 * Enables or disables {@code SO_REUSEPORT}, which lets several servers listen on the same port and have the kernel
+	 * spread connections between them. Only honoured when the {@link #epoll(boolean) epoll} transport is in use.
+	 *
+	 * @param reusePort {@code true} to enable {@code SO_REUSEPORT}, {@code false} to disable it
+	 *
+	 * @return {@code this}
+	 */
+	public ServerSocketOptions reusePort(boolean reusePort) {
+		this.reusePort = reusePort;
+		return this;
+	}
 }
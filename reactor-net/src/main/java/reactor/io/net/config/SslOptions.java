@@ -37,6 +37,11 @@ public class SslOptions {
 	private String                   trustManagerPasswd;
 	private String trustManagerFactoryAlgorithm = "SunX509";
 	private String sslProtocol                  = "TLS";
+	private int     sessionCacheSize;
+	private int     sessionTimeout;
+	private boolean openSsl;
+	private File    certChainFile;
+	private File    keyFile;
 
 	public String keystoreFile() {
 		return (null != keystoreFile ? keystoreFile.getPath() : null);
@@ -114,4 +119,80 @@ public class SslOptions {
 		return this;
 	}
 
+	public int sessionCacheSize() {
+		return sessionCacheSize;
+	}
+
+	/**
+	 * Set the maximum number of TLS sessions cached for resumption. Resumed sessions skip the expensive part of the
+	 * handshake.
+	 *
+	 * @param sessionCacheSize
+	 * 		the session cache size, or {@literal 0} for the provider's default
+	 *
+	 * @return {@literal this}
+	 */
+	public SslOptions sessionCacheSize(int sessionCacheSize) {
+		Assert.isTrue(sessionCacheSize >= 0, "Session cache size cannot be negative");
+		this.sessionCacheSize = sessionCacheSize;
+		return this;
+	}
+
+	public int sessionTimeout() {
+		return sessionTimeout;
+	}
+
+	/**
+	 * Set how long, in seconds, a cached TLS session can be resumed.
+	 *
+	 * @param sessionTimeout
+	 * 		the session timeout, or {@literal 0} for the provider's default
+	 *
+	 * @return {@literal this}
+	 */
+	public SslOptions sessionTimeout(int sessionTimeout) {
+		Assert.isTrue(sessionTimeout >= 0, "Session timeout cannot be negative");
+		this.sessionTimeout = sessionTimeout;
+		return this;
+	}
+
+	public boolean openSsl() {
+		return openSsl;
+	}
+
+	/**
+	 * Set whether servers should use an OpenSSL-backed engine when OpenSSL is available. OpenSSL reads its key
+	 * material from the PEM files set with {@link #certChainFile(String)} and {@link #keyFile(String)}; without them,
+	 * or when OpenSSL can't be loaded, the JDK engine is used.
+	 *
+	 * @param openSsl
+	 * 		{@literal true} to prefer OpenSSL
+	 *
+	 * @return {@literal this}
+	 */
+	public SslOptions openSsl(boolean openSsl) {
+		this.openSsl = openSsl;
+		return this;
+	}
+
+	public String certChainFile() {
+		return (null != certChainFile ? certChainFile.getPath() : null);
+	}
+
+	public SslOptions certChainFile(String certChainFile) {
+		this.certChainFile = new File(certChainFile);
+		Assert.isTrue(this.certChainFile.exists(), "No certificate chain file found at path " + this.certChainFile.getAbsolutePath());
+		return this;
+	}
+
+	public String keyFile() {
+		return (null != keyFile ? keyFile.getPath() : null);
+	}
+
+	public SslOptions keyFile(String keyFile) {
+		this.keyFile = new File(keyFile);
+		Assert.isTrue(this.keyFile.exists(), "No key file found at path " + this.keyFile.getAbsolutePath());
+		return this;
+	}
+
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.http;
+
+import reactor.io.net.NetChannel;
+
+import java.util.Map;
+
+/**
+ * A single HTTP request/response exchange. {@link #in()} streams the decoded request body and completes once the
+ * whole body has been read. Data sent through this channel becomes the response body, preceded by the response status
+ * and headers the first time anything is written. The body is sent with chunked transfer encoding unless a {@code
+ * Content-Length} header has been set. {@link #close()} ends the response; the connection itself stays open if the
+ * request asked to keep it alive.
+ *
+ * @param <IN>  The type of the decoded request body
+ * @param <OUT> The type of the response body
+ * @author Jon Brisbin
+ */
+public interface HttpChannel<IN, OUT> extends NetChannel<IN, OUT> {
+
+	/**
+	 * Get the request method, such as {@code GET} or {@code POST}.
+	 *
+	 * @return the request method
+	 */
+	String method();
+
+	/**
+	 * Get the request URI as it was sent, including any query string.
+	 *
+	 * @return the request URI
+	 */
+	String uri();
+
+	/**
+	 * Get the decoded path of the request URI, without the query string.
+	 *
+	 * @return the request path
+	 */
+	String path();
+
+	/**
+	 * Get the first value of a request header.
+	 *
+	 * @param name
+	 * 		the name of the header
+	 *
+	 * @return the value of the header or {@literal null} if the request doesn't have it
+	 */
+	String header(String name);
+
+	/**
+	 * Get the path variables extracted by the route that selected this exchange.
+	 *
+	 * @return the path variables, keyed by the names in the route's template. Never {@literal null}.
+	 */
+	Map<String, Object> params();
+
+	/**
+	 * Whether the connection will be kept open for further requests once this response is complete.
+	 *
+	 * @return {@literal true} if the connection is persistent
+	 */
+	boolean isKeepAlive();
+
+	/**
+	 * Set the response status. Has no effect once the response headers have been sent.
+	 *
+	 * @param status
+	 * 		the status code
+	 *
+	 * @return {@literal this}
+	 */
+	HttpChannel<IN, OUT> responseStatus(int status);
+
+	/**
+	 * Set a response header. Has no effect once the response headers have been sent.
+	 *
+	 * @param name
+	 * 		the name of the header
+	 * @param value
+	 * 		the value of the header
+	 *
+	 * @return {@literal this}
+	 */
+	HttpChannel<IN, OUT> responseHeader(String name, String value);
+
+	/**
+	 * Whether the response status and headers have been sent.
+	 *
+	 * @return {@literal true} if the response headers can no longer be changed
+	 */
+	boolean isResponseCommitted();
+
+}
@@ -18,7 +18,11 @@ package reactor.io.net.http;
 
 import reactor.Environment;
 import reactor.core.Dispatcher;
+import reactor.bus.selector.UriPathTemplate;
 import reactor.core.support.Assert;
+import reactor.fn.Consumer;
+import reactor.fn.tuple.Tuple;
+import reactor.fn.tuple.Tuple2;
 import reactor.io.buffer.Buffer;
 import reactor.io.codec.Codec;
 import reactor.io.net.NetChannelStream;
@@ -31,9 +35,18 @@ import reactor.rx.Promise;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Base functionality needed by all servers that communicate with clients over TCP.
+ * Base functionality needed by all servers that communicate with clients over HTTP.
+ * <p>
+ * Each request is handled as an {@link HttpChannel}. Requests are first offered to the routes registered with {@link
+ * #route(String, String, Consumer)} in registration order, and the first route whose method and path template match
+ * handles the request. Routes are compiled once, when they are registered. A request that no route matches is
+ * published to this server's subscribers if no routes have been registered, and answered with a {@code 404}
+ * otherwise.
  *
  * @param <IN>  The type that will be received by this server
  * @param <OUT> The type that will be sent by this server
@@ -48,6 +61,8 @@ public abstract class HttpServer<IN, OUT>
 	private final ServerSocketOptions options;
 	private final SslOptions          sslOptions;
 
+	private final List<Route<IN, OUT>> routes = new CopyOnWriteArrayList<Route<IN, OUT>>();
+
 	protected HttpServer(@Nonnull Environment env,
 	                     @Nonnull Dispatcher dispatcher,
 	                     @Nullable InetSocketAddress listenAddress,
@@ -68,6 +83,118 @@ public abstract class HttpServer<IN, OUT>
 	 */
 	public abstract Promise<Void> start();
 
+	/**
+	 * Handle requests whose method and path match with the given handler.
+	 *
+	 * @param method
+	 * 		the request method to match, or {@literal null} to match any method
+	 * @param pathTemplate
+	 * 		the {@link UriPathTemplate} requests paths must match, such as {@code /users/{id}}
+	 * @param handler
+	 * 		the handler of matching requests
+	 *
+	 * @return {@literal this}
+	 */
+	public HttpServer<IN, OUT> route(@Nullable String method,
+	                                 @Nonnull String pathTemplate,
+	                                 @Nonnull Consumer<? super HttpChannel<IN, OUT>> handler) {
+		Assert.notNull(pathTemplate, "Path template cannot be null");
+		Assert.notNull(handler, "Route handler cannot be null");
+		routes.add(new Route<IN, OUT>(method, new UriPathTemplate(pathTemplate), handler));
+		return this;
+	}
+
+	/**
+	 * Handle {@code GET} requests whose path matches with the given handler.
+	 *
+	 * @param pathTemplate
+	 * 		the {@link UriPathTemplate} requests paths must match
+	 * @param handler
+	 * 		the handler of matching requests
+	 *
+	 * @return {@literal this}
+	 */
+	public HttpServer<IN, OUT> get(@Nonnull String pathTemplate, @Nonnull Consumer<? super HttpChannel<IN, OUT>> handler) {
+		return route("GET", pathTemplate, handler);
+	}
+
+	/**
+	 * Handle {@code POST} requests whose path matches with the given handler.
+	 *
+	 * @param pathTemplate
+	 * 		the {@link UriPathTemplate} requests paths must match
+	 * @param handler
+	 * 		the handler of matching requests
+	 *
+	 * @return {@literal this}
+	 */
+	public HttpServer<IN, OUT> post(@Nonnull String pathTemplate, @Nonnull Consumer<? super HttpChannel<IN, OUT>> handler) {
+		return route("POST", pathTemplate, handler);
+	}
+
+	/**
+	 * Handle {@code PUT} requests whose path matches with the given handler.
+	 *
+	 * @param pathTemplate
+	 * 		the {@link UriPathTemplate} requests paths must match
+	 * @param handler
+	 * 		the handler of matching requests
+	 *
+	 * @return {@literal this}
+	 */
+	public HttpServer<IN, OUT> put(@Nonnull String pathTemplate, @Nonnull Consumer<? super HttpChannel<IN, OUT>> handler) {
+		return route("PUT", pathTemplate, handler);
+	}
+
+	/**
+	 * Handle {@code DELETE} requests whose path matches with the given handler.
+	 *
+	 * @param pathTemplate
+	 * 		the {@link UriPathTemplate} requests paths must match
+	 * @param handler
+	 * 		the handler of matching requests
+	 *
+	 * @return {@literal this}
+	 */
+	public HttpServer<IN, OUT> delete(@Nonnull String pathTemplate,
+	                                  @Nonnull Consumer<? super HttpChannel<IN, OUT>> handler) {
+		return route("DELETE", pathTemplate, handler);
+	}
+
+	/**
+	 * Whether any route has been registered.
+	 *
+	 * @return {@literal true} if requests are routed
+	 */
+	protected boolean hasRoutes() {
+		return !routes.isEmpty();
+	}
+
+	/**
+	 * Find the first route that matches a request. Each route's template is matched against the path once, which
+	 * also extracts its path variables.
+	 *
+	 * @param method
+	 * 		the request method
+	 * @param path
+	 * 		the decoded request path
+	 *
+	 * @return the matching route and the path variables it extracted, or {@literal null} if none matches
+	 */
+	@Nullable
+	protected Tuple2<Route<IN, OUT>, Map<String, Object>> selectRoute(String method, String path) {
+		for (Route<IN, OUT> route : routes) {
+			if (null != route.method && !route.method.equalsIgnoreCase(method)) {
+				continue;
+			}
+			Map<String, Object> params = route.template.capture(path);
+			if (null != params) {
+				return Tuple.of(route, params);
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Get the address to which this server is bound.
 	 *
@@ -95,4 +222,32 @@ public abstract class HttpServer<IN, OUT>
 		return sslOptions;
 	}
 
+	/**
+	 * A request handler bound to a method and a precompiled path template.
+	 *
+	 * @param <IN>  The type of the decoded request body
+	 * @param <OUT> The type of the response body
+	 */
+	protected static final class Route<IN, OUT> {
+		private final String                                 method;
+		private final UriPathTemplate                        template;
+		private final Consumer<? super HttpChannel<IN, OUT>> handler;
+
+		private Route(String method, UriPathTemplate template, Consumer<? super HttpChannel<IN, OUT>> handler) {
+			this.method = method;
+			this.template = template;
+			this.handler = handler;
+		}
+
+		/**
+		 * Hand a request to this route's handler.
+		 *
+		 * @param channel
+		 * 		the request to handle
+		 */
+		public void handle(HttpChannel<IN, OUT> channel) {
+			handler.accept(channel);
+		}
+	}
+
 }
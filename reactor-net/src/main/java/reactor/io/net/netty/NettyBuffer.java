@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.netty;
+
+import io.netty.buffer.ByteBuf;
+import reactor.io.buffer.Buffer;
+
+/**
+ * A {@link Buffer} over the readable bytes of a Netty {@link ByteBuf}, which are read in place instead of being copied.
+ * The {@code ByteBuf} is retained until this buffer is {@link #recycle() recycled}, which must happen once the bytes
+ * have been decoded.
+ *
+ * @author Jon Brisbin
+ */
+public class NettyBuffer extends Buffer {
+
+	private final ByteBuf byteBuf;
+	private final int     start;
+
+	private boolean released;
+
+	/**
+	 * Create a {@code NettyBuffer} over the readable bytes of the given {@link ByteBuf}, and retain it.
+	 *
+	 * @param byteBuf the Netty buffer to read
+	 */
+	public NettyBuffer(ByteBuf byteBuf) {
+		super(byteBuf.nioBuffer(byteBuf.readerIndex(), byteBuf.readableBytes()));
+		this.byteBuf = byteBuf.retain();
+		this.start = position();
+	}
+
+	/**
+	 * Get the Netty buffer this buffer reads.
+	 *
+	 * @return the Netty buffer
+	 */
+	public ByteBuf byteBuf() {
+		return byteBuf;
+	}
+
+	/**
+	 * Get the number of bytes read from this buffer since it was created, which the {@link ByteBuf} should skip.
+	 *
+	 * @return the number of bytes read
+	 */
+	public int consumed() {
+		return position() - start;
+	}
+
+	/**
+	 * Release the {@link ByteBuf}. This buffer can't be read afterwards.
+	 */
+	@Override
+	public void recycle() {
+		if (!released) {
+			released = true;
+			byteBuf.release();
+		}
+	}
+
+}
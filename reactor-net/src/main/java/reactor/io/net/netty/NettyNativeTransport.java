@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2011-2014 Pivotal Software, Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package reactor.io.net.netty;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Chooses between Netty's NIO transport and its native epoll transport. Epoll is only used when it's asked for, the
+ * platform is Linux, Netty has low-level access to direct buffers and the native library can be loaded; otherwise
+ * everything falls back to NIO. The type of {@link EventLoopGroup} decides which {@link io.netty.channel.Channel} types
+ * go with it.
+ *
+ * @author Jon Brisbin
+ */
+public final class NettyNativeTransport {
+
+	private static final Logger  LOG             = LoggerFactory.getLogger(NettyNativeTransport.class);
+	private static final boolean EPOLL_AVAILABLE = loadEpoll();
+
+	private NettyNativeTransport() {
+	}
+
+	/**
+	 * Whether the native epoll transport can be used on this platform.
+	 *
+	 * @return {@literal true} if epoll is available
+	 */
+	public static boolean isEpollAvailable() {
+		return EPOLL_AVAILABLE;
+	}
+
+	/**
+	 * Create an {@link EventLoopGroup} for the preferred transport.
+	 *
+	 * @param epoll         whether epoll should be used if it's available
+	 * @param threads       the number of event loops
+	 * @param threadFactory the factory for event loop threads
+	 *
+	 * @return an {@link EpollEventLoopGroup} or a {@link NioEventLoopGroup}
+	 */
+	public static EventLoopGroup eventLoopGroup(boolean epoll, int threads, ThreadFactory threadFactory) {
+		if (epoll && EPOLL_AVAILABLE) {
+			return new EpollEventLoopGroup(threads, threadFactory);
+		} else {
+			return new NioEventLoopGroup(threads, threadFactory);
+		}
+	}
+
+	/**
+	 * Whether the given {@link EventLoopGroup} belongs to the epoll transport.
+	 *
+	 * @param group the group
+	 *
+	 * @return {@literal true} if channels of the group must be epoll channels
+	 */
+	public static boolean isEpoll(EventLoopGroup group) {
+		return EPOLL_AVAILABLE && group instanceof EpollEventLoopGroup;
+	}
+
+	/**
+	 * Get the type of server channel to bind with the given {@link EventLoopGroup}.
+	 *
+	 * @param group the group that will run the channel
+	 *
+	 * @return {@link EpollServerSocketChannel} for an epoll group, {@link NioServerSocketChannel} otherwise
+	 */
+	public static Class<? extends ServerChannel> serverSocketChannelType(EventLoopGroup group) {
+		return (isEpoll(group) ? EpollServerSocketChannel.class : NioServerSocketChannel.class);
+	}
+
+	/**
+	 * Get the type of client channel to connect with the given {@link EventLoopGroup}.
+	 *
+	 * @param group the group that will run the channel
+	 *
+	 * @return {@link EpollSocketChannel} for an epoll group, {@link NioSocketChannel} otherwise
+	 */
+	public static Class<? extends SocketChannel> socketChannelType(EventLoopGroup group) {
+		return (isEpoll(group) ? EpollSocketChannel.class : NioSocketChannel.class);
+	}
+
+	/**
+	 * Create a datagram channel that can be registered with the given {@link EventLoopGroup}.
+	 *
+	 * @param group the group that will run the channel
+	 *
+	 * @return a new {@link EpollDatagramChannel} for an epoll group, a new {@link NioDatagramChannel} otherwise
+	 */
+	public static DatagramChannel newDatagramChannel(EventLoopGroup group) {
+		return (isEpoll(group) ? new EpollDatagramChannel() : new NioDatagramChannel());
+	}
+
+	private static boolean loadEpoll() {
+		// the native transport reads and writes through the memory addresses of direct buffers
+		if (!System.getProperty("os.name", "").toLowerCase().startsWith("linux") || !PlatformDependent.hasUnsafe()) {
+			return false;
+		}
+		try {
+			// loading the class loads the native library
+			Class.forName("io.netty.channel.epoll.Native");
+			return true;
+		} catch (Throwable t) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("The native epoll transport is not available: {}", t.toString());
+			}
+			return false;
+		}
+	}
+
+}
@@ -17,14 +17,16 @@
 package reactor.io.net.netty;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
 import reactor.Environment;
 import reactor.core.Dispatcher;
 import reactor.fn.Consumer;
-import reactor.fn.tuple.Tuple;
 import reactor.io.buffer.Buffer;
 import reactor.io.codec.Codec;
 import reactor.io.net.NetChannelStream;
@@ -32,26 +34,52 @@ import reactor.rx.Promise;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * {@link reactor.io.net.NetChannel} implementation that delegates to Netty.
+ * <p>
+ * {@link Buffer Buffers} are copied into pooled memory before they are written, direct ones included, since their
+ * owner may reuse them as soon as a write has been issued while Netty writes them later. Flushes are coalesced: asking
+ * for one schedules a single flush on the channel's event loop, which covers every write issued before it runs, such
+ * as all the writes of one event loop turn or of one batch.
+ * <p>
+ * The connection is writable as long as Netty's outbound buffer stays below its high water mark, and becomes writable
+ * again once it drains below the low water mark. Reads are paused by turning off {@code autoRead}.
+ * <p>
+ * Files are sent as {@link DefaultFileRegion DefaultFileRegions}, which the transport hands to the kernel's {@code
+ * sendfile}, unless the connection is encrypted.
  *
  * @author Jon Brisbin
  * @author Stephane Maldini
  */
 public class NettyNetChannel<IN, OUT> extends NetChannelStream<IN, OUT> {
 
-	private final Channel ioChannel;
+	private final Channel          ioChannel;
+	private final ByteBufAllocator alloc;
 
-	private volatile int closing = 0;
+	private final Runnable flushTask = new Runnable() {
+		@Override
+		public void run() {
+			flushPending = 0;
+			ioChannel.flush();
+		}
+	};
+
+	private volatile int closing      = 0;
+	private volatile int flushPending = 0;
 
 	private static final AtomicIntegerFieldUpdater<NettyNetChannel> CLOSING =
 			AtomicIntegerFieldUpdater.newUpdater(NettyNetChannel.class, "closing");
 
+	private static final AtomicIntegerFieldUpdater<NettyNetChannel> FLUSH_PENDING =
+			AtomicIntegerFieldUpdater.newUpdater(NettyNetChannel.class, "flushPending");
+
 	public NettyNetChannel(@Nonnull Environment env,
 	                       @Nullable Codec<Buffer, IN, OUT> codec,
 	                       @Nonnull Dispatcher ioDispatcher,
@@ -59,6 +87,9 @@ public class NettyNetChannel<IN, OUT> extends NetChannelStream<IN, OUT> {
 	                       @Nonnull Channel ioChannel) {
 		super(env, codec, ioDispatcher, eventsDispatcher);
 		this.ioChannel = ioChannel;
+		this.alloc = (ioChannel.alloc() instanceof PooledByteBufAllocator
+		              ? ioChannel.alloc()
+		              : PooledByteBufAllocator.DEFAULT);
 	}
 
 	public boolean isClosing() {
@@ -99,33 +130,97 @@ public class NettyNetChannel<IN, OUT> extends NetChannelStream<IN, OUT> {
 
 	@Override
 	protected void write(ByteBuffer data, Promise<Void> onComplete, boolean flush) {
-		ByteBuf buf = ioChannel.alloc().buffer(data.remaining());
+		write(toByteBuf(data), onComplete, flush);
+	}
+
+	/**
+	 * Copy the remaining bytes of a {@link ByteBuffer} into a pooled {@link ByteBuf} to write, consuming them. The bytes
+	 * are copied even when the buffer is direct, since the caller is free to reuse it as soon as this returns while the
+	 * write completes later.
+	 *
+	 * @param data the bytes to write
+	 *
+	 * @return a {@link ByteBuf} holding the bytes
+	 */
+	protected ByteBuf toByteBuf(ByteBuffer data) {
+		ByteBuf buf = alloc.ioBuffer(data.remaining());
 		buf.writeBytes(data);
-		write(buf, onComplete, flush);
+		return buf;
 	}
 
 	@Override
 	protected void write(Object data, final Promise<Void> onComplete, boolean flush) {
-		ChannelFuture writeFuture = ioChannel.write(Tuple.of(data, flush));
+		ChannelFuture writeFuture = ioChannel.write(data);
+		if (flush) {
+			flush();
+		}
 		writeFuture.addListener(new ChannelFutureListener() {
 			@Override
 			public void operationComplete(ChannelFuture future) throws Exception {
-				boolean success = future.isSuccess();
-
-				if (!success) {
-					Throwable t = future.cause();
-					contentStream.onError(t);
+				if (future.isSuccess()) {
+					if (null != onComplete) {
+						onComplete.onComplete();
+					}
+					return;
 				}
+
+				Throwable t = future.cause();
+				contentStream.onError(t);
 				if (null != onComplete) {
-					onComplete.onComplete();
+					onComplete.onError(t);
 				}
 			}
 		});
 	}
 
+	@Override
+	protected void writeFile(FileChannel file, long position, long count, Promise<Void> onComplete)
+			throws IOException {
+		if (null != ioChannel.pipeline().get(SslHandler.class)) {
+			// the bytes have to be encrypted on their way to the socket
+			super.writeFile(file, position, count, onComplete);
+			return;
+		}
+		write(new DefaultFileRegion(file, position, count), onComplete, true);
+	}
+
+	@Override
+	public boolean isWritable() {
+		return ioChannel.isWritable();
+	}
+
+	@Override
+	protected void pauseReads() {
+		ioChannel.config().setAutoRead(false);
+	}
+
+	@Override
+	protected void resumeReads() {
+		ioChannel.config().setAutoRead(true);
+	}
+
 	@Override
 	protected void flush() {
-		ioChannel.write(Tuple.of(null, true));
+		if (FLUSH_PENDING.compareAndSet(this, 0, 1)) {
+			ioChannel.eventLoop().execute(flushTask);
+		}
+	}
+
+	/**
+	 * Set the write buffer water marks of a connection, in whichever order keeps the low one below the high one.
+	 *
+	 * @param config the configuration of the connection
+	 * @param high   the high water mark, in bytes
+	 * @param low    the low water mark, in bytes
+	 */
+	public static void setWaterMarks(ChannelConfig config, int high, int low) {
+		if (high < config.getWriteBufferLowWaterMark()) {
+			config.setWriteBufferLowWaterMark(low);
+			config.setWriteBufferHighWaterMark(high);
+		} else {
+			config.setWriteBufferHighWaterMark(high);
+			config.setWriteBufferLowWaterMark(low);
+		}
 	}
 
 	@Override
@@ -17,16 +17,19 @@
 package reactor.io.net.netty;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import reactor.io.buffer.Buffer;
 import reactor.io.net.NetChannelStream;
 
 /**
  * Netty {@link io.netty.channel.ChannelInboundHandler} implementation that passes data to a Reactor {@link
  * reactor.io.net.NetChannelStream}.
+ * <p>
+ * The codec reads the bytes of each Netty buffer in place, through a {@link NettyBuffer}. The bytes it leaves over
+ * because they are only the start of a message are kept, and the next read is appended to them.
  *
  * @author Jon Brisbin
  * @author Stephane Maldini
@@ -37,7 +40,7 @@ public class NettyNetChannelInboundHandler extends ChannelInboundHandlerAdapter
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
 	private volatile NetChannelStream netChannel;
-	private volatile ByteBuf          remainder;
+	private volatile ByteBuf          cumulation;
 
 	public NettyNetChannelInboundHandler() {
 	}
@@ -60,40 +63,41 @@ public class NettyNetChannelInboundHandler extends ChannelInboundHandlerAdapter
 		}
 
 		ByteBuf data = (ByteBuf) msg;
-		if (remainder == null) {
-			try {
-				passToConnection(data);
-			} finally {
-				if (data.isReadable()) {
-					remainder = data;
-				} else {
-					data.release();
-				}
-			}
-			return;
-		}
-
-		if (!bufferHasSufficientCapacity(remainder, data)) {
-			ByteBuf combined = createCombinedBuffer(remainder, data, ctx);
-			remainder.release();
-			remainder = combined;
+		if (null == cumulation) {
+			cumulation = data;
 		} else {
-			remainder.writeBytes(data);
+			cumulation = cumulate(ctx.alloc(), cumulation, data);
 		}
-		data.release();
 
 		try {
-			passToConnection(remainder);
+			passToConnection(cumulation);
 		} finally {
-			if (remainder.isReadable()) {
-				remainder.discardSomeReadBytes();
+			if (cumulation.isReadable()) {
+				cumulation.discardSomeReadBytes();
 			} else {
-				remainder.release();
-				remainder = null;
+				cumulation.release();
+				cumulation = null;
 			}
 		}
 	}
 
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+		if (null != cumulation) {
+			cumulation.release();
+			cumulation = null;
+		}
+		super.handlerRemoved(ctx);
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		if (ctx.channel().isWritable()) {
+			netChannel.notifyWritable();
+		}
+		super.channelWritabilityChanged(ctx);
+	}
+
 	@Override
 	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
 		if ("Broken pipe".equals(cause.getMessage()) || "Connection reset by peer".equals(cause.getMessage())) {
@@ -105,22 +109,30 @@ public class NettyNetChannelInboundHandler extends ChannelInboundHandlerAdapter
 		ctx.close();
 	}
 
-	private boolean bufferHasSufficientCapacity(ByteBuf receiver, ByteBuf provider) {
-		return receiver.writerIndex() <= receiver.maxCapacity() - provider.readableBytes();
-	}
-
-	private ByteBuf createCombinedBuffer(ByteBuf partOne, ByteBuf partTwo, ChannelHandlerContext ctx) {
-		ByteBuf combined = ctx.alloc().buffer(partOne.readableBytes() + partTwo.readableBytes());
-		combined.writeBytes(partOne);
-		combined.writeBytes(partTwo);
+	/**
+	 * Append a read to the bytes left over from the previous ones. The bytes are written in place when the cumulation
+	 * has room for them and nothing else holds it, otherwise both are copied to a buffer that is large enough.
+	 */
+	private static ByteBuf cumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf data) {
+		ByteBuf combined = cumulation;
+		if (cumulation.writerIndex() > cumulation.maxCapacity() - data.readableBytes() || cumulation.refCnt() > 1) {
+			combined = alloc.buffer(cumulation.readableBytes() + data.readableBytes());
+			combined.writeBytes(cumulation);
+			cumulation.release();
+		}
+		combined.writeBytes(data);
+		data.release();
 		return combined;
 	}
 
 	private void passToConnection(ByteBuf data) {
-		Buffer b = new Buffer(data.nioBuffer());
-		int start = b.position();
-		netChannel.read(b);
-		data.skipBytes(b.position() - start);
+		NettyBuffer b = new NettyBuffer(data);
+		try {
+			netChannel.read(b);
+			data.skipBytes(b.consumed());
+		} finally {
+			b.recycle();
+		}
 	}
 
 }
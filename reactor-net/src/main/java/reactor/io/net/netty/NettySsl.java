@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.netty;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.OpenSsl;
+import io.netty.handler.ssl.OpenSslServerContext;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.io.net.config.SslOptions;
+import reactor.io.net.tcp.ssl.SSLEngineSupplier;
+
+import javax.net.ssl.SSLEngine;
+import java.io.File;
+
+/**
+ * Creates the {@link SslHandler SslHandlers} of one server or client. The TLS context is built once, when this object
+ * is created, and shared by every connection, so sessions can be resumed and no connection pays for reading the
+ * keystore. Servers use an OpenSSL-backed engine instead of the JDK's when {@link SslOptions#openSsl() asked for},
+ * OpenSSL can be loaded and PEM key material is configured.
+ *
+ * @author Jon Brisbin
+ */
+public final class NettySsl {
+
+	private static final Logger  LOG               = LoggerFactory.getLogger(NettySsl.class);
+	private static final boolean OPENSSL_AVAILABLE = loadOpenSsl();
+
+	private final SSLEngineSupplier jdkEngines;
+	private final SslContext        openSslContext;
+
+	/**
+	 * Create the TLS context described by the given options.
+	 *
+	 * @param sslOptions the SSL configuration
+	 * @param client     {@literal true} for the client side of connections
+	 */
+	public NettySsl(SslOptions sslOptions, boolean client) {
+		try {
+			if (!client && sslOptions.openSsl() && OPENSSL_AVAILABLE
+					&& null != sslOptions.certChainFile() && null != sslOptions.keyFile()) {
+				this.openSslContext = new OpenSslServerContext(
+						new File(sslOptions.certChainFile()),
+						new File(sslOptions.keyFile()),
+						sslOptions.keyManagerPasswd(),
+						null,
+						null,
+						sslOptions.sessionCacheSize(),
+						sslOptions.sessionTimeout()
+				);
+				this.jdkEngines = null;
+			} else {
+				this.openSslContext = null;
+				this.jdkEngines = new SSLEngineSupplier(sslOptions, client);
+			}
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to create the SSL context: " + e.getMessage(), e);
+		}
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("SSL enabled using {} and keystore {}",
+					(null != openSslContext ? "OpenSSL" : "the JDK"),
+					(null != sslOptions.keystoreFile() ? sslOptions.keystoreFile() : "<DEFAULT>"));
+		}
+	}
+
+	/**
+	 * Whether OpenSSL can be used on this platform.
+	 *
+	 * @return {@literal true} if OpenSSL is available
+	 */
+	public static boolean isOpenSslAvailable() {
+		return OPENSSL_AVAILABLE;
+	}
+
+	/**
+	 * Whether the engines created by this object are backed by OpenSSL.
+	 *
+	 * @return {@literal true} for OpenSSL, {@literal false} for the JDK
+	 */
+	public boolean isOpenSsl() {
+		return null != openSslContext;
+	}
+
+	/**
+	 * Create the {@link SslHandler} of a server connection.
+	 *
+	 * @param alloc the allocator of the connection
+	 *
+	 * @return a new handler
+	 */
+	public SslHandler newHandler(ByteBufAllocator alloc) {
+		SSLEngine engine = (null != openSslContext ? openSslContext.newEngine(alloc) : jdkEngines.get());
+		return new SslHandler(engine);
+	}
+
+	/**
+	 * Create the {@link SslHandler} of a client connection to the given peer, whose session can then be resumed by
+	 * later connections to the same peer.
+	 *
+	 * @param peerHost the host name of the peer
+	 * @param peerPort the port of the peer
+	 *
+	 * @return a new handler
+	 */
+	public SslHandler newHandler(String peerHost, int peerPort) {
+		return new SslHandler(jdkEngines.get(peerHost, peerPort));
+	}
+
+	private static boolean loadOpenSsl() {
+		try {
+			return OpenSsl.isAvailable();
+		} catch (Throwable t) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("OpenSSL is not available: {}", t.getMessage());
+			}
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.netty.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.*;
+import reactor.Environment;
+import reactor.core.Dispatcher;
+import reactor.fn.tuple.Tuple;
+import reactor.io.buffer.Buffer;
+import reactor.io.codec.Codec;
+import reactor.io.net.http.HttpChannel;
+import reactor.io.net.netty.NettyBuffer;
+import reactor.io.net.netty.NettyNetChannel;
+import reactor.rx.Promise;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * {@link HttpChannel} implementation that delegates to Netty. Response parts are tagged with the exchange they belong
+ * to so that the {@link NettyHttpServerHandler} can write the responses of pipelined requests in order.
+ *
+ * @author Jon Brisbin
+ */
+public class NettyHttpChannel<IN, OUT> extends NettyNetChannel<IN, OUT> implements HttpChannel<IN, OUT> {
+
+	private final HttpRequest  request;
+	private final HttpResponse response;
+	private final String       path;
+	private final boolean      keepAlive;
+
+	private volatile Map<String, Object> params = Collections.emptyMap();
+	private volatile boolean             committed;
+	private volatile boolean             closed;
+	private volatile boolean             requestRead;
+
+	// only accessed from the event loop
+	private boolean complete;
+
+	private Buffer remainder;
+
+	public NettyHttpChannel(@Nonnull Environment env,
+	                        @Nullable Codec<Buffer, IN, OUT> codec,
+	                        @Nonnull Dispatcher ioDispatcher,
+	                        @Nonnull Dispatcher eventsDispatcher,
+	                        @Nonnull Channel ioChannel,
+	                        @Nonnull HttpRequest request) {
+		super(env, codec, ioDispatcher, eventsDispatcher, ioChannel);
+		this.request = request;
+		this.response = new DefaultHttpResponse(request.getProtocolVersion(), HttpResponseStatus.OK);
+		this.path = new QueryStringDecoder(request.getUri()).path();
+		this.keepAlive = HttpHeaders.isKeepAlive(request);
+	}
+
+	@Override
+	public String method() {
+		return request.getMethod().name();
+	}
+
+	@Override
+	public String uri() {
+		return request.getUri();
+	}
+
+	@Override
+	public String path() {
+		return path;
+	}
+
+	@Override
+	public String header(String name) {
+		return request.headers().get(name);
+	}
+
+	@Override
+	public Map<String, Object> params() {
+		return params;
+	}
+
+	@Override
+	public boolean isKeepAlive() {
+		return keepAlive;
+	}
+
+	@Override
+	public HttpChannel<IN, OUT> responseStatus(int status) {
+		if (!committed) {
+			response.setStatus(HttpResponseStatus.valueOf(status));
+		}
+		return this;
+	}
+
+	@Override
+	public HttpChannel<IN, OUT> responseHeader(String name, String value) {
+		if (!committed) {
+			response.headers().set(name, value);
+		}
+		return this;
+	}
+
+	@Override
+	public boolean isResponseCommitted() {
+		return committed;
+	}
+
+	/**
+	 * Get the Netty request this exchange was created for.
+	 *
+	 * @return the request
+	 */
+	public HttpRequest getRequest() {
+		return request;
+	}
+
+	/**
+	 * Complete the response. The connection is closed afterwards unless it is persistent.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		// queued behind any write already on its way to the event loop
+		nativeConnection().eventLoop().execute(new Runnable() {
+			@Override
+			public void run() {
+				complete();
+			}
+		});
+	}
+
+	@Override
+	public void notifyClose() {
+		requestRead = true;
+		// the connection goes on to read the requests that follow
+		resumeReads();
+		super.notifyClose();
+	}
+
+	@Override
+	protected void pauseReads() {
+		if (!requestRead) {
+			super.pauseReads();
+		}
+	}
+
+	@Override
+	protected void write(final Object data, final Promise<Void> onComplete, final boolean flush) {
+		if (!nativeConnection().eventLoop().inEventLoop()) {
+			nativeConnection().eventLoop().execute(new Runnable() {
+				@Override
+				public void run() {
+					write(data, onComplete, flush);
+				}
+			});
+			return;
+		}
+		if (complete) {
+			return;
+		}
+		if (!committed) {
+			commit(true);
+			writeTagged(response, false);
+		}
+		Object msg = (data instanceof ByteBuf ? new DefaultHttpContent((ByteBuf) data) : data);
+		super.write(Tuple.of(this, msg), onComplete, flush);
+	}
+
+	void setParams(Map<String, Object> params) {
+		this.params = params;
+	}
+
+	/**
+	 * Pass a piece of the request body to the codec, keeping the bytes it couldn't decode yet for the next piece.
+	 */
+	void readContent(ByteBuf content) {
+		if (null == getDecoder()) {
+			// the bytes are handed over as is, so they must outlive the Netty buffer
+			Buffer b = new Buffer(content.readableBytes(), true);
+			b.append(content.nioBuffer()).flip();
+			read(b);
+			return;
+		}
+
+		if (null == remainder) {
+			// decoded in place, only the start of a message that continues in the next piece is copied
+			NettyBuffer b = new NettyBuffer(content);
+			try {
+				read(b);
+				if (b.remaining() > 0) {
+					remainder = new Buffer(b.remaining(), false).append(b.byteBuffer());
+				}
+			} finally {
+				b.recycle();
+			}
+			return;
+		}
+
+		Buffer b = remainder;
+		b.append(content.nioBuffer()).flip();
+		read(b);
+		if (b.remaining() > 0) {
+			remainder = b.compact();
+		} else {
+			remainder = null;
+		}
+	}
+
+	private void complete() {
+		if (complete) {
+			return;
+		}
+		if (!committed) {
+			// nothing was written, so the length of the body is known
+			HttpHeaders.setContentLength(response, 0);
+			commit(false);
+			writeTagged(response, false);
+		}
+		complete = true;
+		writeTagged(LastHttpContent.EMPTY_LAST_CONTENT, true);
+	}
+
+	private void commit(boolean streaming) {
+		committed = true;
+		if (streaming && !HttpHeaders.isContentLengthSet(response)) {
+			if (request.getProtocolVersion().equals(HttpVersion.HTTP_1_0)) {
+				// HTTP/1.0 clients don't understand chunks, the end of the body is the end of the connection
+				HttpHeaders.setKeepAlive(response, false);
+				return;
+			}
+			HttpHeaders.setTransferEncodingChunked(response);
+		}
+		if (keepAlive && request.getProtocolVersion().equals(HttpVersion.HTTP_1_0)) {
+			HttpHeaders.setKeepAlive(response, true);
+		} else if (!keepAlive) {
+			HttpHeaders.setKeepAlive(response, false);
+		}
+	}
+
+	private void writeTagged(Object msg, boolean flush) {
+		super.write(Tuple.of(this, msg), null, flush);
+	}
+
+	/**
+	 * Whether the connection must be closed after this response, either because the client asked for it or because
+	 * the end of the body can only be signalled by closing.
+	 */
+	boolean closesConnection() {
+		return !HttpHeaders.isKeepAlive(response);
+	}
+
+	@Override
+	public String toString() {
+		return "NettyHttpChannel{" +
+				"request=" + method() + " " + uri() +
+				", channel=" + nativeConnection() +
+				'}';
+	}
+
+}
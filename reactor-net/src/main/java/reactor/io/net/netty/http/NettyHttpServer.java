@@ -18,11 +18,12 @@ package reactor.io.net.netty.http;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.SocketChannelConfig;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import org.slf4j.Logger;
@@ -30,25 +31,26 @@ import org.slf4j.LoggerFactory;
 import reactor.Environment;
 import reactor.core.Dispatcher;
 import reactor.core.support.NamedDaemonThreadFactory;
+import reactor.fn.tuple.Tuple2;
 import reactor.io.buffer.Buffer;
 import reactor.io.codec.Codec;
-import reactor.io.net.NetChannelStream;
 import reactor.io.net.config.ServerSocketOptions;
 import reactor.io.net.config.SslOptions;
 import reactor.io.net.http.HttpServer;
 import reactor.io.net.netty.*;
-import reactor.io.net.tcp.ssl.SSLEngineSupplier;
 import reactor.rx.Promise;
 import reactor.rx.Promises;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.net.ssl.SSLEngine;
 import java.net.InetSocketAddress;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * A Netty-based {@code TcpServer} implementation
+ * A Netty-based {@code HttpServer} implementation. Connections are decoded with an {@link HttpServerCodec} and each
+ * request becomes a {@link NettyHttpChannel}. Connections are persistent unless the client or the response says
+ * otherwise, pipelined requests are answered in order, and response bodies of unknown length are sent in chunks.
  *
  * @param <IN>  The type that will be received by this server
  * @param <OUT> The type that will be sent by this server
@@ -63,6 +65,7 @@ public class NettyHttpServer<IN, OUT> extends HttpServer<IN, OUT> {
 	private final ServerBootstrap          bootstrap;
 	private final EventLoopGroup           selectorGroup;
 	private final EventLoopGroup           ioGroup;
+	private final NettySsl                 ssl;
 
 	protected NettyHttpServer(@Nonnull Environment env,
 	                          @Nonnull Dispatcher dispatcher,
@@ -71,6 +74,7 @@ public class NettyHttpServer<IN, OUT> extends HttpServer<IN, OUT> {
 	                          final SslOptions sslOptions,
 	                          @Nullable Codec<Buffer, IN, OUT> codec) {
 		super(env, dispatcher, listenAddress, options, sslOptions, codec);
+		this.ssl = (null != sslOptions ? new NettySsl(sslOptions, false) : null);
 
 		if (options instanceof NettyServerSocketOptions) {
 			this.nettyOptions = (NettyServerSocketOptions) options;
@@ -81,16 +85,21 @@ public class NettyHttpServer<IN, OUT> extends HttpServer<IN, OUT> {
 		int selectThreadCount = env.getProperty("reactor.tcp.selectThreadCount", Integer.class,
 				Environment.PROCESSORS / 2);
 		int ioThreadCount = env.getProperty("reactor.tcp.ioThreadCount", Integer.class, Environment.PROCESSORS);
-		this.selectorGroup = new NioEventLoopGroup(selectThreadCount, new NamedDaemonThreadFactory("reactor-tcp-select"));
+		// accepted channels must suit the io group, so a user-supplied group decides the transport
+		boolean epoll = (options.epoll() || Boolean.parseBoolean(env.getProperty("reactor.tcp.epoll", "false")))
+				&& (null == nettyOptions || null == nettyOptions.eventLoopGroup());
+		this.selectorGroup = NettyNativeTransport.eventLoopGroup(epoll, selectThreadCount,
+				new NamedDaemonThreadFactory("reactor-tcp-select"));
 		if (null != nettyOptions && null != nettyOptions.eventLoopGroup()) {
 			this.ioGroup = nettyOptions.eventLoopGroup();
 		} else {
-			this.ioGroup = new NioEventLoopGroup(ioThreadCount, new NamedDaemonThreadFactory("reactor-tcp-io"));
+			this.ioGroup = NettyNativeTransport.eventLoopGroup(epoll, ioThreadCount,
+					new NamedDaemonThreadFactory("reactor-tcp-io"));
 		}
 
 		this.bootstrap = new ServerBootstrap()
 				.group(selectorGroup, ioGroup)
-				.channel(NioServerSocketChannel.class)
+				.channel(NettyNativeTransport.serverSocketChannelType(selectorGroup))
 				.option(ChannelOption.SO_BACKLOG, options.backlog())
 				.option(ChannelOption.SO_RCVBUF, options.rcvbuf())
 				.option(ChannelOption.SO_SNDBUF, options.sndbuf())
@@ -106,39 +115,27 @@ public class NettyHttpServer<IN, OUT> extends HttpServer<IN, OUT> {
 						config.setReuseAddress(options.reuseAddr());
 						config.setSoLinger(options.linger());
 						config.setTcpNoDelay(options.tcpNoDelay());
+						NettyNetChannel.setWaterMarks(config, options.writeBufferHighWaterMark(),
+								options.writeBufferLowWaterMark());
 
 						if (log.isDebugEnabled()) {
 							log.debug("CONNECT {}", ch);
 						}
 
-						if (null != sslOptions) {
-							SSLEngine ssl = new SSLEngineSupplier(sslOptions, false).get();
-							if (log.isDebugEnabled()) {
-								log.debug("SSL enabled using keystore {}",
-										(null != sslOptions.keystoreFile() ? sslOptions.keystoreFile() : "<DEFAULT>"));
-							}
-							ch.pipeline().addLast(new SslHandler(ssl));
+						if (null != ssl) {
+							ch.pipeline().addLast(ssl.newHandler(ch.alloc()));
 						}
 						if (null != nettyOptions && null != nettyOptions.pipelineConfigurer()) {
 							nettyOptions.pipelineConfigurer().accept(ch.pipeline());
 						}
 
-						final NettyNetChannel<IN, OUT> netChannel = createChannel(ch);
-						notifyNewChannel(netChannel);
-
-						ch.pipeline().addLast(createChannelHandlers(netChannel));
-
-						ch.closeFuture().addListener(new ChannelFutureListener() {
-							@Override
-							public void operationComplete(ChannelFuture future) throws Exception {
-								if (log.isDebugEnabled()) {
-									log.debug("CLOSE {}", ch);
-								}
-								netChannel.notifyClose();
-							}
-						});
+						ch.pipeline().addLast(createChannelHandlers());
 					}
 				});
+
+		if (options.reusePort() && NettyNativeTransport.isEpoll(selectorGroup)) {
+			bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+		}
 	}
 
 	@Override
@@ -196,12 +193,55 @@ public class NettyHttpServer<IN, OUT> extends HttpServer<IN, OUT> {
 		);
 	}
 
-	protected ChannelHandler[] createChannelHandlers(NetChannelStream<IN,OUT> netChannel) {
-		NettyNetChannelInboundHandler readHandler = new NettyNetChannelInboundHandler()
-				.setNetChannel(netChannel);
-		NettyNetChannelOutboundHandler writeHandler = new NettyNetChannelOutboundHandler();
+	/**
+	 * Create a channel for one request received on a connection.
+	 *
+	 * @param ioChannel
+	 * 		the connection
+	 * @param ioDispatcher
+	 * 		the {@link reactor.core.Dispatcher} that runs on the connection's event loop
+	 * @param request
+	 * 		the request, whose body is still to come
+	 *
+	 * @return a new {@link NettyHttpChannel}
+	 */
+	protected NettyHttpChannel<IN, OUT> createChannel(Channel ioChannel,
+	                                                  NettyEventLoopDispatcher ioDispatcher,
+	                                                  HttpRequest request) {
+		return new NettyHttpChannel<IN, OUT>(
+				getEnvironment(),
+				getCodec(),
+				ioDispatcher,
+				getDispatcher(),
+				ioChannel,
+				request
+		);
+	}
+
+	protected ChannelHandler[] createChannelHandlers() {
+		return new ChannelHandler[]{new HttpServerCodec(), new NettyHttpServerHandler<IN, OUT>(this)};
+	}
 
-		return new ChannelHandler[]{readHandler, writeHandler};
+	/**
+	 * Hand a request to the first matching route, or to the subscribers of this server if no route is registered.
+	 */
+	void handle(NettyHttpChannel<IN, OUT> ch) {
+		try {
+			if (!hasRoutes()) {
+				notifyNewChannel(ch);
+				return;
+			}
+			Tuple2<Route<IN, OUT>, Map<String, Object>> route = selectRoute(ch.method(), ch.path());
+			if (null == route) {
+				ch.responseStatus(HttpResponseStatus.NOT_FOUND.code()).close();
+				return;
+			}
+			ch.setParams(route.getT2());
+			route.getT1().handle(ch);
+		} catch (Throwable t) {
+			log.error("Failed to handle " + ch, t);
+			ch.responseStatus(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()).close();
+		}
 	}
 
 }
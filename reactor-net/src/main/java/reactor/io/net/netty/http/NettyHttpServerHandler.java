@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.netty.http;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.fn.tuple.Tuple2;
+import reactor.io.net.netty.NettyEventLoopDispatcher;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Netty {@link io.netty.channel.ChannelHandler} that turns the requests decoded by an {@link HttpServerCodec} into
+ * {@link NettyHttpChannel NettyHttpChannels} and writes their responses in request order.
+ * <p>
+ * Requests may be pipelined: a client can send several requests before reading any response. Every exchange gets a
+ * place in a queue as soon as its request arrives. Only the exchange at the head of the queue writes to the
+ * connection, the others hold their response parts until every response before theirs is complete. Once a response
+ * that ends the connection is complete, the connection is closed and later exchanges are dropped.
+ *
+ * @author Jon Brisbin
+ */
+public class NettyHttpServerHandler<IN, OUT> extends ChannelDuplexHandler {
+
+	private static final ClosedChannelException CLOSED = new ClosedChannelException();
+
+	static {
+		CLOSED.setStackTrace(new StackTraceElement[0]);
+	}
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final NettyHttpServer<IN, OUT> server;
+	private final ArrayDeque<Exchange>     exchanges = new ArrayDeque<Exchange>();
+
+	private NettyEventLoopDispatcher  ioDispatcher;
+	private NettyHttpChannel<IN, OUT> reading;
+	private boolean                   closing;
+
+	public NettyHttpServerHandler(NettyHttpServer<IN, OUT> server) {
+		this.server = server;
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		ioDispatcher = new NettyEventLoopDispatcher(ctx.channel().eventLoop(), 256);
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		try {
+			if (closing) {
+				return;
+			}
+			if (msg instanceof HttpRequest) {
+				readRequest(ctx, (HttpRequest) msg);
+			}
+			if (msg instanceof HttpContent && null != reading) {
+				HttpContent content = (HttpContent) msg;
+				if (content.content().isReadable()) {
+					reading.readContent(content.content());
+				}
+				if (msg instanceof LastHttpContent) {
+					NettyHttpChannel<IN, OUT> ch = reading;
+					reading = null;
+					ch.notifyClose();
+				}
+			}
+		} finally {
+			ReferenceCountUtil.release(msg);
+		}
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+		if (!(msg instanceof Tuple2) || !(((Tuple2) msg).getT1() instanceof NettyHttpChannel)) {
+			super.write(ctx, msg, promise);
+			return;
+		}
+
+		Tuple2 tagged = (Tuple2) msg;
+		Object part = tagged.getT2();
+		Exchange exchange = find(tagged.getT1());
+		if (null == exchange) {
+			// the connection is gone or the exchange was dropped after a response that closed it
+			ReferenceCountUtil.release(part);
+			promise.tryFailure(CLOSED);
+			return;
+		}
+
+		if (exchange != exchanges.peek()) {
+			exchange.hold(part, promise);
+			return;
+		}
+
+		ctx.write(part, promise);
+		if (part instanceof LastHttpContent) {
+			exchanges.poll();
+			if (exchange.channel.closesConnection()) {
+				promise.addListener(ChannelFutureListener.CLOSE);
+				close();
+				return;
+			}
+			writeNext(ctx);
+		}
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		if (ctx.channel().isWritable()) {
+			for (Exchange exchange : exchanges) {
+				exchange.channel.notifyWritable();
+			}
+		}
+		super.channelWritabilityChanged(ctx);
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		close();
+		super.channelInactive(ctx);
+	}
+
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+		if (log.isDebugEnabled()) {
+			log.debug(ctx.channel().toString() + " " + cause.getMessage());
+		}
+		if (null != reading) {
+			reading.notifyError(cause);
+		}
+		ctx.close();
+	}
+
+	private void readRequest(ChannelHandlerContext ctx, HttpRequest request) {
+		NettyHttpChannel<IN, OUT> ch = server.createChannel(ctx.channel(), ioDispatcher, request);
+		exchanges.add(new Exchange(ch));
+		reading = ch;
+
+		if (request.getDecoderResult().isFailure()) {
+			ch.responseStatus(HttpResponseStatus.BAD_REQUEST.code())
+			  .responseHeader(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE)
+			  .close();
+			return;
+		}
+		if (HttpHeaders.is100ContinueExpected(request) && exchanges.size() == 1) {
+			ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
+		}
+		server.handle(ch);
+	}
+
+	private Exchange find(Object channel) {
+		for (Exchange exchange : exchanges) {
+			if (exchange.channel == channel) {
+				return exchange;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Let the exchanges that have become the head of the queue write what they held back.
+	 */
+	private void writeNext(ChannelHandlerContext ctx) {
+		boolean written = false;
+		Exchange next;
+		while (null != (next = exchanges.peek()) && null != next.parts) {
+			written = true;
+			List<Object> parts = next.parts;
+			List<ChannelPromise> promises = next.promises;
+			next.parts = null;
+			next.promises = null;
+			for (int i = 0; i < parts.size(); i++) {
+				ctx.write(parts.get(i), promises.get(i));
+			}
+			if (!next.complete) {
+				break;
+			}
+			exchanges.poll();
+			if (next.channel.closesConnection()) {
+				promises.get(promises.size() - 1).addListener(ChannelFutureListener.CLOSE);
+				close();
+				break;
+			}
+		}
+		if (written) {
+			ctx.flush();
+		}
+	}
+
+	/**
+	 * Stop reading requests and drop every pending exchange.
+	 */
+	private void close() {
+		closing = true;
+		if (null != reading) {
+			reading.notifyClose();
+			reading = null;
+		}
+		Exchange exchange;
+		while (null != (exchange = exchanges.poll())) {
+			exchange.drop();
+		}
+	}
+
+	private final class Exchange {
+		private final NettyHttpChannel<IN, OUT> channel;
+
+		private List<Object>         parts;
+		private List<ChannelPromise> promises;
+		private boolean              complete;
+
+		private Exchange(NettyHttpChannel<IN, OUT> channel) {
+			this.channel = channel;
+		}
+
+		private void hold(Object part, ChannelPromise promise) {
+			if (null == parts) {
+				parts = new ArrayList<Object>(4);
+				promises = new ArrayList<ChannelPromise>(4);
+			}
+			parts.add(part);
+			promises.add(promise);
+			if (part instanceof LastHttpContent) {
+				complete = true;
+			}
+		}
+
+		private void drop() {
+			if (null == parts) {
+				return;
+			}
+			for (int i = 0; i < parts.size(); i++) {
+				ReferenceCountUtil.release(parts.get(i));
+				promises.get(i).tryFailure(CLOSED);
+			}
+			parts = null;
+			promises = null;
+		}
+	}
+
+}
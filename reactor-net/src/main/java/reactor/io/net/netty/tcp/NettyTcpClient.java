@@ -18,10 +18,7 @@ package reactor.io.net.netty.tcp;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
 import org.slf4j.Logger;
@@ -41,7 +38,6 @@ import reactor.io.net.config.ClientSocketOptions;
 import reactor.io.net.config.SslOptions;
 import reactor.io.net.netty.*;
 import reactor.io.net.tcp.TcpClient;
-import reactor.io.net.tcp.ssl.SSLEngineSupplier;
 import reactor.rx.Promise;
 import reactor.rx.Promises;
 import reactor.rx.Stream;
@@ -49,7 +45,6 @@ import reactor.rx.broadcast.Broadcaster;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.net.ssl.SSLEngine;
 import java.net.InetSocketAddress;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -70,6 +65,7 @@ public class NettyTcpClient<IN, OUT> extends TcpClient<IN, OUT> {
 	private final Bootstrap                bootstrap;
 	private final EventLoopGroup           ioGroup;
 	private final Supplier<ChannelFuture>  connectionSupplier;
+	private final NettySsl                 ssl;
 
 	private volatile InetSocketAddress connectAddress;
 	private volatile boolean           closing;
@@ -97,6 +93,7 @@ public class NettyTcpClient<IN, OUT> extends TcpClient<IN, OUT> {
 	                      @Nullable final SslOptions sslOptions,
 	                      @Nullable Codec<Buffer, IN, OUT> codec) {
 		super(env, dispatcher, connectAddress, options, sslOptions, codec);
+		this.ssl = (null != sslOptions ? new NettySsl(sslOptions, true) : null);
 		this.connectAddress = connectAddress;
 
 		if (options instanceof NettyClientSocketOptions) {
@@ -109,12 +106,14 @@ public class NettyTcpClient<IN, OUT> extends TcpClient<IN, OUT> {
 			this.ioGroup = nettyOptions.eventLoopGroup();
 		} else {
 			int ioThreadCount = env.getProperty("reactor.tcp.ioThreadCount", Integer.class, Environment.PROCESSORS);
-			this.ioGroup = new NioEventLoopGroup(ioThreadCount, new NamedDaemonThreadFactory("reactor-tcp-io"));
+			boolean epoll = options.epoll() || Boolean.parseBoolean(env.getProperty("reactor.tcp.epoll", "false"));
+			this.ioGroup = NettyNativeTransport.eventLoopGroup(epoll, ioThreadCount,
+					new NamedDaemonThreadFactory("reactor-tcp-io"));
 		}
 
 		this.bootstrap = new Bootstrap()
 				.group(ioGroup)
-				.channel(NioSocketChannel.class)
+				.channel(NettyNativeTransport.socketChannelType(ioGroup))
 				.option(ChannelOption.SO_RCVBUF, options.rcvbuf())
 				.option(ChannelOption.SO_SNDBUF, options.sndbuf())
 				.option(ChannelOption.SO_KEEPALIVE, options.keepAlive())
@@ -125,14 +124,12 @@ public class NettyTcpClient<IN, OUT> extends TcpClient<IN, OUT> {
 					@Override
 					public void initChannel(final SocketChannel ch) throws Exception {
 						ch.config().setConnectTimeoutMillis(options.timeout());
+						NettyNetChannel.setWaterMarks(ch.config(), options.writeBufferHighWaterMark(),
+								options.writeBufferLowWaterMark());
 
-						if (null != sslOptions) {
-							SSLEngine ssl = new SSLEngineSupplier(sslOptions, true).get();
-							if (log.isDebugEnabled()) {
-								log.debug("SSL enabled using keystore {}",
-										(null != sslOptions.keystoreFile() ? sslOptions.keystoreFile() : "<DEFAULT>"));
-							}
-							ch.pipeline().addLast(new SslHandler(ssl));
+						if (null != ssl) {
+							InetSocketAddress peer = getConnectAddress();
+							ch.pipeline().addLast(ssl.newHandler(peer.getHostString(), peer.getPort()));
 						}
 						if (null != nettyOptions && null != nettyOptions.pipelineConfigurer()) {
 							nettyOptions.pipelineConfigurer().accept(ch.pipeline());
@@ -219,9 +216,7 @@ public class NettyTcpClient<IN, OUT> extends TcpClient<IN, OUT> {
 	protected ChannelHandler[] createChannelHandlers(NettyNetChannel<IN,OUT> conn) {
 		NettyNetChannelInboundHandler readHandler = new NettyNetChannelInboundHandler()
 				.setNetChannel(conn);
-		NettyNetChannelOutboundHandler writeHandler = new NettyNetChannelOutboundHandler();
-
-		return new ChannelHandler[]{readHandler, writeHandler};
+		return new ChannelHandler[]{readHandler};
 	}
 
 	private void openChannel(ChannelFutureListener listener) {
@@ -18,11 +18,9 @@ package reactor.io.net.netty.tcp;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.SocketChannelConfig;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 import org.slf4j.Logger;
@@ -37,13 +35,11 @@ import reactor.io.net.config.ServerSocketOptions;
 import reactor.io.net.config.SslOptions;
 import reactor.io.net.netty.*;
 import reactor.io.net.tcp.TcpServer;
-import reactor.io.net.tcp.ssl.SSLEngineSupplier;
 import reactor.rx.Promise;
 import reactor.rx.Promises;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.net.ssl.SSLEngine;
 import java.net.InetSocketAddress;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -63,6 +59,7 @@ public class NettyTcpServer<IN, OUT> extends TcpServer<IN, OUT> {
 	private final ServerBootstrap          bootstrap;
 	private final EventLoopGroup           selectorGroup;
 	private final EventLoopGroup           ioGroup;
+	private final NettySsl                 ssl;
 
 	protected NettyTcpServer(@Nonnull Environment env,
 	                         @Nonnull Dispatcher dispatcher,
@@ -71,6 +68,7 @@ public class NettyTcpServer<IN, OUT> extends TcpServer<IN, OUT> {
 	                         final SslOptions sslOptions,
 	                         @Nullable Codec<Buffer, IN, OUT> codec) {
 		super(env, dispatcher, listenAddress, options, sslOptions, codec);
+		this.ssl = (null != sslOptions ? new NettySsl(sslOptions, false) : null);
 
 		if (options instanceof NettyServerSocketOptions) {
 			this.nettyOptions = (NettyServerSocketOptions) options;
@@ -81,16 +79,21 @@ public class NettyTcpServer<IN, OUT> extends TcpServer<IN, OUT> {
 		int selectThreadCount = env.getProperty("reactor.tcp.selectThreadCount", Integer.class,
 				Environment.PROCESSORS / 2);
 		int ioThreadCount = env.getProperty("reactor.tcp.ioThreadCount", Integer.class, Environment.PROCESSORS);
-		this.selectorGroup = new NioEventLoopGroup(selectThreadCount, new NamedDaemonThreadFactory("reactor-tcp-select"));
+		// accepted channels must suit the io group, so a user-supplied group decides the transport
+		boolean epoll = (options.epoll() || Boolean.parseBoolean(env.getProperty("reactor.tcp.epoll", "false")))
+				&& (null == nettyOptions || null == nettyOptions.eventLoopGroup());
+		this.selectorGroup = NettyNativeTransport.eventLoopGroup(epoll, selectThreadCount,
+				new NamedDaemonThreadFactory("reactor-tcp-select"));
 		if (null != nettyOptions && null != nettyOptions.eventLoopGroup()) {
 			this.ioGroup = nettyOptions.eventLoopGroup();
 		} else {
-			this.ioGroup = new NioEventLoopGroup(ioThreadCount, new NamedDaemonThreadFactory("reactor-tcp-io"));
+			this.ioGroup = NettyNativeTransport.eventLoopGroup(epoll, ioThreadCount,
+					new NamedDaemonThreadFactory("reactor-tcp-io"));
 		}
 
 		this.bootstrap = new ServerBootstrap()
 				.group(selectorGroup, ioGroup)
-				.channel(NioServerSocketChannel.class)
+				.channel(NettyNativeTransport.serverSocketChannelType(selectorGroup))
 				.option(ChannelOption.SO_BACKLOG, options.backlog())
 				.option(ChannelOption.SO_RCVBUF, options.rcvbuf())
 				.option(ChannelOption.SO_SNDBUF, options.sndbuf())
@@ -106,18 +109,15 @@ public class NettyTcpServer<IN, OUT> extends TcpServer<IN, OUT> {
 						config.setReuseAddress(options.reuseAddr());
 						config.setSoLinger(options.linger());
 						config.setTcpNoDelay(options.tcpNoDelay());
+						NettyNetChannel.setWaterMarks(config, options.writeBufferHighWaterMark(),
+								options.writeBufferLowWaterMark());
 
 						if (log.isDebugEnabled()) {
 							log.debug("CONNECT {}", ch);
 						}
 
-						if (null != sslOptions) {
-							SSLEngine ssl = new SSLEngineSupplier(sslOptions, false).get();
-							if (log.isDebugEnabled()) {
-								log.debug("SSL enabled using keystore {}",
-										(null != sslOptions.keystoreFile() ? sslOptions.keystoreFile() : "<DEFAULT>"));
-							}
-							ch.pipeline().addLast(new SslHandler(ssl));
+						if (null != ssl) {
+							ch.pipeline().addLast(ssl.newHandler(ch.alloc()));
 						}
 						if (null != nettyOptions && null != nettyOptions.pipelineConfigurer()) {
 							nettyOptions.pipelineConfigurer().accept(ch.pipeline());
@@ -139,6 +139,10 @@ public class NettyTcpServer<IN, OUT> extends TcpServer<IN, OUT> {
 						});
 					}
 				});
+
+		if (options.reusePort() && NettyNativeTransport.isEpoll(selectorGroup)) {
+			bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+		}
 	}
 
 	@Override
@@ -199,9 +203,7 @@ public class NettyTcpServer<IN, OUT> extends TcpServer<IN, OUT> {
 	protected ChannelHandler[] createChannelHandlers(NetChannelStream<IN,OUT> netChannel) {
 		NettyNetChannelInboundHandler readHandler = new NettyNetChannelInboundHandler()
 				.setNetChannel(netChannel);
-		NettyNetChannelOutboundHandler writeHandler = new NettyNetChannelOutboundHandler();
-
-		return new ChannelHandler[]{readHandler, writeHandler};
+		return new ChannelHandler[]{readHandler};
 	}
 
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.netty.udp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.DatagramPacket;
+import reactor.Environment;
+import reactor.core.Dispatcher;
+import reactor.fn.batch.BatchConsumer;
+import reactor.io.buffer.Buffer;
+import reactor.io.codec.Codec;
+import reactor.io.net.netty.NettyNetChannel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.net.InetSocketAddress;
+
+/**
+ * A {@link NettyNetChannel} over a datagram socket, which can send datagrams to any peer. Flushes are coalesced as
+ * they are for other Netty channels, so the datagrams sent around the same time, or in the same batch, are flushed
+ * together.
+ *
+ * @author Jon Brisbin
+ */
+public class NettyDatagramChannel<IN, OUT> extends NettyNetChannel<IN, OUT> {
+
+	public NettyDatagramChannel(@Nonnull Environment env,
+	                            @Nullable Codec<Buffer, IN, OUT> codec,
+	                            @Nonnull Dispatcher ioDispatcher,
+	                            @Nonnull Dispatcher eventsDispatcher,
+	                            @Nonnull DatagramChannel ioChannel) {
+		super(env, codec, ioDispatcher, eventsDispatcher, ioChannel);
+	}
+
+	/**
+	 * Send data to the given peer.
+	 *
+	 * @param data      the data to send
+	 * @param recipient the address of the peer
+	 */
+	public void sendTo(OUT data, InetSocketAddress recipient) {
+		sendTo(data, recipient, true);
+	}
+
+	/**
+	 * Get a {@link BatchConsumer} that sends data to the given peer and flushes once at the end of each batch.
+	 *
+	 * @param recipient the address of the peer
+	 *
+	 * @return a {@link BatchConsumer} for sending data out
+	 */
+	public BatchConsumer<OUT> out(final InetSocketAddress recipient) {
+		return new BatchConsumer<OUT>() {
+			private volatile boolean autoflush = true;
+
+			@Override
+			public void start() {
+				autoflush = false;
+			}
+
+			@Override
+			public void end() {
+				flush();
+				autoflush = true;
+			}
+
+			@Override
+			public void accept(OUT data) {
+				sendTo(data, recipient, autoflush);
+			}
+		};
+	}
+
+	private void sendTo(OUT data, InetSocketAddress recipient, boolean flush) {
+		try {
+			write(new DatagramPacket(encode(data), recipient), null, flush);
+		} catch (Throwable t) {
+			notifyError(t);
+		}
+	}
+
+	private ByteBuf encode(OUT data) {
+		if (null != getEncoder()) {
+			return toByteBuf(getEncoder().apply(data).byteBuffer());
+		} else if (data instanceof Buffer) {
+			return toByteBuf(((Buffer) data).byteBuffer());
+		} else if (data instanceof ByteBuf) {
+			return (ByteBuf) data;
+		}
+		throw new IllegalArgumentException("Can't send a " + data.getClass().getName() + " without a codec.");
+	}
+
+	@Override
+	public String toString() {
+		return "NettyDatagramChannel{" +
+				"channel=" + nativeConnection() +
+				'}';
+	}
+
+}
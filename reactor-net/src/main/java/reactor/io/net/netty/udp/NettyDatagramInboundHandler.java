@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.netty.udp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.socket.DatagramPacket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.io.net.NetChannelStream;
+import reactor.io.net.netty.NettyBuffer;
+
+import java.net.PortUnreachableException;
+
+/**
+ * Netty {@link io.netty.channel.ChannelInboundHandler} implementation that passes datagrams to a Reactor {@link
+ * reactor.io.net.NetChannelStream}. Each datagram is decoded on its own, in place: bytes the codec leaves over are
+ * dropped instead of being prepended to the next datagram, and the datagram is released once it's been decoded.
+ *
+ * @author Jon Brisbin
+ */
+public class NettyDatagramInboundHandler extends ChannelInboundHandlerAdapter {
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	private final NetChannelStream netChannel;
+
+	public NettyDatagramInboundHandler(NetChannelStream netChannel) {
+		this.netChannel = netChannel;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (!DatagramPacket.class.isInstance(msg)) {
+			netChannel.notifyRead(msg);
+			return;
+		}
+
+		ByteBuf content = ((DatagramPacket) msg).content();
+		if (null == netChannel.getDecoder()) {
+			// the subscribers take over the buffer
+			netChannel.notifyRead(content);
+			return;
+		}
+
+		NettyBuffer b = new NettyBuffer(content);
+		try {
+			netChannel.read(b);
+		} finally {
+			b.recycle();
+			content.release();
+		}
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		if (ctx.channel().isWritable()) {
+			netChannel.notifyWritable();
+		}
+		super.channelWritabilityChanged(ctx);
+	}
+
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+		if (cause instanceof PortUnreachableException) {
+			// a peer we sent to isn't listening, which doesn't concern the others
+			if (log.isDebugEnabled()) {
+				log.debug(ctx.channel().toString() + " " + cause.getMessage());
+			}
+			return;
+		}
+		netChannel.notifyError(cause);
+	}
+
+}
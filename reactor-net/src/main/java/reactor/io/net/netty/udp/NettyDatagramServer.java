@@ -18,14 +18,15 @@ package reactor.io.net.netty.udp;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ChannelFactory;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.socket.DatagramChannel;
 import io.netty.channel.socket.DatagramChannelConfig;
-import io.netty.channel.socket.DatagramPacket;
-import io.netty.channel.socket.nio.NioDatagramChannel;
 import io.netty.util.NetUtil;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.Environment;
@@ -36,22 +37,33 @@ import reactor.fn.batch.BatchConsumer;
 import reactor.io.buffer.Buffer;
 import reactor.io.codec.Codec;
 import reactor.io.net.config.ServerSocketOptions;
-import reactor.io.net.netty.NettyNetChannel;
-import reactor.io.net.netty.NettyNetChannelInboundHandler;
+import reactor.io.net.netty.NettyNativeTransport;
 import reactor.io.net.netty.NettyServerSocketOptions;
 import reactor.io.net.udp.DatagramServer;
 import reactor.rx.Promise;
 import reactor.rx.Promises;
 import reactor.rx.Stream;
+import reactor.rx.Streams;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * {@link reactor.io.net.udp.DatagramServer} implementation built on Netty.
+ * <p>
+ * Each wakeup reads up to {@code reactor.udp.maxMessagesPerRead} datagrams (64 by default) into pooled buffers of
+ * {@code reactor.udp.maxPacketSize} bytes (2048 by default), and each datagram is decoded on its own. When {@link
+ * ServerSocketOptions#reusePort()} is set and the epoll transport is used, one socket is bound per I/O thread so the
+ * kernel spreads datagrams over all of them.
  *
  * @author Jon Brisbin
  * @author Stephane Maldini
@@ -60,11 +72,13 @@ public class NettyDatagramServer<IN, OUT> extends DatagramServer<IN, OUT> {
 
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
-	private final    NettyServerSocketOptions nettyOptions;
-	private final    Bootstrap                bootstrap;
-	private final    EventLoopGroup           ioGroup;
-	private volatile NioDatagramChannel       channel;
-	private volatile NettyNetChannel<IN, OUT> netChannel;
+	private final    NettyServerSocketOptions            nettyOptions;
+	private final    Bootstrap                           bootstrap;
+	private final    EventLoopGroup                      ioGroup;
+	private final    int                                 socketCount;
+	private final    List<NettyDatagramChannel<IN, OUT>> netChannels;
+	private volatile DatagramChannel                     channel;
+	private volatile NettyDatagramChannel<IN, OUT>       netChannel;
 
 	public NettyDatagramServer(@Nonnull Environment env,
 	                           @Nonnull Dispatcher dispatcher,
@@ -80,31 +94,38 @@ public class NettyDatagramServer<IN, OUT> extends DatagramServer<IN, OUT> {
 			this.nettyOptions = null;
 		}
 
+		int ioThreadCount = env.getProperty("reactor.udp.ioThreadCount",
+				Integer.class,
+				Environment.PROCESSORS);
 		if (null != nettyOptions && null != nettyOptions.eventLoopGroup()) {
 			this.ioGroup = nettyOptions.eventLoopGroup();
 		} else {
-			int ioThreadCount = env.getProperty("reactor.udp.ioThreadCount",
-					Integer.class,
-					Environment.PROCESSORS);
-			this.ioGroup = new NioEventLoopGroup(ioThreadCount, new NamedDaemonThreadFactory("reactor-udp-io"));
+			// multicast needs the NIO transport
+			boolean epoll = (options.epoll() || Boolean.parseBoolean(env.getProperty("reactor.udp.epoll", "false")))
+					&& null == multicastInterface;
+			this.ioGroup = NettyNativeTransport.eventLoopGroup(epoll, ioThreadCount,
+					new NamedDaemonThreadFactory("reactor-udp-io"));
 		}
+		this.netChannels = new CopyOnWriteArrayList<NettyDatagramChannel<IN, OUT>>();
 
-		final NettyNetChannelInboundHandler inboundHandler = new NettyNetChannelInboundHandler() {
-			@Override
-			public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-				super.channelRead(ctx, ((DatagramPacket) msg).content());
-			}
-		};
+		boolean reusePort = options.reusePort() && NettyNativeTransport.isEpoll(ioGroup);
+		this.socketCount = (reusePort ? ioThreadCount : 1);
+
+		int maxMessagesPerRead = env.getProperty("reactor.udp.maxMessagesPerRead", Integer.class, 64);
+		int maxPacketSize = env.getProperty("reactor.udp.maxPacketSize", Integer.class, 2048);
 
 		this.bootstrap = new Bootstrap()
 				.group(ioGroup)
 				.option(ChannelOption.SO_RCVBUF, options.rcvbuf())
 				.option(ChannelOption.SO_SNDBUF, options.sndbuf())
 				.option(ChannelOption.SO_REUSEADDR, options.reuseAddr())
+				.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+				.option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(maxPacketSize))
+				.option(ChannelOption.MAX_MESSAGES_PER_READ, maxMessagesPerRead)
 				.channelFactory(new ChannelFactory<Channel>() {
 					@Override
 					public Channel newChannel() {
-						final NioDatagramChannel ch = new NioDatagramChannel();
+						final DatagramChannel ch = NettyNativeTransport.newDatagramChannel(ioGroup);
 						DatagramChannelConfig config = ch.config();
 						config.setReceiveBufferSize(options.rcvbuf());
 						config.setSendBufferSize(options.sndbuf());
@@ -114,10 +135,17 @@ public class NettyDatagramServer<IN, OUT> extends DatagramServer<IN, OUT> {
 							config.setNetworkInterface(multicastInterface);
 						}
 
+						return ch;
+					}
+				})
+				.handler(new ChannelInitializer<DatagramChannel>() {
+					@Override
+					protected void initChannel(final DatagramChannel ch) throws Exception {
 						if (null != nettyOptions && null != nettyOptions.pipelineConfigurer()) {
 							nettyOptions.pipelineConfigurer().accept(ch.pipeline());
 						}
-						netChannel = createChannel(ch);
+
+						final NettyDatagramChannel<IN, OUT> netChannel = createChannel(ch);
 						ch.closeFuture().addListener(new ChannelFutureListener() {
 							@Override
 							public void operationComplete(ChannelFuture future) throws Exception {
@@ -127,20 +155,11 @@ public class NettyDatagramServer<IN, OUT> extends DatagramServer<IN, OUT> {
 								netChannel.close();
 							}
 						});
-						notifyNewChannel(netChannel);
-						inboundHandler.setNetChannel(netChannel);
-
-						ch.pipeline().addLast(new ChannelOutboundHandlerAdapter() {
-							@Override
-							public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
-								super.write(ctx, msg, promise);
-							}
-						});
+						ch.pipeline().addLast(new NettyDatagramInboundHandler(netChannel));
 
-						return ch;
+						netChannels.add(netChannel);
 					}
-				})
-				.handler(inboundHandler);
+				});
 
 		if (null != listenAddress) {
 			bootstrap.localAddress(listenAddress);
@@ -150,62 +169,85 @@ public class NettyDatagramServer<IN, OUT> extends DatagramServer<IN, OUT> {
 		if (null != multicastInterface) {
 			bootstrap.option(ChannelOption.IP_MULTICAST_IF, multicastInterface);
 		}
+		if (reusePort) {
+			bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+		}
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public Promise<Void> start() {
 		final Promise<Void> promise = Promises.ready(getEnvironment(), getDispatcher());
+		final AtomicInteger pending = new AtomicInteger(socketCount);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		// every bind registers its channel with the next event loop of the group
+		for (int i = 0; i < socketCount; i++) {
+			bootstrap.bind().addListener(new ChannelFutureListener() {
+				@Override
+				public void operationComplete(ChannelFuture future) throws Exception {
+					if (future.isSuccess()) {
+						log.info("BIND {}", future.channel().localAddress());
+					} else {
+						failure.compareAndSet(null, future.cause());
+					}
+					if (pending.decrementAndGet() > 0) {
+						return;
+					}
 
-		ChannelFuture future = bootstrap.bind();
-		future.addListener(new ChannelFutureListener() {
-			@Override
-			public void operationComplete(ChannelFuture future) throws Exception {
-				if (future.isSuccess()) {
-					log.info("BIND {}", future.channel().localAddress());
-					channel = (NioDatagramChannel) future.channel();
-					notifyStart();
-					promise.onComplete();
-				} else {
-					promise.onError(future.cause());
+					if (null != failure.get()) {
+						for (NettyDatagramChannel<IN, OUT> ch : netChannels) {
+							ch.nativeConnection().close();
+						}
+						netChannels.clear();
+						promise.onError(failure.get());
+					} else {
+						// each socket is only known through its NettyDatagramChannel, so the two always match
+						netChannel = netChannels.get(0);
+						channel = (DatagramChannel) netChannel.nativeConnection();
+						notifyStart();
+						// the sockets are bound before the server starts, so they're announced once it has
+						for (NettyDatagramChannel<IN, OUT> ch : netChannels) {
+							notifyNewChannel(ch);
+						}
+						promise.onComplete();
+					}
 				}
-			}
-		});
+			});
+		}
 
 		return promise;
 	}
 
 	@Override
-	@SuppressWarnings("unchecked")
 	public Promise<Void> shutdown() {
 		final Promise<Void> d = Promises.ready(getEnvironment(), getDispatcher());
 
-		ChannelFuture future = channel.close();
-		final GenericFutureListener listener = new GenericFutureListener() {
-			@Override
-			public void operationComplete(Future future) throws Exception {
-				if (future.isSuccess()) {
-					d.onComplete();
-					notifyShutdown();
-				} else {
-					d.onError(future.cause());
-				}
-			}
-		};
-
-		future.addListener(new ChannelFutureListener() {
-			@Override
-			public void operationComplete(ChannelFuture future) throws Exception {
-				if(!future.isSuccess()){
-					d.onError(future.cause());
-					return;
-				}
+		if (netChannels.isEmpty()) {
+			// never started, or failed to
+			shutdownIoGroup(d);
+			return d;
+		}
 
-				if (null == nettyOptions || null == nettyOptions.eventLoopGroup()) {
-					ioGroup.shutdownGracefully().addListener(listener);
+		final AtomicInteger pending = new AtomicInteger(netChannels.size());
+		final AtomicBoolean failed = new AtomicBoolean();
+		for (NettyDatagramChannel<IN, OUT> ch : netChannels) {
+			ch.nativeConnection().close().addListener(new ChannelFutureListener() {
+				@Override
+				public void operationComplete(ChannelFuture future) throws Exception {
+					if (!future.isSuccess()) {
+						if (failed.compareAndSet(false, true)) {
+							d.onError(future.cause());
+						}
+						return;
+					}
+					if (pending.decrementAndGet() > 0 || failed.get()) {
+						return;
+					}
+					shutdownIoGroup(d);
 				}
-			}
-		});
+			});
+		}
 
 		return d;
 	}
@@ -221,9 +263,24 @@ public class NettyDatagramServer<IN, OUT> extends DatagramServer<IN, OUT> {
 		return this;
 	}
 
+	@Override
+	public DatagramServer<IN, OUT> send(OUT data, InetSocketAddress recipient) {
+		select(recipient).sendTo(data, recipient);
+
+		return this;
+	}
+
 	@Override
 	public Stream<IN> in() {
-		return netChannel.in();
+		if (netChannels.size() < 2) {
+			return netChannel.in();
+		}
+
+		List<Publisher<IN>> ins = new ArrayList<Publisher<IN>>(netChannels.size());
+		for (NettyDatagramChannel<IN, OUT> ch : netChannels) {
+			ins.add(ch.in());
+		}
+		return Streams.merge(ins);
 	}
 
 	@Override
@@ -231,6 +288,11 @@ public class NettyDatagramServer<IN, OUT> extends DatagramServer<IN, OUT> {
 		return netChannel.out();
 	}
 
+	@Override
+	public BatchConsumer<OUT> out(InetSocketAddress recipient) {
+		return select(recipient).out(recipient);
+	}
+
 	@Override
 	public Promise<Void> join(InetAddress multicastAddress, NetworkInterface iface) {
 		if (null == channel) {
@@ -277,17 +339,47 @@ public class NettyDatagramServer<IN, OUT> extends DatagramServer<IN, OUT> {
 		return d;
 	}
 
+	@SuppressWarnings("unchecked")
+	private void shutdownIoGroup(final Promise<Void> d) {
+		if (null != nettyOptions && null != nettyOptions.eventLoopGroup()) {
+			d.onComplete();
+			notifyShutdown();
+			return;
+		}
+		ioGroup.shutdownGracefully().addListener(new GenericFutureListener() {
+			@Override
+			public void operationComplete(Future future) throws Exception {
+				if (future.isSuccess()) {
+					d.onComplete();
+					notifyShutdown();
+				} else {
+					d.onError(future.cause());
+				}
+			}
+		});
+	}
+
 	@Override
-	protected NettyNetChannel<IN, OUT> createChannel(Object ioChannel) {
-		return new NettyNetChannel<IN, OUT>(
+	protected NettyDatagramChannel<IN, OUT> createChannel(Object ioChannel) {
+		return new NettyDatagramChannel<IN, OUT>(
 				getEnvironment(),
 				getCodec(),
 				SynchronousDispatcher.INSTANCE,
 				getDispatcher(),
-				(NioDatagramChannel) ioChannel
+				(DatagramChannel) ioChannel
 		);
 	}
 
+	/*
+	 * Always send to a peer through the same socket, so its datagrams keep their order.
+	 */
+	private NettyDatagramChannel<IN, OUT> select(InetSocketAddress recipient) {
+		if (null == channel) {
+			throw new IllegalStateException("DatagramServer not running.");
+		}
+		return netChannels.get((recipient.hashCode() & Integer.MAX_VALUE) % netChannels.size());
+	}
+
 	private static class PromiseCompletingListener implements ChannelFutureListener {
 		private final Promise<Void> d;
 
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.spec;
+
+import reactor.Environment;
+import reactor.bus.spec.DispatcherComponentSpec;
+import reactor.core.Dispatcher;
+import reactor.core.support.Assert;
+import reactor.fn.Predicate;
+import reactor.io.net.NetChannelPool;
+import reactor.io.net.NetChannelStream;
+import reactor.io.net.NetClient;
+import reactor.io.net.NetPeerStream;
+import reactor.io.net.Reconnect;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A helper class for specifying a {@link NetChannelPool}.
+ *
+ * @param <IN>  The type that will be received by the pooled connections
+ * @param <OUT> The type that will be sent by the pooled connections
+ * @author Jon Brisbin
+ */
+public class NetChannelPoolSpec<IN, OUT>
+		extends DispatcherComponentSpec<NetChannelPoolSpec<IN, OUT>, NetChannelPool<IN, OUT>> {
+
+	private final NetClient<IN, OUT, ?> client;
+
+	private int                                         maxConnections = 8;
+	private int                                         maxPending     = 1024;
+	private long                                        idleTimeout    = 60000;
+	private Predicate<? super NetChannelStream<IN, OUT>> healthCheck;
+	private Reconnect                                   reconnect;
+
+	/**
+	 * Create a {@code NetChannelPoolSpec} for connections opened by the given client. If no {@link Environment} is set,
+	 * the client's is used.
+	 *
+	 * @param client
+	 * 		the client that opens connections
+	 */
+	public NetChannelPoolSpec(@Nonnull NetClient<IN, OUT, ?> client) {
+		Assert.notNull(client, "NetClient cannot be null.");
+		this.client = client;
+	}
+
+	/**
+	 * Set the maximum number of connections open at the same time. Defaults to {@code 8}.
+	 *
+	 * @param maxConnections
+	 * 		the maximum number of connections
+	 *
+	 * @return {@literal this}
+	 */
+	public NetChannelPoolSpec<IN, OUT> maxConnections(int maxConnections) {
+		Assert.isTrue(maxConnections > 0, "maxConnections must be greater than 0.");
+		this.maxConnections = maxConnections;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of acquisitions that may wait for a connection. Defaults to {@code 1024}.
+	 *
+	 * @param maxPending
+	 * 		the maximum number of waiting acquisitions
+	 *
+	 * @return {@literal this}
+	 */
+	public NetChannelPoolSpec<IN, OUT> maxPending(int maxPending) {
+		Assert.isTrue(maxPending >= 0, "maxPending cannot be negative.");
+		this.maxPending = maxPending;
+		return this;
+	}
+
+	/**
+	 * Set how long, in milliseconds, a connection may stay idle before it is closed. Defaults to one minute. {@code
+	 * 0} keeps idle connections open.
+	 *
+	 * @param idleTimeout
+	 * 		the idle timeout in milliseconds
+	 *
+	 * @return {@literal this}
+	 */
+	public NetChannelPoolSpec<IN, OUT> idleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+		return this;
+	}
+
+	/**
+	 * Set the check an idle connection must pass before it is handed out again.
+	 *
+	 * @param healthCheck
+	 * 		the health check
+	 *
+	 * @return {@literal this}
+	 */
+	public NetChannelPoolSpec<IN, OUT> healthCheck(@Nullable Predicate<? super NetChannelStream<IN, OUT>> healthCheck) {
+		this.healthCheck = healthCheck;
+		return this;
+	}
+
+	/**
+	 * Set the strategy that decides whether and when to retry after a connection couldn't be opened, such as one
+	 * built by {@link reactor.io.net.tcp.spec.IncrementalBackoffReconnectSpec}. By default, waiting acquisitions fail
+	 * as soon as a connection can't be opened.
+	 *
+	 * @param reconnect
+	 * 		the reconnection strategy
+	 *
+	 * @return {@literal this}
+	 */
+	public NetChannelPoolSpec<IN, OUT> reconnect(@Nullable Reconnect reconnect) {
+		this.reconnect = reconnect;
+		return this;
+	}
+
+	@Override
+	protected NetChannelPool<IN, OUT> configure(Dispatcher dispatcher, Environment environment) {
+		if (null == environment && client instanceof NetPeerStream) {
+			environment = ((NetPeerStream) client).getEnvironment();
+		}
+		Assert.notNull(environment, "An Environment is required to time out idle connections.");
+		return new NetChannelPool<IN, OUT>(
+				client,
+				environment,
+				dispatcher,
+				maxConnections,
+				maxPending,
+				idleTimeout,
+				healthCheck,
+				reconnect
+		);
+	}
+
+}
@@ -24,47 +24,102 @@ import java.io.FileInputStream;
 import java.security.KeyStore;
 
 /**
+ * Supplies {@link SSLEngine SSLEngines} configured from {@link SslOptions}. The keystore is read and the {@link
+ * SSLContext} is built once, when the supplier is created, and every call to {@link #get()} creates a new engine from
+ * that context. Engines created from the same context share its session cache, so clients that reconnect can resume
+ * their sessions instead of going through a full handshake.
+ * <p>
+ * Without a keystore, engines come from a context of their own that is set up like the JVM's default one, so that the
+ * session cache settings of the {@link SslOptions} don't leak into {@link SSLContext#getDefault()}.
+ *
  * @author Jon Brisbin
  */
 public class SSLEngineSupplier implements Supplier<SSLEngine> {
 
-	private final SSLEngine ssl;
+	private final SSLContext ctx;
+	private final boolean    client;
 
 	public SSLEngineSupplier(SslOptions sslOpts, boolean client) throws Exception {
-		if (null == sslOpts || null == sslOpts.keystoreFile()) {
-			ssl = SSLContext.getDefault().createSSLEngine();
-			ssl.setUseClientMode(client);
-			return;
-		}
-
-		KeyStore ks = KeyStore.getInstance("JKS");
-		FileInputStream ksin = new FileInputStream(sslOpts.keystoreFile());
-		ks.load(ksin, sslOpts.keystorePasswd().toCharArray());
-
-		SSLContext ctx = SSLContext.getInstance(sslOpts.sslProtocol());
-		KeyManager[] keyManagers;
-		TrustManager[] trustManagers;
-		if (null != sslOpts.trustManagers()) {
-			trustManagers = sslOpts.trustManagers().get();
+		this.client = client;
+		if (null == sslOpts) {
+			ctx = SSLContext.getDefault();
+		} else if (null == sslOpts.keystoreFile()) {
+			// a new instance of the default context, with its own session caches
+			ctx = SSLContext.getInstance("Default");
 		} else {
-			TrustManagerFactory tmf = TrustManagerFactory.getInstance(sslOpts.trustManagerFactoryAlgorithm());
-			tmf.init(ks);
-			trustManagers = tmf.getTrustManagers();
-		}
+			KeyStore ks = KeyStore.getInstance("JKS");
+			FileInputStream ksin = new FileInputStream(sslOpts.keystoreFile());
+			try {
+				ks.load(ksin, sslOpts.keystorePasswd().toCharArray());
+			} finally {
+				ksin.close();
+			}
 
-		KeyManagerFactory kmf = KeyManagerFactory.getInstance(sslOpts.keyManagerFactoryAlgorithm());
-		kmf.init(ks, (null != sslOpts.keyManagerPasswd() ? sslOpts.keyManagerPasswd() : sslOpts.keystorePasswd()).toCharArray());
-		keyManagers = kmf.getKeyManagers();
+			ctx = SSLContext.getInstance(sslOpts.sslProtocol());
+			KeyManager[] keyManagers;
+			TrustManager[] trustManagers;
+			if (null != sslOpts.trustManagers()) {
+				trustManagers = sslOpts.trustManagers().get();
+			} else {
+				TrustManagerFactory tmf = TrustManagerFactory.getInstance(sslOpts.trustManagerFactoryAlgorithm());
+				tmf.init(ks);
+				trustManagers = tmf.getTrustManagers();
+			}
 
-		ctx.init(keyManagers, trustManagers, null);
+			KeyManagerFactory kmf = KeyManagerFactory.getInstance(sslOpts.keyManagerFactoryAlgorithm());
+			kmf.init(ks, (null != sslOpts.keyManagerPasswd() ? sslOpts.keyManagerPasswd() : sslOpts.keystorePasswd()).toCharArray());
+			keyManagers = kmf.getKeyManagers();
 
-		ssl = ctx.createSSLEngine();
-		ssl.setUseClientMode(client);
+			ctx.init(keyManagers, trustManagers, null);
+		}
+
+		if (null != sslOpts) {
+			SSLSessionContext sessions = (client ? ctx.getClientSessionContext() : ctx.getServerSessionContext());
+			if (null != sessions && sslOpts.sessionCacheSize() > 0) {
+				sessions.setSessionCacheSize(sslOpts.sessionCacheSize());
+			}
+			if (null != sessions && sslOpts.sessionTimeout() > 0) {
+				sessions.setSessionTimeout(sslOpts.sessionTimeout());
+			}
+		}
 	}
 
+	/**
+	 * Create a new {@link SSLEngine}.
+	 *
+	 * @return a new engine
+	 */
 	@Override
 	public SSLEngine get() {
+		SSLEngine ssl = ctx.createSSLEngine();
+		ssl.setUseClientMode(client);
+		return ssl;
+	}
+
+	/**
+	 * Create a new {@link SSLEngine} for a connection to the given peer. Clients need the peer's address to find a
+	 * session they can resume.
+	 *
+	 * @param peerHost
+	 * 		the host name of the peer
+	 * @param peerPort
+	 * 		the port of the peer
+	 *
+	 * @return a new engine
+	 */
+	public SSLEngine get(String peerHost, int peerPort) {
+		SSLEngine ssl = ctx.createSSLEngine(peerHost, peerPort);
+		ssl.setUseClientMode(client);
 		return ssl;
 	}
 
+	/**
+	 * Get the {@link SSLContext} engines are created from.
+	 *
+	 * @return the context
+	 */
+	public SSLContext getContext() {
+		return ctx;
+	}
+
 }
@@ -77,6 +77,18 @@ public abstract class DatagramServer<IN, OUT>
 	 */
 	public abstract DatagramServer<IN, OUT> send(OUT data);
 
+	/**
+	 * Send data to the given peer. Datagrams sent together are flushed together.
+	 *
+	 * @param data
+	 * 		the data to send
+	 * @param recipient
+	 * 		the address of the peer
+	 *
+	 * @return {@literal this}
+	 */
+	public abstract DatagramServer<IN, OUT> send(OUT data, InetSocketAddress recipient);
+
 	/**
 	 * Retrieve the {@link reactor.rx.Stream} on which can be composed actions to take when data comes into
 	 * this {@literal DatagramServer}.
@@ -92,6 +104,17 @@ public abstract class DatagramServer<IN, OUT>
 	 */
 	public abstract BatchConsumer<OUT> out();
 
+	/**
+	 * Retrieve a {@link reactor.fn.batch.BatchConsumer} that sends data to the given peer. The datagrams of a batch are
+	 * flushed once, at its end.
+	 *
+	 * @param recipient
+	 * 		the address of the peer
+	 *
+	 * @return a {@link reactor.fn.batch.BatchConsumer} for sending data out
+	 */
+	public abstract BatchConsumer<OUT> out(InetSocketAddress recipient);
+
 	/**
 	 * Join a multicast group.
 	 *
@@ -20,9 +20,7 @@ import com.gs.collections.api.list.MutableList;
 import com.gs.collections.impl.block.predicate.checked.CheckedPredicate;
 import com.gs.collections.impl.list.mutable.FastList;
 import com.gs.collections.impl.list.mutable.SynchronizedMutableList;
-import org.zeromq.ZFrame;
 import org.zeromq.ZMQ;
-import org.zeromq.ZMsg;
 import reactor.Environment;
 import reactor.core.Dispatcher;
 import reactor.fn.Consumer;
@@ -35,7 +33,11 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
-import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * @author Jon Brisbin
@@ -43,15 +45,18 @@ import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
  */
 public class ZeroMQNetChannel<IN, OUT> extends NetChannelStream<IN, OUT> {
 
-	private static final AtomicReferenceFieldUpdater<ZeroMQNetChannel, ZMsg> MSG_UPD =
-			AtomicReferenceFieldUpdater.newUpdater(ZeroMQNetChannel.class, ZMsg.class, "currentMsg");
+	private static final AtomicIntegerFieldUpdater<ZeroMQNetChannel> WIP =
+			AtomicIntegerFieldUpdater.newUpdater(ZeroMQNetChannel.class, "wip");
 
 	private final ZeroMQConsumerSpec    eventSpec     = new ZeroMQConsumerSpec();
 	private final MutableList<Consumer<Void>> closeHandlers = SynchronizedMutableList.of(FastList.<Consumer<Void>>newList());
+	// frames waiting for a flush, each followed by the promise of its write, if any
+	private final Queue<Object>         pending       = new ConcurrentLinkedQueue<Object>();
 
 	private volatile String     connectionId;
+	private volatile byte[]     connectionIdFrame;
 	private volatile ZMQ.Socket socket;
-	private volatile ZMsg       currentMsg;
+	private volatile int        wip;
 
 	public ZeroMQNetChannel(@Nonnull Environment env,
 	                        @Nonnull Dispatcher eventsDispatcher,
@@ -62,6 +67,7 @@ public class ZeroMQNetChannel<IN, OUT> extends NetChannelStream<IN, OUT> {
 
 	public ZeroMQNetChannel<IN, OUT> setConnectionId(String connectionId) {
 		this.connectionId = connectionId;
+		this.connectionIdFrame = connectionId.getBytes();
 		return this;
 	}
 
@@ -75,24 +81,24 @@ public class ZeroMQNetChannel<IN, OUT> extends NetChannelStream<IN, OUT> {
 		return null;
 	}
 
+	/**
+	 * Queue the bytes of the buffer as a frame of the next message. The bytes are copied into a new frame of exactly
+	 * their size, since the caller may reuse the buffer as soon as this returns while the frame is only sent at the
+	 * next flush. Frames are not pooled or reused: the outgoing ZeroMQ message wraps the frame rather than copying it,
+	 * and over {@code inproc} is handed to the peer as is, so there is no point at which a sent frame is known to be
+	 * free again.
+	 */
 	@Override
 	protected void write(ByteBuffer data, final Promise<Void> onComplete, boolean flush) {
-		byte[] bytes = new byte[data.remaining()];
-		data.get(bytes);
-		boolean isNewMsg = MSG_UPD.compareAndSet(this, null, new ZMsg());
-		ZMsg msg = MSG_UPD.get(this);
-		if (isNewMsg) {
-			switch (socket.getType()) {
-				case ZMQ.ROUTER:
-					msg.add(new ZFrame(connectionId));
-					break;
-				default:
-			}
+		ByteBuffer frame = ByteBuffer.allocate(data.remaining());
+		frame.put(data).flip();
+		pending.add(frame);
+		if (null != onComplete) {
+			pending.add(onComplete);
 		}
-		msg.add(new ZFrame(bytes));
 
 		if (flush) {
-			doFlush(onComplete);
+			flush();
 		}
 	}
 
@@ -103,23 +109,65 @@ public class ZeroMQNetChannel<IN, OUT> extends NetChannelStream<IN, OUT> {
 		write(buff.byteBuffer(), onComplete, flush);
 	}
 
+	/**
+	 * Send the frames written so far as one multipart message. Only one thread sends at a time: a thread that finds
+	 * another one sending leaves its frames to it.
+	 */
 	@Override
-	protected synchronized void flush() {
-		doFlush(null);
+	protected void flush() {
+		if (WIP.getAndIncrement(this) != 0) {
+			return;
+		}
+		int missed = 1;
+		do {
+			sendPending();
+			missed = WIP.addAndGet(this, -missed);
+		} while (missed != 0);
 	}
 
-	private void doFlush(final Promise<Void> onComplete) {
-		ZMsg msg = MSG_UPD.get(ZeroMQNetChannel.this);
-		MSG_UPD.compareAndSet(ZeroMQNetChannel.this, msg, null);
-		if (null != msg) {
-			boolean success = msg.send(socket);
-			if (null != onComplete) {
-				if (success) {
+	@SuppressWarnings("unchecked")
+	private void sendPending() {
+		List<Promise<Void>> sent = null;
+		Throwable error = null;
+		ByteBuffer frame = null;
+		boolean success = true;
+		try {
+			Object o;
+			while (null != (o = pending.poll())) {
+				if (o instanceof ByteBuffer) {
+					if (null != frame) {
+						success &= socket.sendByteBuffer(frame, ZMQ.SNDMORE) >= 0;
+					} else if (socket.getType() == ZMQ.ROUTER) {
+						success &= socket.sendMore(connectionIdFrame);
+					}
+					frame = (ByteBuffer) o;
+				} else {
+					if (null == sent) {
+						sent = new ArrayList<Promise<Void>>();
+					}
+					sent.add((Promise<Void>) o);
+				}
+			}
+			if (null != frame) {
+				success &= socket.sendByteBuffer(frame, 0) >= 0;
+			}
+		} catch (RuntimeException e) {
+			error = e;
+		}
+
+		if (null == error && !success) {
+			error = new RuntimeException("ZeroMQ Message could not be sent");
+		}
+		if (null != sent) {
+			for (Promise<Void> onComplete : sent) {
+				if (null == error) {
 					onComplete.onComplete();
 				} else {
-					onComplete.onError(new RuntimeException("ZeroMQ Message could not be sent"));
+					onComplete.onError(error);
 				}
 			}
+		} else if (null != error) {
+			notifyError(error);
 		}
 	}
 
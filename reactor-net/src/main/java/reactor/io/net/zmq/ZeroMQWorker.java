@@ -32,6 +32,12 @@ import java.util.UUID;
  */
 public abstract class ZeroMQWorker implements Runnable {
 
+	/**
+	 * The most messages read from the socket each time the loop finds it readable, so that one busy peer doesn't keep
+	 * the loop from its other events.
+	 */
+	private static final int MAX_MESSAGES_PER_POLL = 64;
+
 	private final Logger log   = LoggerFactory.getLogger(getClass());
 	private final ZLoop  zloop = new ZLoop();
 
@@ -58,15 +64,17 @@ public abstract class ZeroMQWorker implements Runnable {
 		this.inputHandler = new ZLoop.IZLoopHandler() {
 			@Override
 			public int handle(ZLoop loop, ZMQ.PollItem item, Object arg) {
-				ZMsg msg = ZMsg.recvMsg(socket);
-				if (null == msg || msg.size() == 0) {
-					return 0;
-				}
 				if (closed) {
 					return -1;
 				}
 
-				b.onNext(msg);
+				// drain what has arrived instead of going back to the poller for each message
+				ZMsg msg;
+				for (int i = 0; i < MAX_MESSAGES_PER_POLL && null != (msg = ZMsg.recvMsg(socket, ZMQ.DONTWAIT)); i++) {
+					if (msg.size() > 0) {
+						b.onNext(msg);
+					}
+				}
 
 				return 0;
 			}
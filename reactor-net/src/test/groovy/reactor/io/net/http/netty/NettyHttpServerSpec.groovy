@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.http.netty
+
+import reactor.Environment
+import reactor.fn.Consumer
+import reactor.io.codec.StringCodec
+import reactor.io.net.http.HttpChannel
+import reactor.io.net.http.spec.HttpServerSpec
+import reactor.io.net.netty.http.NettyHttpServer
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * @author Jon Brisbin
+ */
+class NettyHttpServerSpec extends Specification {
+
+	static final int port = 26875
+	Environment env
+	def server
+
+	def setup() {
+		env = new Environment()
+	}
+
+	def cleanup() {
+		def stopLatch = new CountDownLatch(1)
+		server?.shutdown()?.onSuccess({
+			stopLatch.countDown()
+		} as Consumer<Void>)
+		stopLatch.await(5, TimeUnit.SECONDS)
+		env.shutdown()
+	}
+
+	def "NettyHttpServer routes requests and answers pipelined requests in order"() {
+		given: "an HttpServer whose first response is slower than the second"
+		server = new HttpServerSpec<String, String>(NettyHttpServer).
+				env(env).
+				listen(port).
+				codec(new StringCodec()).
+				get()
+		server.get("/users/{id}", { HttpChannel<String, String> ch ->
+			def id = ch.params().id
+			Thread.start {
+				if (id == "1") {
+					Thread.sleep(200)
+				}
+				ch.send("user " + id).onSuccess({ ch.close() } as Consumer<Void>)
+			}
+		} as Consumer<HttpChannel<String, String>>)
+		server.start().awaitSuccess(5, TimeUnit.SECONDS)
+
+		when: "two requests are sent without waiting for the first response"
+		def socket = new Socket("localhost", port)
+		socket.outputStream.write(("GET /users/1 HTTP/1.1\r\nHost: localhost\r\n\r\n" +
+				"GET /users/2 HTTP/1.1\r\nHost: localhost\r\n\r\n").bytes)
+		def responses = readUntil(socket, 2, "0\r\n\r\n")
+
+		then: "both responses are chunked and come back in request order"
+		responses.count("HTTP/1.1 200 OK") == 2
+		responses.count("Transfer-Encoding: chunked") == 2
+		responses.indexOf("user 1") < responses.indexOf("user 2")
+
+		when: "a request for a path that no route matches is sent on the same connection"
+		socket.outputStream.write("GET /groups/1 HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".bytes)
+		def notFound = readToEnd(socket)
+
+		then: "it is answered with a 404 and the connection is closed"
+		notFound.startsWith("HTTP/1.1 404 Not Found")
+		notFound.contains("Content-Length: 0")
+
+		cleanup:
+		socket?.close()
+	}
+
+	def "NettyHttpServer streams request bodies to subscribers when no route is registered"() {
+		given: "an HttpServer that echoes request bodies"
+		server = new HttpServerSpec<String, String>(NettyHttpServer).
+				env(env).
+				listen(port).
+				codec(new StringCodec()).
+				get()
+		server.consume { HttpChannel<String, String> ch ->
+			ch.in().toList().onSuccess({ List<String> body ->
+				def echo = ch.method() + " " + ch.path() + " " + body.join()
+				ch.responseHeader("Content-Length", "" + echo.length())
+				ch.send(echo).onSuccess({ ch.close() } as Consumer<Void>)
+			} as Consumer<List<String>>)
+		}
+		server.start().awaitSuccess(5, TimeUnit.SECONDS)
+
+		when: "a chunked request is sent by an HTTP/1.0 client asking for a persistent connection"
+		def socket = new Socket("localhost", port)
+		socket.outputStream.write(("POST /echo?x=1 HTTP/1.0\r\nConnection: keep-alive\r\n" +
+				"Transfer-Encoding: chunked\r\n\r\n5\r\nhello\r\n6\r\n world\r\n0\r\n\r\n").bytes)
+		def response = readUntil(socket, 1, "POST /echo hello world")
+
+		then: "the whole body was read and the connection is kept alive"
+		response.startsWith("HTTP/1.0 200 OK")
+		response.contains("Content-Length: 22")
+		response.toLowerCase().contains("connection: keep-alive")
+
+		cleanup:
+		socket?.close()
+	}
+
+	static String readUntil(Socket socket, int count, String terminator) {
+		socket.soTimeout = 5000
+		def sb = new StringBuilder()
+		def buf = new byte[1024]
+		while (sb.toString().count(terminator) < count) {
+			int read = socket.inputStream.read(buf)
+			if (read < 0) {
+				break
+			}
+			sb.append(new String(buf, 0, read, "UTF-8"))
+		}
+		sb.toString()
+	}
+
+	static String readToEnd(Socket socket) {
+		socket.soTimeout = 5000
+		new String(socket.inputStream.bytes, "UTF-8")
+	}
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.netty
+
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.Unpooled
+import io.netty.channel.ChannelHandlerContext
+import io.netty.channel.ChannelOutboundHandlerAdapter
+import io.netty.channel.DefaultFileRegion
+import io.netty.channel.embedded.EmbeddedChannel
+import org.reactivestreams.Publisher
+import org.reactivestreams.Subscriber
+import org.reactivestreams.Subscription
+import reactor.Environment
+import reactor.core.dispatch.SynchronousDispatcher
+import reactor.io.buffer.Buffer
+import reactor.io.codec.StandardCodecs
+import reactor.io.net.NetChannelStream
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.file.Files
+
+/**
+ * @author Jon Brisbin
+ */
+class NettyNetChannelSpec extends Specification {
+
+	Environment env
+	EmbeddedChannel ioChannel
+	int flushes
+
+	def setup() {
+		env = new Environment()
+		flushes = 0
+		ioChannel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+			@Override
+			void flush(ChannelHandlerContext ctx) throws Exception {
+				flushes++
+				super.flush(ctx)
+			}
+		})
+	}
+
+	def cleanup() {
+		env.shutdown()
+	}
+
+	def "Writes issued together are flushed once"() {
+		given: "a NettyNetChannel"
+			def netChannel = newNetChannel()
+
+		when: "several messages are written"
+			3.times { netChannel.echo(Buffer.wrap("Hello World!")) }
+
+		then: "nothing has been flushed yet"
+			flushes == 0
+
+		when: "the event loop runs"
+			ioChannel.runPendingTasks()
+
+		then: "all messages were flushed at once"
+			flushes == 1
+			3.times {
+				ByteBuf buf = ioChannel.readOutbound()
+				assert buf.toString(java.nio.charset.Charset.forName("UTF-8")) == "Hello World!"
+			}
+	}
+
+	def "A publisher is asked for more only as its items are written"() {
+		given: "a NettyNetChannel and a publisher of many items"
+			def netChannel = newNetChannel()
+			def emitted = 0
+			def publisher = { Subscriber<Buffer> s ->
+				s.onSubscribe([
+						request: { long n -> n.times { emitted++; s.onNext(Buffer.wrap("item")) } },
+						cancel : {}
+				] as Subscription)
+			} as Publisher<Buffer>
+
+		when: "the publisher is echoed but nothing has been flushed"
+			netChannel.echoFrom(publisher)
+
+		then: "no more than a window of items was requested"
+			emitted == NetChannelStream.ECHO_WINDOW
+
+		when: "the event loop flushes the pending writes"
+			ioChannel.runPendingTasks()
+
+		then: "each completed write was replaced by one more item"
+			emitted == 2 * NetChannelStream.ECHO_WINDOW
+
+		cleanup:
+			Object msg
+			while (null != (msg = ioChannel.readOutbound())) {
+				msg.release()
+			}
+	}
+
+	def "Direct Buffers are copied so that they can be reused once written"() {
+		given: "a NettyNetChannel and a direct Buffer"
+			def netChannel = newNetChannel()
+			def data = ByteBuffer.allocateDirect(4).putInt(42)
+			data.flip()
+
+		when: "the Buffer is written"
+			netChannel.echo(new Buffer(data))
+			ioChannel.runPendingTasks()
+			ByteBuf buf = ioChannel.readOutbound()
+
+		then: "the written ByteBuf doesn't share the Buffer's memory"
+			buf.getInt(0) == 42
+			data.putInt(0, 7)
+			buf.getInt(0) == 42
+
+		cleanup:
+			buf?.release()
+	}
+
+	def "Files are written as file regions"() {
+		given: "a NettyNetChannel and a file"
+			def netChannel = newNetChannel()
+			def file = Files.createTempFile("reactor-sendfile", ".txt")
+			Files.write(file, "Hello World!".bytes)
+
+		when: "a region of the file is sent"
+			netChannel.sendFile(file, 6, 5)
+			ioChannel.runPendingTasks()
+			DefaultFileRegion region = ioChannel.readOutbound()
+
+		then: "the region was written for the transport to send"
+			region.position() == 6
+			region.count() == 5
+
+		cleanup:
+			region?.release()
+			Files.deleteIfExists(file)
+	}
+
+	def "A NettyBuffer reads the Netty buffer in place until it is recycled"() {
+		given: "a Netty buffer"
+			def byteBuf = Unpooled.buffer().writeBytes("Hello World!".bytes)
+
+		when: "a NettyBuffer is created over it"
+			def buffer = new NettyBuffer(byteBuf)
+
+		then: "it shares the Netty buffer's memory and holds a reference to it"
+			byteBuf.refCnt() == 2
+			byteBuf.setByte(0, (int) 'J')
+			buffer.asString() == "Jello World!"
+			buffer.skip(5).consumed() == 5
+
+		when: "it is recycled"
+			buffer.recycle()
+			buffer.recycle()
+
+		then: "the reference was released once"
+			byteBuf.refCnt() == 1
+	}
+
+	def "Messages split over several reads are decoded and the reads are released"() {
+		given: "a NettyNetChannel that decodes lines"
+			def lines = []
+			def handler = new NettyNetChannelInboundHandler()
+			def channel = new EmbeddedChannel(handler)
+			def netChannel = new NettyNetChannel<String, String>(env, StandardCodecs.LINE_FEED_CODEC,
+					SynchronousDispatcher.INSTANCE, SynchronousDispatcher.INSTANCE, channel)
+			netChannel.consume { lines << it }
+			handler.setNetChannel(netChannel)
+
+		when: "lines are read in pieces"
+			def reads = ["Hel", "lo\nWor", "ld\nand", " more\n"].collect { Unpooled.copiedBuffer(it.bytes) }
+			reads.each { channel.writeInbound(it) }
+
+		then: "every line was decoded and every read released"
+			lines == ["Hello", "World", "and more"]
+			reads.every { it.refCnt() == 0 }
+	}
+
+	private NettyNetChannel<Buffer, Buffer> newNetChannel() {
+		new NettyNetChannel<Buffer, Buffer>(env, null, SynchronousDispatcher.INSTANCE, SynchronousDispatcher.INSTANCE,
+				ioChannel)
+	}
+
+}
@@ -1,7 +1,9 @@
 package reactor.io.net.tcp.encoding
 
+import reactor.fn.Consumer
 import reactor.io.buffer.Buffer
 import reactor.io.net.codec.syslog.SyslogCodec
+import reactor.io.net.codec.syslog.SyslogMessage
 import spock.lang.Specification
 
 /**
@@ -23,4 +25,127 @@ class SyslogCodecSpec extends Specification{
 			host == "mymachine"
 	}
 
+	def "SyslogCodec decodes the fields of RFC 3164 messages"() {
+		given: "a RFC 3164 message"
+			def codec = new SyslogCodec()
+			def data = Buffer.wrap("<34>Oct  1 22:14:15 mymachine su: 'su root' failed for lonvick on /dev/pts/8\n")
+			def expected = Calendar.instance
+			expected.set(expected.get(Calendar.YEAR), Calendar.OCTOBER, 1, 22, 14, 15)
+			expected.set(Calendar.MILLISECOND, 0)
+			if (expected.timeInMillis > System.currentTimeMillis() + 24 * 60 * 60 * 1000L) {
+				expected.add(Calendar.YEAR, -1)
+			}
+
+		when: "data is decoded"
+			def msg = codec.decoder(null).apply(data)
+
+		then: "every field was decoded"
+			msg.priority == 34
+			msg.facility == 4
+			msg.severity == 2
+			msg.version == 0
+			msg.timestamp == expected.time
+			msg.host == "mymachine"
+			msg.message == "su: 'su root' failed for lonvick on /dev/pts/8"
+			msg.toString() == "<34>Oct  1 22:14:15 mymachine su: 'su root' failed for lonvick on /dev/pts/8"
+	}
+
+	def "SyslogCodec decodes the fields of RFC 5424 messages"() {
+		given: "RFC 5424 messages"
+			def codec = new SyslogCodec()
+			def data = Buffer.wrap(
+					"<165>1 2003-10-11T22:14:15.003Z mymachine.example.com evntslog - ID47 " +
+							"[exampleSDID@32473 iut=\"3\" eventSource=\"App\\]\"][examplePriority@32473 class=\"high\"] " +
+							"An application event log entry\n" +
+							"<34>1 2003-08-24T05:14:15.000003-07:00 - - - - -\n")
+			def messages = []
+
+		when: "data is decoded"
+			codec.decoder({ messages << it } as Consumer<SyslogMessage>).apply(data)
+
+		then: "every field was decoded"
+			messages.size() == 2
+			messages[0].priority == 165
+			messages[0].version == 1
+			messages[0].timestamp.time == 1065910455003L
+			messages[0].host == "mymachine.example.com"
+			messages[0].appName == "evntslog"
+			messages[0].procId == null
+			messages[0].msgId == "ID47"
+			messages[0].structuredData ==
+					'[exampleSDID@32473 iut="3" eventSource="App\\]"][examplePriority@32473 class="high"]'
+			messages[0].message == "An application event log entry"
+
+		and: "nil fields were left out"
+			messages[1].timestamp.time == 1061727255000L
+			messages[1].host == null
+			messages[1].appName == null
+			messages[1].structuredData == null
+			messages[1].message == ""
+	}
+
+	def "SyslogCodec takes the year of RFC 3164 timestamps from the clock"() {
+		given: "a message from an hour ago and one stamped 30 days ahead"
+			def codec = new SyslogCodec()
+			def past = Calendar.instance
+			past.add(Calendar.HOUR_OF_DAY, -1)
+			past.set(Calendar.MILLISECOND, 0)
+			def ahead = Calendar.instance
+			ahead.add(Calendar.DAY_OF_MONTH, 30)
+			ahead.set(Calendar.MILLISECOND, 0)
+			def data = Buffer.wrap(rfc3164(past, "past") + rfc3164(ahead, "ahead"))
+			def yearBefore = ahead.clone() as Calendar
+			yearBefore.add(Calendar.YEAR, -1)
+			def messages = []
+
+		when: "data is decoded"
+			codec.decoder({ messages << it } as Consumer<SyslogMessage>).apply(data)
+
+		then: "the recent message is from this year and the one ahead of the clock from the year before"
+			messages*.message == ["past", "ahead"]
+			messages[0].timestamp == past.time
+			messages[1].timestamp == yearBefore.time
+	}
+
+	def "SyslogCodec only decodes a line as RFC 5424 when it has a RFC 5424 timestamp"() {
+		given: "a RFC 3164 message starting with a number and a RFC 5424 message with no timestamp"
+			def codec = new SyslogCodec()
+			def data = Buffer.wrap("<13>2 failed logins\n<13>1 - mymachine su - - - 'su root' failed\n")
+			def messages = []
+
+		when: "data is decoded"
+			codec.decoder({ messages << it } as Consumer<SyslogMessage>).apply(data)
+
+		then: "the number was left in the RFC 3164 message"
+			messages[0].version == 0
+			messages[0].timestamp == null
+			messages[0].message == "2 failed logins"
+
+		and: "the nil timestamp was taken for RFC 5424"
+			messages[1].version == 1
+			messages[1].timestamp == null
+			messages[1].host == "mymachine"
+			messages[1].message == "'su root' failed"
+	}
+
+	def "SyslogCodec leaves an incomplete line in the buffer"() {
+		given: "two complete lines and the start of a third"
+			def codec = new SyslogCodec()
+			def data = Buffer.wrap("<34>Oct 11 22:14:15 host1 first\r\n<34>Oct 11 22:14:15 host2 second\n<34>Oct 11")
+			def messages = []
+
+		when: "data is decoded"
+			codec.decoder({ messages << it } as Consumer<SyslogMessage>).apply(data)
+
+		then: "the complete lines were decoded and the rest is left"
+			messages*.host == ["host1", "host2"]
+			messages*.message == ["first", "second"]
+			messages[0].timestamp == messages[1].timestamp
+			data.asString() == "<34>Oct 11"
+	}
+
+	static String rfc3164(Calendar cal, String message) {
+		String.format(Locale.US, "<13>%tb %2d %tT mymachine %s\n", cal, cal.get(Calendar.DAY_OF_MONTH), cal, message)
+	}
+
 }
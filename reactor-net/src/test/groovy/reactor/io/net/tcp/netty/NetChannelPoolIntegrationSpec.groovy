@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.tcp.netty
+
+import reactor.Environment
+import reactor.core.dispatch.SynchronousDispatcher
+import reactor.fn.Consumer
+import reactor.io.codec.StandardCodecs
+import reactor.io.net.NetChannelStream
+import reactor.io.net.NetClient
+import reactor.io.net.netty.tcp.NettyTcpClient
+import reactor.io.net.netty.tcp.NettyTcpServer
+import reactor.io.net.spec.NetChannelPoolSpec
+import reactor.io.net.tcp.spec.IncrementalBackoffReconnectSpec
+import reactor.io.net.tcp.spec.TcpClientSpec
+import reactor.io.net.tcp.spec.TcpServerSpec
+import reactor.io.net.tcp.support.SocketUtils
+import reactor.rx.Promises
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author Jon Brisbin
+ */
+class NetChannelPoolIntegrationSpec extends Specification {
+
+	Environment env
+	int port
+	def server
+	def client
+	def connections = new AtomicInteger()
+
+	def setup() {
+		env = new Environment()
+		port = SocketUtils.findAvailableTcpPort()
+		server = new TcpServerSpec<String, String>(NettyTcpServer).
+				env(env).
+				listen(port).
+				codec(StandardCodecs.LINE_FEED_CODEC).
+				get()
+		server.consume { conn ->
+			connections.incrementAndGet()
+			conn.consume { line -> conn.echo("echo " + line) }
+		}
+		server.start().awaitSuccess(5, TimeUnit.SECONDS)
+		client = new TcpClientSpec<String, String>(NettyTcpClient).
+				env(env).
+				codec(StandardCodecs.LINE_FEED_CODEC).
+				connect("localhost", port).
+				get()
+	}
+
+	def cleanup() {
+		client?.close()?.await(5, TimeUnit.SECONDS)
+		server?.shutdown()?.await(5, TimeUnit.SECONDS)
+		env.shutdown()
+	}
+
+	def "Released connections are reused"() {
+		given: "a pool"
+		def pool = new NetChannelPoolSpec<String, String>(client).env(env).maxConnections(2).get()
+
+		when: "a connection is used and released twice"
+		def first = pool.acquire().await(5, TimeUnit.SECONDS)
+		def reply1 = first.sendAndReceive("hello").await(5, TimeUnit.SECONDS)
+		pool.release(first)
+		def second = pool.acquire().await(5, TimeUnit.SECONDS)
+		def reply2 = second.sendAndReceive("again").await(5, TimeUnit.SECONDS)
+		pool.release(second)
+
+		then: "only one connection was opened"
+		reply1 == "echo hello"
+		reply2 == "echo again"
+		first.is(second)
+		connections.get() == 1
+		pool.connections == 1
+		pool.idle == 1
+
+		cleanup:
+		pool?.shutdown()
+	}
+
+	def "Acquisitions wait in order for a connection and are rejected beyond the pending limit"() {
+		given: "a pool of one connection and one waiting acquisition"
+		def pool = new NetChannelPoolSpec<String, String>(client).
+				env(env).
+				synchronousDispatcher().
+				maxConnections(1).
+				maxPending(1).
+				get()
+
+		when: "three connections are acquired"
+		def first = pool.acquire()
+		def conn = first.await(5, TimeUnit.SECONDS)
+		def second = pool.acquire()
+		def third = pool.acquire()
+
+		then: "the second waits and the third is rejected"
+		!second.complete
+		third.error
+		third.reason() instanceof IllegalStateException
+
+		when: "the connection is released"
+		pool.release(conn)
+
+		then: "it goes to the waiting acquisition"
+		second.await(5, TimeUnit.SECONDS).is(conn)
+		pool.pending == 0
+
+		cleanup:
+		pool?.shutdown()
+	}
+
+	def "Connections that aren't checked out can't be given back"() {
+		given: "a pool"
+		def pool = new NetChannelPoolSpec<String, String>(client).env(env).maxConnections(2).get()
+
+		when: "a connection is released twice"
+		def conn = pool.acquire().await(5, TimeUnit.SECONDS)
+		pool.release(conn)
+		pool.release(conn)
+
+		then: "it is only idle once"
+		pool.idle == 1
+
+		when: "two connections are acquired"
+		def first = pool.acquire().await(5, TimeUnit.SECONDS)
+		def second = pool.acquire().await(5, TimeUnit.SECONDS)
+
+		then: "they are different connections"
+		first.is(conn)
+		!second.is(conn)
+
+		when: "a connection is released after it has been invalidated"
+		pool.invalidate(first)
+		pool.release(first)
+
+		then: "the closed connection isn't reused"
+		pool.idle == 0
+		pool.connections == 1
+
+		cleanup:
+		pool?.shutdown()
+	}
+
+	def "Idle connections are closed after the idle timeout"() {
+		given: "a pool with a short idle timeout"
+		def pool = new NetChannelPoolSpec<String, String>(client).env(env).idleTimeout(100).get()
+
+		when: "a connection is released and left idle"
+		pool.release(pool.acquire().await(5, TimeUnit.SECONDS))
+		def idleBefore = pool.idle
+		Thread.sleep(1000)
+
+		then: "it was closed"
+		idleBefore == 1
+		pool.idle == 0
+		pool.connections == 0
+
+		cleanup:
+		pool?.shutdown()
+	}
+
+	def "A connection that opens after a shutdown is closed"() {
+		given: "a pool whose client hasn't finished opening a connection"
+		def opening = Promises.<NetChannelStream<String, String>> ready(env, SynchronousDispatcher.INSTANCE)
+		def slowClient = Stub(NetClient) {
+			open() >> opening
+		}
+		def pool = new NetChannelPoolSpec<String, String>(slowClient).env(env).synchronousDispatcher().get()
+		def acquisition = pool.acquire()
+
+		when: "the pool is shut down before the connection opens"
+		pool.shutdown()
+		def conn = client.open().await(5, TimeUnit.SECONDS)
+		def closed = new CountDownLatch(1)
+		conn.on().close({ closed.countDown() } as Consumer<Void>)
+		opening.onNext(conn)
+
+		then: "the acquisition failed and the connection was closed instead of pooled"
+		acquisition.error
+		closed.await(5, TimeUnit.SECONDS)
+		pool.idle == 0
+		pool.connections == 0
+	}
+
+	def "Waiting acquisitions fail once the reconnect strategy gives up"() {
+		given: "a pool of connections to an endpoint nobody listens on"
+		def badPort = SocketUtils.findAvailableTcpPort()
+		def badClient = new TcpClientSpec<String, String>(NettyTcpClient).
+				env(env).
+				codec(StandardCodecs.LINE_FEED_CODEC).
+				connect("localhost", badPort).
+				get()
+		def pool = new NetChannelPoolSpec<String, String>(badClient).
+				env(env).
+				reconnect(new IncrementalBackoffReconnectSpec().address("localhost", badPort).interval(50).maxAttempts(3).get()).
+				get()
+
+		when: "a connection is acquired"
+		def acquisition = pool.acquire()
+		acquisition.await(5, TimeUnit.SECONDS)
+
+		then: "it failed after the retries"
+		thrown(Exception)
+		acquisition.error
+		pool.connections == 0
+
+		cleanup:
+		pool?.shutdown()
+		badClient?.close()?.await(5, TimeUnit.SECONDS)
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.tcp.netty
+
+import org.reactivestreams.Publisher
+import org.reactivestreams.Subscriber
+import org.reactivestreams.Subscription
+import reactor.Environment
+import reactor.io.buffer.Buffer
+import reactor.io.codec.PassThroughCodec
+import reactor.io.codec.StandardCodecs
+import reactor.io.net.netty.tcp.NettyTcpServer
+import reactor.io.net.tcp.spec.TcpServerSpec
+import reactor.io.net.tcp.support.SocketUtils
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * @author Jon Brisbin
+ */
+class NettyBackpressureSpec extends Specification {
+
+	Environment env
+	int port
+	def server
+
+	def setup() {
+		env = new Environment()
+		port = SocketUtils.findAvailableTcpPort()
+	}
+
+	def cleanup() {
+		server?.shutdown()?.await(5, TimeUnit.SECONDS)
+		env.shutdown()
+	}
+
+	def "A connection stops reading until its subscriber requests more"() {
+		given: "a server whose connection subscriber requests a single line"
+		def lines = new CopyOnWriteArrayList<String>()
+		def subscribed = new CountDownLatch(1)
+		def allRead = new CountDownLatch(1000)
+		def channel = null
+		Subscription subscription = null
+		server = new TcpServerSpec<String, String>(NettyTcpServer).
+				env(env).
+				listen(port).
+				codec(StandardCodecs.LINE_FEED_CODEC).
+				get()
+		server.consume { conn ->
+			channel = conn.nativeConnection()
+			conn.subscribe(new Subscriber<String>() {
+				void onSubscribe(Subscription s) {
+					subscription = s
+					s.request(1)
+					subscribed.countDown()
+				}
+
+				void onNext(String line) {
+					lines << line
+					allRead.countDown()
+				}
+
+				void onError(Throwable t) {}
+
+				void onComplete() {}
+			})
+		}
+		server.start().awaitSuccess(5, TimeUnit.SECONDS)
+
+		when: "a client sends many lines"
+		def socket = new Socket("localhost", port)
+		def out = socket.outputStream
+		(1..1000).each { out.write("line $it\n".bytes) }
+		out.flush()
+		subscribed.await(5, TimeUnit.SECONDS)
+		Thread.sleep(500)
+
+		then: "only the requested line was delivered and the connection stopped reading"
+		lines == ["line 1"]
+		!channel.config().autoRead
+
+		when: "the rest is requested"
+		subscription.request(Long.MAX_VALUE)
+		allRead.await(5, TimeUnit.SECONDS)
+
+		then: "every line was delivered and the connection reads again"
+		lines.size() == 1000
+		lines[999] == "line 1000"
+		channel.config().autoRead
+
+		cleanup:
+		socket?.close()
+	}
+
+	def "A publisher writing to a connection is held back while the peer doesn't read"() {
+		given: "a server that writes what a publisher emits to every connection"
+		def items = 10000
+		def publisher = new CountingPublisher(items, 1024)
+		server = new TcpServerSpec<Buffer, Buffer>(NettyTcpServer).
+				env(env).
+				listen(port).
+				codec(new PassThroughCodec<Buffer>()).
+				get()
+		server.consume { conn -> conn.echoFrom(publisher) }
+		server.start().awaitSuccess(5, TimeUnit.SECONDS)
+
+		when: "a client connects but doesn't read"
+		def socket = new Socket("localhost", port)
+		Thread.sleep(1000)
+		def emittedWhileBlocked = publisher.emitted.get()
+		Thread.sleep(500)
+
+		then: "the publisher was stopped well before its end"
+		emittedWhileBlocked > 0
+		emittedWhileBlocked < items
+		publisher.emitted.get() == emittedWhileBlocked
+
+		when: "the client reads everything"
+		def read = 0L
+		def bytes = new byte[8192]
+		def n
+		def input = socket.inputStream
+		socket.soTimeout = 5000
+		while (read < items * 1024L && (n = input.read(bytes)) > 0) {
+			read += n
+		}
+
+		then: "the whole publisher was written"
+		read == items * 1024L
+		publisher.emitted.get() == items
+
+		cleanup:
+		socket?.close()
+	}
+
+	/**
+	 * Emits a fixed number of buffers as they are requested, without recursing when requests are made from {@code
+	 * onNext}.
+	 */
+	static class CountingPublisher implements Publisher<Buffer> {
+		final int           items
+		final int           size
+		final AtomicInteger emitted = new AtomicInteger()
+
+		CountingPublisher(int items, int size) {
+			this.items = items
+			this.size = size
+		}
+
+		void subscribe(Subscriber<? super Buffer> s) {
+			def demand = 0L
+			def emitting = false
+			s.onSubscribe(new Subscription() {
+				synchronized void request(long n) {
+					demand += n
+					if (emitting) {
+						return
+					}
+					emitting = true
+					while (demand > 0 && emitted.get() < items) {
+						demand--
+						emitted.incrementAndGet()
+						s.onNext(Buffer.wrap(new byte[size]))
+					}
+					emitting = false
+				}
+
+				void cancel() {}
+			})
+		}
+	}
+
+}
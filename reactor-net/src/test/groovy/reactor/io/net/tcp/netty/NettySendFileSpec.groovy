@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.tcp.netty
+
+import reactor.Environment
+import reactor.io.buffer.Buffer
+import reactor.io.codec.PassThroughCodec
+import reactor.io.net.config.SslOptions
+import reactor.io.net.netty.tcp.NettyTcpServer
+import reactor.io.net.tcp.spec.TcpServerSpec
+import reactor.io.net.tcp.support.SocketUtils
+import reactor.rx.Promises
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.net.ssl.SSLContext
+import javax.net.ssl.TrustManager
+import javax.net.ssl.X509TrustManager
+import java.nio.file.Files
+import java.nio.file.Path
+import java.security.cert.X509Certificate
+import java.util.concurrent.TimeUnit
+
+/**
+ * @author Jon Brisbin
+ */
+class NettySendFileSpec extends Specification {
+
+	Environment env
+	int port
+	Path file
+	byte[] content
+	def server
+	def sent
+
+	def setup() {
+		env = new Environment()
+		port = SocketUtils.findAvailableTcpPort()
+		content = new byte[3 * 1024 * 1024 + 17]
+		new Random(42).nextBytes(content)
+		file = Files.createTempFile("reactor-sendfile", ".bin")
+		Files.write(file, content)
+		sent = Promises.ready(env, env.defaultDispatcher)
+	}
+
+	def cleanup() {
+		server?.shutdown()?.await(5, TimeUnit.SECONDS)
+		env.shutdown()
+		Files.deleteIfExists(file)
+	}
+
+	def "A region of a file is sent over a plain connection"() {
+		given: "a server that sends a region of the file to every connection"
+		startServer(null, 100, content.length - 200)
+
+		when: "a client reads it"
+		def socket = new Socket("localhost", port)
+		def received = socket.inputStream.bytes
+
+		then: "the region was received and the send completed"
+		received.length == content.length - 200
+		Arrays.equals(received, Arrays.copyOfRange(content, 100, content.length - 100))
+		sent.await(5, TimeUnit.SECONDS) == null
+		sent.success
+
+		cleanup:
+		socket?.close()
+	}
+
+	def "A file is sent over an encrypted connection"() {
+		given: "a server that sends the whole file over TLS"
+		startServer(new SslOptions().keystoreFile("./src/test/resources/server.jks").keystorePasswd("changeit"),
+				0, content.length)
+
+		when: "a client reads it"
+		def socket = trustAllContext().socketFactory.createSocket("localhost", port)
+		def received = socket.inputStream.bytes
+
+		then: "the whole file was received and the send completed"
+		received.length == content.length
+		Arrays.equals(received, content)
+		sent.await(5, TimeUnit.SECONDS) == null
+		sent.success
+
+		cleanup:
+		socket?.close()
+	}
+
+	def "Sending past the end of a file fails"() {
+		given: "a server that sends more than the file holds"
+		startServer(null, 10, content.length)
+
+		when: "a client connects"
+		def socket = new Socket("localhost", port)
+		sent.await(5, TimeUnit.SECONDS)
+
+		then: "the send failed"
+		thrown(IllegalArgumentException)
+		sent.error
+
+		cleanup:
+		socket?.close()
+	}
+
+	@Unroll
+	def "A send fails when the connection is reset while the file is written (encrypted: #secure)"() {
+		given: "a server that sends the whole file"
+		def ssl = new SslOptions().keystoreFile("./src/test/resources/server.jks").keystorePasswd("changeit")
+		startServer(secure ? ssl : null, 0, content.length)
+
+		when: "a client reads the first byte and then resets the connection"
+		def socket = (secure
+		              ? trustAllContext().socketFactory.createSocket("localhost", port)
+		              : new Socket("localhost", port))
+		socket.inputStream.read()
+		socket.setSoLinger(true, 0)
+		socket.close()
+		sent.await(5, TimeUnit.SECONDS)
+
+		then: "the send failed instead of completing"
+		thrown(Exception)
+		sent.error
+
+		where:
+		secure << [false, true]
+	}
+
+	def startServer(SslOptions ssl, long position, long count) {
+		server = new TcpServerSpec<Buffer, Buffer>(NettyTcpServer).
+				env(env).
+				listen(port).
+				ssl(ssl).
+				codec(new PassThroughCodec<Buffer>()).
+				get()
+		server.consume { conn ->
+			conn.sendFile(file, position, count).
+					onSuccess { sent.onNext(null); conn.close() }.
+					onError { sent.onError(it) }
+		}
+		server.start().awaitSuccess(5, TimeUnit.SECONDS)
+	}
+
+	static SSLContext trustAllContext() {
+		def context = SSLContext.getInstance("TLS")
+		context.init(null, [new TrustAllManager()] as TrustManager[], null)
+		context
+	}
+
+	static class TrustAllManager implements X509TrustManager {
+		void checkClientTrusted(X509Certificate[] chain, String authType) {}
+
+		void checkServerTrusted(X509Certificate[] chain, String authType) {}
+
+		X509Certificate[] getAcceptedIssuers() { new X509Certificate[0] }
+	}
+
+}
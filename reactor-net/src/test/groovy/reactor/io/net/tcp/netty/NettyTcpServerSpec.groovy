@@ -21,6 +21,8 @@ import reactor.fn.Consumer
 import reactor.io.buffer.Buffer
 import reactor.io.codec.PassThroughCodec
 import reactor.io.codec.json.JsonCodec
+import reactor.io.net.config.ServerSocketOptions
+import reactor.io.net.netty.NettyNativeTransport
 import reactor.io.net.netty.tcp.NettyTcpServer
 import reactor.io.net.tcp.spec.TcpServerSpec
 import spock.lang.Specification
@@ -124,6 +126,55 @@ class NettyTcpServerSpec extends Specification {
 		stopLatch.count == 0
 	}
 
+	def "NettyTcpServer can use the native epoll transport"() {
+		given: "two TcpServers sharing a port with epoll and SO_REUSEPORT enabled"
+		def stopLatch = new CountDownLatch(2)
+		def dataLatch = new CountDownLatch(1)
+		def options = new ServerSocketOptions().epoll(true).reusePort(true)
+		def servers = (1..(NettyNativeTransport.epollAvailable ? 2 : 1)).collect {
+			new TcpServerSpec<Buffer, Buffer>(NettyTcpServer).
+					env(env).
+					listen(port).
+					options(options).
+					codec(new PassThroughCodec<Buffer>()).
+					get()
+		}
+
+		when: "the servers are started"
+		servers.each { server ->
+			server.consume { conn ->
+				conn.consume { data ->
+					conn.echo Buffer.wrap("Hello World!")
+				}
+			}
+		}
+
+		then: "the servers were started"
+		servers.every { it.start().awaitSuccess(5, TimeUnit.SECONDS) }
+
+		when: "data is sent"
+		def client = new SimpleClient(port, dataLatch, Buffer.wrap("Hello World!"))
+		client.start()
+		dataLatch.await(5, TimeUnit.SECONDS)
+
+		then: "data was received"
+		new Buffer(client.data).asString() == "Hello World!"
+
+		when: "the servers are stopped"
+		servers.each {
+			it.shutdown().onSuccess({
+				stopLatch.countDown()
+			} as Consumer<Void>)
+		}
+		if (servers.size() == 1) {
+			stopLatch.countDown()
+		}
+		stopLatch.await(5, TimeUnit.SECONDS)
+
+		then: "the servers were stopped"
+		stopLatch.count == 0
+	}
+
 	static class SimpleClient extends Thread {
 		final int port
 		final CountDownLatch latch
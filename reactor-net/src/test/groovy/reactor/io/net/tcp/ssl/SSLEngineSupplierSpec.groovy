@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.tcp.ssl
+
+import reactor.fn.Supplier
+import reactor.io.net.config.SslOptions
+import spock.lang.Specification
+
+import javax.net.ssl.SSLContext
+import javax.net.ssl.SSLEngine
+import javax.net.ssl.SSLEngineResult
+import javax.net.ssl.SSLSession
+import javax.net.ssl.TrustManager
+import javax.net.ssl.X509TrustManager
+import java.nio.ByteBuffer
+import java.security.cert.X509Certificate
+
+/**
+ * @author Jon Brisbin
+ */
+class SSLEngineSupplierSpec extends Specification {
+
+	def serverOpts = new SslOptions().
+			keystoreFile("./src/test/resources/server.jks").
+			keystorePasswd("changeit").
+			sslProtocol("TLSv1.2").
+			sessionCacheSize(128).
+			sessionTimeout(600)
+
+	def clientOpts = new SslOptions().
+			keystoreFile("./src/test/resources/client.jks").
+			keystorePasswd("changeit").
+			sslProtocol("TLSv1.2").
+			trustManagers({ [new TrustAllManager()] as TrustManager[] } as Supplier<TrustManager[]>)
+
+	def "The SSLContext is built once and configured for session caching"() {
+		when: "a supplier is created"
+		def supplier = new SSLEngineSupplier(serverOpts, false)
+
+		then: "every engine is new but comes from the same context"
+		!supplier.get().is(supplier.get())
+		!supplier.get().useClientMode
+		supplier.context.serverSessionContext.sessionCacheSize == 128
+		supplier.context.serverSessionContext.sessionTimeout == 600
+	}
+
+	def "Client connections to the same peer resume their session"() {
+		given: "a server and a client supplier"
+		def server = new SSLEngineSupplier(serverOpts, false)
+		def client = new SSLEngineSupplier(clientOpts, true)
+
+		when: "two connections are made to the same peer"
+		def first = handshake(client.get("localhost", 26876), server.get())
+		def second = handshake(client.get("localhost", 26876), server.get())
+
+		then: "the second resumes the first one's session"
+		first.id.length > 0
+		Arrays.equals(first.id, second.id)
+		first.creationTime == second.creationTime
+	}
+
+	def "Session settings without a keystore don't change the JVM's default context"() {
+		given: "the default context's session cache size"
+		def defaultSize = SSLContext.default.clientSessionContext.sessionCacheSize
+
+		when: "a client supplier without a keystore sets its own"
+		def supplier = new SSLEngineSupplier(new SslOptions().sessionCacheSize(defaultSize + 1), true)
+
+		then: "only the supplier's context was changed"
+		supplier.context.clientSessionContext.sessionCacheSize == defaultSize + 1
+		SSLContext.default.clientSessionContext.sessionCacheSize == defaultSize
+	}
+
+	static SSLSession handshake(SSLEngine client, SSLEngine server) {
+		def clientToServer = ByteBuffer.allocate(client.session.packetBufferSize)
+		def serverToClient = ByteBuffer.allocate(server.session.packetBufferSize)
+		def clientIn = ByteBuffer.allocate(client.session.applicationBufferSize)
+		def serverIn = ByteBuffer.allocate(server.session.applicationBufferSize)
+		def empty = ByteBuffer.allocate(0)
+
+		client.beginHandshake()
+		server.beginHandshake()
+		for (int i = 0; !(isDone(client) && isDone(server)); i++) {
+			assert i < 1000, "Handshake did not complete"
+			client.wrap(empty, clientToServer)
+			runTasks(client)
+			server.wrap(empty, serverToClient)
+			runTasks(server)
+
+			clientToServer.flip()
+			server.unwrap(clientToServer, serverIn)
+			clientToServer.compact()
+			runTasks(server)
+
+			serverToClient.flip()
+			client.unwrap(serverToClient, clientIn)
+			serverToClient.compact()
+			runTasks(client)
+		}
+		client.session
+	}
+
+	static boolean isDone(SSLEngine engine) {
+		def status = engine.handshakeStatus
+		status == SSLEngineResult.HandshakeStatus.FINISHED || status == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+	}
+
+	static void runTasks(SSLEngine engine) {
+		Runnable task
+		while (null != (task = engine.delegatedTask)) {
+			task.run()
+		}
+	}
+
+	static class TrustAllManager implements X509TrustManager {
+		void checkClientTrusted(X509Certificate[] chain, String authType) {}
+
+		void checkServerTrusted(X509Certificate[] chain, String authType) {}
+
+		X509Certificate[] getAcceptedIssuers() { new X509Certificate[0] }
+	}
+
+}
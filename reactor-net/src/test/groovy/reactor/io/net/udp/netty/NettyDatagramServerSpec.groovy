@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc., Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.udp.netty
+
+import reactor.Environment
+import reactor.io.codec.StandardCodecs
+import reactor.io.net.config.ServerSocketOptions
+import reactor.io.net.netty.NettyNativeTransport
+import reactor.io.net.netty.udp.NettyDatagramServer
+import reactor.io.net.tcp.support.SocketUtils
+import reactor.io.net.udp.spec.DatagramServerSpec
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * @author Jon Brisbin
+ */
+class NettyDatagramServerSpec extends Specification {
+
+	Environment env
+	int port
+	def server
+
+	def setup() {
+		env = new Environment()
+		port = SocketUtils.findAvailableUdpPort()
+	}
+
+	def cleanup() {
+		server?.shutdown()?.await(5, TimeUnit.SECONDS)
+		env.shutdown()
+	}
+
+	def "Every datagram is decoded on its own"() {
+		given: "a server that collects what it receives"
+		def received = new CopyOnWriteArrayList<String>()
+		def latch = new CountDownLatch(500)
+		startServer(new ServerSocketOptions()) { msg ->
+			received << msg
+			latch.countDown()
+		}
+
+		when: "a burst of datagrams is sent"
+		def socket = new DatagramSocket()
+		def target = new InetSocketAddress("localhost", port)
+		(1..500).each {
+			def bytes = "datagram $it".bytes
+			socket.send(new DatagramPacket(bytes, bytes.length, target))
+			if (it % 10 == 0) {
+				Thread.sleep(5)
+			}
+		}
+
+		then: "each one was delivered whole"
+		latch.await(5, TimeUnit.SECONDS)
+		received.toSet() == (1..500).collect { "datagram $it".toString() }.toSet()
+
+		cleanup:
+		socket?.close()
+	}
+
+	def "Data is sent to a given peer, one datagram at a time or in batches"() {
+		given: "a running server and a peer"
+		startServer(new ServerSocketOptions()) {}
+		def peer = new DatagramSocket(0, InetAddress.getByName("localhost"))
+		peer.soTimeout = 5000
+		def recipient = new InetSocketAddress("localhost", peer.localPort)
+
+		when: "a datagram and then a batch are sent to the peer"
+		server.send("single", recipient)
+		def out = server.out(recipient)
+		out.start()
+		(1..3).each { out.accept("batch $it".toString()) }
+		out.end()
+
+		then: "the peer received all of them"
+		(1..4).collect { receive(peer) } == ["single", "batch 1", "batch 2", "batch 3"]
+
+		cleanup:
+		peer?.close()
+	}
+
+	@IgnoreIf({ !NettyNativeTransport.isEpollAvailable() })
+	def "A socket is bound per I/O thread when the port can be reused"() {
+		given: "a server with SO_REUSEPORT on the epoll transport"
+		def latch = new CountDownLatch(100)
+		startServer(new ServerSocketOptions().epoll(true).reusePort(true)) { latch.countDown() }
+
+		when: "datagrams are sent from many ports"
+		def sockets = (1..20).collect { new DatagramSocket() }
+		def target = new InetSocketAddress("localhost", port)
+		(1..5).each { i ->
+			sockets.each { s ->
+				def bytes = "datagram $i".bytes
+				s.send(new DatagramPacket(bytes, bytes.length, target))
+			}
+		}
+
+		then: "every socket of the server is bound and everything was received"
+		server.socketCount == Environment.PROCESSORS
+		server.channel.is(server.netChannel.nativeConnection())
+		latch.await(5, TimeUnit.SECONDS)
+
+		cleanup:
+		sockets*.close()
+	}
+
+	def "A server that was never started shuts down"() {
+		given: "a server that isn't started"
+		server = new DatagramServerSpec<String, String>(NettyDatagramServer).
+				env(env).
+				listen(port).
+				codec(StandardCodecs.STRING_CODEC).
+				get()
+
+		when: "it is shut down"
+		def shutdown = server.shutdown()
+		shutdown.await(5, TimeUnit.SECONDS)
+
+		then: "the shutdown completed"
+		shutdown.success
+	}
+
+	def startServer(ServerSocketOptions options, Closure onMessage) {
+		server = new DatagramServerSpec<String, String>(NettyDatagramServer).
+				env(env).
+				listen(port).
+				options(options).
+				codec(StandardCodecs.STRING_CODEC).
+				get()
+		server.consume { ch -> ch.consume(onMessage) }
+		server.start().await(5, TimeUnit.SECONDS)
+	}
+
+	static String receive(DatagramSocket socket) {
+		def packet = new DatagramPacket(new byte[2048], 2048)
+		socket.receive(packet)
+		new String(packet.data, 0, packet.length)
+	}
+
+}
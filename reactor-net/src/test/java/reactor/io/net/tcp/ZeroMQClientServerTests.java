@@ -5,12 +5,20 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.zeromq.ZContext;
+import org.zeromq.ZFrame;
+import org.zeromq.ZMsg;
 import reactor.Environment;
 import reactor.core.dispatch.SynchronousDispatcher;
+import reactor.fn.batch.BatchConsumer;
 import reactor.io.buffer.Buffer;
+import reactor.io.codec.Codec;
 import reactor.io.codec.json.JacksonJsonCodec;
 import reactor.io.codec.kryo.KryoCodec;
 import reactor.io.net.AbstractNetClientServerTest;
+import reactor.io.net.NetChannelStream;
+import reactor.io.net.tcp.spec.TcpClientSpec;
+import reactor.io.net.zmq.ZeroMQClientSocketOptions;
 import reactor.io.net.zmq.tcp.ZeroMQ;
 import reactor.io.net.zmq.tcp.ZeroMQTcpClient;
 import reactor.io.net.zmq.tcp.ZeroMQTcpServer;
@@ -18,7 +26,7 @@ import reactor.io.net.zmq.tcp.ZeroMQTcpServer;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 /**
  * @author Jon Brisbin
@@ -133,4 +141,101 @@ public class ZeroMQClientServerTests extends AbstractNetClientServerTest {
 		assertTrue("ROUTER socket received inproc data", latch.await(1, TimeUnit.SECONDS));
 	}
 
+	@Test(timeout = 60000)
+	public void zmqInprocSendsEveryMessage() throws InterruptedException {
+		final int messages = 10000;
+		final CountDownLatch received = new CountDownLatch(messages);
+		ZMQ.router("inproc://many" + getPort())
+		   .onSuccess(ch -> ch.consume(data -> received.countDown()));
+
+		// we have to sleep a couple cycles to let ZeroMQ get set up on inproc
+		Thread.sleep(500);
+
+		ZMQ.dealer("inproc://many" + getPort())
+		   .onSuccess(ch -> {
+			   for (int i = 0; i < messages; i++) {
+				   ch.send(data);
+			   }
+		   });
+
+		assertTrue("ROUTER socket received every inproc message", received.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test(timeout = 60000)
+	public void zmqInprocSendsBatchAsOneMessage() throws InterruptedException {
+		final int batchSize = 100;
+		ZContext ctx = new ZContext();
+		org.zeromq.ZMQ.Socket router = bindRouter(ctx, "inproc://batch" + getPort());
+		TcpClient<Data, Data> client = dealer(ctx, "inproc://batch" + getPort(), KRYO_CODEC);
+		try {
+			NetChannelStream<Data, Data> ch = client.open().await(5, TimeUnit.SECONDS);
+			BatchConsumer<Data> out = ch.out();
+			out.start();
+			for (int i = 0; i < batchSize; i++) {
+				out.accept(data);
+			}
+			out.end();
+
+			ZMsg msg = ZMsg.recvMsg(router);
+			assertNotNull("ROUTER socket received the inproc batch", msg);
+			// the identity of the DEALER, then one frame per item
+			assertEquals(batchSize + 1, msg.size());
+			msg.pop();
+			ZFrame frame;
+			while (null != (frame = msg.pop())) {
+				assertEquals(data, KRYO_CODEC.decoder(null).apply(Buffer.wrap(frame.getData())));
+			}
+
+			router.setReceiveTimeOut(200);
+			assertNull("The whole batch was sent as one message", ZMsg.recvMsg(router));
+		} finally {
+			client.close().await(5, TimeUnit.SECONDS);
+			ctx.destroy();
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void zmqWrittenBuffersCanBeReused() throws InterruptedException {
+		ZContext ctx = new ZContext();
+		org.zeromq.ZMQ.Socket router = bindRouter(ctx, "inproc://reuse" + getPort());
+		TcpClient<Buffer, Buffer> client = dealer(ctx, "inproc://reuse" + getPort(), null);
+		try {
+			NetChannelStream<Buffer, Buffer> ch = client.open().await(5, TimeUnit.SECONDS);
+			Buffer buffer = Buffer.wrap("Hello World!");
+			BatchConsumer<Buffer> out = ch.out();
+			out.start();
+			out.accept(buffer);
+			// reuse the buffer before the frame has been sent
+			buffer.clear().append("Goodbye now!").flip();
+			out.end();
+
+			ZMsg msg = ZMsg.recvMsg(router);
+			assertNotNull("ROUTER socket received the frame", msg);
+			msg.pop();
+			assertEquals("Hello World!", msg.popString());
+		} finally {
+			client.close().await(5, TimeUnit.SECONDS);
+			ctx.destroy();
+		}
+	}
+
+	private static org.zeromq.ZMQ.Socket bindRouter(ZContext ctx, String addr) {
+		org.zeromq.ZMQ.Socket router = ctx.createSocket(org.zeromq.ZMQ.ROUTER);
+		router.setReceiveTimeOut(5000);
+		router.bind(addr);
+		return router;
+	}
+
+	private static <T> TcpClient<T, T> dealer(ZContext ctx, String addr, Codec<Buffer, T, T> codec) {
+		return new TcpClientSpec<T, T>(ZeroMQTcpClient.class)
+				.env(ENV)
+				.dispatcher(SynchronousDispatcher.INSTANCE)
+				.codec(codec)
+				.options(new ZeroMQClientSocketOptions()
+						         .context(ctx)
+						         .connectAddresses(addr)
+						         .socketType(org.zeromq.ZMQ.DEALER))
+				.get();
+	}
+
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2011-2015 Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package reactor.io.net.tcp.ssl;
+
+import org.junit.Before;
+import org.junit.Test;
+import reactor.AbstractPerformanceTest;
+import reactor.fn.Supplier;
+import reactor.io.net.config.SslOptions;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.nio.ByteBuffer;
+import java.security.cert.X509Certificate;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares full TLS handshakes with handshakes that resume a cached session, between engines from {@link
+ * SSLEngineSupplier SSLEngineSuppliers} talking over an in-memory loopback.
+ *
+ * @author Jon Brisbin
+ */
+public class SSLHandshakeThroughputTests extends AbstractPerformanceTest {
+
+	private SSLEngineSupplier server;
+	private SSLEngineSupplier client;
+
+	@Override
+	@Before
+	public void setup() {
+		super.setup();
+		try {
+			server = new SSLEngineSupplier(new SslOptions().keystoreFile("./src/test/resources/server.jks")
+			                                               .keystorePasswd("changeit")
+			                                               .sslProtocol("TLSv1.2"), false);
+			client = new SSLEngineSupplier(new SslOptions().keystoreFile("./src/test/resources/client.jks")
+			                                               .keystorePasswd("changeit")
+			                                               .sslProtocol("TLSv1.2")
+			                                               .trustManagers(new Supplier<TrustManager[]>() {
+				                                               @Override
+				                                               public TrustManager[] get() {
+					                                               return new TrustManager[]{new TrustAllManager()};
+				                                               }
+			                                               }), true);
+		} catch (Exception e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	@Test
+	public void fullHandshakeThroughput() throws SSLException {
+		int port = 10000;
+		startThroughputTest("Full handshake");
+		while (withinTimeout()) {
+			// a new peer every time, so there is no session to resume
+			handshake(client.get("localhost", port++), server.get());
+			counter.increment();
+		}
+		stopThroughputTest("Full handshake");
+	}
+
+	@Test
+	public void resumedHandshakeThroughput() throws SSLException {
+		handshake(client.get("localhost", 1), server.get());
+
+		startThroughputTest("Resumed handshake");
+		while (withinTimeout()) {
+			handshake(client.get("localhost", 1), server.get());
+			counter.increment();
+		}
+		stopThroughputTest("Resumed handshake");
+	}
+
+	private static void handshake(SSLEngine client, SSLEngine server) throws SSLException {
+		ByteBuffer clientToServer = ByteBuffer.allocate(client.getSession().getPacketBufferSize());
+		ByteBuffer serverToClient = ByteBuffer.allocate(server.getSession().getPacketBufferSize());
+		ByteBuffer clientIn = ByteBuffer.allocate(client.getSession().getApplicationBufferSize());
+		ByteBuffer serverIn = ByteBuffer.allocate(server.getSession().getApplicationBufferSize());
+		ByteBuffer empty = ByteBuffer.allocate(0);
+
+		client.beginHandshake();
+		server.beginHandshake();
+		for (int i = 0; !(isDone(client) && isDone(server)); i++) {
+			assertTrue("Handshake did not complete", i < 1000);
+			client.wrap(empty, clientToServer);
+			runTasks(client);
+			server.wrap(empty, serverToClient);
+			runTasks(server);
+
+			clientToServer.flip();
+			server.unwrap(clientToServer, serverIn);
+			clientToServer.compact();
+			runTasks(server);
+
+			serverToClient.flip();
+			client.unwrap(serverToClient, clientIn);
+			serverToClient.compact();
+			runTasks(client);
+		}
+	}
+
+	private static boolean isDone(SSLEngine engine) {
+		SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+		return status == SSLEngineResult.HandshakeStatus.FINISHED
+				|| status == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING;
+	}
+
+	private static void runTasks(SSLEngine engine) {
+		Runnable task;
+		while (null != (task = engine.getDelegatedTask())) {
+			task.run();
+		}
+	}
+
+	private static class TrustAllManager implements X509TrustManager {
+		@Override
+		public void checkClientTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		@Override
+		public void checkServerTrusted(X509Certificate[] chain, String authType) {
+		}
+
+		@Override
+		public X509Certificate[] getAcceptedIssuers() {
+			return new X509Certificate[0];
+		}
+	}
+
+}